@@ -0,0 +1,102 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.usfirst.frc4048.swerve.math.CentricMode;
+import org.usfirst.frc4048.swerve.math.SwerveBatch;
+import org.usfirst.frc4048.swerve.math.SwerveMath;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for evaluating the move calculation over a large batch of samples (time per sample): the batch API,
+ * sequential and split across the cores, against calling the single sample versions in a loop
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+
+    private static final int COUNT = 1 << 18;
+
+    @Param({"ROBOT", "FIELD"})
+    public CentricMode centricMode;
+
+    private final double[] fwd = new double[COUNT];
+    private final double[] str = new double[COUNT];
+    private final double[] rcw = new double[COUNT];
+    private final double[] gyro = new double[COUNT];
+
+    private final double[][] angles = new double[SwerveMath.WHEEL_COUNT][COUNT];
+    private final double[][] speeds = new double[SwerveMath.WHEEL_COUNT][COUNT];
+    private final double[] sampleAngles = new double[SwerveMath.WHEEL_COUNT];
+    private final double[] sampleSpeeds = new double[SwerveMath.WHEEL_COUNT];
+
+    private SwerveMath swerveMath;
+    private SwerveBatch sequential;
+    private SwerveBatch parallel;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(4048);
+        for (int i = 0; i < COUNT; i++) {
+            fwd[i] = random.nextDouble() * 2 - 1;
+            str[i] = random.nextDouble() * 2 - 1;
+            rcw[i] = random.nextDouble() * 2 - 1;
+            gyro[i] = random.nextDouble() * 360;
+        }
+
+        swerveMath = new SwerveMath(BenchmarkConstants.W, BenchmarkConstants.L);
+        swerveMath.setCentricMode(centricMode);
+        sequential = new SwerveBatch(swerveMath);
+        sequential.setParallelThreshold(Integer.MAX_VALUE);
+        parallel = new SwerveBatch(swerveMath);
+        parallel.setParallelThreshold(1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void batch(Blackhole blackhole) {
+        sequential.move(fwd, str, rcw, gyro, COUNT, angles, speeds);
+        blackhole.consume(angles);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void batchParallel(Blackhole blackhole) {
+        parallel.move(fwd, str, rcw, gyro, COUNT, angles, speeds);
+        blackhole.consume(angles);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void primitiveLoop(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            swerveMath.move(fwd[i], str[i], rcw[i], gyro[i], sampleAngles, sampleSpeeds);
+            blackhole.consume(sampleAngles);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void listLoop(Blackhole blackhole) {
+        for (int i = 0; i < COUNT; i++) {
+            blackhole.consume(swerveMath.move(fwd[i], str[i], rcw[i], gyro[i]));
+        }
+    }
+}
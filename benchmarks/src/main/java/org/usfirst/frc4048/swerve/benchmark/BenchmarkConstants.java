@@ -0,0 +1,15 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+/**
+ * Robot dimensions and gear ratio used by the benchmarks (same as the ones used in the tests)
+ */
+final class BenchmarkConstants {
+
+    static final double L = 19;
+    static final double W = 27.5;
+
+    static final double GEAR_RATIO = 1988 / 1.2;
+
+    private BenchmarkConstants() {
+    }
+}
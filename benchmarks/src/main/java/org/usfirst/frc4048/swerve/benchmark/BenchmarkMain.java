@@ -0,0 +1,36 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler (allocation rate) and writes the results as JSON.
+ * Usage: java -jar benchmarks.jar [result-file.json] [additional JMH options]
+ * The result file defaults to jmh-result.json. Any JMH command line option (e.g. a benchmark name regex) can follow.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        String resultFile = "jmh-result.json";
+        String[] jmhArgs = args;
+
+        if (args.length > 0 && args[0].endsWith(".json")) {
+            resultFile = args[0];
+            jmhArgs = new String[args.length - 1];
+            System.arraycopy(args, 1, jmhArgs, 0, jmhArgs.length);
+        }
+
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(jmhArgs))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile)
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,111 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.usfirst.frc4048.swerve.drive.CanTalonSwerveEnclosure;
+import org.usfirst.frc4048.swerve.drive.SwerveDrive;
+import org.usfirst.frc4048.swerve.drive.TalonFramePolicy;
+import org.usfirst.frc4048.swerve.drive.VirtualClock;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+import org.usfirst.frc4048.swerve.sim.SimulatedCanBus;
+import org.usfirst.frc4048.swerve.sim.SimulatedTalon;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drive cycles of four CanTalonSwerveEnclosures over a simulated CAN bus, on a virtual clock at a 20ms period.
+ * Each operation returns the simulated latency of the cycle: the time until the bus is done with the frames queued
+ * during the cycle (the setpoints and the periodic frames that were due).
+ * The teardown prints the simulated bus utilization, queueing delay and frame rates, for each enclosure strategy
+ * (every setpoint sent, or write coalescing), frame periods (the Talon defaults, or the enabled state of
+ * TalonFramePolicy.defaultPolicy) and amount of other traffic on the bus (other Talons).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CanBusBenchmark {
+
+    private static final long CYCLE_NANOS = 20000000L;
+
+    @Param({"ALWAYS", "COALESCING"})
+    public String strategy;
+
+    @Param({"DEFAULT", "POLICY"})
+    public String framePeriods;
+
+    @Param({"0", "12"})
+    public int otherTalons;
+
+    @Param({"IDLE", "RANDOM"})
+    public InputDistribution distribution;
+
+    private final double[] fwd = new double[InputDistribution.SAMPLES];
+    private final double[] str = new double[InputDistribution.SAMPLES];
+    private final double[] rcw = new double[InputDistribution.SAMPLES];
+    private final double[] gyro = new double[InputDistribution.SAMPLES];
+
+    private VirtualClock clock;
+    private SimulatedCanBus bus;
+    private SwerveDrive swerveDrive;
+    private int index;
+
+    @Setup
+    public void setup() {
+        distribution.fill(fwd, str, rcw, gyro, 4048);
+
+        clock = new VirtualClock();
+        bus = new SimulatedCanBus(clock);
+        CanTalonSwerveEnclosure[] enclosures = new CanTalonSwerveEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i] = new CanTalonSwerveEnclosure("Enclosure " + (i + 1),
+                    new SimulatedTalon(bus, 2 * i + 1), new SimulatedTalon(bus, 2 * i + 2),
+                    BenchmarkConstants.GEAR_RATIO);
+            if ("COALESCING".equals(strategy)) {
+                enclosures[i].setWriteCoalescing(0.01, 0.001, 100000000L);
+            }
+            if ("POLICY".equals(framePeriods)) {
+                enclosures[i].setFramePolicy(TalonFramePolicy.defaultPolicy());
+                enclosures[i].setRobotState(TalonFramePolicy.RobotState.ENABLED);
+            }
+        }
+        for (int i = 0; i < otherTalons; i++) {
+            new SimulatedTalon(bus, 9 + i);
+        }
+
+        swerveDrive = new SwerveDrive(enclosures, SwerveKinematics.rectangle(BenchmarkConstants.W, BenchmarkConstants.L));
+        swerveDrive.setClock(clock);
+        bus.resetStatistics();
+    }
+
+    @Benchmark
+    public long cycle() {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        long start = clock.nanoTime();
+        swerveDrive.move(fwd[i], str[i], rcw[i], gyro[i]);
+        // Zero if nothing was sent in the cycle
+        long latency = Math.max(bus.getBusyUntil() - start, 0L);
+        clock.set(start + CYCLE_NANOS);
+        return latency;
+    }
+
+    @TearDown
+    public void report() {
+        System.out.printf("%n[%s, %d other talons, %s] bus utilization %.1f%%, %.0f frames/s (drive module 1: %.0f/s),"
+                        + " queue delay mean %.1fus max %.1fus%n",
+                strategy, otherTalons, distribution, 100 * bus.getUtilization(), bus.getTotalFramesPerSecond(),
+                bus.getFramesPerSecond(1), bus.getMeanQueueDelayNanos() / 1000, bus.getMaxQueueDelayNanos() / 1000.0);
+    }
+}
@@ -0,0 +1,80 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.usfirst.frc4048.swerve.drive.SwerveDrive;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+import org.usfirst.frc4048.swerve.math.CentricMode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for a full SwerveDrive.move cycle (math and four enclosures) using mock enclosures, with and without the
+ * move cache (which skips the unchanged cycles, e.g. the IDLE distribution)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DriveCycleBenchmark {
+
+    @Param({"ROBOT", "FIELD"})
+    public CentricMode centricMode;
+
+    @Param({"IDLE", "TRANSLATION", "ROTATION", "RANDOM"})
+    public InputDistribution distribution;
+
+    @Param({"false", "true"})
+    public boolean moveCache;
+
+    private final double[] fwd = new double[InputDistribution.SAMPLES];
+    private final double[] str = new double[InputDistribution.SAMPLES];
+    private final double[] rcw = new double[InputDistribution.SAMPLES];
+    private final double[] gyro = new double[InputDistribution.SAMPLES];
+
+    private TestEnclosure enclosure1;
+    private SwerveDrive swerveDrive;
+    private int index;
+
+    @Setup
+    public void setup() {
+        distribution.fill(fwd, str, rcw, gyro, 4048);
+
+        enclosure1 = new TestEnclosure("Enclosure 1", BenchmarkConstants.GEAR_RATIO);
+        TestEnclosure enclosure2 = new TestEnclosure("Enclosure 2", BenchmarkConstants.GEAR_RATIO);
+        TestEnclosure enclosure3 = new TestEnclosure("Enclosure 3", BenchmarkConstants.GEAR_RATIO);
+        TestEnclosure enclosure4 = new TestEnclosure("Enclosure 4", BenchmarkConstants.GEAR_RATIO);
+
+        swerveDrive = new SwerveDrive(enclosure1, enclosure2, enclosure3, enclosure4,
+                BenchmarkConstants.W, BenchmarkConstants.L);
+        swerveDrive.setCentricMode(centricMode);
+        if (moveCache) {
+            swerveDrive.enableMoveCache(0.001, 0.5, 5, 100000000L);
+        }
+    }
+
+    @Benchmark
+    public double move() {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        swerveDrive.move(fwd[i], str[i], rcw[i], gyro[i]);
+        return enclosure1.getAngle();
+    }
+
+    @Benchmark
+    public double moveBoxedGyro() {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        swerveDrive.move(fwd[i], str[i], rcw[i], Double.valueOf(gyro[i]));
+        return enclosure1.getAngle();
+    }
+}
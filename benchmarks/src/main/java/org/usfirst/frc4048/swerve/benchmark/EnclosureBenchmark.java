@@ -0,0 +1,81 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.usfirst.frc4048.swerve.drive.SwerveUtils;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+import org.usfirst.frc4048.swerve.math.SwerveMath;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for a single BaseEnclosure.move (including the steer optimization) using the mock enclosure,
+ * and for the encoder conversion utility.
+ * The speed/angle inputs are the directives SwerveMath computes for the first wheel from the input distribution,
+ * and the encoder positions are spread over several turns in both directions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnclosureBenchmark {
+
+    @Param({"IDLE", "TRANSLATION", "ROTATION", "RANDOM"})
+    public InputDistribution distribution;
+
+    private final double[] speed = new double[InputDistribution.SAMPLES];
+    private final double[] angle = new double[InputDistribution.SAMPLES];
+    private final int[] encoder = new int[InputDistribution.SAMPLES];
+
+    private TestEnclosure enclosure;
+    private int index;
+
+    @Setup
+    public void setup() {
+        double[] fwd = new double[InputDistribution.SAMPLES];
+        double[] str = new double[InputDistribution.SAMPLES];
+        double[] rcw = new double[InputDistribution.SAMPLES];
+        double[] gyro = new double[InputDistribution.SAMPLES];
+        distribution.fill(fwd, str, rcw, gyro, 4048);
+
+        SwerveMath swerveMath = new SwerveMath(BenchmarkConstants.W, BenchmarkConstants.L);
+        double[] angles = new double[SwerveMath.WHEEL_COUNT];
+        double[] speeds = new double[SwerveMath.WHEEL_COUNT];
+        Random random = new Random(4048);
+
+        for (int i = 0; i < InputDistribution.SAMPLES; i++) {
+            swerveMath.move(fwd[i], str[i], rcw[i], SwerveMath.NO_GYRO, angles, speeds);
+            speed[i] = speeds[0];
+            angle[i] = angles[0];
+            encoder[i] = (int) ((random.nextDouble() * 10 - 5) * BenchmarkConstants.GEAR_RATIO);
+        }
+
+        enclosure = new TestEnclosure("Enclosure 1", BenchmarkConstants.GEAR_RATIO);
+    }
+
+    @Benchmark
+    public double move() {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        enclosure.setEncPosition(encoder[i]);
+        enclosure.move(speed[i], angle[i]);
+        return enclosure.getAngle();
+    }
+
+    @Benchmark
+    public double convertEncoderValue() {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        return SwerveUtils.convertEncoderValue(encoder[i], BenchmarkConstants.GEAR_RATIO);
+    }
+}
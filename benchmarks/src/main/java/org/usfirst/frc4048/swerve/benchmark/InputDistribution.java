@@ -0,0 +1,60 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+import java.util.Random;
+
+/**
+ * The drive input distributions the benchmarks are run with. Each distribution fills pre-allocated arrays
+ * of (fwd, str, rcw, gyro) samples so that generating the input is never part of the measurement.
+ */
+public enum InputDistribution {
+    /** Robot standing still: all inputs are 0 */
+    IDLE,
+    /** Driving without rotation: random direction and magnitude, rcw is 0 */
+    TRANSLATION,
+    /** Rotating in place: fwd and str are 0 */
+    ROTATION,
+    /** Uniformly random fwd, str and rcw */
+    RANDOM;
+
+    /**
+     * The number of samples in each input set. Must be a power of 2 so the benchmarks can wrap with a mask.
+     */
+    public static final int SAMPLES = 1024;
+
+    /**
+     * Fill the given arrays with samples from this distribution
+     * @param seed random seed, so that runs are repeatable
+     */
+    public void fill(double[] fwd, double[] str, double[] rcw, double[] gyro, long seed) {
+        Random random = new Random(seed);
+
+        for (int i = 0; i < fwd.length; i++) {
+            switch (this) {
+                case IDLE:
+                    fwd[i] = 0.0;
+                    str[i] = 0.0;
+                    rcw[i] = 0.0;
+                    break;
+                case TRANSLATION:
+                    double direction = random.nextDouble() * 2 * Math.PI;
+                    double magnitude = random.nextDouble();
+                    fwd[i] = magnitude * Math.cos(direction);
+                    str[i] = magnitude * Math.sin(direction);
+                    rcw[i] = 0.0;
+                    break;
+                case ROTATION:
+                    fwd[i] = 0.0;
+                    str[i] = 0.0;
+                    rcw[i] = random.nextDouble() * 2 - 1;
+                    break;
+                case RANDOM:
+                default:
+                    fwd[i] = random.nextDouble() * 2 - 1;
+                    str[i] = random.nextDouble() * 2 - 1;
+                    rcw[i] = random.nextDouble() * 2 - 1;
+                    break;
+            }
+            gyro[i] = random.nextDouble() * 360;
+        }
+    }
+}
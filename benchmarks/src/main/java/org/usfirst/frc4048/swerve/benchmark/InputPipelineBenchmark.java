@@ -0,0 +1,93 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.usfirst.frc4048.swerve.input.Deadband;
+import org.usfirst.frc4048.swerve.input.DriveInput;
+import org.usfirst.frc4048.swerve.input.Expo;
+import org.usfirst.frc4048.swerve.input.InputPipeline;
+import org.usfirst.frc4048.swerve.input.MagnitudeClamp;
+import org.usfirst.frc4048.swerve.input.SlewRateLimiter;
+import org.usfirst.frc4048.swerve.input.SpeedScale;
+import org.usfirst.frc4048.swerve.math.SwerveMath;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the full input pipeline (all the stages), next to the move calculation it runs in front of
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InputPipelineBenchmark {
+
+    private static final long CYCLE_NANOS = 20000000L;
+
+    @Param({"TRANSLATION", "RANDOM"})
+    public InputDistribution distribution;
+
+    private final double[] fwd = new double[InputDistribution.SAMPLES];
+    private final double[] str = new double[InputDistribution.SAMPLES];
+    private final double[] rcw = new double[InputDistribution.SAMPLES];
+    private final double[] gyro = new double[InputDistribution.SAMPLES];
+
+    private final double[] angles = new double[SwerveMath.WHEEL_COUNT];
+    private final double[] speeds = new double[SwerveMath.WHEEL_COUNT];
+
+    private final DriveInput input = new DriveInput();
+    private InputPipeline pipeline;
+    private SwerveMath swerveMath;
+    private int index;
+    private long now;
+
+    @Setup
+    public void setup() {
+        distribution.fill(fwd, str, rcw, gyro, 4048);
+        pipeline = new InputPipeline()
+                .add(new Deadband(0.05, 0.05))
+                .add(new Expo(0.5, 0.3))
+                .add(new MagnitudeClamp(1.0))
+                .add(new SpeedScale(0.8, 0.6))
+                .add(new SlewRateLimiter(3.0, 5.0));
+        swerveMath = new SwerveMath(BenchmarkConstants.W, BenchmarkConstants.L);
+    }
+
+    @Benchmark
+    public void pipeline(Blackhole blackhole) {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        now += CYCLE_NANOS;
+        input.set(fwd[i], str[i], rcw[i]);
+        pipeline.apply(input, now);
+        blackhole.consume(input);
+    }
+
+    @Benchmark
+    public void math(Blackhole blackhole) {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        swerveMath.move(fwd[i], str[i], rcw[i], gyro[i], angles, speeds);
+        blackhole.consume(angles);
+    }
+
+    @Benchmark
+    public void pipelineAndMath(Blackhole blackhole) {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        now += CYCLE_NANOS;
+        input.set(fwd[i], str[i], rcw[i]);
+        pipeline.apply(input, now);
+        swerveMath.move(input.getFwd(), input.getStr(), input.getRcw(), gyro[i], angles, speeds);
+        blackhole.consume(angles);
+    }
+}
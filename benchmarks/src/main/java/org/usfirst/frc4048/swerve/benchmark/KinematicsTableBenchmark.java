@@ -0,0 +1,80 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.usfirst.frc4048.swerve.math.KinematicsTable;
+import org.usfirst.frc4048.swerve.math.KinematicsTableBuilder;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+import org.usfirst.frc4048.swerve.math.SwerveMath;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the inverse kinematics by table lookup against the analytic kinematics
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class KinematicsTableBenchmark {
+
+    @Param({"TRANSLATION", "RANDOM"})
+    public InputDistribution distribution;
+
+    private final double[] fwd = new double[InputDistribution.SAMPLES];
+    private final double[] str = new double[InputDistribution.SAMPLES];
+    private final double[] rcw = new double[InputDistribution.SAMPLES];
+    private final double[] gyro = new double[InputDistribution.SAMPLES];
+
+    private final double[] angles = new double[SwerveMath.WHEEL_COUNT];
+    private final double[] speeds = new double[SwerveMath.WHEEL_COUNT];
+
+    private File file;
+    private SwerveKinematics kinematics;
+    private KinematicsTable table;
+    private int index;
+
+    @Setup
+    public void setup() throws IOException {
+        distribution.fill(fwd, str, rcw, gyro, 4048);
+
+        kinematics = SwerveKinematics.rectangle(BenchmarkConstants.W, BenchmarkConstants.L);
+        file = File.createTempFile("kinematics-benchmark", ".bin");
+        KinematicsTableBuilder.build(kinematics, KinematicsTableBuilder.DEFAULT_RESOLUTION, file);
+        table = KinematicsTable.open(file, kinematics);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public void analytic(Blackhole blackhole) {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        kinematics.move(fwd[i], str[i], rcw[i], angles, speeds);
+        blackhole.consume(angles);
+    }
+
+    @Benchmark
+    public void table(Blackhole blackhole) {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        table.move(fwd[i], str[i], rcw[i], angles, speeds);
+        blackhole.consume(angles);
+    }
+}
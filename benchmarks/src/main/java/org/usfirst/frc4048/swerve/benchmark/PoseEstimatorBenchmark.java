@@ -0,0 +1,75 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.usfirst.frc4048.swerve.drive.SwervePoseEstimator;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the pose estimator using the mock enclosures: a control cycle update (odometry and gyro), and an
+ * update followed by a vision measurement that rewinds and replays the given number of updates.
+ * Run with the GC profiler (see BenchmarkMain) to check that neither allocates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PoseEstimatorBenchmark {
+
+    private static final long CYCLE_NANOS = 20000000L;
+
+    // The vision latency, in control cycles
+    @Param({"1", "5", "25"})
+    public int latency;
+
+    private TestEnclosure[] enclosures;
+    private SwervePoseEstimator estimator;
+    private long now;
+    private double distance;
+
+    @Setup
+    public void setup() {
+        enclosures = new TestEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i] = new TestEnclosure("Enclosure " + (i + 1), BenchmarkConstants.GEAR_RATIO);
+        }
+
+        estimator = new SwervePoseEstimator(enclosures, SwerveKinematics.rectangle(BenchmarkConstants.W, BenchmarkConstants.L), 50);
+        estimator.reset(0.0, 0.0, 0.0, 0);
+        for (int i = 0; i < 50; i++) {
+            update();
+        }
+    }
+
+    @Benchmark
+    public double update() {
+        now += CYCLE_NANOS;
+        distance += 1.0;
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i].setDriveDistance(distance);
+        }
+        estimator.update(now, 0.0);
+        return estimator.getY();
+    }
+
+    @Benchmark
+    public double updateAndVision() {
+        update();
+        estimator.addVisionMeasurement(0.0, distance - latency, 0.0, now - latency * CYCLE_NANOS, 2.0, 2.0);
+        return estimator.getY();
+    }
+}
@@ -0,0 +1,102 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.usfirst.frc4048.swerve.drive.SwerveDrive;
+import org.usfirst.frc4048.swerve.drive.VirtualClock;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+import org.usfirst.frc4048.swerve.math.CentricMode;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+import org.usfirst.frc4048.swerve.recorder.FlightRecordReader;
+import org.usfirst.frc4048.swerve.recorder.FlightRecorder;
+import org.usfirst.frc4048.swerve.replay.ReplayComparator;
+import org.usfirst.frc4048.swerve.replay.ReplayEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for replaying a recording (reading the records, the drive cycle and the comparison), in cycles per second
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReplayBenchmark {
+
+    // One minute at 50 cycles per second
+    private static final int CYCLES = 3000;
+
+    private File file;
+    private ReplayEngine engine;
+    private FlightRecordReader reader;
+    private final ReplayComparator comparator = new ReplayComparator(0.0);
+
+    @Setup
+    public void setup() throws IOException {
+        file = File.createTempFile("replay-benchmark", ".bin");
+        record();
+
+        engine = new ReplayEngine(SwerveKinematics.rectangle(BenchmarkConstants.W, BenchmarkConstants.L),
+                BenchmarkConstants.GEAR_RATIO);
+        engine.getSwerveDrive().setCentricMode(CentricMode.FIELD);
+        reader = new FlightRecordReader(file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CYCLES)
+    public long replay() {
+        reader.rewind();
+        comparator.reset();
+        engine.run(reader, comparator);
+        return comparator.getDivergences();
+    }
+
+    private void record() throws IOException {
+        double[] fwd = new double[InputDistribution.SAMPLES];
+        double[] str = new double[InputDistribution.SAMPLES];
+        double[] rcw = new double[InputDistribution.SAMPLES];
+        double[] gyro = new double[InputDistribution.SAMPLES];
+        InputDistribution.RANDOM.fill(fwd, str, rcw, gyro, 4048);
+
+        TestEnclosure[] enclosures = new TestEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i] = new TestEnclosure("Enclosure " + (i + 1), BenchmarkConstants.GEAR_RATIO);
+        }
+        SwerveDrive swerveDrive = new SwerveDrive(enclosures[0], enclosures[1], enclosures[2], enclosures[3],
+                BenchmarkConstants.W, BenchmarkConstants.L);
+        swerveDrive.setCentricMode(CentricMode.FIELD);
+        VirtualClock clock = new VirtualClock();
+        swerveDrive.setClock(clock);
+
+        FlightRecorder recorder = new FlightRecorder(file, 4, CYCLES);
+        swerveDrive.setFlightRecorder(recorder);
+        for (int cycle = 0; cycle < CYCLES; cycle++) {
+            int i = cycle & (InputDistribution.SAMPLES - 1);
+            for (TestEnclosure enclosure : enclosures) {
+                enclosure.setEncPosition((int) (gyro[(i + 1) & (InputDistribution.SAMPLES - 1)] * 100));
+            }
+            swerveDrive.move(fwd[i], str[i], rcw[i], gyro[i]);
+            clock.advance(20000000L);
+        }
+        recorder.close();
+    }
+}
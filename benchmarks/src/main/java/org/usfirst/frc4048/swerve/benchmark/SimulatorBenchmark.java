@@ -0,0 +1,64 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+import org.usfirst.frc4048.swerve.sim.ModuleModel;
+import org.usfirst.frc4048.swerve.sim.ParallelSimulator;
+import org.usfirst.frc4048.swerve.sim.SimulatedRobot;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for stepping many simulated robots: one control cycle (with 4 physics sub-steps) of every robot, on the
+ * common fork-join pool and on a single thread
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulatorBenchmark {
+
+    @Param({"100", "1000", "4000"})
+    public int robotCount;
+
+    private SimulatedRobot[] robots;
+    private ParallelSimulator simulator;
+
+    @Setup
+    public void setup() {
+        ModuleModel model = new ModuleModel(BenchmarkConstants.GEAR_RATIO, 150, 0.05, 0.05, 2, 1);
+        robots = new SimulatedRobot[robotCount];
+        for (int i = 0; i < robotCount; i++) {
+            robots[i] = new SimulatedRobot(SwerveKinematics.rectangle(BenchmarkConstants.W, BenchmarkConstants.L),
+                    model, 0.02, 4);
+            robots[i].setCommand(Math.sin(i), Math.cos(i * 3), Math.sin(i * 7) / 2);
+        }
+        simulator = new ParallelSimulator(robots);
+    }
+
+    @Benchmark
+    public double parallel() {
+        simulator.step(1);
+        return robots[0].getX();
+    }
+
+    @Benchmark
+    public double sequential() {
+        for (int i = 0; i < robots.length; i++) {
+            robots[i].step();
+        }
+        return robots[0].getX();
+    }
+}
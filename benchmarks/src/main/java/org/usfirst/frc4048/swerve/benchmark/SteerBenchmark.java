@@ -0,0 +1,95 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.usfirst.frc4048.swerve.drive.SteerOptimizer;
+import org.usfirst.frc4048.swerve.drive.SwerveUtils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the steer target calculation: the SteerOptimizer (with and without cosine speed scaling) against the
+ * original convertAngle/shouldReverse calculation of BaseEnclosure, over random angles and encoder positions
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SteerBenchmark {
+
+    private final double[] angle = new double[InputDistribution.SAMPLES];
+    private final int[] encoder = new int[InputDistribution.SAMPLES];
+
+    private final SteerOptimizer optimizer = new SteerOptimizer(BenchmarkConstants.GEAR_RATIO);
+    private final SteerOptimizer cosineOptimizer = new SteerOptimizer(BenchmarkConstants.GEAR_RATIO);
+    private int index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(4048);
+        for (int i = 0; i < InputDistribution.SAMPLES; i++) {
+            angle[i] = random.nextDouble() - 0.5;
+            encoder[i] = (int) ((random.nextDouble() * 10 - 5) * BenchmarkConstants.GEAR_RATIO);
+        }
+        cosineOptimizer.setCosineScaling(true);
+    }
+
+    @Benchmark
+    public double optimizer() {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        optimizer.optimize(1.0, angle[i], encoder[i]);
+        return optimizer.getTargetAngle() + optimizer.getSpeed();
+    }
+
+    @Benchmark
+    public double optimizerCosineScaling() {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        cosineOptimizer.optimize(1.0, angle[i], encoder[i]);
+        return cosineOptimizer.getTargetAngle() + cosineOptimizer.getSpeed();
+    }
+
+    @Benchmark
+    public double legacy() {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        double speed = 1.0;
+        double target = convertAngle(angle[i], encoder[i]);
+        if (shouldReverse(target, encoder[i])) {
+            if (target < 0)
+                target += 0.5;
+            else
+                target -= 0.5;
+            speed *= -1.0;
+        }
+        return target + speed;
+    }
+
+    // The original BaseEnclosure calculation
+    private static boolean shouldReverse(double wa, double encoderValue) {
+        double ea = SwerveUtils.convertEncoderValue(encoderValue, BenchmarkConstants.GEAR_RATIO);
+        if (wa < 0) wa += 1;
+        double longDifference = Math.abs(wa - ea);
+        double difference = Math.min(longDifference, 1.0 - longDifference);
+        return difference > 0.25;
+    }
+
+    private static double convertAngle(double angle, double encoderValue) {
+        double encPos = encoderValue / BenchmarkConstants.GEAR_RATIO;
+        double temp = angle;
+        temp += (int) encPos;
+        encPos = encPos % 1;
+        if ((angle - encPos) > 0.5) temp -= 1;
+        if ((angle - encPos) < -0.5) temp += 1;
+        return temp;
+    }
+}
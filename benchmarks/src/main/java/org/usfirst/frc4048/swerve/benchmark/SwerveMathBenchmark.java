@@ -0,0 +1,74 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.usfirst.frc4048.swerve.math.CentricMode;
+import org.usfirst.frc4048.swerve.math.SwerveMath;
+import org.usfirst.frc4048.swerve.math.TrigPrecision;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the kinematics calculation in SwerveMath, in robot and field centric modes.
+ * Both the allocation-free and the List-returning versions are measured, with exact and fast trigonometry.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SwerveMathBenchmark {
+
+    @Param({"ROBOT", "FIELD"})
+    public CentricMode centricMode;
+
+    @Param({"IDLE", "TRANSLATION", "ROTATION", "RANDOM"})
+    public InputDistribution distribution;
+
+    @Param({"EXACT", "FAST"})
+    public TrigPrecision precision;
+
+    private final double[] fwd = new double[InputDistribution.SAMPLES];
+    private final double[] str = new double[InputDistribution.SAMPLES];
+    private final double[] rcw = new double[InputDistribution.SAMPLES];
+    private final double[] gyro = new double[InputDistribution.SAMPLES];
+
+    private final double[] angles = new double[SwerveMath.WHEEL_COUNT];
+    private final double[] speeds = new double[SwerveMath.WHEEL_COUNT];
+
+    private SwerveMath swerveMath;
+    private int index;
+
+    @Setup
+    public void setup() {
+        distribution.fill(fwd, str, rcw, gyro, 4048);
+        swerveMath = new SwerveMath(BenchmarkConstants.W, BenchmarkConstants.L);
+        swerveMath.setCentricMode(centricMode);
+        swerveMath.setTrigPrecision(precision);
+    }
+
+    @Benchmark
+    public void move(Blackhole blackhole) {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        swerveMath.move(fwd[i], str[i], rcw[i], gyro[i], angles, speeds);
+        blackhole.consume(angles);
+        blackhole.consume(speeds);
+    }
+
+    @Benchmark
+    public Object moveList() {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        return swerveMath.move(fwd[i], str[i], rcw[i], gyro[i]);
+    }
+}
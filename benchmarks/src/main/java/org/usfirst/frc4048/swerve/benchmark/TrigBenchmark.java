@@ -0,0 +1,64 @@
+package org.usfirst.frc4048.swerve.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.usfirst.frc4048.swerve.math.FastTrig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the FastTrig approximations against the Math functions they replace
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TrigBenchmark {
+
+    private final double[] fwd = new double[InputDistribution.SAMPLES];
+    private final double[] str = new double[InputDistribution.SAMPLES];
+    private final double[] rcw = new double[InputDistribution.SAMPLES];
+    private final double[] gyro = new double[InputDistribution.SAMPLES];
+
+    private int index;
+
+    @Setup
+    public void setup() {
+        InputDistribution.RANDOM.fill(fwd, str, rcw, gyro, 4048);
+    }
+
+    @Benchmark
+    public double mathAtan2() {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        return Math.atan2(str[i], fwd[i]);
+    }
+
+    @Benchmark
+    public double fastAtan2() {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        return FastTrig.atan2(str[i], fwd[i]);
+    }
+
+    @Benchmark
+    public double mathSinCos() {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        double radians = gyro[i] * Math.PI / 180;
+        return Math.sin(radians) + Math.cos(radians);
+    }
+
+    @Benchmark
+    public double fastSinCos() {
+        int i = index++ & (InputDistribution.SAMPLES - 1);
+        return FastTrig.sinDegrees(gyro[i]) + FastTrig.cosDegrees(gyro[i]);
+    }
+}
@@ -0,0 +1,244 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Adapts a blocking TalonController to the non-blocking MotorController interface. The hardware calls run on a
+ * dedicated daemon thread: flush hands the staged writes to the thread and returns right away, and the thread reads
+ * the sensor after every flush into a cache that readPosition returns. If the thread is still busy with an earlier
+ * flush, the writes stay staged (later writes replace them) and go out with the next flush that finds it idle. A
+ * neutral is not left waiting for a next flush (there may be none after a stop): the thread applies it as soon as
+ * it is done with the earlier flush.
+ * Exceptions thrown by the controller are turned into ERROR_HARDWARE. Flushing and reading do not allocate.
+ */
+public class AsyncMotorController implements MotorController {
+
+    private static final int NONE = 0;
+    private static final int PERCENT_OUTPUT = 1;
+    private static final int POSITION = 2;
+    private static final int NEUTRAL = 3;
+
+    private final TalonController controller;
+    private final NanoClock clock;
+    private final int timeoutMs;
+    private final long timeoutNanos;
+    private final Thread thread;
+
+    // Staged by the control thread
+    private int stagedMode = NONE;
+    private double stagedValue;
+    private boolean stagedSensor = false;
+    private double stagedSensorPosition;
+
+    // Written by the control thread before incrementing requested
+    private int mode;
+    private double value;
+    private boolean setSensor;
+    private int sensorPosition;
+    private long flushTime;
+
+    private volatile long requested;
+    private volatile long completed;
+
+    // A neutral that was flushed while the thread was busy
+    private volatile boolean pendingNeutral = false;
+    private volatile boolean running = true;
+
+    // The sensor cache, written by the worker thread as a sequence lock (odd while it is being written)
+    private volatile long sequence;
+    private volatile double position;
+    private volatile long timestamp;
+
+    private volatile int lastError = OK;
+    private volatile long errorCount;
+    private long busyCount;
+
+    /**
+     * Constructor. Starts the thread of the controller.
+     * @param name the name of the controller (for the thread name)
+     * @param controller the blocking controller
+     * @param clock the clock for the reading timestamps
+     * @param timeoutMs the timeout of the calls that wait for a confirmation, in milliseconds. A flush that takes
+     *                  longer than this is reported as ERROR_TIMEOUT
+     */
+    public AsyncMotorController(String name, TalonController controller, NanoClock clock, int timeoutMs) {
+        assert (timeoutMs > 0) : "Timeout has to be larger than 0";
+
+        this.controller = controller;
+        this.clock = clock;
+        this.timeoutMs = timeoutMs;
+        this.timeoutNanos = timeoutMs * 1000000L;
+        this.thread = new Thread(new Worker(), "swerve-motor-" + name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void stagePercentOutput(double output) {
+        stagedMode = PERCENT_OUTPUT;
+        stagedValue = output;
+    }
+
+    @Override
+    public void stagePosition(double position) {
+        stagedMode = POSITION;
+        stagedValue = position;
+    }
+
+    @Override
+    public void stageNeutral() {
+        stagedMode = NEUTRAL;
+        stagedValue = 0.0;
+    }
+
+    @Override
+    public void stageSensorPosition(double position) {
+        stagedSensor = true;
+        stagedSensorPosition = position;
+    }
+
+    @Override
+    public int flush() {
+        long now = clock.nanoTime();
+        if (isBusy()) {
+            busyCount++;
+            if (now - flushTime > timeoutNanos) {
+                lastError = ERROR_TIMEOUT;
+            }
+            if (stagedMode == NEUTRAL) {
+                stagedMode = NONE;
+                pendingNeutral = true;
+                LockSupport.unpark(thread);
+            }
+            return ERROR_BUSY;
+        }
+
+        mode = stagedMode;
+        value = stagedValue;
+        setSensor = stagedSensor;
+        sensorPosition = (int) Math.round(stagedSensorPosition);
+        flushTime = now;
+        stagedMode = NONE;
+        stagedSensor = false;
+
+        // The volatile write publishes the command fields to the worker
+        requested = requested + 1;
+        LockSupport.unpark(thread);
+        return OK;
+    }
+
+    @Override
+    public int readPosition(MotorReading reading) {
+        while (true) {
+            long before = sequence;
+            double position = this.position;
+            long timestamp = this.timestamp;
+            if ((before & 1) == 0 && before == sequence) {
+                if (before == 0) {
+                    return ERROR_NO_DATA;
+                }
+                reading.set(position, timestamp);
+                return OK;
+            }
+        }
+    }
+
+    @Override
+    public int getLastError() {
+        return lastError;
+    }
+
+    /**
+     * @return true if the thread is still working on a flush (or has a neutral to apply)
+     */
+    public boolean isBusy() {
+        return completed != requested || pendingNeutral;
+    }
+
+    /**
+     * @return the number of flushes that found the thread busy
+     */
+    public long getBusyCount() {
+        return busyCount;
+    }
+
+    /**
+     * @return the number of flushes that failed with an exception from the controller
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Stop the thread. The controller cannot be used afterwards.
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    private class Worker implements Runnable {
+        @Override
+        public void run() {
+            while (running) {
+                long request = requested;
+                if (request == completed) {
+                    if (pendingNeutral) {
+                        applyNeutral();
+                        pendingNeutral = false;
+                    } else {
+                        LockSupport.park(this);
+                    }
+                    continue;
+                }
+
+                int error = OK;
+                try {
+                    switch (mode) {
+                        case PERCENT_OUTPUT:
+                            controller.setPercentOutput(value);
+                            break;
+                        case POSITION:
+                            controller.setPosition(value);
+                            break;
+                        case NEUTRAL:
+                            controller.stopMotor();
+                            break;
+                        default:
+                            break;
+                    }
+                    if (setSensor) {
+                        controller.setSelectedSensorPosition(sensorPosition, timeoutMs);
+                    }
+
+                    int sensor = controller.getSelectedSensorPosition();
+                    long now = clock.nanoTime();
+                    long next = sequence + 1;
+                    sequence = next;
+                    position = sensor;
+                    timestamp = now;
+                    sequence = next + 1;
+                } catch (RuntimeException e) {
+                    error = ERROR_HARDWARE;
+                    errorCount++;
+                }
+
+                if (error == OK && clock.nanoTime() - flushTime > timeoutNanos) {
+                    error = ERROR_TIMEOUT;
+                }
+                lastError = error;
+                completed = request;
+            }
+        }
+
+        private void applyNeutral() {
+            try {
+                controller.stopMotor();
+                lastError = OK;
+            } catch (RuntimeException e) {
+                lastError = ERROR_HARDWARE;
+                errorCount++;
+            }
+        }
+    }
+}
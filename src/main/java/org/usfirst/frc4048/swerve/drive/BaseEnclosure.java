@@ -1,9 +1,14 @@
 package org.usfirst.frc4048.swerve.drive;
 
+import org.usfirst.frc4048.swerve.math.TrigPrecision;
+
 /**
  * Base class for enclosure. Implements common behavior that helps with the robot driving:
  * - Move method that takes into account current position and optimizes the movement to reduce angle rotation
  * - Allows the wheel to make full rotation (when reaching full rotation don't go back to 0, rather keep rotation in same direction)
+ * - Optionally scales the speed down while the wheel is still turning (see setCosineSpeedScaling)
+ * - Optionally suppresses redundant writes of unchanged speed and angle setpoints (see setWriteCoalescing)
+ * - Reads the sensors once per control cycle into a snapshot (see sample) that the rest of the cycle uses
  * This class uses abstract lower-level implementations of setSpeed and setAngle to be implemented by hardware-specific sub-classes
  */
 public abstract class BaseEnclosure implements SwerveEnclosure {
@@ -11,9 +16,39 @@ public abstract class BaseEnclosure implements SwerveEnclosure {
     private String name;
     protected double gearRatio;
 
+    // Write coalescing for the speed and angle setpoints, timed with the clock
+    private boolean writeCoalescing = false;
+    private NanoClock clock = NanoClock.SYSTEM;
+    private final SetpointFilter speedFilter = new SetpointFilter();
+    private final SetpointFilter angleFilter = new SetpointFilter();
+
+    // Sensor values for the current control cycle
+    private final SensorSnapshot snapshot = new SensorSnapshot();
+    private boolean snapshotValid = false;
+    // The cycle of the snapshot used by the last move: a move without a newer snapshot is in a later cycle
+    private long movedCycle = -1;
+    private boolean sampleDriveDistance = false;
+    private long hardwareReads;
+
+    // Minimal travel steering
+    private final SteerOptimizer steerOptimizer;
+
+    // The values calculated by the last move
+    private double targetSpeed;
+    private double targetAngle;
+    private boolean reversed;
+    private boolean steering;
+
+    // Latency histograms of the move stages (null when not profiling)
+    static final int LATENCY_STEER_TARGET = 0;
+    static final int LATENCY_SET_SPEED = 1;
+    static final int LATENCY_SET_ANGLE = 2;
+    private LatencyHistogram[] latencies;
+
     public BaseEnclosure(String name, double gearRatio) {
         this.name = name;
         this.gearRatio = gearRatio;
+        this.steerOptimizer = new SteerOptimizer(gearRatio);
     }
 
     /**
@@ -23,88 +58,295 @@ public abstract class BaseEnclosure implements SwerveEnclosure {
      */
     public void move(double speed, double angle)
 	{
-		int encPosition = getEncPosition();
-		angle = convertAngle(angle, encPosition);
-		
-		if(shouldReverse(angle, encPosition))
-		{
-			if(angle < 0)
-				angle += 0.5;
-			else
-				angle -= 0.5;
-			
-			speed *= -1.0;
-		}
-		
-		setSpeed(speed);
-		
-		if(speed != 0.0) {
-			setAngle(angle); 
+		LatencyHistogram[] latencies = this.latencies;
+		long now = writeCoalescing ? clock.nanoTime() : 0L;
+
+		if (latencies == null) {
+			computeTarget(speed, angle);
+			sendSpeed(now);
+			sendAngle(now);
+			return;
 		}
+
+		long start = System.nanoTime();
+		computeTarget(speed, angle);
+		long converted = System.nanoTime();
+		sendSpeed(now);
+		long speedSent = System.nanoTime();
+		sendAngle(now);
+		long angleSent = System.nanoTime();
+
+		latencies[LATENCY_STEER_TARGET].record(converted - start);
+		latencies[LATENCY_SET_SPEED].record(speedSent - converted);
+		latencies[LATENCY_SET_ANGLE].record(angleSent - speedSent);
 	}
-    public String getName() {
-        return name;
+
+    /**
+     * Calculate the speed and angle to send to the hardware, taking into account the current wheel position
+     */
+    private void computeTarget(double speed, double angle)
+	{
+		steerOptimizer.optimize(speed, angle, readMoveEncPosition());
+
+		// Only steer when asked to move (the speed may be scaled down to 0 while turning)
+		steering = speed != 0.0;
+		targetSpeed = steerOptimizer.getSpeed();
+		targetAngle = steerOptimizer.getTargetAngle();
+		reversed = steerOptimizer.isReversed();
+	}
+
+    private void sendSpeed(long now) {
+        if (speedFilter.shouldSend(targetSpeed, now)) {
+            setSpeed(targetSpeed);
+        }
+    }
+
+    private void sendAngle(long now) {
+        if (steering && angleFilter.shouldSend(targetAngle, now)) {
+            setAngle(targetAngle);
+        }
     }
 
     /**
-     * @return the value of the angle encoder (used to calculate current wheel position)
-     * TODO: This should be converted to -1 - +1 range...
+     * @return the speed calculated by the last move (after reversal)
      */
-    protected abstract int getEncPosition();
+    public double getTargetSpeed() {
+        return targetSpeed;
+    }
 
     /**
-     * Sets the value of the angle encoder (used for aligning wheel in case of drift)
-     * @param encPosition the current encoder value
-     * TODO: This should be converted to -1 - +1 range...
+     * @return the continuous angle calculated by the last move (after reversal)
      */
-    protected abstract void setEncPosition(int encPosition);
+    public double getTargetAngle() {
+        return targetAngle;
+    }
 
     /**
-     * Set the value of the drive motor
-     * @param speed the speed value to set: -1 - full backwards, 0 - stop, +1 - full forward
+     * @return true if the last move reversed the wheel direction
      */
-    protected abstract void setSpeed(double speed);
+    public boolean isReversed() {
+        return reversed;
+    }
 
     /**
-     * Set the angle for the steer motor
-     * @param abgle the angle value: -0.5 - counterclockwise 180 degrees, 0 - forward 180 degrees, +0.5 - 180 degrees clockwise
+     * @return true if the last move steered the wheel (it was asked to move)
      */
-    protected abstract void setAngle(double abgle);
+    boolean isSteering() {
+        return steering;
+    }
 
+    /**
+     * Change the steer gear ratio (used by SwerveDrive to apply the configuration, on the control thread)
+     */
+    void setGearRatio(double gearRatio) {
+        this.gearRatio = gearRatio;
+        steerOptimizer.setGearRatio(gearRatio);
+    }
 
-    private boolean shouldReverse(double wa, double encoderValue){
+    /**
+     * Scale the drive speed by the cosine of the remaining steer error, so the module does not push sideways while
+     * it is still turning (default is off)
+     */
+    public void setCosineSpeedScaling(boolean cosineSpeedScaling) {
+        steerOptimizer.setCosineScaling(cosineSpeedScaling);
+    }
 
-        double ea = SwerveUtils.convertEncoderValue(encoderValue, gearRatio);
+    /**
+     * Change the precision of the cosine speed scaling (used by SwerveDrive to apply the configuration, on the
+     * control thread)
+     */
+    void setTrigPrecision(TrigPrecision trigPrecision) {
+        steerOptimizer.setTrigPrecision(trigPrecision);
+    }
 
-        //Convert the next wheel angle, which is from -.5 to .5, to 0 to 1
-        if (wa < 0) wa += 1;
+    /**
+     * Record the latency of the move stages into the given histograms, indexed by the LATENCY_* constants.
+     * Null disables the recording.
+     */
+    void setLatencyHistograms(LatencyHistogram[] latencies) {
+        this.latencies = latencies;
+    }
 
-        //Find the difference between the two (not sure if the conversion from (-0.5 to 0.5) to (0 to 1) above is needed)
-        //Difference between the two points. May be anything between -1 to 1, but we are looking for a number between -.5 to .5
-        double longDifference = Math.abs(wa - ea);
+    /**
+     * Enable write coalescing: speed and angle values that are within the given epsilon of the last value sent to
+     * the hardware are not sent again, unless the refresh interval has passed (to keep motor safety timeouts fed).
+     * @param speedEpsilon the speed difference below which the speed is not re-sent
+     * @param angleEpsilon the angle difference (in turns) below which the angle is not re-sent
+     * @param refreshIntervalNanos the maximum time between writes of the same value, in nanoseconds
+     */
+    public void setWriteCoalescing(double speedEpsilon, double angleEpsilon, long refreshIntervalNanos) {
+        speedFilter.enable(speedEpsilon, refreshIntervalNanos);
+        angleFilter.enable(angleEpsilon, refreshIntervalNanos);
+        writeCoalescing = true;
+    }
 
-        //finds shortest distance (0 to 0.5), always positive though (which is what we want)
-        double difference = Math.min(longDifference, 1.0-longDifference);
+    /**
+     * Set the clock that times the refresh interval of the write coalescing (SwerveDrive.setClock sets its own)
+     */
+    public void setClock(NanoClock clock) {
+        this.clock = clock;
+    }
 
-        //If the difference is greater than 1/4, then return true (aka it is easier for it to turn around and go backwards than go forward)
-        if (difference > 0.25) return true;
-        else return false;
+    /**
+     * Disable write coalescing: every value is sent to the hardware (this is the default)
+     */
+    public void disableWriteCoalescing() {
+        writeCoalescing = false;
+        speedFilter.disable();
+        angleFilter.disable();
     }
 
-    private double convertAngle(double angle, double encoderValue) {
-        //angles are between -.5 and .5
-        //This is to allow the motors to rotate in continuous circles (pseudo code on the Team 4048 forum)
-        double encPos = encoderValue / gearRatio;
+    /**
+     * @return the write filter of the drive motor (for the sent/suppressed counters)
+     */
+    public SetpointFilter getSpeedFilter() {
+        return speedFilter;
+    }
 
-        double temp = angle;
-        temp += (int)encPos;
+    /**
+     * @return the write filter of the steer motor (for the sent/suppressed counters)
+     */
+    public SetpointFilter getAngleFilter() {
+        return angleFilter;
+    }
 
-        encPos = encPos % 1;
+    /**
+     * Read the sensors into the snapshot. Until the next sample (or invalidateSnapshot), move and any observers use
+     * the snapshot values instead of reading the hardware again.
+     * @param cycle the number of the control cycle
+     * @param now the current time, in nanoseconds
+     */
+    public void sample(long cycle, long now) {
+        int encPosition = getEncPosition();
+        hardwareReads++;
 
-        if ((angle - encPos) > 0.5) temp -= 1;
+        double driveDistance = Double.NaN;
+        if (sampleDriveDistance) {
+            driveDistance = getDriveDistance();
+            hardwareReads++;
+        }
 
-        if ((angle - encPos) < -0.5) temp += 1;
+        snapshot.update(cycle, now, encPosition, driveDistance);
+        snapshotValid = true;
+    }
 
-        return temp;
+    /**
+     * Stop using the snapshot: the next reads go to the hardware
+     */
+    public void invalidateSnapshot() {
+        snapshotValid = false;
+    }
+
+    public SensorSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the number of sensor reads that went to the hardware
+     */
+    public long getHardwareReads() {
+        return hardwareReads;
+    }
+
+    public void resetHardwareReads() {
+        hardwareReads = 0;
+    }
+
+    /**
+     * Include the drive distance in the snapshot (used by the odometry)
+     */
+    void setSampleDriveDistance(boolean sampleDriveDistance) {
+        this.sampleDriveDistance = sampleDriveDistance;
+    }
+
+    /**
+     * @return the encoder position of the current cycle: from the snapshot if there is one, otherwise from the hardware
+     */
+    int readEncPosition() {
+        if (snapshotValid) {
+            return snapshot.getEncPosition();
+        }
+        hardwareReads++;
+        return getEncPosition();
+    }
+
+    /**
+     * @return the encoder position for a move: from the snapshot if it was sampled for this move's cycle (each cycle
+     * has one move), otherwise from the hardware
+     */
+    private int readMoveEncPosition() {
+        if (snapshotValid && snapshot.getCycle() != movedCycle) {
+            movedCycle = snapshot.getCycle();
+            return snapshot.getEncPosition();
+        }
+        hardwareReads++;
+        return getEncPosition();
+    }
+
+    /**
+     * @return the drive distance of the current cycle: from the snapshot if there is one, otherwise from the hardware
+     */
+    double readDriveDistance() {
+        if (snapshotValid && !Double.isNaN(snapshot.getDriveDistance())) {
+            return snapshot.getDriveDistance();
+        }
+        hardwareReads++;
+        return getDriveDistance();
+    }
+
+    /**
+     * Make sure the next speed and angle are sent to the hardware. Sub-classes should call this whenever the motors
+     * are set by other means than setSpeed and setAngle (e.g. when stopped).
+     */
+    protected void invalidateSetpoints() {
+        speedFilter.invalidate();
+        angleFilter.invalidate();
+    }
+    public String getName() {
+        return name;
     }
+
+    /**
+     * @return the value of the angle encoder (used to calculate current wheel position)
+     * TODO: This should be converted to -1 - +1 range...
+     */
+    protected abstract int getEncPosition();
+
+    /**
+     * Sets the value of the angle encoder (used for aligning wheel in case of drift).
+     * Implementations have to call invalidateSnapshot, as the sampled position is no longer valid.
+     * @param encPosition the current encoder value
+     * TODO: This should be converted to -1 - +1 range...
+     */
+    protected abstract void setEncPosition(int encPosition);
+
+    /**
+     * Override (together with getDriveDistance) in hardware implementations that have a drive wheel encoder.
+     * Odometry only accepts enclosures that have one.
+     * @return true if getDriveDistance reports the distance travelled
+     */
+    public boolean hasDriveEncoder() {
+        return false;
+    }
+
+    /**
+     * Override in hardware implementations that have a drive wheel encoder (required for odometry)
+     * @return the distance the drive wheel has travelled since startup, in any consistent unit (NaN without one)
+     */
+    protected double getDriveDistance() {
+        return Double.NaN;
+    }
+
+    /**
+     * Set the value of the drive motor
+     * @param speed the speed value to set: -1 - full backwards, 0 - stop, +1 - full forward
+     */
+    protected abstract void setSpeed(double speed);
+
+    /**
+     * Set the angle for the steer motor
+     * @param abgle the angle value: -0.5 - counterclockwise 180 degrees, 0 - forward 180 degrees, +0.5 - 180 degrees clockwise
+     */
+    protected abstract void setAngle(double abgle);
+
 }
@@ -1,6 +1,5 @@
 package org.usfirst.frc4048.swerve.drive;
 
-import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.ctre.phoenix.motorcontrol.can.TalonSRX;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
@@ -8,61 +7,115 @@ import org.usfirst.frc4048.swerve.drive.BaseEnclosure;
 import org.usfirst.frc4048.swerve.drive.SwerveEnclosure;
 
 /**
- * An implementation of the SwerveEnclosure using CanTalon motors and encoders
+ * An implementation of the SwerveEnclosure using CanTalon motors and encoders.
+ * The motors are used through the TalonController interface, so the enclosure can also run against simulated
+ * controllers (see sim.SimulatedCanBus).
  */
 public class CanTalonSwerveEnclosure extends BaseEnclosure implements SwerveEnclosure {
 
+	private TalonController driveController;
+	private TalonController steerController;
+
+	// The real motors, when constructed with them (null otherwise)
 	private WPI_TalonSRX driveMotor;
 	private WPI_TalonSRX steerMotor;
 	
 	private boolean reverseEncoder = false;
 	private boolean reverseSteer = false;
+	private double driveDistancePerTick = 1.0;
+
+	// Frame rate management (see setFramePolicy)
+	private TalonFramePolicy framePolicy;
+	private TalonFramePolicy.RobotState robotState;
+	private int frameConfigTimeoutMs = 0;
+	private final int[] appliedDrivePeriods = TalonFramePolicy.unknownPeriods();
+	private final int[] appliedSteerPeriods = TalonFramePolicy.unknownPeriods();
 
     public CanTalonSwerveEnclosure(String name, WPI_TalonSRX driveMotor, WPI_TalonSRX steerMotor, double gearRatio) {
 
-        super(name, gearRatio);
+        this(name, new WpiTalonController(driveMotor), new WpiTalonController(steerMotor), gearRatio);
 
         this.driveMotor = driveMotor;
         this.steerMotor = steerMotor;
     }
 
+    /**
+     * Constructor for any implementation of the controllers (e.g. simulated ones)
+     */
+    public CanTalonSwerveEnclosure(String name, TalonController driveController, TalonController steerController,
+                                   double gearRatio) {
+
+        super(name, gearRatio);
+
+        this.driveController = driveController;
+        this.steerController = steerController;
+    }
+
     @Override
     public void stop() {
         // TODO: deprecated...
-        this.steerMotor.stopMotor();
-        this.driveMotor.stopMotor();
+        this.steerController.stopMotor();
+        this.driveController.stopMotor();
+        invalidateSetpoints();
     }
 
     @Override
     public void setSpeed(double speed) {
-    	driveMotor.set(ControlMode.PercentOutput, speed);
+    	driveController.setPercentOutput(speed);
     }
 
     @Override
     public void setAngle(double angle) {
-    	steerMotor.set(ControlMode.Position, (reverseSteer ? -1 : 1) * angle * gearRatio);
+    	steerController.setPosition((reverseSteer ? -1 : 1) * angle * gearRatio);
     }
 
     @Override
     public int getEncPosition() {
         int reverse = reverseEncoder ? -1 : 1;
-        return reverse * steerMotor.getSelectedSensorPosition(0);
+        return reverse * steerController.getSelectedSensorPosition();
     }	
 
     @Override
     public void setEncPosition(int position) {
-    	steerMotor.setSelectedSensorPosition(position, 0, 10);
+    	steerController.setSelectedSensorPosition(position, 10);
+        invalidateSnapshot();
+    }
+
+    @Override
+    public boolean hasDriveEncoder() {
+        return true;
     }
 
+    @Override
+    public double getDriveDistance() {
+        return driveController.getSelectedSensorPosition() * driveDistancePerTick;
+    }
+
+    /**
+     * @return the real drive motor, null if the enclosure was constructed with controllers
+     */
     public WPI_TalonSRX getDriveMotor()
 	{
 		return driveMotor;
 	}
 	
+    /**
+     * @return the real steer motor, null if the enclosure was constructed with controllers
+     */
 	public WPI_TalonSRX getSteerMotor()
 	{
 		return steerMotor;
 	}
+
+	public TalonController getDriveController()
+	{
+		return driveController;
+	}
+
+	public TalonController getSteerController()
+	{
+		return steerController;
+	}
 	
 	public boolean isReverseEncoder()
 	{
@@ -77,5 +130,63 @@ public class CanTalonSwerveEnclosure extends BaseEnclosure implements SwerveEncl
 	public void setReverseSteerMotor(boolean reverseSteer)
 	{
 		this.reverseSteer = reverseSteer;
-	}	
+	}
+
+	/**
+	 * Set the conversion from drive encoder ticks to distance (used by the odometry). Default is 1 (distance in ticks)
+	 */
+	public void setDriveDistancePerTick(double driveDistancePerTick)
+	{
+		this.driveDistancePerTick = driveDistancePerTick;
+	}
+
+	/**
+	 * Set the frame periods of the controllers per robot state. The periods for the current robot state (if one was
+	 * set) are written right away.
+	 */
+	public void setFramePolicy(TalonFramePolicy framePolicy)
+	{
+		this.framePolicy = framePolicy;
+		applyFramePolicy();
+	}
+
+	public TalonFramePolicy getFramePolicy()
+	{
+		return framePolicy;
+	}
+
+	/**
+	 * Switch the frame periods of the controllers to the given robot state. Only the periods that changed since the
+	 * last switch are written, so this is cheap to call at every mode transition.
+	 */
+	public void setRobotState(TalonFramePolicy.RobotState robotState)
+	{
+		this.robotState = robotState;
+		applyFramePolicy();
+	}
+
+	public TalonFramePolicy.RobotState getRobotState()
+	{
+		return robotState;
+	}
+
+	/**
+	 * Set the time the frame period configuration waits for each controller to confirm. Default is 0 (do not wait),
+	 * which keeps a state switch from blocking the robot loop.
+	 */
+	public void setFrameConfigTimeout(int frameConfigTimeoutMs)
+	{
+		this.frameConfigTimeoutMs = frameConfigTimeoutMs;
+	}
+
+	private void applyFramePolicy()
+	{
+		if (framePolicy == null || robotState == null) {
+			return;
+		}
+		framePolicy.apply(driveController, TalonFramePolicy.Role.DRIVE, robotState, appliedDrivePeriods,
+				frameConfigTimeoutMs);
+		framePolicy.apply(steerController, TalonFramePolicy.Role.STEER, robotState, appliedSteerPeriods,
+				frameConfigTimeoutMs);
+	}
 }
@@ -0,0 +1,59 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.usfirst.frc4048.swerve.math.SwerveMath;
+
+/**
+ * A drive command (the SwerveDrive.move inputs) with the time it was posted.
+ * Mutable, so the same instance can be reused every cycle.
+ */
+public class DriveCommand {
+
+    private double fwd;
+    private double str;
+    private double rcw;
+    private double gyroValue = SwerveMath.NO_GYRO;
+    private long timestamp;
+    private long sequence;
+
+    void set(double fwd, double str, double rcw, double gyroValue, long timestamp, long sequence) {
+        this.fwd = fwd;
+        this.str = str;
+        this.rcw = rcw;
+        this.gyroValue = gyroValue;
+        this.timestamp = timestamp;
+        this.sequence = sequence;
+    }
+
+    public double getFwd() {
+        return fwd;
+    }
+
+    public double getStr() {
+        return str;
+    }
+
+    public double getRcw() {
+        return rcw;
+    }
+
+    /**
+     * @return the gyro value, SwerveMath.NO_GYRO if there is none
+     */
+    public double getGyroValue() {
+        return gyroValue;
+    }
+
+    /**
+     * @return the time the command was posted, in nanoseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the number of the post that produced this command, 0 if no command was ever posted
+     */
+    public long getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,98 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single-slot, latest-wins mailbox for drive commands. Any number of threads can post commands, one thread (the
+ * drive loop) reads the latest one. Posting and reading take no locks and do not allocate.
+ *
+ * The slot is guarded by a version number (a sequence lock): a producer makes the version odd while it writes and
+ * even again when done, and a reader retries if the version was odd or changed while it read. Every post takes a
+ * sequence number; a producer that finds another one writing waits for it, then publishes its command unless a newer
+ * one (with a higher sequence number) is already there. So the latest post always wins and no post is lost to an
+ * older one. Waiting threads yield (Java 8 has no spin-wait hint).
+ */
+public class DriveCommandMailbox {
+
+    private final NanoClock clock;
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong posts = new AtomicLong();
+
+    // The fields are volatile so that a reader that sees a stable version also sees the matching values
+    private volatile double fwd;
+    private volatile double str;
+    private volatile double rcw;
+    private volatile double gyroValue;
+    private volatile long timestamp;
+    private volatile long sequence;
+
+    public DriveCommandMailbox(NanoClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Post a new command, replacing the previous one
+     * @param gyroValue the gyro value, or SwerveMath.NO_GYRO
+     * @return false if a newer command, posted concurrently from another thread, was published first
+     */
+    public boolean post(double fwd, double str, double rcw, double gyroValue) {
+        long sequence = posts.incrementAndGet();
+
+        while (true) {
+            long current = version.get();
+            if ((current & 1) != 0) {
+                // Another producer is writing: wait for it
+                Thread.yield();
+                continue;
+            }
+            if (!version.compareAndSet(current, current + 1)) {
+                continue;
+            }
+
+            boolean newest = sequence > this.sequence;
+            if (newest) {
+                this.fwd = fwd;
+                this.str = str;
+                this.rcw = rcw;
+                this.gyroValue = gyroValue;
+                this.timestamp = clock.nanoTime();
+                this.sequence = sequence;
+            }
+
+            version.set(current + 2);
+            return newest;
+        }
+    }
+
+    /**
+     * Read the latest command
+     * @param command output: the latest command. Not changed if no command was posted yet
+     * @return false if no command was posted yet
+     */
+    public boolean read(DriveCommand command) {
+        while (true) {
+            long before = version.get();
+            if (before == 0) {
+                return false;
+            }
+            if ((before & 1) != 0) {
+                Thread.yield();
+                continue;
+            }
+
+            double fwd = this.fwd;
+            double str = this.str;
+            double rcw = this.rcw;
+            double gyroValue = this.gyroValue;
+            long timestamp = this.timestamp;
+            long sequence = this.sequence;
+
+            if (version.get() == before) {
+                command.set(fwd, str, rcw, gyroValue, timestamp, sequence);
+                return true;
+            }
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Latency histograms for the stages of the drive cycle: the whole cycle and the math for the drive, and the angle
+ * steer target calculation (SteerOptimizer) and the hardware setSpeed/setAngle calls for every enclosure.
+ * The histograms are allocated up front and recording never allocates. Use snapshot() and reset() between matches
+ * (e.g. to send the percentiles to the dashboard).
+ * Created by SwerveDrive.enableProfiling().
+ */
+public class DriveProfiler {
+
+    private final LatencyHistogram cycle = new LatencyHistogram();
+    private final LatencyHistogram math = new LatencyHistogram();
+
+    private final String[] enclosureNames;
+
+    // Per enclosure, indexed by the BaseEnclosure.LATENCY_* constants. Null for enclosures that are not BaseEnclosures
+    private final LatencyHistogram[][] enclosureLatencies;
+
+    DriveProfiler(SwerveEnclosure[] enclosures) {
+        enclosureNames = new String[enclosures.length];
+        enclosureLatencies = new LatencyHistogram[enclosures.length][];
+
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosureNames[i] = enclosures[i].getName();
+            if (enclosures[i] instanceof BaseEnclosure) {
+                enclosureLatencies[i] = new LatencyHistogram[] {
+                        new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+            }
+        }
+    }
+
+    /**
+     * @return the histogram of the whole SwerveDrive.move cycle
+     */
+    public LatencyHistogram getCycle() {
+        return cycle;
+    }
+
+    /**
+     * @return the histogram of the SwerveMath calculation
+     */
+    public LatencyHistogram getMath() {
+        return math;
+    }
+
+    LatencyHistogram[] getEnclosureLatencies(int module) {
+        return enclosureLatencies[module];
+    }
+
+    /**
+     * @return the percentiles of every stage (allocates - not for use in the control loop)
+     */
+    public List<LatencySnapshot> snapshot() {
+        List<LatencySnapshot> snapshots = new ArrayList<LatencySnapshot>();
+        snapshots.add(cycle.snapshot("cycle"));
+        snapshots.add(math.snapshot("math"));
+
+        for (int i = 0; i < enclosureLatencies.length; i++) {
+            LatencyHistogram[] latencies = enclosureLatencies[i];
+            if (latencies != null) {
+                snapshots.add(latencies[BaseEnclosure.LATENCY_STEER_TARGET].snapshot(enclosureNames[i] + "/steerTarget"));
+                snapshots.add(latencies[BaseEnclosure.LATENCY_SET_SPEED].snapshot(enclosureNames[i] + "/setSpeed"));
+                snapshots.add(latencies[BaseEnclosure.LATENCY_SET_ANGLE].snapshot(enclosureNames[i] + "/setAngle"));
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Clear all the histograms
+     */
+    public void reset() {
+        cycle.reset();
+        math.reset();
+
+        for (int i = 0; i < enclosureLatencies.length; i++) {
+            LatencyHistogram[] latencies = enclosureLatencies[i];
+            if (latencies != null) {
+                for (int j = 0; j < latencies.length; j++) {
+                    latencies[j].reset();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * An implementation of the SwerveEnclosure using any drive and steer motor controllers that implement the
+ * non-blocking MotorController interface (see AsyncMotorController to adapt blocking ones).
+ * Each move stages the speed and the angle and flushes both controllers; the steer encoder and the drive distance
+ * come from the controllers' cached readings. None of the calls wait for the hardware, so a slow or failing
+ * controller cannot block the drive cycle: its errors are counted and can be checked with getDriveError and
+ * getSteerError, and isSensorStale tells when the cached readings are getting old.
+ */
+public class GenericEnclosure extends BaseEnclosure {
+
+    private final MotorController driveController;
+    private final MotorController steerController;
+
+    private final MotorReading driveReading = new MotorReading();
+    private final MotorReading steerReading = new MotorReading();
+    private boolean driveReadingValid = false;
+    private boolean steerReadingValid = false;
+
+    private boolean reverseEncoder = false;
+    private boolean reverseSteer = false;
+    private double driveDistancePerTick = 1.0;
+
+    private long busyCount;
+
+    public GenericEnclosure(String name, MotorController driveController, MotorController steerController,
+                            double gearRatio) {
+        super(name, gearRatio);
+
+        this.driveController = driveController;
+        this.steerController = steerController;
+    }
+
+    @Override
+    public void move(double speed, double angle) {
+        super.move(speed, angle);
+        flush();
+    }
+
+    @Override
+    public void stop() {
+        driveController.stageNeutral();
+        steerController.stageNeutral();
+        flush();
+        invalidateSetpoints();
+    }
+
+    @Override
+    protected void setSpeed(double speed) {
+        driveController.stagePercentOutput(speed);
+    }
+
+    @Override
+    protected void setAngle(double angle) {
+        steerController.stagePosition((reverseSteer ? -1 : 1) * angle * gearRatio);
+    }
+
+    /**
+     * @return the last steer encoder position reported by the controller (0 if there is none yet)
+     */
+    @Override
+    protected int getEncPosition() {
+        if (steerController.readPosition(steerReading) == MotorController.OK) {
+            steerReadingValid = true;
+        }
+        int reverse = reverseEncoder ? -1 : 1;
+        return reverse * (int) Math.round(steerReading.getPosition());
+    }
+
+    /**
+     * Stage the new encoder position. It is sent with the next move or stop.
+     */
+    @Override
+    protected void setEncPosition(int encPosition) {
+        steerController.stageSensorPosition(encPosition);
+        invalidateSnapshot();
+    }
+
+    @Override
+    public boolean hasDriveEncoder() {
+        return true;
+    }
+
+    /**
+     * @return the last drive distance reported by the controller (0 if there is none yet)
+     */
+    @Override
+    protected double getDriveDistance() {
+        if (driveController.readPosition(driveReading) == MotorController.OK) {
+            driveReadingValid = true;
+        }
+        return driveReading.getPosition() * driveDistancePerTick;
+    }
+
+    private void flush() {
+        if (driveController.flush() == MotorController.ERROR_BUSY) {
+            busyCount++;
+        }
+        if (steerController.flush() == MotorController.ERROR_BUSY) {
+            busyCount++;
+        }
+    }
+
+    /**
+     * @return true if the steer encoder reading (or the drive distance, when the drive distance is used) is missing or
+     * older than the maximum age. Only meaningful after the readings were used (e.g. after a move)
+     * @param now the current time, in nanoseconds (same clock as the controllers)
+     */
+    public boolean isSensorStale(long now, long maxAgeNanos) {
+        if (!steerReadingValid || steerReading.isStale(now, maxAgeNanos)) {
+            return true;
+        }
+        return driveReadingValid && driveReading.isStale(now, maxAgeNanos);
+    }
+
+    /**
+     * @return the error of the last completed flush of the drive controller (MotorController.OK if none)
+     */
+    public int getDriveError() {
+        return driveController.getLastError();
+    }
+
+    /**
+     * @return the error of the last completed flush of the steer controller (MotorController.OK if none)
+     */
+    public int getSteerError() {
+        return steerController.getLastError();
+    }
+
+    /**
+     * @return the number of flushes that found a controller busy (the writes went out with a later flush)
+     */
+    public long getBusyCount() {
+        return busyCount;
+    }
+
+    public MotorController getDriveController() {
+        return driveController;
+    }
+
+    public MotorController getSteerController() {
+        return steerController;
+    }
+
+    public boolean isReverseEncoder() {
+        return reverseEncoder;
+    }
+
+    public void setReverseEncoder(boolean reverseEncoder) {
+        this.reverseEncoder = reverseEncoder;
+    }
+
+    public void setReverseSteerMotor(boolean reverseSteer) {
+        this.reverseSteer = reverseSteer;
+    }
+
+    /**
+     * Set the conversion from drive encoder units to distance (used by the odometry). Default is 1
+     */
+    public void setDriveDistancePerTick(double driveDistancePerTick) {
+        this.driveDistancePerTick = driveDistancePerTick;
+    }
+}
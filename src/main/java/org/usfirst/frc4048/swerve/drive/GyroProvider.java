@@ -0,0 +1,141 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Samples a GyroSource on its own thread, at a higher rate than the drive loop, and publishes the latest heading,
+ * angular rate and timestamp. The three values are published with a sequence lock: the sampler makes the sequence
+ * odd while it writes them, and a reader retries until it saw the same even sequence before and after reading, so
+ * the drive thread always gets a consistent sample without locking or allocating.
+ * Samples can also be taken by calling sample() directly (e.g. with a fake clock, without starting the thread).
+ * Exceptions thrown by the source are counted and the sample is skipped, so the published sample gets older (see
+ * SwerveDrive.setGyroProvider for the stale sample handling).
+ */
+public class GyroProvider implements Runnable {
+
+    private final GyroSource source;
+    private final NanoClock clock;
+    private final long periodNanos;
+
+    private volatile boolean running = false;
+    private Thread thread;
+
+    // The published sample. Written by the sampler only
+    private volatile long sequence;
+    private volatile double angle;
+    private volatile double rate;
+    private volatile long timestamp;
+
+    private volatile long errorCount;
+
+    /**
+     * Constructor
+     * @param source the gyro to sample
+     * @param clock the clock for the sample timestamps (same clock as the SwerveDrive)
+     * @param periodNanos the sampling period, in nanoseconds
+     */
+    public GyroProvider(GyroSource source, NanoClock clock, long periodNanos) {
+        assert (periodNanos > 0) : "Period has to be larger than 0";
+
+        this.source = source;
+        this.clock = clock;
+        this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Start the sampling thread
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "swerve-gyro");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Stop the sampling thread and wait for it to end
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join();
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        long next = clock.nanoTime();
+
+        while (running) {
+            sample();
+
+            next += periodNanos;
+            long remaining;
+            while (running && (remaining = next - clock.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, remaining);
+            }
+        }
+    }
+
+    /**
+     * Read the gyro and publish the sample. Only one thread may sample (the sampling thread, if it was started).
+     */
+    public void sample() {
+        double angle;
+        double rate;
+        try {
+            angle = source.getAngle();
+            rate = source.getRate();
+        } catch (RuntimeException e) {
+            errorCount++;
+            return;
+        }
+        long now = clock.nanoTime();
+
+        long next = sequence + 1;
+        sequence = next;
+        this.angle = angle;
+        this.rate = rate;
+        this.timestamp = now;
+        sequence = next + 1;
+    }
+
+    /**
+     * Get the latest sample
+     * @param sample output: the heading, rate and timestamp
+     * @return false if there is no sample yet (the output is not changed)
+     */
+    public boolean read(GyroSample sample) {
+        while (true) {
+            long before = sequence;
+            double angle = this.angle;
+            double rate = this.rate;
+            long timestamp = this.timestamp;
+            if ((before & 1) == 0 && before == sequence) {
+                if (before == 0) {
+                    return false;
+                }
+                sample.set(angle, rate, timestamp);
+                return true;
+            }
+        }
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    /**
+     * @return the number of samples that failed with an exception from the source
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+}
@@ -0,0 +1,46 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * A gyro reading published by a GyroProvider: the heading, the angular rate and the time they were read.
+ * Filled in place by GyroProvider.read, so reading does not allocate.
+ */
+public class GyroSample {
+
+    private double angle;
+    private double rate;
+    private long timestamp;
+
+    void set(double angle, double rate, long timestamp) {
+        this.angle = angle;
+        this.rate = rate;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return the heading, in degrees
+     */
+    public double getAngle() {
+        return angle;
+    }
+
+    /**
+     * @return the angular rate, in degrees per second
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * @return the time the values were read, in nanoseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return true if the values were read more than maxAgeNanos before now
+     */
+    public boolean isStale(long now, long maxAgeNanos) {
+        return now - timestamp > maxAgeNanos;
+    }
+}
@@ -0,0 +1,18 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * The readings of a gyro (IMU) sampled by a GyroProvider. The calls may block (e.g. an SPI or CAN transaction).
+ * Uses the same convention as the gyro value of SwerveDrive.move: degrees, clockwise, continuous.
+ */
+public interface GyroSource {
+
+    /**
+     * @return the heading, in degrees
+     */
+    double getAngle();
+
+    /**
+     * @return the angular rate, in degrees per second
+     */
+    double getRate();
+}
@@ -0,0 +1,98 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * A log-bucketed histogram of latencies in nanoseconds, preallocated so that recording never allocates.
+ * Values below 32ns are counted exactly; above that every power of 2 is split into 32 buckets, so a reported
+ * percentile is within about 3% of the real value. The maximum is tracked exactly.
+ * Recording is meant for a single thread. Reading from another thread gives approximate (but safe) results.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // Enough buckets for every positive long value
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long max;
+
+    /**
+     * Record a latency
+     * @param nanos the latency, in nanoseconds (negative values are counted as 0)
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+
+        counts[bucketIndex(nanos)]++;
+        count++;
+        if (nanos > max) max = nanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @param percentile the percentile, 0 - 100
+     * @return the latency at the percentile (the lowest value of its bucket), 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = count;
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile / 100.0 * total);
+        if (rank < 1) rank = 1;
+
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @param name the name to give the snapshot
+     * @return the current percentiles (allocates - not for use in the control loop)
+     */
+    public LatencySnapshot snapshot(String name) {
+        return new LatencySnapshot(name, count,
+                getValueAtPercentile(50), getValueAtPercentile(99), getValueAtPercentile(99.9), max);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = 0;
+        }
+        count = 0;
+        max = 0;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+}
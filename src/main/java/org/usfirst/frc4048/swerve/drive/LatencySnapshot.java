@@ -0,0 +1,55 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * The percentiles of a latency histogram at a point in time, in nanoseconds
+ */
+public class LatencySnapshot {
+
+    private final String name;
+    private final long count;
+    private final long p50;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    public LatencySnapshot(String name, long count, long p50, long p99, long p999, long max) {
+        this.name = name;
+        this.count = count;
+        this.p50 = p50;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    /**
+     * @return the name of the measured stage (e.g. "math" or "enc 1/setSpeed")
+     */
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": count=" + count + " p50=" + p50 + "ns p99=" + p99 + "ns p999=" + p999 + "ns max=" + max + "ns";
+    }
+}
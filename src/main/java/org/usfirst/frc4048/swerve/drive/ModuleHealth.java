@@ -0,0 +1,29 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * The health state of a module, as reported by the ModuleHealthMonitor. When several problems are detected at the
+ * same time the most severe one is reported (the last in this list).
+ */
+public enum ModuleHealth {
+    /**
+     * Not enough steering yet to tell (the window is not full)
+     */
+    UNKNOWN,
+    /**
+     * The steer angle follows the commands
+     */
+    OK,
+    /**
+     * The steer angle is persistently away from the commanded angle (e.g. a slipping belt or a drifted encoder)
+     */
+    STEER_ERROR,
+    /**
+     * The steer angle is away from the commanded angle and does not move (e.g. the steer motor is stalled). A module
+     * that settled away from a constant command is reported as stalled as well, as the two cannot be told apart
+     */
+    STALLED,
+    /**
+     * The steer encoder jumped by more than the module can physically turn in a cycle
+     */
+    ENCODER_JUMP
+}
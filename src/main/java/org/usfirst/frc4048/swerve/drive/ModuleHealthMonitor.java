@@ -0,0 +1,222 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * Online health checks of the steering of every module. Call update() once per control cycle, right after
+ * SwerveDrive.move (not after stop). Each update compares the steer angle the module was commanded in the previous
+ * cycle with the steer encoder of the current cycle (from the cycle's sensor snapshot) and keeps, over a sliding
+ * window of the cycles in which the module was steering:
+ * - the mean absolute steer error: a persistent error is reported as STEER_ERROR
+ * - the steer encoder travel: a persistent error without travel is reported as STALLED
+ * Independently of the steering, an encoder change larger than a module can turn in one cycle is counted as a jump and
+ * reported as ENCODER_JUMP for the length of a window.
+ *
+ * The window statistics are running sums of whole encoder ticks, so every update is O(1) and exact.
+ * Nothing allocates after construction.
+ */
+public class ModuleHealthMonitor {
+
+    private final BaseEnclosure[] enclosures;
+    private final int windowSize;
+
+    // Per module windows of the absolute steer error and the encoder travel, in ticks
+    private final int[][] errorWindows;
+    private final int[][] travelWindows;
+    private final long[] errorSums;
+    private final long[] travelSums;
+    private final int[] windowCounts;
+    private final int[] windowHeads;
+
+    // Per module state of the previous update
+    private final boolean[] initialized;
+    private final int[] lastEncPositions;
+    private final double[] lastTargetAngles;
+    private final boolean[] lastSteering;
+    private final int[] cyclesSinceJump;
+
+    private final ModuleHealth[] health;
+    private final long[] steerErrorCycles;
+    private final long[] stalledCycles;
+    private final long[] jumpCounts;
+
+    private double errorThreshold = DEFAULT_ERROR_THRESHOLD;
+    private double stallTravel = DEFAULT_STALL_TRAVEL;
+    private double jumpThreshold = DEFAULT_JUMP_THRESHOLD;
+
+    public static final int DEFAULT_WINDOW_SIZE = 25;
+    public static final double DEFAULT_ERROR_THRESHOLD = 0.02;
+    public static final double DEFAULT_STALL_TRAVEL = 0.005;
+    public static final double DEFAULT_JUMP_THRESHOLD = 0.25;
+
+    /**
+     * Constructor
+     * @param enclosures the enclosures to monitor
+     * @param windowSize the number of steering cycles the statistics are taken over
+     */
+    public ModuleHealthMonitor(BaseEnclosure[] enclosures, int windowSize) {
+        assert (windowSize > 0) : "Window size has to be larger than 0";
+
+        this.enclosures = enclosures.clone();
+        this.windowSize = windowSize;
+
+        int count = enclosures.length;
+        errorWindows = new int[count][windowSize];
+        travelWindows = new int[count][windowSize];
+        errorSums = new long[count];
+        travelSums = new long[count];
+        windowCounts = new int[count];
+        windowHeads = new int[count];
+
+        initialized = new boolean[count];
+        lastEncPositions = new int[count];
+        lastTargetAngles = new double[count];
+        lastSteering = new boolean[count];
+        cyclesSinceJump = new int[count];
+
+        health = new ModuleHealth[count];
+        steerErrorCycles = new long[count];
+        stalledCycles = new long[count];
+        jumpCounts = new long[count];
+
+        reset();
+    }
+
+    /**
+     * Set the thresholds, all in turns of the wheel
+     * @param errorThreshold the mean absolute steer error over the window above which the steering is in error
+     * @param stallTravel the steer travel over the window below which a module in error is stalled
+     * @param jumpThreshold the encoder change in a single cycle above which the encoder jumped
+     */
+    public void setThresholds(double errorThreshold, double stallTravel, double jumpThreshold) {
+        assert (errorThreshold > 0 && stallTravel >= 0 && jumpThreshold > 0) : "Thresholds have to be positive";
+
+        this.errorThreshold = errorThreshold;
+        this.stallTravel = stallTravel;
+        this.jumpThreshold = jumpThreshold;
+    }
+
+    /**
+     * Clear the statistics and health states (e.g. after re-aligning the encoders). The counters are kept.
+     */
+    public void reset() {
+        for (int i = 0; i < enclosures.length; i++) {
+            errorSums[i] = 0;
+            travelSums[i] = 0;
+            windowCounts[i] = 0;
+            windowHeads[i] = 0;
+            initialized[i] = false;
+            cyclesSinceJump[i] = windowSize;
+            health[i] = ModuleHealth.UNKNOWN;
+        }
+    }
+
+    /**
+     * Check all the modules
+     */
+    public void update() {
+        for (int i = 0; i < enclosures.length; i++) {
+            update(i);
+        }
+    }
+
+    private void update(int module) {
+        BaseEnclosure enclosure = enclosures[module];
+        int encPosition = enclosure.readEncPosition();
+
+        if (initialized[module]) {
+            int travel = Math.abs(encPosition - lastEncPositions[module]);
+            if (travel > jumpThreshold * enclosure.gearRatio) {
+                jumpCounts[module]++;
+                cyclesSinceJump[module] = 0;
+            } else if (cyclesSinceJump[module] < windowSize) {
+                cyclesSinceJump[module]++;
+            }
+
+            // Only judge the steering in cycles that follow a steering command
+            if (lastSteering[module]) {
+                int error = (int) Math.abs(Math.round(lastTargetAngles[module] * enclosure.gearRatio - encPosition));
+                push(module, error, travel);
+            }
+        }
+
+        initialized[module] = true;
+        lastEncPositions[module] = encPosition;
+        lastTargetAngles[module] = enclosure.getTargetAngle();
+        lastSteering[module] = enclosure.isSteering();
+
+        health[module] = evaluate(module, enclosure.gearRatio);
+        if (health[module] == ModuleHealth.STEER_ERROR) {
+            steerErrorCycles[module]++;
+        } else if (health[module] == ModuleHealth.STALLED) {
+            stalledCycles[module]++;
+        }
+    }
+
+    private void push(int module, int error, int travel) {
+        int head = windowHeads[module];
+        if (windowCounts[module] == windowSize) {
+            errorSums[module] -= errorWindows[module][head];
+            travelSums[module] -= travelWindows[module][head];
+        } else {
+            windowCounts[module]++;
+        }
+
+        errorWindows[module][head] = error;
+        travelWindows[module][head] = travel;
+        errorSums[module] += error;
+        travelSums[module] += travel;
+        windowHeads[module] = (head + 1) % windowSize;
+    }
+
+    private ModuleHealth evaluate(int module, double gearRatio) {
+        if (cyclesSinceJump[module] < windowSize) {
+            return ModuleHealth.ENCODER_JUMP;
+        }
+        if (windowCounts[module] < windowSize) {
+            return ModuleHealth.UNKNOWN;
+        }
+        if (errorSums[module] > errorThreshold * gearRatio * windowSize) {
+            return travelSums[module] < stallTravel * gearRatio ? ModuleHealth.STALLED : ModuleHealth.STEER_ERROR;
+        }
+        return ModuleHealth.OK;
+    }
+
+    public ModuleHealth getHealth(int module) {
+        return health[module];
+    }
+
+    /**
+     * @return the mean absolute steer error over the window, in turns (0 if there is no steering yet)
+     */
+    public double getMeanError(int module) {
+        int count = windowCounts[module];
+        return count == 0 ? 0.0 : errorSums[module] / (count * enclosures[module].gearRatio);
+    }
+
+    /**
+     * @return the steer encoder travel over the window, in turns
+     */
+    public double getTravel(int module) {
+        return travelSums[module] / enclosures[module].gearRatio;
+    }
+
+    /**
+     * @return the number of updates in which the module was reported as STEER_ERROR
+     */
+    public long getSteerErrorCycles(int module) {
+        return steerErrorCycles[module];
+    }
+
+    /**
+     * @return the number of updates in which the module was reported as STALLED
+     */
+    public long getStalledCycles(int module) {
+        return stalledCycles[module];
+    }
+
+    /**
+     * @return the number of encoder jumps of the module
+     */
+    public long getJumpCount(int module) {
+        return jumpCounts[module];
+    }
+}
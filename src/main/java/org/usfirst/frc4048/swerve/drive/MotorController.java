@@ -0,0 +1,76 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * Service provider interface for the motor controllers of a GenericEnclosure. Unlike TalonController, none of the
+ * operations wait for the hardware, so a slow or failing controller cannot stall the drive cycle:
+ * - Writes are staged (the latest staged value of each kind wins) and flush() hands them to the controller together
+ * - Reads return the last value the controller reported, with the time it was read
+ * - Failures are reported as error codes (the constants below), never as exceptions
+ * Controllers that only have blocking calls can be adapted with AsyncMotorController.
+ */
+public interface MotorController {
+
+    /**
+     * No error
+     */
+    int OK = 0;
+
+    /**
+     * The previous flush is still in progress. The staged writes are kept and go out with the next flush.
+     */
+    int ERROR_BUSY = 1;
+
+    /**
+     * The controller has not reported a sensor value yet
+     */
+    int ERROR_NO_DATA = 2;
+
+    /**
+     * The hardware call failed
+     */
+    int ERROR_HARDWARE = 3;
+
+    /**
+     * The hardware call did not complete in time
+     */
+    int ERROR_TIMEOUT = 4;
+
+    /**
+     * Stage a percent output (-1 - 1) setpoint. Replaces any staged setpoint.
+     */
+    void stagePercentOutput(double output);
+
+    /**
+     * Stage a closed loop position setpoint, in sensor units. Replaces any staged setpoint.
+     */
+    void stagePosition(double position);
+
+    /**
+     * Stage a neutral output (stop the motor). Replaces any staged setpoint.
+     */
+    void stageNeutral();
+
+    /**
+     * Stage a new value for the sensor position, in sensor units
+     */
+    void stageSensorPosition(double position);
+
+    /**
+     * Send the staged writes to the controller, without waiting for them to complete. Also refreshes the cached
+     * sensor value.
+     * @return OK if the writes were handed off, ERROR_BUSY if they stay staged
+     */
+    int flush();
+
+    /**
+     * Get the last sensor value reported by the controller
+     * @param reading output: the position and the time it was read
+     * @return OK, or ERROR_NO_DATA if there is no value yet (the reading is not changed)
+     */
+    int readPosition(MotorReading reading);
+
+    /**
+     * @return the result of the last completed flush: OK, ERROR_HARDWARE or ERROR_TIMEOUT
+     */
+    int getLastError();
+}
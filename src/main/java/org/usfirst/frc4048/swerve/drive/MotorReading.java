@@ -0,0 +1,40 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * A sensor value cached by a MotorController, with the time it was read from the hardware.
+ * Filled in place by MotorController.readPosition, so reading does not allocate.
+ */
+public class MotorReading {
+
+    private double position;
+    private long timestamp;
+
+    /**
+     * Set the values (for MotorController implementations)
+     */
+    public void set(double position, long timestamp) {
+        this.position = position;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return the sensor position, in sensor units
+     */
+    public double getPosition() {
+        return position;
+    }
+
+    /**
+     * @return the time the position was read from the hardware, in nanoseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return true if the value was read more than maxAgeNanos before now
+     */
+    public boolean isStale(long now, long maxAgeNanos) {
+        return now - timestamp > maxAgeNanos;
+    }
+}
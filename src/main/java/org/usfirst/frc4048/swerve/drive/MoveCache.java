@@ -0,0 +1,154 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.usfirst.frc4048.swerve.math.CentricMode;
+
+/**
+ * Change detection for the drive cycle: remembers the inputs of the last calculation and the encoder position of the
+ * last move of every module, so that SwerveDrive can skip the work when nothing changed.
+ * - The math is skipped (the last results are reused) when the inputs are within the input tolerance, the gyro value
+ *   within the gyro tolerance (field centric only) and the configuration is the same
+ * - The move of a module is skipped when the math was skipped and its steer encoder moved less than the encoder
+ *   threshold since its last move, unless the refresh interval has passed (to keep motor safety timeouts fed)
+ * Only BaseEnclosures are skipped (the others have no encoder to check). Created by SwerveDrive.enableMoveCache().
+ */
+public class MoveCache {
+
+    private final double inputTolerance;
+    private final double gyroTolerance;
+    private final int encoderThreshold;
+    private final long refreshIntervalNanos;
+
+    // The inputs of the last calculation
+    private boolean mathValid = false;
+    private SwerveDriveConfig config;
+    private double fwd;
+    private double str;
+    private double rcw;
+    private double gyroValue;
+
+    // Per module: the encoder position and time of the last move
+    private final boolean[] moduleValid;
+    private final int[] encPositions;
+    private final long[] moveTimes;
+
+    private long mathHits;
+    private long mathMisses;
+    private long moduleHits;
+    private long moduleMisses;
+
+    MoveCache(int moduleCount, double inputTolerance, double gyroTolerance, int encoderThreshold,
+              long refreshIntervalNanos) {
+        assert (inputTolerance >= 0) : "Input tolerance cannot be negative";
+        assert (gyroTolerance >= 0) : "Gyro tolerance cannot be negative";
+        assert (encoderThreshold >= 0) : "Encoder threshold cannot be negative";
+        assert (refreshIntervalNanos > 0) : "Refresh interval has to be larger than 0";
+
+        this.inputTolerance = inputTolerance;
+        this.gyroTolerance = gyroTolerance;
+        this.encoderThreshold = encoderThreshold;
+        this.refreshIntervalNanos = refreshIntervalNanos;
+
+        moduleValid = new boolean[moduleCount];
+        encPositions = new int[moduleCount];
+        moveTimes = new long[moduleCount];
+    }
+
+    /**
+     * Decide whether the calculation can be skipped. If not, the inputs are remembered for the next cycle.
+     * @return true if the results of the last calculation can be reused
+     */
+    boolean isMathHit(SwerveDriveConfig config, double fwd, double str, double rcw, double gyroValue) {
+        if (mathValid && config == this.config
+                && Math.abs(fwd - this.fwd) <= inputTolerance
+                && Math.abs(str - this.str) <= inputTolerance
+                && Math.abs(rcw - this.rcw) <= inputTolerance
+                && (config.getCentricMode() != CentricMode.FIELD || isGyroHit(gyroValue))) {
+            mathHits++;
+            return true;
+        }
+
+        mathValid = true;
+        this.config = config;
+        this.fwd = fwd;
+        this.str = str;
+        this.rcw = rcw;
+        this.gyroValue = gyroValue;
+        mathMisses++;
+        return false;
+    }
+
+    private boolean isGyroHit(double gyroValue) {
+        if (Double.isNaN(gyroValue) || Double.isNaN(this.gyroValue)) {
+            return Double.isNaN(gyroValue) && Double.isNaN(this.gyroValue);
+        }
+        return Math.abs(gyroValue - this.gyroValue) <= gyroTolerance;
+    }
+
+    /**
+     * Decide whether the move of a module can be skipped. If not, the encoder position and time are remembered.
+     * @param mathHit true if the calculation was skipped this cycle
+     * @param encPosition the steer encoder position of the cycle
+     * @param now the time of the cycle, in nanoseconds
+     * @return true if the module does not need to move
+     */
+    boolean isModuleHit(int module, boolean mathHit, int encPosition, long now) {
+        if (mathHit && moduleValid[module]
+                && Math.abs(encPosition - encPositions[module]) <= encoderThreshold
+                && now - moveTimes[module] < refreshIntervalNanos) {
+            moduleHits++;
+            return true;
+        }
+
+        moduleValid[module] = true;
+        encPositions[module] = encPosition;
+        moveTimes[module] = now;
+        moduleMisses++;
+        return false;
+    }
+
+    /**
+     * Forget the remembered inputs, so that the next cycle calculates and moves every module
+     */
+    public void invalidate() {
+        mathValid = false;
+        config = null;
+        for (int i = 0; i < moduleValid.length; i++) {
+            moduleValid[i] = false;
+        }
+    }
+
+    /**
+     * @return the number of cycles that reused the last calculation
+     */
+    public long getMathHits() {
+        return mathHits;
+    }
+
+    /**
+     * @return the number of cycles that calculated
+     */
+    public long getMathMisses() {
+        return mathMisses;
+    }
+
+    /**
+     * @return the number of module moves that were skipped
+     */
+    public long getModuleHits() {
+        return moduleHits;
+    }
+
+    /**
+     * @return the number of module moves that were done
+     */
+    public long getModuleMisses() {
+        return moduleMisses;
+    }
+
+    public void resetCounters() {
+        mathHits = 0;
+        mathMisses = 0;
+        moduleHits = 0;
+        moduleMisses = 0;
+    }
+}
@@ -0,0 +1,22 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * Source of monotonic time in nanoseconds. Allows the drive code to run on a fake clock in tests and simulations.
+ */
+public interface NanoClock {
+
+    /**
+     * The system clock (System.nanoTime())
+     */
+    NanoClock SYSTEM = new NanoClock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    /**
+     * @return the current time, in nanoseconds
+     */
+    long nanoTime();
+}
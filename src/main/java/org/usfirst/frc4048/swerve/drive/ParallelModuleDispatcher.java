@@ -0,0 +1,240 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the per-module move and stop calls concurrently, so that the blocking hardware calls of one module do not delay
+ * the others. Every enclosure gets its own dedicated (pinned) daemon thread. A dispatch hands each module its command,
+ * then waits for all of them up to a deadline. Modules that did not finish by the deadline are reported as missed. A
+ * module that is still busy from an earlier cycle is skipped, and also reported as missed, until it catches up.
+ * Which modules are skipped is decided once per cycle (see beginCycle). A stop is never skipped: a busy module stops
+ * as soon as it is done with its command. Dispatching does not allocate.
+ */
+public class ParallelModuleDispatcher {
+
+    private static final int MOVE = 1;
+    private static final int STOP = 2;
+
+    private final Worker[] workers;
+    private final long deadlineNanos;
+
+    private final boolean[] skipped;
+    private boolean cycleBegun = false;
+
+    private final boolean[] missed;
+    private final long[] missCounts;
+    // Counted on the worker threads
+    private final AtomicLongArray errorCounts;
+
+    private volatile Thread waiter;
+    private volatile boolean running = true;
+
+    /**
+     * Constructor. Starts one thread per enclosure.
+     * @param enclosures the enclosures to dispatch to
+     * @param deadlineNanos how long a dispatch waits for the modules, in nanoseconds
+     */
+    public ParallelModuleDispatcher(SwerveEnclosure[] enclosures, long deadlineNanos) {
+        assert (deadlineNanos > 0) : "Deadline has to be larger than 0";
+
+        this.deadlineNanos = deadlineNanos;
+        this.workers = new Worker[enclosures.length];
+        this.skipped = new boolean[enclosures.length];
+        this.missed = new boolean[enclosures.length];
+        this.missCounts = new long[enclosures.length];
+        this.errorCounts = new AtomicLongArray(enclosures.length);
+
+        for (int i = 0; i < enclosures.length; i++) {
+            workers[i] = new Worker(i, enclosures[i]);
+            workers[i].thread.start();
+        }
+    }
+
+    /**
+     * Start a cycle: the modules that are busy now are skipped by the next move. A module that becomes idle in
+     * between is still skipped, so the caller (e.g. SwerveDrive reading the sensors) and the dispatch agree on the
+     * modules of the cycle. Without it the move decides on its own.
+     */
+    public void beginCycle() {
+        for (int i = 0; i < workers.length; i++) {
+            skipped[i] = workers[i].isBusy();
+        }
+        cycleBegun = true;
+    }
+
+    /**
+     * @return true if the module is skipped in the current cycle (see beginCycle)
+     */
+    public boolean isSkipped(int module) {
+        return skipped[module];
+    }
+
+    /**
+     * Move all modules concurrently and wait for them (up to the deadline)
+     * @param speeds the speed of each module
+     * @param angles the angle of each module
+     * @return the number of modules that missed the deadline
+     */
+    public int move(double[] speeds, double[] angles) {
+        if (!cycleBegun) {
+            beginCycle();
+        }
+        return dispatch(MOVE, speeds, angles);
+    }
+
+    /**
+     * Stop all modules concurrently and wait for them (up to the deadline)
+     * @return the number of modules that missed the deadline
+     */
+    public int stop() {
+        beginCycle();
+        return dispatch(STOP, null, null);
+    }
+
+    /**
+     * @return true if the module is still running a command (e.g. one that missed the deadline)
+     */
+    public boolean isBusy(int module) {
+        return workers[module].isBusy();
+    }
+
+    /**
+     * @return true if the module missed the deadline in the last dispatch
+     */
+    public boolean isMissed(int module) {
+        return missed[module];
+    }
+
+    /**
+     * @return the number of dispatches in which the module missed the deadline
+     */
+    public long getMissCount(int module) {
+        return missCounts[module];
+    }
+
+    /**
+     * @return the number of commands of the module that ended with an exception (or error)
+     */
+    public long getErrorCount(int module) {
+        return errorCounts.get(module);
+    }
+
+    /**
+     * Stop the threads. The dispatcher cannot be used afterwards.
+     */
+    public void shutdown() {
+        running = false;
+        for (int i = 0; i < workers.length; i++) {
+            LockSupport.unpark(workers[i].thread);
+        }
+    }
+
+    private int dispatch(int command, double[] speeds, double[] angles) {
+        long deadline = System.nanoTime() + deadlineNanos;
+        waiter = Thread.currentThread();
+        cycleBegun = false;
+
+        for (int i = 0; i < workers.length; i++) {
+            Worker worker = workers[i];
+            if (skipped[i]) {
+                // Still working on an earlier command: skip it this cycle. A stop is run once the command is done
+                missed[i] = true;
+                if (command == STOP) {
+                    worker.pendingStop = true;
+                    LockSupport.unpark(worker.thread);
+                }
+                continue;
+            }
+
+            missed[i] = false;
+            worker.command = command;
+            if (speeds != null) {
+                worker.speed = speeds[i];
+                worker.angle = angles[i];
+            }
+            // The volatile write publishes the command fields to the worker
+            worker.requested = worker.requested + 1;
+            LockSupport.unpark(worker.thread);
+        }
+
+        int missedCount = 0;
+        for (int i = 0; i < workers.length; i++) {
+            Worker worker = workers[i];
+            while (!missed[i] && worker.isBusy()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    missed[i] = true;
+                    break;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+            if (missed[i]) {
+                missCounts[i]++;
+                missedCount++;
+            }
+        }
+
+        return missedCount;
+    }
+
+    private class Worker implements Runnable {
+        private final int index;
+        private final SwerveEnclosure enclosure;
+        private final Thread thread;
+
+        // Written by the dispatcher before incrementing requested
+        private int command;
+        private double speed;
+        private double angle;
+
+        private volatile long requested;
+        private volatile long completed;
+
+        // A stop that was dispatched while the worker was busy
+        private volatile boolean pendingStop = false;
+
+        Worker(int index, SwerveEnclosure enclosure) {
+            this.index = index;
+            this.enclosure = enclosure;
+            this.thread = new Thread(this, "swerve-" + enclosure.getName());
+            this.thread.setDaemon(true);
+            this.thread.setPriority(Thread.MAX_PRIORITY);
+        }
+
+        boolean isBusy() {
+            return completed != requested || pendingStop;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                long request = requested;
+                if (request != completed) {
+                    execute(command);
+                    completed = request;
+                } else if (pendingStop) {
+                    execute(STOP);
+                    pendingStop = false;
+                } else {
+                    LockSupport.park(this);
+                    continue;
+                }
+                LockSupport.unpark(waiter);
+            }
+        }
+
+        private void execute(int command) {
+            try {
+                if (command == MOVE) {
+                    enclosure.move(speed, angle);
+                } else {
+                    enclosure.stop();
+                }
+            } catch (Throwable e) {
+                // Also errors: the worker has to stay alive, or the module would stay busy for good
+                errorCounts.incrementAndGet(index);
+            }
+        }
+    }
+}
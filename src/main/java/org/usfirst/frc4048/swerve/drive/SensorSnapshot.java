@@ -0,0 +1,58 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * The sensor values of an enclosure, read once per control cycle. Everything that needs the values during the cycle
+ * (the enclosure move, odometry, telemetry) reads them from here instead of going to the hardware again.
+ * The snapshot is updated in place by BaseEnclosure.sample().
+ */
+public class SensorSnapshot {
+
+    private long cycle = -1;
+    private long timestamp;
+    private int encPosition;
+    private double driveDistance = Double.NaN;
+
+    void update(long cycle, long timestamp, int encPosition, double driveDistance) {
+        this.cycle = cycle;
+        this.timestamp = timestamp;
+        this.encPosition = encPosition;
+        this.driveDistance = driveDistance;
+    }
+
+    /**
+     * @return the number of the control cycle the values were read in, -1 if never read
+     */
+    public long getCycle() {
+        return cycle;
+    }
+
+    /**
+     * @return the time the values were read, in nanoseconds
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the steer encoder position
+     */
+    public int getEncPosition() {
+        return encPosition;
+    }
+
+    /**
+     * @return the drive distance, NaN if the drive distance is not sampled
+     */
+    public double getDriveDistance() {
+        return driveDistance;
+    }
+
+    /**
+     * @param now the current time, in nanoseconds (same clock as the timestamp)
+     * @param maxAgeNanos the maximum allowed age of the values
+     * @return true if the values were never read or are older than the maximum age
+     */
+    public boolean isStale(long now, long maxAgeNanos) {
+        return cycle < 0 || now - timestamp > maxAgeNanos;
+    }
+}
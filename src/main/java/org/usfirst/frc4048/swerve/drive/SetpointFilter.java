@@ -0,0 +1,93 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * Suppresses redundant setpoint writes to a motor controller: a new value is only sent if it differs from the last
+ * sent value by more than a given epsilon, or if the refresh interval has passed since the last write (so that the
+ * controller's safety timeout is still fed). When disabled every value is sent.
+ * The filter does not know about control modes: call invalidate() whenever the controller is put in a different mode
+ * (e.g. stopped) so that the next value is always sent.
+ */
+public class SetpointFilter {
+
+    private boolean enabled = false;
+    private double epsilon;
+    private long refreshIntervalNanos;
+
+    private boolean valid = false;
+    private double lastValue;
+    private long lastSentTime;
+
+    private long sentCount;
+    private long suppressedCount;
+
+    /**
+     * Enable the filter. The last sent value is forgotten, as the time it was recorded with (while disabled) may not
+     * be comparable with the times the filter is used with now.
+     * @param epsilon values within this distance of the last sent value are suppressed
+     * @param refreshIntervalNanos the maximum time between writes, in nanoseconds
+     */
+    public void enable(double epsilon, long refreshIntervalNanos) {
+        assert (epsilon >= 0) : "Epsilon cannot be negative";
+        assert (refreshIntervalNanos > 0) : "Refresh interval has to be larger than 0";
+
+        this.epsilon = epsilon;
+        this.refreshIntervalNanos = refreshIntervalNanos;
+        this.enabled = true;
+        invalidate();
+    }
+
+    public void disable() {
+        enabled = false;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Decide whether a value needs to be written. If the answer is yes, the value is recorded as the last sent value.
+     * @param value the new setpoint
+     * @param now the current time, in nanoseconds (ignored when the filter is disabled)
+     * @return true if the value should be written to the controller
+     */
+    public boolean shouldSend(double value, long now) {
+        if (enabled && valid
+                && Math.abs(value - lastValue) <= epsilon
+                && now - lastSentTime < refreshIntervalNanos) {
+            suppressedCount++;
+            return false;
+        }
+
+        valid = true;
+        lastValue = value;
+        lastSentTime = now;
+        sentCount++;
+        return true;
+    }
+
+    /**
+     * Forget the last sent value, so that the next value is sent regardless
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * @return the number of values that were sent
+     */
+    public long getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * @return the number of values that were suppressed
+     */
+    public long getSuppressedCount() {
+        return suppressedCount;
+    }
+
+    public void resetCounters() {
+        sentCount = 0;
+        suppressedCount = 0;
+    }
+}
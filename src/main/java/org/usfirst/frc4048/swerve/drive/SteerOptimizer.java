@@ -0,0 +1,117 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.usfirst.frc4048.swerve.math.FastTrig;
+import org.usfirst.frc4048.swerve.math.TrigPrecision;
+
+/**
+ * Calculates the steer target of a module with the minimal wheel travel: given the (continuous) steer encoder position
+ * and the desired wheel angle, the target is the continuous angle closest to the current position that points the
+ * wheel in the desired direction, either as is or reversed (turned by half a turn, with the drive speed negated).
+ * The wheel never turns more than a quarter turn.
+ *
+ * Optionally the drive speed is scaled by the cosine of the remaining steer error, so that a module that is still
+ * turning does not push the robot sideways (at a quarter turn away it does not drive at all). The cosine follows the
+ * trig precision (see setTrigPrecision).
+ *
+ * The result of the last optimize call is kept in the optimizer (see getTargetAngle, getSpeed and isReversed).
+ */
+public class SteerOptimizer {
+
+    private double turnsPerTick;
+
+    private boolean cosineScaling = false;
+    private boolean fastTrig = false;
+
+    // The result of the last optimize
+    private double targetAngle;
+    private double speed;
+    private boolean reversed;
+
+    /**
+     * Constructor
+     * @param gearRatio the number of encoder ticks in a turn of the wheel
+     */
+    public SteerOptimizer(double gearRatio) {
+        assert (gearRatio > 0) : "Gear ratio has to be larger than 0";
+        this.turnsPerTick = 1.0 / gearRatio;
+    }
+
+    /**
+     * @param gearRatio the number of encoder ticks in a turn of the wheel
+     */
+    public void setGearRatio(double gearRatio) {
+        assert (gearRatio > 0) : "Gear ratio has to be larger than 0";
+        this.turnsPerTick = 1.0 / gearRatio;
+    }
+
+    /**
+     * Scale the drive speed by the cosine of the remaining steer error (default is off)
+     */
+    public void setCosineScaling(boolean cosineScaling) {
+        this.cosineScaling = cosineScaling;
+    }
+
+    public boolean isCosineScaling() {
+        return cosineScaling;
+    }
+
+    /**
+     * The precision of the cosine scaling (default is EXACT)
+     */
+    public void setTrigPrecision(TrigPrecision trigPrecision) {
+        assert (trigPrecision != null) : "Precision cannot be null";
+        this.fastTrig = trigPrecision == TrigPrecision.FAST;
+    }
+
+    public TrigPrecision getTrigPrecision() {
+        return fastTrig ? TrigPrecision.FAST : TrigPrecision.EXACT;
+    }
+
+    /**
+     * Calculate the target
+     * @param speed the desired drive speed
+     * @param angle the desired wheel angle, in turns (-0.5 - 0.5, any value works)
+     * @param encPosition the current continuous steer encoder position, in ticks
+     */
+    public void optimize(double speed, double angle, double encPosition) {
+        double current = encPosition * turnsPerTick;
+
+        // The shortest way to the desired angle: -0.5 - 0.5 turns
+        double delta = angle - current;
+        delta -= Math.rint(delta);
+
+        reversed = Math.abs(delta) > 0.25;
+        if (reversed) {
+            delta -= Math.copySign(0.5, delta);
+            speed = -speed;
+        }
+
+        if (cosineScaling) {
+            speed *= fastTrig ? FastTrig.cosDegrees(delta * 360) : Math.cos(delta * 2 * Math.PI);
+        }
+
+        this.targetAngle = current + delta;
+        this.speed = speed;
+    }
+
+    /**
+     * @return the continuous target angle, in turns
+     */
+    public double getTargetAngle() {
+        return targetAngle;
+    }
+
+    /**
+     * @return the drive speed (negated if reversed)
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @return true if the wheel is driven in reverse
+     */
+    public boolean isReversed() {
+        return reversed;
+    }
+}
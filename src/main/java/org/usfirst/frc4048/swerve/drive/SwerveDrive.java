@@ -1,23 +1,80 @@
 package org.usfirst.frc4048.swerve.drive;
 
+import org.usfirst.frc4048.swerve.input.DriveInput;
+import org.usfirst.frc4048.swerve.input.InputPipeline;
 import org.usfirst.frc4048.swerve.math.CentricMode;
-import org.usfirst.frc4048.swerve.math.SwerveDirective;
+import org.usfirst.frc4048.swerve.math.InverseKinematics;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
 import org.usfirst.frc4048.swerve.math.SwerveMath;
+import org.usfirst.frc4048.swerve.math.TrigPrecision;
+import org.usfirst.frc4048.swerve.recorder.FlightRecord;
+import org.usfirst.frc4048.swerve.recorder.FlightRecorder;
 
-import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * The main class for the SwerveDrive subsystem: This class handles all aspects of controlling the swerve drive.
  * Use this class in your program if you want the easiest way to integrate swerve drive into your robot.
+ *
+ * The move and stop calls belong to a single control thread. The drive configuration (see SwerveDriveConfig and the
+ * configuration setters) can be changed from any thread without locking: each move reads the current configuration
+ * once and uses it for the whole cycle.
  */
 public class SwerveDrive {
-    // Enclosures 1-4 are the drive/steer combos
-    private SwerveEnclosure swerveEnclosure1;
-    private SwerveEnclosure swerveEnclosure2;
-    private SwerveEnclosure swerveEnclosure3;
-    private SwerveEnclosure swerveEnclosure4;
+    // Where the heading of a move comes from: the gyro value only, the gyro value with its rate, or the gyro provider
+    private static final int GYRO_VALUE = 0;
+    private static final int GYRO_RATE = 1;
+    private static final int GYRO_PROVIDER = 2;
 
-    private final SwerveMath swerveMath;
+    // The drive/steer combos, in the order of the kinematics module positions
+    private final SwerveEnclosure[] enclosures;
+
+    // The enclosures that support sensor snapshots (null for other implementations)
+    private final BaseEnclosure[] baseEnclosures;
+
+    // The gear ratios the enclosures were built with, used when the configuration does not set one
+    private final double[] defaultGearRatios;
+
+    private NanoClock clock = NanoClock.SYSTEM;
+    private long cycle;
+    private long cycleTimestamp;
+
+    // Concurrent dispatch of the module calls. Null when disabled (sequential dispatch)
+    private ParallelModuleDispatcher dispatcher;
+
+    // Latency histograms of the cycle stages. Null when disabled
+    private DriveProfiler profiler;
+
+    // Flight recording of every cycle. Null when disabled
+    private FlightRecorder recorder;
+    private FlightRecord record;
+
+    // Shaping of the inputs before the math (deadband, expo etc.). Null when disabled
+    private InputPipeline inputPipeline;
+    private final DriveInput input = new DriveInput();
+
+    // Skipping of the unchanged calculations and module moves. Null when disabled
+    private MoveCache moveCache;
+
+    // The gyro for the moves without a gyro value. Null when not set
+    private GyroProvider gyroProvider;
+    private final GyroSample gyroSample = new GyroSample();
+    private long gyroMaxAgeNanos;
+    private long actuationDelayNanos;
+    private long staleGyroCount;
+
+    // The gyro rate and the lookahead of the current cycle (moves with a gyro rate)
+    private double gyroRate;
+    private double gyroLookahead;
+
+    // The published configuration, and the one whose module settings were last applied to the enclosures
+    private final AtomicReference<SwerveDriveConfig> config;
+    private SwerveDriveConfig appliedConfig;
+
+    // Reusable buffers for the math results, so that move() does not allocate
+    private final double[] angles;
+    private final double[] speeds;
 
     public SwerveDrive(SwerveEnclosure swerveEnclosure1,
                        SwerveEnclosure swerveEnclosure2,
@@ -25,14 +82,32 @@ public class SwerveDrive {
                        SwerveEnclosure swerveEnclosure4,
                        double width, double length) {
 
-        this.swerveEnclosure1 = swerveEnclosure1;
-        this.swerveEnclosure2 = swerveEnclosure2;
-        this.swerveEnclosure3 = swerveEnclosure3;
-        this.swerveEnclosure4 = swerveEnclosure4;
+        this(new SwerveEnclosure[] {swerveEnclosure1, swerveEnclosure2, swerveEnclosure3, swerveEnclosure4},
+                SwerveKinematics.rectangle(width, length));
+    }
+
+    /**
+     * Constructor for any number of modules
+     * @param enclosures the enclosures, in the same order as the module positions of the kinematics
+     * @param kinematics the kinematics engine for the robot's module layout
+     */
+    public SwerveDrive(SwerveEnclosure[] enclosures, SwerveKinematics kinematics) {
+        assert (enclosures.length == kinematics.getModuleCount()) : "Number of enclosures and modules must match";
+
+        this.enclosures = enclosures.clone();
+        this.baseEnclosures = new BaseEnclosure[enclosures.length];
+        this.defaultGearRatios = new double[enclosures.length];
+        for (int i = 0; i < enclosures.length; i++) {
+            if (enclosures[i] instanceof BaseEnclosure) {
+                baseEnclosures[i] = (BaseEnclosure) enclosures[i];
+                defaultGearRatios[i] = baseEnclosures[i].gearRatio;
+            }
+        }
 
-        // instantiate the swerve library with a gyro provider using pigeon1
-        swerveMath = new SwerveMath(width, length);
+        config = new AtomicReference<SwerveDriveConfig>(new SwerveDriveConfig(kinematics));
 
+        angles = new double[enclosures.length];
+        speeds = new double[enclosures.length];
     }
 
     /**
@@ -47,13 +122,244 @@ public class SwerveDrive {
      * @param gyroValue the value of the gyro input to be used by the calculation. Optional. Only used when the robot is in field-centric mode.
      */
     public void move(double fwd, double str, double rcw, Double gyroValue) {
-        // Get the move command calculated
-        List<SwerveDirective> swerveDirectives = swerveMath.move(fwd, str, rcw, gyroValue);
+        move(fwd, str, rcw, gyroValue == null ? SwerveMath.NO_GYRO : gyroValue.doubleValue());
+    }
+
+    /**
+     * move
+     * Same as above, with a primitive gyro value so the caller does not need to box it.
+     *
+     * @param fwd
+     * @param str
+     * @param rcw
+     * @param gyroValue the value of the gyro input to be used by the calculation, or {@link SwerveMath#NO_GYRO}.
+     *                  Only used when the robot is in field-centric mode.
+     */
+    public void move(double fwd, double str, double rcw, double gyroValue) {
+        drive(fwd, str, rcw, gyroValue, GYRO_VALUE);
+    }
+
+    /**
+     * move
+     * Same as above, with the angular rate of the gyro: the heading is extrapolated by the lookahead (see
+     * SwerveMath). Like the gyro provider path, a missing gyro value makes the cycle robot-centric instead of failing,
+     * so recorded cycles (see ReplayEngine) are replayed the way they were driven.
+     *
+     * @param fwd
+     * @param str
+     * @param rcw
+     * @param gyroValue the value of the gyro input, or {@link SwerveMath#NO_GYRO}
+     * @param gyroRate the angular rate of the gyro in degrees per second
+     * @param lookaheadSeconds how far ahead to extrapolate the heading
+     */
+    public void move(double fwd, double str, double rcw, double gyroValue, double gyroRate, double lookaheadSeconds) {
+        this.gyroRate = gyroRate;
+        this.gyroLookahead = lookaheadSeconds;
+        drive(fwd, str, rcw, gyroValue, GYRO_RATE);
+    }
+
+    /**
+     * move
+     * Same as above, with the heading from the gyro provider (see setGyroProvider): the latest sample, extrapolated
+     * with its angular rate to the actuation time. If the sample is too old the cycle is calculated robot-centric.
+     *
+     * @param fwd
+     * @param str
+     * @param rcw
+     */
+    public void move(double fwd, double str, double rcw) {
+        assert (gyroProvider != null) : "No gyro provider";
+        drive(fwd, str, rcw, SwerveMath.NO_GYRO, GYRO_PROVIDER);
+    }
+
+    /**
+     * The drive cycle. When profiling, the latency of the stages is recorded
+     */
+    private void drive(double fwd, double str, double rcw, double gyroValue, int gyroMode) {
+        DriveProfiler profiler = this.profiler;
+        long start = profiler != null ? System.nanoTime() : 0L;
+
+        SwerveDriveConfig config = beginCycle();
+
+        DriveInput shaped = shapeInput(fwd, str, rcw);
+
+        if (gyroMode == GYRO_PROVIDER) {
+            gyroValue = readGyro();
+        }
+        double heading = getHeading(gyroValue, gyroMode);
+
+        // Get the move command calculated, unless the inputs did not change
+        long mathStart = profiler != null ? System.nanoTime() : 0L;
+        boolean mathHit = moveCache != null && moveCache.isMathHit(config, shaped.getFwd(), shaped.getStr(),
+                shaped.getRcw(), heading);
+        if (!mathHit) {
+            calculate(config, shaped, gyroValue, gyroMode);
+        }
+        long mathEnd = profiler != null ? System.nanoTime() : 0L;
+
+        moveEnclosures(mathHit);
+
+        if (recorder != null) {
+            record(shaped, heading);
+        }
+
+        if (profiler != null) {
+            profiler.getMath().record(mathEnd - mathStart);
+            profiler.getCycle().record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Put the inputs of the cycle through the input pipeline, if there is one
+     * @return the (shaped) inputs of the cycle
+     */
+    private DriveInput shapeInput(double fwd, double str, double rcw) {
+        input.set(fwd, str, rcw);
+        if (inputPipeline != null) {
+            inputPipeline.apply(input, cycleTimestamp);
+        }
+        return input;
+    }
+
+    private void calculate(SwerveDriveConfig config, DriveInput shaped, double gyroValue, int gyroMode) {
+        if (gyroMode != GYRO_VALUE) {
+            config.getMath().move(shaped.getFwd(), shaped.getStr(), shaped.getRcw(), gyroValue, gyroRate, gyroLookahead,
+                    angles, speeds);
+        } else {
+            config.getMath().move(shaped.getFwd(), shaped.getStr(), shaped.getRcw(), gyroValue, angles, speeds);
+        }
+        invertSpeeds(config);
+    }
+
+    /**
+     * Read the latest gyro sample for the cycle
+     * @return the gyro value of the sample, NO_GYRO if there is none or it is too old
+     */
+    private double readGyro() {
+        if (!gyroProvider.read(gyroSample) || gyroSample.isStale(cycleTimestamp, gyroMaxAgeNanos)) {
+            staleGyroCount++;
+            return SwerveMath.NO_GYRO;
+        }
+        gyroRate = gyroSample.getRate();
+        gyroLookahead = (cycleTimestamp + actuationDelayNanos - gyroSample.getTimestamp()) / 1e9;
+        return gyroSample.getAngle();
+    }
+
+    /**
+     * @return the heading the cycle is calculated with (extrapolated, unless only the gyro value is known)
+     */
+    private double getHeading(double gyroValue, int gyroMode) {
+        if (gyroMode == GYRO_VALUE || Double.isNaN(gyroValue)) {
+            return gyroValue;
+        }
+        return SwerveMath.extrapolateHeading(gyroValue, gyroRate, gyroLookahead);
+    }
+
+    private void invertSpeeds(SwerveDriveConfig config) {
+        for (int i = 0; i < speeds.length; i++) {
+            if (config.isDriveInverted(i)) {
+                speeds[i] = -speeds[i];
+            }
+        }
+    }
+
+    private void moveEnclosures(boolean mathHit) {
+        if (dispatcher != null) {
+            dispatcher.move(speeds, angles);
+            return;
+        }
+
+        for (int i = 0; i < enclosures.length; i++) {
+            BaseEnclosure enclosure = baseEnclosures[i];
+            if (moveCache != null && enclosure != null
+                    && moveCache.isModuleHit(i, mathHit, enclosure.getSnapshot().getEncPosition(), cycleTimestamp)) {
+                continue;
+            }
+            enclosures[i].move(speeds[i], angles[i]);
+        }
+    }
+
+    /**
+     * Write the cycle to the flight recorder: the (shaped) inputs, the math results and the enclosure targets
+     */
+    private void record(DriveInput shaped, double gyroValue) {
+        record.setInputs(cycleTimestamp, cycle, shaped.getFwd(), shaped.getStr(), shaped.getRcw(), gyroValue);
+
+        for (int i = 0; i < enclosures.length; i++) {
+            BaseEnclosure enclosure = baseEnclosures[i];
+            if (enclosure != null) {
+                record.setModule(i, angles[i], speeds[i], enclosure.getSnapshot().getEncPosition(),
+                        enclosure.getTargetSpeed(), enclosure.getTargetAngle(), enclosure.isReversed());
+            } else {
+                // Only the math results are known for other implementations
+                record.setModule(i, angles[i], speeds[i], 0, speeds[i], angles[i], false);
+            }
+        }
+
+        recorder.write(record);
+    }
+
+    /**
+     * Start a new control cycle: take the configuration for the cycle (applying its module settings if it changed)
+     * and read the sensors of every enclosure once into its snapshot.
+     * The snapshots stay in use until the next cycle, so observers (e.g. odometry) called after move share them.
+     * @return the configuration for the cycle
+     */
+    private SwerveDriveConfig beginCycle() {
+        SwerveDriveConfig config = this.config.get();
+        if (config != appliedConfig) {
+            applyModuleConfig(config);
+        }
+
+        cycle++;
+        long now = clock.nanoTime();
+        cycleTimestamp = now;
+
+        if (dispatcher != null) {
+            dispatcher.beginCycle();
+        }
+        for (int i = 0; i < baseEnclosures.length; i++) {
+            // A module that is still busy on its own thread keeps its snapshot until it is done
+            if (baseEnclosures[i] != null && (dispatcher == null || !dispatcher.isSkipped(i))) {
+                baseEnclosures[i].sample(cycle, now);
+            }
+        }
+        return config;
+    }
+
+    private void applyModuleConfig(SwerveDriveConfig config) {
+        for (int i = 0; i < baseEnclosures.length; i++) {
+            double gearRatio = config.getGearRatio(i);
+            if (Double.isNaN(gearRatio)) {
+                gearRatio = defaultGearRatios[i];
+            }
+            if (baseEnclosures[i] != null && gearRatio != baseEnclosures[i].gearRatio) {
+                baseEnclosures[i].setGearRatio(gearRatio);
+            }
+            if (baseEnclosures[i] != null) {
+                baseEnclosures[i].setTrigPrecision(config.getTrigPrecision());
+            }
+        }
+        appliedConfig = config;
+    }
+
+    /**
+     * @return the number of the current control cycle (incremented on every move)
+     */
+    public long getCycle() {
+        return cycle;
+    }
 
-        swerveEnclosure1.move(swerveDirectives.get(0).getSpeed(), swerveDirectives.get(0).getAngle());
-        swerveEnclosure2.move(swerveDirectives.get(1).getSpeed(), swerveDirectives.get(1).getAngle());
-        swerveEnclosure3.move(swerveDirectives.get(2).getSpeed(), swerveDirectives.get(2).getAngle());
-        swerveEnclosure4.move(swerveDirectives.get(3).getSpeed(), swerveDirectives.get(3).getAngle());
+    /**
+     * Set the clock used to timestamp the sensor snapshots and to time the write coalescing of the enclosures
+     */
+    public void setClock(NanoClock clock) {
+        this.clock = clock;
+        for (BaseEnclosure enclosure : baseEnclosures) {
+            if (enclosure != null) {
+                enclosure.setClock(clock);
+            }
+        }
     }
 
     /**
@@ -61,22 +367,260 @@ public class SwerveDrive {
      * @throws Exception 
      */
     public void stop() {
-        swerveEnclosure1.stop();
-        swerveEnclosure2.stop();
-        swerveEnclosure3.stop();
-        swerveEnclosure4.stop();
+        // Start from rest (e.g. the slew rate limiter) on the next move
+        if (inputPipeline != null) {
+            inputPipeline.reset();
+        }
+
+        // The modules have to be moved again after the stop
+        if (moveCache != null) {
+            moveCache.invalidate();
+        }
+
+        if (dispatcher != null) {
+            dispatcher.stop();
+            return;
+        }
+
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i].stop();
+        }
+    }
+
+    /**
+     * Enable concurrent dispatch: the move and stop calls of the modules run on one dedicated thread per module,
+     * and the drive waits for them up to the given deadline. Modules that miss the deadline are reported by the
+     * dispatcher (see getDispatcher) and skipped until they catch up.
+     * @param deadlineNanos how long each cycle waits for the modules, in nanoseconds
+     */
+    public void enableParallelDispatch(long deadlineNanos) {
+        disableParallelDispatch();
+        dispatcher = new ParallelModuleDispatcher(enclosures, deadlineNanos);
+    }
+
+    /**
+     * Go back to calling the modules one after the other on the caller's thread (this is the default)
+     */
+    public void disableParallelDispatch() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+            dispatcher = null;
+        }
+    }
+
+    /**
+     * @return the concurrent dispatcher (for the missed deadline reports), null if concurrent dispatch is disabled
+     */
+    public ParallelModuleDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Start recording the latency of every stage of the drive cycle (see DriveProfiler).
+     * Enable before the drive loop starts running.
+     * @return the profiler, for the snapshots
+     */
+    public DriveProfiler enableProfiling() {
+        if (profiler == null) {
+            profiler = new DriveProfiler(enclosures);
+            for (int i = 0; i < baseEnclosures.length; i++) {
+                if (baseEnclosures[i] != null) {
+                    baseEnclosures[i].setLatencyHistograms(profiler.getEnclosureLatencies(i));
+                }
+            }
+        }
+        return profiler;
+    }
+
+    /**
+     * Stop recording latencies (this is the default). When disabled the cost is a single check per move.
+     */
+    public void disableProfiling() {
+        profiler = null;
+        for (int i = 0; i < baseEnclosures.length; i++) {
+            if (baseEnclosures[i] != null) {
+                baseEnclosures[i].setLatencyHistograms(null);
+            }
+        }
+    }
+
+    /**
+     * @return the profiler, null if profiling is disabled
+     */
+    public DriveProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Skip the work of the cycles whose inputs did not change (see MoveCache): the calculation when the inputs are
+     * within the tolerances, and the move of a module when its steer encoder also moved less than the threshold.
+     * With concurrent dispatch only the calculation is skipped. Replaces the current cache (and its counters).
+     * @param inputTolerance the largest change of fwd, str and rcw that is treated as unchanged
+     * @param gyroTolerance the largest change of the gyro value (degrees) that is treated as unchanged
+     * @param encoderThreshold the largest steer encoder movement (ticks) that is treated as unchanged
+     * @param refreshIntervalNanos the maximum time between moves of a module, in nanoseconds
+     * @return the cache, for the hit/miss counters
+     */
+    public MoveCache enableMoveCache(double inputTolerance, double gyroTolerance, int encoderThreshold,
+                                     long refreshIntervalNanos) {
+        moveCache = new MoveCache(enclosures.length, inputTolerance, gyroTolerance, encoderThreshold,
+                refreshIntervalNanos);
+        return moveCache;
+    }
+
+    /**
+     * Calculate and move every module in every cycle (this is the default)
+     */
+    public void disableMoveCache() {
+        moveCache = null;
+    }
+
+    /**
+     * @return the move cache, null if it is disabled
+     */
+    public MoveCache getMoveCache() {
+        return moveCache;
+    }
+
+    /**
+     * Use the given gyro for the moves without a gyro value (see move(fwd, str, rcw)). The provider samples on its own
+     * thread (start it separately) and the drive reads its latest sample once per cycle, without blocking.
+     * @param gyroProvider the gyro, using the same clock as the drive (see setClock)
+     * @param maxAgeNanos samples older than this are not used: the cycle is calculated robot-centric
+     * @param actuationDelayNanos the time from the start of the cycle until the wheels act on it, in nanoseconds.
+     *                            The heading is extrapolated to that time
+     */
+    public void setGyroProvider(GyroProvider gyroProvider, long maxAgeNanos, long actuationDelayNanos) {
+        assert (maxAgeNanos > 0) : "Maximum age has to be larger than 0";
+        assert (actuationDelayNanos >= 0) : "Actuation delay cannot be negative";
+
+        this.gyroMaxAgeNanos = maxAgeNanos;
+        this.actuationDelayNanos = actuationDelayNanos;
+        this.gyroProvider = gyroProvider;
+    }
+
+    public GyroProvider getGyroProvider() {
+        return gyroProvider;
+    }
+
+    /**
+     * @return the number of cycles that had no gyro sample or only a stale one (and were calculated robot-centric)
+     */
+    public long getStaleGyroCount() {
+        return staleGyroCount;
+    }
+
+    /**
+     * Record every cycle (inputs, math results, encoder positions and the enclosure targets) into the
+     * given flight recorder. The recorder is used from the thread that calls move. Null disables the recording.
+     * With concurrent dispatch, the values of a module that missed the deadline are from its last finished move.
+     */
+    public void setFlightRecorder(FlightRecorder recorder) {
+        assert (recorder == null || recorder.getModuleCount() == enclosures.length)
+                : "Number of enclosures and recorded modules must match";
+
+        if (recorder != null && record == null) {
+            record = new FlightRecord(enclosures.length);
+        }
+        this.recorder = recorder;
+    }
+
+    public FlightRecorder getFlightRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Shape the inputs of every move with the given pipeline before the calculation (see InputPipeline). The
+     * pipeline runs on the thread that calls move, and the flight recorder records the shaped inputs.
+     * Null disables the shaping (this is the default).
+     */
+    public void setInputPipeline(InputPipeline inputPipeline) {
+        this.inputPipeline = inputPipeline;
+    }
+
+    public InputPipeline getInputPipeline() {
+        return inputPipeline;
+    }
+
+    /**
+     * @return the current configuration
+     */
+    public SwerveDriveConfig getConfig() {
+        return config.get();
+    }
+
+    /**
+     * Replace the configuration (from any thread). The next move uses the new configuration.
+     */
+    public void setConfig(SwerveDriveConfig config) {
+        assert (config.getModuleCount() == enclosures.length) : "Number of enclosures and modules must match";
+        this.config.set(config);
+    }
+
+    /**
+     * Change the configuration atomically (from any thread): the update is applied to the current configuration,
+     * and retried if another thread changed it in the meantime, so concurrent changes are never lost.
+     * @param update creates the new configuration from the current one (e.g. with one of the with* methods).
+     *               It may be called more than once, and must not have side effects
+     * @return the new configuration
+     */
+    public SwerveDriveConfig updateConfig(UnaryOperator<SwerveDriveConfig> update) {
+        SwerveDriveConfig newConfig = config.updateAndGet(update);
+        assert (newConfig.getModuleCount() == enclosures.length) : "Number of enclosures and modules must match";
+        return newConfig;
     }
 
     /**
      * Change the centric-mode of the robot (this can be done dynamically any time and will affect
      * the robot behavior from that point on)
      */
-    public void setCentricMode(CentricMode centricMode) {
-        this.swerveMath.setCentricMode(centricMode);
+    public void setCentricMode(final CentricMode centricMode) {
+        updateConfig(new UnaryOperator<SwerveDriveConfig>() {
+            @Override
+            public SwerveDriveConfig apply(SwerveDriveConfig config) {
+                return config.withCentricMode(centricMode);
+            }
+        });
     }
     
+    /**
+     * Select exact (the default) or fast approximate trigonometry for the move calculation
+     */
+    public void setTrigPrecision(final TrigPrecision trigPrecision) {
+        updateConfig(new UnaryOperator<SwerveDriveConfig>() {
+            @Override
+            public SwerveDriveConfig apply(SwerveDriveConfig config) {
+                return config.withTrigPrecision(trigPrecision);
+            }
+        });
+    }
+
+    /**
+     * Use a different implementation of the inverse kinematics (e.g. a KinematicsTable), null for the analytic one
+     */
+    public void setInverseKinematics(final InverseKinematics inverseKinematics) {
+        updateConfig(new UnaryOperator<SwerveDriveConfig>() {
+            @Override
+            public SwerveDriveConfig apply(SwerveDriveConfig config) {
+                return config.withInverseKinematics(inverseKinematics);
+            }
+        });
+    }
+
+    /**
+     * Scale all the wheel speeds, between 0 and 1 (e.g. to limit the maximum speed while testing)
+     */
+    public void setSpeedScale(final double speedScale) {
+        updateConfig(new UnaryOperator<SwerveDriveConfig>() {
+            @Override
+            public SwerveDriveConfig apply(SwerveDriveConfig config) {
+                return config.withSpeedScale(speedScale);
+            }
+        });
+    }
+
     public void setModeField() {
-		this.swerveMath.setModeField();
+		setCentricMode(CentricMode.FIELD);
 	}
 
 }
@@ -0,0 +1,172 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.usfirst.frc4048.swerve.math.CentricMode;
+import org.usfirst.frc4048.swerve.math.InverseKinematics;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+import org.usfirst.frc4048.swerve.math.SwerveMath;
+import org.usfirst.frc4048.swerve.math.TrigPrecision;
+
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of the drive configuration: the geometry (kinematics), centric mode, trigonometry precision,
+ * inverse kinematics implementation, speed scale, and per module drive inversion and steer gear ratio.
+ * Changes are made by creating a modified copy with the with* methods, and published with SwerveDrive.setConfig
+ * (or updateConfig). Since a configuration never changes after it is created, any thread can read and share it.
+ */
+public final class SwerveDriveConfig {
+
+    private final SwerveKinematics kinematics;
+    private final CentricMode centricMode;
+    private final TrigPrecision trigPrecision;
+    private final InverseKinematics inverseKinematics;
+    private final double speedScale;
+    private final boolean[] driveInverted;
+    private final double[] gearRatios;
+
+    // The math for this configuration. Configured here and never changed afterwards
+    private final SwerveMath math;
+
+    /**
+     * Constructor for the default configuration of the given geometry: robot-centric, exact trigonometry, analytic
+     * kinematics, full speed, no inverted modules and the gear ratios of the enclosures
+     * @param kinematics the kinematics of the robot's module layout
+     */
+    public SwerveDriveConfig(SwerveKinematics kinematics) {
+        this(kinematics, CentricMode.ROBOT, TrigPrecision.EXACT, null, 1.0,
+                new boolean[kinematics.getModuleCount()], nanArray(kinematics.getModuleCount()));
+    }
+
+    private SwerveDriveConfig(SwerveKinematics kinematics, CentricMode centricMode, TrigPrecision trigPrecision,
+                              InverseKinematics inverseKinematics, double speedScale,
+                              boolean[] driveInverted, double[] gearRatios) {
+        assert (centricMode != null && trigPrecision != null) : "Centric mode and precision cannot be null";
+        assert (speedScale >= 0 && speedScale <= 1) : "Speed scale has to be between 0 and 1";
+
+        this.kinematics = kinematics;
+        this.centricMode = centricMode;
+        this.trigPrecision = trigPrecision;
+        this.inverseKinematics = inverseKinematics;
+        this.speedScale = speedScale;
+        this.driveInverted = driveInverted;
+        this.gearRatios = gearRatios;
+
+        math = new SwerveMath(kinematics);
+        math.setCentricMode(centricMode);
+        math.setTrigPrecision(trigPrecision);
+        math.setInverseKinematics(inverseKinematics);
+        math.setSpeedScale(speedScale);
+    }
+
+    /**
+     * @return a copy with a different geometry. The number of modules cannot change. The inverse kinematics
+     * implementation goes back to the analytic one (a table is only valid for the geometry it was built for).
+     */
+    public SwerveDriveConfig withKinematics(SwerveKinematics kinematics) {
+        assert (kinematics.getModuleCount() == getModuleCount()) : "Number of modules cannot change";
+        return new SwerveDriveConfig(kinematics, centricMode, trigPrecision, null, speedScale,
+                driveInverted, gearRatios);
+    }
+
+    public SwerveDriveConfig withCentricMode(CentricMode centricMode) {
+        return new SwerveDriveConfig(kinematics, centricMode, trigPrecision, inverseKinematics, speedScale,
+                driveInverted, gearRatios);
+    }
+
+    public SwerveDriveConfig withTrigPrecision(TrigPrecision trigPrecision) {
+        return new SwerveDriveConfig(kinematics, centricMode, trigPrecision, inverseKinematics, speedScale,
+                driveInverted, gearRatios);
+    }
+
+    /**
+     * @param inverseKinematics the implementation of the inverse kinematics for this geometry, null for the analytic one
+     */
+    public SwerveDriveConfig withInverseKinematics(InverseKinematics inverseKinematics) {
+        return new SwerveDriveConfig(kinematics, centricMode, trigPrecision, inverseKinematics, speedScale,
+                driveInverted, gearRatios);
+    }
+
+    /**
+     * @param speedScale the factor of all the wheel speeds, between 0 and 1
+     */
+    public SwerveDriveConfig withSpeedScale(double speedScale) {
+        return new SwerveDriveConfig(kinematics, centricMode, trigPrecision, inverseKinematics, speedScale,
+                driveInverted, gearRatios);
+    }
+
+    /**
+     * @param inverted true to negate the drive speed of the module (e.g. a motor mounted the other way)
+     */
+    public SwerveDriveConfig withDriveInverted(int module, boolean inverted) {
+        boolean[] newDriveInverted = driveInverted.clone();
+        newDriveInverted[module] = inverted;
+        return new SwerveDriveConfig(kinematics, centricMode, trigPrecision, inverseKinematics, speedScale,
+                newDriveInverted, gearRatios);
+    }
+
+    /**
+     * @param gearRatio the steer gear ratio of the module (only applies to BaseEnclosures), or NaN to use the
+     *                  gear ratio the enclosure was built with
+     */
+    public SwerveDriveConfig withGearRatio(int module, double gearRatio) {
+        assert (Double.isNaN(gearRatio) || gearRatio > 0) : "Gear ratio has to be larger than 0";
+
+        double[] newGearRatios = gearRatios.clone();
+        newGearRatios[module] = gearRatio;
+        return new SwerveDriveConfig(kinematics, centricMode, trigPrecision, inverseKinematics, speedScale,
+                driveInverted, newGearRatios);
+    }
+
+    public SwerveKinematics getKinematics() {
+        return kinematics;
+    }
+
+    public int getModuleCount() {
+        return kinematics.getModuleCount();
+    }
+
+    public CentricMode getCentricMode() {
+        return centricMode;
+    }
+
+    public TrigPrecision getTrigPrecision() {
+        return trigPrecision;
+    }
+
+    public InverseKinematics getInverseKinematics() {
+        return inverseKinematics;
+    }
+
+    public double getSpeedScale() {
+        return speedScale;
+    }
+
+    public boolean isDriveInverted(int module) {
+        return driveInverted[module];
+    }
+
+    /**
+     * @return the steer gear ratio of the module, NaN if the enclosure's own (constructor) gear ratio is used
+     */
+    public double getGearRatio(int module) {
+        return gearRatios[module];
+    }
+
+    SwerveMath getMath() {
+        return math;
+    }
+
+    @Override
+    public String toString() {
+        return "SwerveDriveConfig{centricMode=" + centricMode + ", trigPrecision=" + trigPrecision
+                + ", inverseKinematics=" + inverseKinematics + ", speedScale=" + speedScale
+                + ", driveInverted=" + Arrays.toString(driveInverted) + ", gearRatios=" + Arrays.toString(gearRatios)
+                + "}";
+    }
+
+    private static double[] nanArray(int length) {
+        double[] array = new double[length];
+        Arrays.fill(array, Double.NaN);
+        return array;
+    }
+}
@@ -0,0 +1,214 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a SwerveDrive on its own high-priority thread at a fixed period, so the timing of the drive cycle does not
+ * depend on the threads that produce the commands (joystick polling, dashboard, command scheduling).
+ * Commands are posted from any thread to the mailbox (see getMailbox) and each cycle drives with the latest one.
+ * If no fresh command arrived within the watchdog window the robot is stopped until the next command. A command that
+ * fails (e.g. field centric without a gyro value) also stops the robot, and the loop goes on with the next cycle.
+ *
+ * Each cycle is a call to tick(), which can also be called directly with a fake clock (without starting the thread).
+ * The loop keeps period, jitter and overrun statistics. The loop does not allocate.
+ */
+public class SwerveDriveLoop implements Runnable {
+
+    private final SwerveDrive swerveDrive;
+    private final long periodNanos;
+    private final long watchdogNanos;
+    private final NanoClock clock;
+
+    private final DriveCommandMailbox mailbox;
+    private final DriveCommand command = new DriveCommand();
+
+    private volatile boolean running = false;
+    private Thread thread;
+
+    private boolean stopped = true;
+    private long lastTick = -1;
+
+    // Statistics. Written by the loop thread only
+    private volatile long cycleCount;
+    private volatile long overrunCount;
+    private volatile long watchdogStopCount;
+    private volatile long errorCount;
+    private volatile long lastPeriodNanos;
+    private volatile long maxJitterNanos;
+    private volatile long totalJitterNanos;
+
+    /**
+     * Constructor
+     * @param swerveDrive the drive to run. It should not be used by other threads once the loop runs
+     * @param periodNanos the loop period, in nanoseconds
+     * @param watchdogNanos the maximum age of a command before the robot is stopped, in nanoseconds
+     * @param clock the clock for the loop timing and command timestamps
+     */
+    public SwerveDriveLoop(SwerveDrive swerveDrive, long periodNanos, long watchdogNanos, NanoClock clock) {
+        assert (periodNanos > 0) : "Period has to be larger than 0";
+        assert (watchdogNanos > 0) : "Watchdog window has to be larger than 0";
+
+        this.swerveDrive = swerveDrive;
+        this.periodNanos = periodNanos;
+        this.watchdogNanos = watchdogNanos;
+        this.clock = clock;
+        this.mailbox = new DriveCommandMailbox(clock);
+    }
+
+    /**
+     * @return the mailbox to post drive commands to
+     */
+    public DriveCommandMailbox getMailbox() {
+        return mailbox;
+    }
+
+    /**
+     * Start the loop thread
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "swerve-drive-loop");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Stop the loop thread (and the robot) and wait for it to end
+     */
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join();
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        long next = clock.nanoTime();
+
+        try {
+            while (running) {
+                long start = clock.nanoTime();
+                try {
+                    tick(start);
+                } catch (RuntimeException e) {
+                    // Even the stop failed: keep the loop (and the watchdog) alive for the next cycle
+                    errorCount++;
+                }
+                long end = clock.nanoTime();
+
+                if (end - start > periodNanos) {
+                    overrunCount++;
+                }
+
+                // Skip the periods that were missed, keeping the original phase
+                next += periodNanos;
+                if (next - end < 0) {
+                    next += ((end - next) / periodNanos + 1) * periodNanos;
+                }
+
+                long remaining;
+                while (running && (remaining = next - clock.nanoTime()) > 0) {
+                    LockSupport.parkNanos(this, remaining);
+                }
+            }
+        } finally {
+            stopped = true;
+            swerveDrive.stop();
+        }
+    }
+
+    /**
+     * Run one cycle of the loop: drive with the latest command, or stop if there is no fresh one
+     * @param now the current time, in nanoseconds
+     */
+    public void tick(long now) {
+        if (lastTick >= 0) {
+            long period = now - lastTick;
+            long jitter = Math.abs(period - periodNanos);
+            lastPeriodNanos = period;
+            totalJitterNanos += jitter;
+            if (jitter > maxJitterNanos) {
+                maxJitterNanos = jitter;
+            }
+        }
+        lastTick = now;
+        cycleCount++;
+
+        if (!mailbox.read(command) || now - command.getTimestamp() > watchdogNanos) {
+            if (!stopped) {
+                swerveDrive.stop();
+                stopped = true;
+                watchdogStopCount++;
+            }
+            return;
+        }
+
+        try {
+            swerveDrive.move(command.getFwd(), command.getStr(), command.getRcw(), command.getGyroValue());
+            stopped = false;
+        } catch (RuntimeException e) {
+            errorCount++;
+            stopped = true;
+            swerveDrive.stop();
+        }
+    }
+
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    public long getCycleCount() {
+        return cycleCount;
+    }
+
+    /**
+     * @return the number of cycles that took longer than the period
+     */
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * @return the number of times the robot was stopped because there was no fresh command
+     */
+    public long getWatchdogStopCount() {
+        return watchdogStopCount;
+    }
+
+    /**
+     * @return the number of cycles that failed with an exception (the robot was stopped)
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * @return the measured time between the last two cycles, in nanoseconds
+     */
+    public long getLastPeriodNanos() {
+        return lastPeriodNanos;
+    }
+
+    /**
+     * @return the largest difference between the measured and the nominal period, in nanoseconds
+     */
+    public long getMaxJitterNanos() {
+        return maxJitterNanos;
+    }
+
+    /**
+     * @return the average difference between the measured and the nominal period, in nanoseconds
+     */
+    public double getMeanJitterNanos() {
+        long cycles = cycleCount;
+        return cycles > 1 ? (double) totalJitterNanos / (cycles - 1) : 0.0;
+    }
+}
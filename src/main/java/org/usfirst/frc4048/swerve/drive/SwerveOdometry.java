@@ -0,0 +1,197 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.usfirst.frc4048.swerve.math.PoseHistory;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+
+/**
+ * Incremental odometry: tracks the robot pose on the field from the enclosures' steer encoders and drive distances.
+ * Call update() once per control cycle (e.g. right after SwerveDrive.move). Each update takes the steer encoder and
+ * drive distance of every enclosure from the cycle's sensor snapshot (reading the hardware only if the snapshot is
+ * missing or stale), converts the distance travelled since the previous update into robot movement
+ * using the forward kinematics, and integrates it into the pose. The pose is updated in place and a fixed number of
+ * past poses is kept for lookback. Updates do not allocate.
+ *
+ * The pose uses the field coordinates: x is to the right and y is down the field (the units are the drive distance
+ * units). The heading is in degrees, clockwise, using the same convention as the gyro value (0 is straight down the
+ * field). The heading is continuous (it is not wrapped to 0-360).
+ */
+public class SwerveOdometry {
+
+    private final BaseEnclosure[] enclosures;
+    private final SwerveKinematics kinematics;
+    private final PoseHistory history;
+
+    // Per-module buffers
+    private final double[] lastDistances;
+    private final double[] angles;
+    private final double[] deltas;
+
+    // Robot movement since the last update: forward, strafe, rotation (radians)
+    private final double[] motion = new double[3];
+
+    private double x;
+    private double y;
+    private double heading;
+
+    private boolean initialized = false;
+
+    // Snapshots older than this are not used
+    private long maxSnapshotAgeNanos = DEFAULT_MAX_SNAPSHOT_AGE_NANOS;
+
+    public static final long DEFAULT_MAX_SNAPSHOT_AGE_NANOS = 20000000L;
+
+    /**
+     * Constructor. No hardware is read until the first update (or reset).
+     * @param enclosures the enclosures, in the same order as the module positions of the kinematics
+     * @param kinematics the kinematics of the robot's module layout
+     * @param historySize the number of past poses to keep
+     * @throws IllegalArgumentException if an enclosure does not have a drive encoder
+     */
+    public SwerveOdometry(BaseEnclosure[] enclosures, SwerveKinematics kinematics, int historySize) {
+        assert (enclosures.length == kinematics.getModuleCount()) : "Number of enclosures and modules must match";
+
+        this.enclosures = enclosures.clone();
+        this.kinematics = kinematics;
+        this.history = new PoseHistory(historySize);
+
+        lastDistances = new double[enclosures.length];
+        angles = new double[enclosures.length];
+        deltas = new double[enclosures.length];
+
+        for (int i = 0; i < enclosures.length; i++) {
+            if (!enclosures[i].hasDriveEncoder()) {
+                throw new IllegalArgumentException("Enclosure " + enclosures[i].getName()
+                        + " does not have a drive encoder");
+            }
+        }
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i].setSampleDriveDistance(true);
+        }
+    }
+
+    /**
+     * Set the maximum age of the sensor snapshots used by the update (default is 20ms)
+     */
+    public void setMaxSnapshotAge(long maxSnapshotAgeNanos) {
+        this.maxSnapshotAgeNanos = maxSnapshotAgeNanos;
+    }
+
+    /**
+     * Reset the pose. The current drive distances become the baseline for the next update, and the history is cleared.
+     * @param timestamp the time of the reset, in nanoseconds (same clock as the SwerveDrive)
+     */
+    public void reset(double x, double y, double heading, long timestamp) {
+        for (int i = 0; i < enclosures.length; i++) {
+            invalidateIfStale(enclosures[i], timestamp);
+            lastDistances[i] = enclosures[i].readDriveDistance();
+        }
+
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+        initialized = true;
+
+        history.clear();
+        history.add(timestamp, x, y, heading);
+    }
+
+    /**
+     * Update the pose, using the wheel movement for the heading as well
+     * @param timestamp the time of the update, in nanoseconds (same clock as the SwerveDrive)
+     */
+    public void update(long timestamp) {
+        if (!initialized) {
+            reset(0.0, 0.0, 0.0, timestamp);
+            return;
+        }
+
+        readModules(timestamp);
+        integrate(heading + Math.toDegrees(motion[2]), timestamp);
+    }
+
+    /**
+     * Update the pose, using the gyro for the heading (the wheels are only used for the translation)
+     * @param timestamp the time of the update, in nanoseconds (same clock as the SwerveDrive)
+     * @param gyroValue the gyro value, in degrees
+     */
+    public void update(long timestamp, double gyroValue) {
+        if (!initialized) {
+            reset(0.0, 0.0, gyroValue, timestamp);
+            return;
+        }
+
+        readModules(timestamp);
+
+        // Keep the heading continuous: move by the shortest difference to the gyro value
+        double difference = (gyroValue - heading) % 360;
+        if (difference > 180) difference -= 360;
+        else if (difference < -180) difference += 360;
+
+        integrate(heading + difference, timestamp);
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getHeading() {
+        return heading;
+    }
+
+    /**
+     * @return the movement calculated in the last update, in robot coordinates: [0] forward, [1] strafe and [2] clockwise
+     * rotation in radians. The array is reused by the next update.
+     */
+    public double[] getLastMotion() {
+        return motion;
+    }
+
+    /**
+     * Look up a past pose (interpolated between updates)
+     * @param timestamp the time to look up
+     * @param pose output: [0] x, [1] y, [2] heading
+     * @return false if the time is not covered by the history
+     */
+    public boolean getPoseAt(long timestamp, double[] pose) {
+        return history.getPoseAt(timestamp, pose);
+    }
+
+    private void readModules(long timestamp) {
+        for (int i = 0; i < enclosures.length; i++) {
+            BaseEnclosure enclosure = enclosures[i];
+            invalidateIfStale(enclosure, timestamp);
+            double distance = enclosure.readDriveDistance();
+
+            deltas[i] = distance - lastDistances[i];
+            lastDistances[i] = distance;
+            angles[i] = SwerveUtils.convertEncoderValue(enclosure.readEncPosition(), enclosure.gearRatio);
+        }
+
+        kinematics.toChassisMotion(angles, deltas, motion);
+    }
+
+    private void invalidateIfStale(BaseEnclosure enclosure, long timestamp) {
+        if (enclosure.getSnapshot().isStale(timestamp, maxSnapshotAgeNanos)) {
+            enclosure.invalidateSnapshot();
+        }
+    }
+
+    private void integrate(double newHeading, long timestamp) {
+        // Use the heading half-way through the movement
+        double midHeading = Math.toRadians((heading + newHeading) / 2);
+        double sin = Math.sin(midHeading);
+        double cos = Math.cos(midHeading);
+        double forward = motion[0];
+        double strafe = motion[1];
+
+        x += forward * sin + strafe * cos;
+        y += forward * cos - strafe * sin;
+        heading = newHeading;
+
+        history.add(timestamp, x, y, heading);
+    }
+}
@@ -0,0 +1,253 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.usfirst.frc4048.swerve.math.PoseFilter;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+import org.usfirst.frc4048.swerve.math.SwerveMath;
+
+/**
+ * Field pose estimation: fuses the wheel odometry with the gyro and with delayed vision measurements in a Kalman
+ * filter (see PoseFilter). Call update() once per control cycle (e.g. right after SwerveDrive.move); the estimated
+ * heading can be used as the gyro value for field-centric driving.
+ *
+ * Every update is kept in a fixed-size history (the filter state and the odometry and gyro inputs). A vision
+ * measurement carries the time the image was taken: the filter rewinds to that time (between two updates, moving
+ * part of the way of the next update), applies the measurement and replays the later updates. Measurements older
+ * than the history, or older than the previous vision measurement, are rejected.
+ * Nothing allocates after construction.
+ *
+ * Uses the coordinates of SwerveOdometry: x is to the right, y is down the field and the heading is in degrees,
+ * clockwise and continuous.
+ */
+public class SwervePoseEstimator {
+
+    private final SwerveOdometry odometry;
+    private final PoseFilter filter = new PoseFilter();
+
+    // The history, one entry per update: the time, the filter state and covariance after the update, and its inputs
+    private final long[] timestamps;
+    private final double[] states;
+    private final double[] covariances;
+    private final double[] motions;
+    private final double[] gyroValues;
+
+    // Index of the next write
+    private int head;
+    private int size;
+
+    private boolean initialized = false;
+    private long lastVisionTimestamp;
+
+    private double gyroStdDev = DEFAULT_GYRO_STD_DEV;
+
+    public static final double DEFAULT_GYRO_STD_DEV = 1.0;
+
+    /**
+     * Constructor. No hardware is read until the first update (or reset).
+     * @param enclosures the enclosures, in the same order as the module positions of the kinematics
+     * @param kinematics the kinematics of the robot's module layout
+     * @param historySize the number of updates to keep; has to cover the latency of the vision measurements
+     */
+    public SwervePoseEstimator(BaseEnclosure[] enclosures, SwerveKinematics kinematics, int historySize) {
+        assert (historySize > 1) : "History size has to be larger than 1";
+
+        odometry = new SwerveOdometry(enclosures, kinematics, 2);
+
+        timestamps = new long[historySize];
+        states = new double[3 * historySize];
+        covariances = new double[9 * historySize];
+        motions = new double[3 * historySize];
+        gyroValues = new double[historySize];
+    }
+
+    /**
+     * Set the uncertainty of the wheel odometry (see PoseFilter.setProcessNoise)
+     */
+    public void setOdometryNoise(double translationNoise, double headingNoise, double headingDrift) {
+        filter.setProcessNoise(translationNoise, headingNoise, headingDrift);
+    }
+
+    /**
+     * Set the standard deviation of the gyro, in degrees
+     */
+    public void setGyroStdDev(double gyroStdDev) {
+        assert (gyroStdDev > 0) : "Standard deviation has to be larger than 0";
+
+        this.gyroStdDev = gyroStdDev;
+    }
+
+    /**
+     * Set the pose (as certain). The current drive distances become the baseline for the next update, and the
+     * history is cleared.
+     * @param timestamp the time of the reset, in nanoseconds (same clock as the SwerveDrive)
+     */
+    public void reset(double x, double y, double heading, long timestamp) {
+        odometry.reset(x, y, heading, timestamp);
+        filter.reset(x, y, heading, 0.0, 0.0);
+
+        head = 0;
+        size = 0;
+        lastVisionTimestamp = timestamp;
+        initialized = true;
+        add(timestamp, 0.0, 0.0, 0.0, SwerveMath.NO_GYRO);
+    }
+
+    /**
+     * Update the pose from the wheels only
+     * @param timestamp the time of the update, in nanoseconds (same clock as the SwerveDrive)
+     */
+    public void update(long timestamp) {
+        update(timestamp, SwerveMath.NO_GYRO);
+    }
+
+    /**
+     * Update the pose from the wheels and the gyro
+     * @param timestamp the time of the update, in nanoseconds (same clock as the SwerveDrive)
+     * @param gyroValue the gyro value, in degrees, or {@link SwerveMath#NO_GYRO}
+     */
+    public void update(long timestamp, double gyroValue) {
+        if (!initialized) {
+            reset(0.0, 0.0, Double.isNaN(gyroValue) ? 0.0 : gyroValue, timestamp);
+            return;
+        }
+
+        odometry.update(timestamp);
+        double[] motion = odometry.getLastMotion();
+        double forward = motion[0];
+        double strafe = motion[1];
+        double rotation = Math.toDegrees(motion[2]);
+
+        step(forward, strafe, rotation, gyroValue);
+        add(timestamp, forward, strafe, rotation, gyroValue);
+    }
+
+    /**
+     * Fuse a pose measured in the past (e.g. by vision)
+     * @param timestamp the time of the measurement, in nanoseconds (same clock as the SwerveDrive)
+     * @param positionStdDev the standard deviation of the measured x and y
+     * @param headingStdDev the standard deviation of the measured heading, in degrees
+     * @return false if the measurement was rejected (older than the history or than the previous measurement)
+     */
+    public boolean addVisionMeasurement(double x, double y, double heading, long timestamp,
+                                        double positionStdDev, double headingStdDev) {
+        assert (positionStdDev > 0 && headingStdDev > 0) : "Standard deviations have to be larger than 0";
+
+        if (size == 0 || timestamp < timestamps[physicalIndex(0)] || timestamp < lastVisionTimestamp) {
+            return false;
+        }
+        lastVisionTimestamp = timestamp;
+
+        // Rewind to the last update at or before the measurement
+        int index = findBefore(timestamp);
+        int entry = physicalIndex(index);
+        filter.restore(states, 3 * entry, covariances, 9 * entry);
+
+        if (index == size - 1) {
+            filter.correct(x, y, heading, positionStdDev, headingStdDev);
+            filter.save(states, 3 * entry, covariances, 9 * entry);
+            return true;
+        }
+
+        // Move to the time of the measurement with the matching part of the next update's movement, correct, and
+        // finish that update with the rest of the movement
+        int next = physicalIndex(index + 1);
+        double fraction = (double) (timestamp - timestamps[entry]) / (timestamps[next] - timestamps[entry]);
+        filter.predict(motions[3 * next] * fraction, motions[3 * next + 1] * fraction,
+                motions[3 * next + 2] * fraction);
+        filter.correct(x, y, heading, positionStdDev, headingStdDev);
+
+        double remaining = 1 - fraction;
+        step(motions[3 * next] * remaining, motions[3 * next + 1] * remaining, motions[3 * next + 2] * remaining,
+                gyroValues[next]);
+        filter.save(states, 3 * next, covariances, 9 * next);
+
+        // Replay the later updates
+        for (int i = index + 2; i < size; i++) {
+            int replayed = physicalIndex(i);
+            step(motions[3 * replayed], motions[3 * replayed + 1], motions[3 * replayed + 2], gyroValues[replayed]);
+            filter.save(states, 3 * replayed, covariances, 9 * replayed);
+        }
+        return true;
+    }
+
+    public double getX() {
+        return filter.getX();
+    }
+
+    public double getY() {
+        return filter.getY();
+    }
+
+    public double getHeading() {
+        return filter.getHeading();
+    }
+
+    /**
+     * @return the element of the pose covariance at the given row and column (see PoseFilter.X, Y, HEADING)
+     */
+    public double getCovariance(int row, int column) {
+        return filter.getCovariance(row, column);
+    }
+
+    /**
+     * Look up a past estimated pose (interpolated between updates)
+     * @param timestamp the time to look up
+     * @param pose output: [0] x, [1] y, [2] heading
+     * @return false if the time is not covered by the history
+     */
+    public boolean getPoseAt(long timestamp, double[] pose) {
+        if (size == 0 || timestamp < timestamps[physicalIndex(0)] || timestamp > timestamps[physicalIndex(size - 1)]) {
+            return false;
+        }
+
+        int index = findBefore(timestamp);
+        int before = physicalIndex(index);
+        if (timestamps[before] == timestamp) {
+            System.arraycopy(states, 3 * before, pose, 0, 3);
+            return true;
+        }
+
+        int after = physicalIndex(index + 1);
+        double fraction = (double) (timestamp - timestamps[before]) / (timestamps[after] - timestamps[before]);
+        for (int i = 0; i < 3; i++) {
+            pose[i] = states[3 * before + i] + (states[3 * after + i] - states[3 * before + i]) * fraction;
+        }
+        return true;
+    }
+
+    private void step(double forward, double strafe, double rotation, double gyroValue) {
+        filter.predict(forward, strafe, rotation);
+        if (!Double.isNaN(gyroValue)) {
+            filter.correctHeading(gyroValue, gyroStdDev);
+        }
+    }
+
+    private void add(long timestamp, double forward, double strafe, double rotation, double gyroValue) {
+        timestamps[head] = timestamp;
+        motions[3 * head] = forward;
+        motions[3 * head + 1] = strafe;
+        motions[3 * head + 2] = rotation;
+        gyroValues[head] = gyroValue;
+        filter.save(states, 3 * head, covariances, 9 * head);
+
+        head = (head + 1) % timestamps.length;
+        if (size < timestamps.length) size++;
+    }
+
+    // Binary search for the last entry (counted from the oldest) at or before the timestamp. The history must
+    // not be empty and the timestamp not older than the oldest entry
+    private int findBefore(long timestamp) {
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (timestamps[physicalIndex(middle)] <= timestamp) low = middle;
+            else high = middle - 1;
+        }
+        return low;
+    }
+
+    // Convert an index counted from the oldest entry to the array index
+    private int physicalIndex(int index) {
+        return (head - size + index + timestamps.length) % timestamps.length;
+    }
+}
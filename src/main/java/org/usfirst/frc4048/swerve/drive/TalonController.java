@@ -0,0 +1,49 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * The operations of a Talon motor controller used by the CanTalonSwerveEnclosure. Separating them from the
+ * CTRE classes allows the enclosure to run against a simulated controller (see sim.SimulatedTalon) as well as the
+ * real one (see WpiTalonController).
+ */
+public interface TalonController {
+
+    /**
+     * Drive the motor at the given percent output (-1 - 1)
+     */
+    void setPercentOutput(double output);
+
+    /**
+     * Drive the motor to the given sensor position (closed loop), in sensor ticks
+     */
+    void setPosition(double position);
+
+    /**
+     * Stop the motor (neutral output)
+     */
+    void stopMotor();
+
+    /**
+     * @return the position of the selected (primary) sensor, in ticks
+     */
+    int getSelectedSensorPosition();
+
+    /**
+     * Set the position of the selected (primary) sensor. Waits for the controller to confirm.
+     * @param position the new position, in ticks
+     * @param timeoutMs how long to wait for the confirmation, in milliseconds
+     */
+    void setSelectedSensorPosition(int position, int timeoutMs);
+
+    /**
+     * Set how often the controller sends a status frame
+     * @param periodMs the period, in milliseconds (up to TalonStatusFrame.MAX_PERIOD_MS)
+     * @param timeoutMs how long to wait for the confirmation, in milliseconds. 0 sends without waiting
+     */
+    void setStatusFramePeriod(TalonStatusFrame frame, int periodMs, int timeoutMs);
+
+    /**
+     * Set how often the control frame (the setpoint) is sent to the controller
+     * @param periodMs the period, in milliseconds
+     */
+    void setControlFramePeriod(int periodMs);
+}
@@ -0,0 +1,172 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * The status and control frame periods of the Talons of a CanTalonSwerveEnclosure, per role of the Talon (drive or
+ * steer) and per robot state. A Talon left at its default periods sends far more than the drive needs: the steer
+ * Talon only has to report its sensor position at the loop rate, and the drive Talon its position for the odometry.
+ * The policy is applied by CanTalonSwerveEnclosure.setRobotState, which can be called at any mode transition.
+ *
+ * The default policy (see defaultPolicy):
+ * - ENABLED: sensor feedback at 10ms (steer) and 20ms (drive), general status at 20ms, the rest at the slowest rate
+ * - DISABLED: feedback and general status at 100ms (enough to align the wheels), the rest at the slowest rate
+ * - TELEMETRY: as ENABLED, plus temperature/voltage and closed loop error for the dashboard
+ * The periods can be changed with setStatusFramePeriod and setControlFramePeriod before the policy is used.
+ */
+public class TalonFramePolicy {
+
+    /**
+     * The role of a Talon in the enclosure
+     */
+    public enum Role {
+        DRIVE,
+        STEER
+    }
+
+    /**
+     * The state of the robot the frame periods are for
+     */
+    public enum RobotState {
+        DISABLED,
+        ENABLED,
+        TELEMETRY
+    }
+
+    /**
+     * The number of bits of an 8 byte extended CAN frame with the worst case bit stuffing (as in sim.SimulatedCanBus)
+     */
+    public static final int FRAME_BITS = 160;
+
+    public static final long DEFAULT_BIT_RATE = 1000000L;
+
+    private static final int FRAME_COUNT = TalonStatusFrame.values().length;
+
+    // Periods in milliseconds, indexed by role, state and frame
+    private final int[][][] statusPeriods = new int[Role.values().length][RobotState.values().length][FRAME_COUNT];
+    private final int[][] controlPeriods = new int[Role.values().length][RobotState.values().length];
+
+    /**
+     * Constructor for a policy that keeps the Talon defaults in every state
+     */
+    public TalonFramePolicy() {
+        for (Role role : Role.values()) {
+            for (RobotState state : RobotState.values()) {
+                for (TalonStatusFrame frame : TalonStatusFrame.values()) {
+                    statusPeriods[role.ordinal()][state.ordinal()][frame.ordinal()] = frame.getDefaultPeriodMs();
+                }
+                controlPeriods[role.ordinal()][state.ordinal()] = 10;
+            }
+        }
+    }
+
+    /**
+     * @return the recommended policy for a swerve drive (see the class description)
+     */
+    public static TalonFramePolicy defaultPolicy() {
+        TalonFramePolicy policy = new TalonFramePolicy();
+        for (Role role : Role.values()) {
+            for (RobotState state : RobotState.values()) {
+                for (TalonStatusFrame frame : TalonStatusFrame.values()) {
+                    policy.setStatusFramePeriod(role, state, frame, TalonStatusFrame.MAX_PERIOD_MS);
+                }
+            }
+
+            policy.setStatusFramePeriod(role, RobotState.DISABLED, TalonStatusFrame.GENERAL, 100);
+            policy.setStatusFramePeriod(role, RobotState.DISABLED, TalonStatusFrame.FEEDBACK, 100);
+            policy.setControlFramePeriod(role, RobotState.DISABLED, 100);
+
+            int feedbackPeriod = role == Role.STEER ? 10 : 20;
+            for (RobotState state : new RobotState[] {RobotState.ENABLED, RobotState.TELEMETRY}) {
+                policy.setStatusFramePeriod(role, state, TalonStatusFrame.GENERAL, 20);
+                policy.setStatusFramePeriod(role, state, TalonStatusFrame.FEEDBACK, feedbackPeriod);
+                policy.setControlFramePeriod(role, state, 20);
+            }
+
+            policy.setStatusFramePeriod(role, RobotState.TELEMETRY, TalonStatusFrame.ANALOG_TEMP_VBAT, 100);
+            policy.setStatusFramePeriod(role, RobotState.TELEMETRY, TalonStatusFrame.PIDF0, 50);
+        }
+        return policy;
+    }
+
+    /**
+     * Set the period of a status frame
+     * @param periodMs the period, in milliseconds (1 - 255)
+     */
+    public void setStatusFramePeriod(Role role, RobotState state, TalonStatusFrame frame, int periodMs) {
+        assert (periodMs > 0 && periodMs <= TalonStatusFrame.MAX_PERIOD_MS) : "Period has to be 1 - 255ms";
+        statusPeriods[role.ordinal()][state.ordinal()][frame.ordinal()] = periodMs;
+    }
+
+    public int getStatusFramePeriod(Role role, RobotState state, TalonStatusFrame frame) {
+        return statusPeriods[role.ordinal()][state.ordinal()][frame.ordinal()];
+    }
+
+    /**
+     * Set the period of the control frame
+     * @param periodMs the period, in milliseconds (1 - 100)
+     */
+    public void setControlFramePeriod(Role role, RobotState state, int periodMs) {
+        assert (periodMs > 0 && periodMs <= 100) : "Period has to be 1 - 100ms";
+        controlPeriods[role.ordinal()][state.ordinal()] = periodMs;
+    }
+
+    public int getControlFramePeriod(Role role, RobotState state) {
+        return controlPeriods[role.ordinal()][state.ordinal()];
+    }
+
+    /**
+     * @return the number of periodic frames per second of a Talon (status and control)
+     */
+    public double getFramesPerSecond(Role role, RobotState state) {
+        double frames = 1000.0 / controlPeriods[role.ordinal()][state.ordinal()];
+        int[] periods = statusPeriods[role.ordinal()][state.ordinal()];
+        for (int i = 0; i < periods.length; i++) {
+            frames += 1000.0 / periods[i];
+        }
+        return frames;
+    }
+
+    /**
+     * @param modules the number of enclosures (one drive and one steer Talon each)
+     * @param bitRate the bus bit rate, in bits per second
+     * @return the expected fraction of the bus used by the periodic frames of the enclosures
+     */
+    public double getExpectedBusLoad(RobotState state, int modules, long bitRate) {
+        double frames = modules * (getFramesPerSecond(Role.DRIVE, state) + getFramesPerSecond(Role.STEER, state));
+        return frames * FRAME_BITS / bitRate;
+    }
+
+    /**
+     * Configure the frame periods of a Talon for the given role and state. Only the periods that differ from the
+     * given applied periods are written.
+     * @param applied the periods last written to the Talon: the status frames, then the control frame (-1 if not
+     *                known). Updated with the new periods
+     * @param timeoutMs the confirmation timeout of the configuration calls, 0 to not wait
+     */
+    void apply(TalonController controller, Role role, RobotState state, int[] applied, int timeoutMs) {
+        int[] periods = statusPeriods[role.ordinal()][state.ordinal()];
+        for (TalonStatusFrame frame : TalonStatusFrame.values()) {
+            int period = periods[frame.ordinal()];
+            if (applied[frame.ordinal()] != period) {
+                controller.setStatusFramePeriod(frame, period, timeoutMs);
+                applied[frame.ordinal()] = period;
+            }
+        }
+
+        int controlPeriod = controlPeriods[role.ordinal()][state.ordinal()];
+        if (applied[FRAME_COUNT] != controlPeriod) {
+            controller.setControlFramePeriod(controlPeriod);
+            applied[FRAME_COUNT] = controlPeriod;
+        }
+    }
+
+    /**
+     * @return a new array of applied periods (for apply) where nothing is known yet
+     */
+    static int[] unknownPeriods() {
+        int[] applied = new int[FRAME_COUNT + 1];
+        for (int i = 0; i < applied.length; i++) {
+            applied[i] = -1;
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,53 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * The status frames a Talon SRX sends periodically, with their default periods
+ */
+public enum TalonStatusFrame {
+    /**
+     * Status 1: motor output, faults, limit switches
+     */
+    GENERAL(10),
+    /**
+     * Status 2: selected sensor position and velocity
+     */
+    FEEDBACK(20),
+    /**
+     * Status 3: quadrature encoder
+     */
+    QUADRATURE(160),
+    /**
+     * Status 4: analog input, temperature, battery voltage
+     */
+    ANALOG_TEMP_VBAT(160),
+    /**
+     * Status 8: pulse width encoder
+     */
+    PULSE_WIDTH(160),
+    /**
+     * Status 10: closed loop targets
+     */
+    TARGETS(160),
+    /**
+     * Status 13: closed loop error and PIDF state
+     */
+    PIDF0(160);
+
+    /**
+     * The longest period a Talon supports, in milliseconds
+     */
+    public static final int MAX_PERIOD_MS = 255;
+
+    private final int defaultPeriodMs;
+
+    TalonStatusFrame(int defaultPeriodMs) {
+        this.defaultPeriodMs = defaultPeriodMs;
+    }
+
+    /**
+     * @return the period the Talon uses until configured otherwise, in milliseconds
+     */
+    public int getDefaultPeriodMs() {
+        return defaultPeriodMs;
+    }
+}
@@ -0,0 +1,30 @@
+package org.usfirst.frc4048.swerve.drive;
+
+/**
+ * A clock that only moves when it is told to (e.g. to the timestamps of a recording)
+ */
+public class VirtualClock implements NanoClock {
+
+    private long now;
+
+    public VirtualClock() {
+        this(0L);
+    }
+
+    public VirtualClock(long start) {
+        this.now = start;
+    }
+
+    @Override
+    public long nanoTime() {
+        return now;
+    }
+
+    public void set(long now) {
+        this.now = now;
+    }
+
+    public void advance(long nanos) {
+        now += nanos;
+    }
+}
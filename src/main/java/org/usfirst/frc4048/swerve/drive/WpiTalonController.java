@@ -0,0 +1,78 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import com.ctre.phoenix.motorcontrol.ControlFrame;
+import com.ctre.phoenix.motorcontrol.ControlMode;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.WPI_TalonSRX;
+
+/**
+ * The TalonController of a real WPI_TalonSRX
+ */
+public class WpiTalonController implements TalonController {
+
+    private final WPI_TalonSRX talon;
+
+    public WpiTalonController(WPI_TalonSRX talon) {
+        this.talon = talon;
+    }
+
+    public WPI_TalonSRX getTalon() {
+        return talon;
+    }
+
+    @Override
+    public void setPercentOutput(double output) {
+        talon.set(ControlMode.PercentOutput, output);
+    }
+
+    @Override
+    public void setPosition(double position) {
+        talon.set(ControlMode.Position, position);
+    }
+
+    @Override
+    public void stopMotor() {
+        talon.stopMotor();
+    }
+
+    @Override
+    public int getSelectedSensorPosition() {
+        return talon.getSelectedSensorPosition(0);
+    }
+
+    @Override
+    public void setSelectedSensorPosition(int position, int timeoutMs) {
+        talon.setSelectedSensorPosition(position, 0, timeoutMs);
+    }
+
+    @Override
+    public void setStatusFramePeriod(TalonStatusFrame frame, int periodMs, int timeoutMs) {
+        talon.setStatusFramePeriod(toStatusFrameEnhanced(frame), periodMs, timeoutMs);
+    }
+
+    @Override
+    public void setControlFramePeriod(int periodMs) {
+        talon.setControlFramePeriod(ControlFrame.Control_3_General, periodMs);
+    }
+
+    private static StatusFrameEnhanced toStatusFrameEnhanced(TalonStatusFrame frame) {
+        switch (frame) {
+            case GENERAL:
+                return StatusFrameEnhanced.Status_1_General;
+            case FEEDBACK:
+                return StatusFrameEnhanced.Status_2_Feedback0;
+            case QUADRATURE:
+                return StatusFrameEnhanced.Status_3_Quadrature;
+            case ANALOG_TEMP_VBAT:
+                return StatusFrameEnhanced.Status_4_AinTempVbat;
+            case PULSE_WIDTH:
+                return StatusFrameEnhanced.Status_8_PulseWidth;
+            case TARGETS:
+                return StatusFrameEnhanced.Status_10_Targets;
+            case PIDF0:
+                return StatusFrameEnhanced.Status_13_Base_PIDF0;
+            default:
+                throw new IllegalArgumentException("Unknown status frame " + frame);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.usfirst.frc4048.swerve.input;
+
+/**
+ * Ignores small inputs (stick noise around the center). The translation deadband is radial, so that the direction of
+ * the stick is kept, and the rotation deadband is applied to rcw. The remaining range is rescaled so the output still
+ * starts at 0 and reaches 1 (there is no jump at the edge of the deadband).
+ */
+public class Deadband implements InputStage {
+
+    private final double translation;
+    private final double rotation;
+
+    /**
+     * Constructor
+     * @param translation the deadband of the translation (fwd, str) magnitude, between 0 and 1
+     * @param rotation the deadband of rcw, between 0 and 1
+     */
+    public Deadband(double translation, double rotation) {
+        assert (translation >= 0 && translation < 1) : "Translation deadband has to be between 0 and 1";
+        assert (rotation >= 0 && rotation < 1) : "Rotation deadband has to be between 0 and 1";
+
+        this.translation = translation;
+        this.rotation = rotation;
+    }
+
+    @Override
+    public void apply(DriveInput input, long now) {
+        double fwd = input.getFwd();
+        double str = input.getStr();
+        double magnitude = Math.sqrt(fwd * fwd + str * str);
+        if (magnitude <= translation) {
+            input.setFwd(0.0);
+            input.setStr(0.0);
+        } else {
+            double scale = (magnitude - translation) / ((1 - translation) * magnitude);
+            input.setFwd(fwd * scale);
+            input.setStr(str * scale);
+        }
+
+        double rcw = input.getRcw();
+        if (Math.abs(rcw) <= rotation) {
+            input.setRcw(0.0);
+        } else {
+            input.setRcw((rcw - Math.copySign(rotation, rcw)) / (1 - rotation));
+        }
+    }
+
+    @Override
+    public void reset() {
+    }
+}
@@ -0,0 +1,42 @@
+package org.usfirst.frc4048.swerve.input;
+
+/**
+ * The mutable drive input (fwd, str and rcw, between -1 and 1) that is shaped in place by the stages of an
+ * InputPipeline. A single instance is reused every cycle.
+ */
+public class DriveInput {
+
+    private double fwd;
+    private double str;
+    private double rcw;
+
+    public void set(double fwd, double str, double rcw) {
+        this.fwd = fwd;
+        this.str = str;
+        this.rcw = rcw;
+    }
+
+    public double getFwd() {
+        return fwd;
+    }
+
+    public void setFwd(double fwd) {
+        this.fwd = fwd;
+    }
+
+    public double getStr() {
+        return str;
+    }
+
+    public void setStr(double str) {
+        this.str = str;
+    }
+
+    public double getRcw() {
+        return rcw;
+    }
+
+    public void setRcw(double rcw) {
+        this.rcw = rcw;
+    }
+}
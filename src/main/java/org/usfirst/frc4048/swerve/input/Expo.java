@@ -0,0 +1,39 @@
+package org.usfirst.frc4048.swerve.input;
+
+/**
+ * Exponential response curve for finer control at low stick values: out = (1 - expo) * in + expo * in^3, for each
+ * axis. An expo of 0 is linear and 1 is fully cubic; the output still covers -1 to 1.
+ */
+public class Expo implements InputStage {
+
+    private final double translation;
+    private final double rotation;
+
+    /**
+     * Constructor
+     * @param translation the expo of fwd and str, between 0 and 1
+     * @param rotation the expo of rcw, between 0 and 1
+     */
+    public Expo(double translation, double rotation) {
+        assert (translation >= 0 && translation <= 1) : "Translation expo has to be between 0 and 1";
+        assert (rotation >= 0 && rotation <= 1) : "Rotation expo has to be between 0 and 1";
+
+        this.translation = translation;
+        this.rotation = rotation;
+    }
+
+    @Override
+    public void apply(DriveInput input, long now) {
+        input.setFwd(curve(input.getFwd(), translation));
+        input.setStr(curve(input.getStr(), translation));
+        input.setRcw(curve(input.getRcw(), rotation));
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    private static double curve(double value, double expo) {
+        return value * ((1 - expo) + expo * value * value);
+    }
+}
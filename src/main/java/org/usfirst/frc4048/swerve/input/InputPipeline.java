@@ -0,0 +1,58 @@
+package org.usfirst.frc4048.swerve.input;
+
+/**
+ * A chain of input stages run in order on the drive input before the move calculation (see
+ * SwerveDrive.setInputPipeline). Configure the stages once with add(); apply() does not allocate.
+ *
+ * A typical joystick pipeline is:
+ * <pre>
+ * new InputPipeline()
+ *         .add(new Deadband(0.05, 0.05))
+ *         .add(new Expo(0.5, 0.3))
+ *         .add(new MagnitudeClamp(1.0))
+ *         .add(speedScale)
+ *         .add(new SlewRateLimiter(3.0, 5.0));
+ * </pre>
+ */
+public class InputPipeline {
+
+    private InputStage[] stages = new InputStage[0];
+
+    /**
+     * Append a stage to the end of the pipeline
+     * @return this pipeline, for chaining
+     */
+    public InputPipeline add(InputStage stage) {
+        assert (stage != null) : "Stage cannot be null";
+
+        InputStage[] newStages = new InputStage[stages.length + 1];
+        System.arraycopy(stages, 0, newStages, 0, stages.length);
+        newStages[stages.length] = stage;
+        stages = newStages;
+        return this;
+    }
+
+    public int getStageCount() {
+        return stages.length;
+    }
+
+    /**
+     * Run all the stages on the input, in order
+     * @param input the input to shape in place
+     * @param now the time of the cycle, in nanoseconds
+     */
+    public void apply(DriveInput input, long now) {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i].apply(input, now);
+        }
+    }
+
+    /**
+     * Reset the state of all the stages
+     */
+    public void reset() {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i].reset();
+        }
+    }
+}
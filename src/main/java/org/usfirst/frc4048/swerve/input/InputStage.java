@@ -0,0 +1,19 @@
+package org.usfirst.frc4048.swerve.input;
+
+/**
+ * A stage of the InputPipeline. Implementations modify the input in place and must not allocate.
+ */
+public interface InputStage {
+
+    /**
+     * Shape the input
+     * @param input the input to modify
+     * @param now the time of the cycle, in nanoseconds (for time dependent stages)
+     */
+    void apply(DriveInput input, long now);
+
+    /**
+     * Forget any state kept from earlier cycles (e.g. when the robot is re-enabled)
+     */
+    void reset();
+}
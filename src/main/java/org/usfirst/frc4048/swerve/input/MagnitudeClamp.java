@@ -0,0 +1,35 @@
+package org.usfirst.frc4048.swerve.input;
+
+/**
+ * Limits the translation magnitude (the length of fwd, str), keeping its direction. Without it a diagonal stick
+ * (e.g. fwd = str = 1) drives faster than a straight one.
+ */
+public class MagnitudeClamp implements InputStage {
+
+    private final double max;
+
+    /**
+     * @param max the largest translation magnitude, larger than 0
+     */
+    public MagnitudeClamp(double max) {
+        assert (max > 0) : "Maximum magnitude has to be larger than 0";
+
+        this.max = max;
+    }
+
+    @Override
+    public void apply(DriveInput input, long now) {
+        double fwd = input.getFwd();
+        double str = input.getStr();
+        double squared = fwd * fwd + str * str;
+        if (squared > max * max) {
+            double scale = max / Math.sqrt(squared);
+            input.setFwd(fwd * scale);
+            input.setStr(str * scale);
+        }
+    }
+
+    @Override
+    public void reset() {
+    }
+}
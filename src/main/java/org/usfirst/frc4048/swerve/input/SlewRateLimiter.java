@@ -0,0 +1,63 @@
+package org.usfirst.frc4048.swerve.input;
+
+/**
+ * Limits how fast each axis can change (to avoid wheel slip and tipping on sudden stick movements). The rates are in
+ * input units per second, so the limit does not depend on the cycle period. The output starts at rest: after a
+ * reset the first cycle only records the time and outputs 0.
+ */
+public class SlewRateLimiter implements InputStage {
+
+    private final double translationRate;
+    private final double rotationRate;
+
+    private boolean initialized = false;
+    private long lastTime;
+    private double fwd;
+    private double str;
+    private double rcw;
+
+    /**
+     * Constructor
+     * @param translationRate the largest change of fwd and str per second, larger than 0
+     * @param rotationRate the largest change of rcw per second, larger than 0
+     */
+    public SlewRateLimiter(double translationRate, double rotationRate) {
+        assert (translationRate > 0) : "Translation rate has to be larger than 0";
+        assert (rotationRate > 0) : "Rotation rate has to be larger than 0";
+
+        this.translationRate = translationRate;
+        this.rotationRate = rotationRate;
+    }
+
+    @Override
+    public void apply(DriveInput input, long now) {
+        double seconds = initialized ? Math.max(now - lastTime, 0L) * 1e-9 : 0.0;
+        initialized = true;
+        lastTime = now;
+
+        double maxTranslation = translationRate * seconds;
+        fwd = limit(fwd, input.getFwd(), maxTranslation);
+        str = limit(str, input.getStr(), maxTranslation);
+        rcw = limit(rcw, input.getRcw(), rotationRate * seconds);
+
+        input.set(fwd, str, rcw);
+    }
+
+    @Override
+    public void reset() {
+        initialized = false;
+        fwd = 0.0;
+        str = 0.0;
+        rcw = 0.0;
+    }
+
+    private static double limit(double last, double target, double maxChange) {
+        double change = target - last;
+        if (change > maxChange) {
+            return last + maxChange;
+        } else if (change < -maxChange) {
+            return last - maxChange;
+        }
+        return target;
+    }
+}
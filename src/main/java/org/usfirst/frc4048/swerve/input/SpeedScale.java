@@ -0,0 +1,61 @@
+package org.usfirst.frc4048.swerve.input;
+
+/**
+ * Scales the translation and the rotation by factors that can be changed at any time and from any thread
+ * (e.g. a "precision mode" button). The new factors are used from the next cycle. Both factors are published together,
+ * so a cycle never mixes the translation of one setting with the rotation of another.
+ */
+public class SpeedScale implements InputStage {
+
+    private volatile Factors factors;
+
+    public SpeedScale() {
+        this(1.0, 1.0);
+    }
+
+    public SpeedScale(double translation, double rotation) {
+        setScale(translation, rotation);
+    }
+
+    /**
+     * Change the scale factors
+     * @param translation the factor for fwd and str, between 0 and 1
+     * @param rotation the factor for rcw, between 0 and 1
+     */
+    public void setScale(double translation, double rotation) {
+        assert (translation >= 0 && translation <= 1) : "Translation scale has to be between 0 and 1";
+        assert (rotation >= 0 && rotation <= 1) : "Rotation scale has to be between 0 and 1";
+
+        factors = new Factors(translation, rotation);
+    }
+
+    public double getTranslationScale() {
+        return factors.translation;
+    }
+
+    public double getRotationScale() {
+        return factors.rotation;
+    }
+
+    @Override
+    public void apply(DriveInput input, long now) {
+        Factors factors = this.factors;
+        input.setFwd(input.getFwd() * factors.translation);
+        input.setStr(input.getStr() * factors.translation);
+        input.setRcw(input.getRcw() * factors.rotation);
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    private static final class Factors {
+        private final double translation;
+        private final double rotation;
+
+        Factors(double translation, double rotation) {
+            this.translation = translation;
+            this.rotation = rotation;
+        }
+    }
+}
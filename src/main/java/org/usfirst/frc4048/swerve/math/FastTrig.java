@@ -0,0 +1,98 @@
+package org.usfirst.frc4048.swerve.math;
+
+/**
+ * Fast approximations of atan2, sin and cos with a bounded error, for the FAST trig precision mode.
+ *
+ * atan2 uses an 11th order minimax polynomial for atan on [0, 1] and the octant symmetries. The maximum error is
+ * 1.7e-6 radians (2.7e-7 turns). For comparison, one steer encoder tick is 6e-4 turns at a 1656:1 ratio.
+ *
+ * sin and cos use a table of 4096 values per turn with linear interpolation. The maximum error is 3e-7.
+ *
+ * The approximations do not handle the special values like the Math versions: atan2(0, 0) is 0 (for all zero
+ * signs) and atan2 of -0.0 is the same as of 0.0. NaN inputs give NaN.
+ */
+public final class FastTrig {
+
+    // Minimax coefficients of atan(z) / z as a polynomial of z^2, for z in [0, 1]
+    private static final double A1 = 0.99997726;
+    private static final double A3 = -0.33262347;
+    private static final double A5 = 0.19354346;
+    private static final double A7 = -0.11643287;
+    private static final double A9 = 0.05265332;
+    private static final double A11 = -0.01172120;
+
+    private static final double RADIANS_TO_TURNS = 1.0 / (2 * Math.PI);
+
+    private static final int TABLE_BITS = 12;
+    private static final int TABLE_SIZE = 1 << TABLE_BITS;
+    private static final int TABLE_MASK = TABLE_SIZE - 1;
+    private static final double DEGREES_TO_INDEX = TABLE_SIZE / 360.0;
+
+    // sin of i / TABLE_SIZE turns, with one extra entry so the interpolation does not need to wrap
+    private static final double[] SIN = new double[TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            SIN[i] = Math.sin(2 * Math.PI * i / TABLE_SIZE);
+        }
+    }
+
+    private FastTrig() {
+    }
+
+    /**
+     * @return the angle of the point (x, y) in radians, in the range -PI - PI (same as Math.atan2)
+     */
+    public static double atan2(double y, double x) {
+        double ax = Math.abs(x);
+        double ay = Math.abs(y);
+        if (ax == 0.0 && ay == 0.0) {
+            return 0.0;
+        }
+
+        double angle;
+        if (ay > ax) {
+            angle = Math.PI / 2 - atan(ax / ay);
+        } else {
+            angle = atan(ay / ax);
+        }
+
+        if (x < 0) angle = Math.PI - angle;
+        return y < 0 ? -angle : angle;
+    }
+
+    /**
+     * @return the angle of the point (x, y) in turns, in the range -0.5 - 0.5
+     */
+    public static double atan2Turns(double y, double x) {
+        return atan2(y, x) * RADIANS_TO_TURNS;
+    }
+
+    /**
+     * @return the sin of an angle in degrees
+     */
+    public static double sinDegrees(double degrees) {
+        return lookup(degrees * DEGREES_TO_INDEX);
+    }
+
+    /**
+     * @return the cos of an angle in degrees
+     */
+    public static double cosDegrees(double degrees) {
+        return lookup(degrees * DEGREES_TO_INDEX + TABLE_SIZE / 4);
+    }
+
+    // atan for z in [0, 1]
+    private static double atan(double z) {
+        double z2 = z * z;
+        return z * (A1 + z2 * (A3 + z2 * (A5 + z2 * (A7 + z2 * (A9 + z2 * A11)))));
+    }
+
+    // sin, with the angle in table entries
+    private static double lookup(double position) {
+        double floor = Math.floor(position);
+        int index = (int) ((long) floor & TABLE_MASK);
+        double fraction = position - floor;
+        return SIN[index] + (SIN[index + 1] - SIN[index]) * fraction;
+    }
+}
@@ -0,0 +1,23 @@
+package org.usfirst.frc4048.swerve.math;
+
+/**
+ * Calculates the (robot centric) module directives from the robot movement. Implemented analytically by
+ * SwerveKinematics and by lookup in a precomputed table by KinematicsTable.
+ */
+public interface InverseKinematics {
+
+    /**
+     * @return the number of modules
+     */
+    int getModuleCount();
+
+    /**
+     * Calculate the module directives, writing the results into caller-owned arrays.
+     * @param fwd the forward power value range -1.0(back) - 1.0(fwd)
+     * @param str the strafe power value range -1.0(left) - 1.0(right)
+     * @param rcw the rotation power value range -1.0(ccw) - 1.0(cw)
+     * @param angles output: the module angles (-0.5 - +0.5), in module order
+     * @param speeds output: the module speeds (0 - 1), in module order
+     */
+    void move(double fwd, double str, double rcw, double[] angles, double[] speeds);
+}
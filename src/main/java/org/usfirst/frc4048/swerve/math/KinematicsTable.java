@@ -0,0 +1,192 @@
+package org.usfirst.frc4048.swerve.math;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Inverse kinematics by lookup: the module directives are precomputed over a grid of (fwd, str, rcw) values (see
+ * KinematicsTableBuilder) and stored in a file, which is memory-mapped and trilinearly interpolated. No trigonometry
+ * is used at runtime and opening a table only maps the file and checks the header.
+ *
+ * The angles are interpolated across the -0.5/0.5 wrap, weighted by the module speed at each grid point (so grid
+ * points where a module does not move do not pull the angle). Inputs outside -1 - 1 are clamped.
+ * The error depends on the resolution. At the default resolution (65) the speeds are within 0.025 of the analytic
+ * ones, and the angles of the modules above 20% speed within 2e-4 turns (less than one steer encoder tick).
+ *
+ * File layout (big-endian):
+ * header: magic, version, module count, resolution (ints), radius, then x and y of every module relative to the
+ * center of rotation (doubles)
+ * table: for every fwd, then str, then rcw grid point (rcw varies fastest), the angle and speed of every module
+ * (floats)
+ */
+public class KinematicsTable implements InverseKinematics {
+
+    static final int MAGIC = 0x53574b54;
+    static final int VERSION = 1;
+
+    // Bytes per module per grid point: angle and speed
+    static final int ENTRY_SIZE = 2 * 4;
+
+    private final MappedByteBuffer buffer;
+    private final int moduleCount;
+    private final int resolution;
+    private final int dataOffset;
+
+    // Grid units per input unit
+    private final double scale;
+
+    // Bytes between consecutive grid points along each axis
+    private final int rcwStride;
+    private final int strStride;
+    private final int fwdStride;
+
+    private KinematicsTable(MappedByteBuffer buffer, int moduleCount, int resolution) {
+        this.buffer = buffer;
+        this.moduleCount = moduleCount;
+        this.resolution = resolution;
+        this.dataOffset = headerSize(moduleCount);
+        this.scale = (resolution - 1) / 2.0;
+        this.rcwStride = moduleCount * ENTRY_SIZE;
+        this.strStride = rcwStride * resolution;
+        this.fwdStride = strStride * resolution;
+    }
+
+    /**
+     * Map a table file
+     * @param path the table file
+     * @param kinematics the geometry of the robot: a table built for a different geometry is rejected
+     * @throws IOException if the file is not a table, or was built for a different geometry
+     */
+    public static KinematicsTable open(File path, SwerveKinematics kinematics) throws IOException {
+        MappedByteBuffer buffer;
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        try {
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        } finally {
+            file.close();
+        }
+
+        if (buffer.capacity() < 16 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a kinematics table: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported kinematics table version " + buffer.getInt(4) + ": " + path);
+        }
+
+        int moduleCount = buffer.getInt(8);
+        int resolution = buffer.getInt(12);
+        if (moduleCount != kinematics.getModuleCount()) {
+            throw new IOException("Kinematics table " + path + " is for " + moduleCount + " modules, not "
+                    + kinematics.getModuleCount());
+        }
+        if (resolution < 2 || buffer.capacity() != fileSize(moduleCount, resolution)) {
+            throw new IOException("Corrupt kinematics table: " + path);
+        }
+
+        int position = 16;
+        boolean matches = buffer.getDouble(position) == kinematics.getRadius();
+        position += 8;
+        for (int i = 0; i < moduleCount; i++) {
+            matches &= buffer.getDouble(position) == kinematics.getModuleX(i);
+            matches &= buffer.getDouble(position + 8) == kinematics.getModuleY(i);
+            position += 16;
+        }
+        if (!matches) {
+            throw new IOException("Kinematics table " + path + " was built for a different robot geometry");
+        }
+
+        return new KinematicsTable(buffer, moduleCount, resolution);
+    }
+
+    static int headerSize(int moduleCount) {
+        return 16 + 8 + moduleCount * 16;
+    }
+
+    static long fileSize(int moduleCount, int resolution) {
+        return headerSize(moduleCount) + (long) resolution * resolution * resolution * moduleCount * ENTRY_SIZE;
+    }
+
+    @Override
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    /**
+     * @return the number of grid points along each axis
+     */
+    public int getResolution() {
+        return resolution;
+    }
+
+    @Override
+    public void move(double fwd, double str, double rcw, double[] angles, double[] speeds) {
+        double fwdGrid = grid(fwd);
+        double strGrid = grid(str);
+        double rcwGrid = grid(rcw);
+
+        int fwdIndex = Math.min((int) fwdGrid, resolution - 2);
+        int strIndex = Math.min((int) strGrid, resolution - 2);
+        int rcwIndex = Math.min((int) rcwGrid, resolution - 2);
+
+        double tf = fwdGrid - fwdIndex;
+        double ts = strGrid - strIndex;
+        double tr = rcwGrid - rcwIndex;
+
+        int base = dataOffset + fwdIndex * fwdStride + strIndex * strStride + rcwIndex * rcwStride;
+
+        for (int m = 0; m < moduleCount; m++) {
+            int position = base + m * ENTRY_SIZE;
+
+            // The corner with the largest weighted speed is the reference for the angle unwrapping
+            double reference = 0.0;
+            double referenceWeight = -1.0;
+            for (int c = 0; c < 8; c++) {
+                double weight = weight(c, tf, ts, tr) * buffer.getFloat(corner(position, c) + 4);
+                if (weight > referenceWeight) {
+                    referenceWeight = weight;
+                    reference = buffer.getFloat(corner(position, c));
+                }
+            }
+
+            double speed = 0.0;
+            double angleSum = 0.0;
+            double speedWeightSum = 0.0;
+            for (int c = 0; c < 8; c++) {
+                int entry = corner(position, c);
+                double weight = weight(c, tf, ts, tr);
+                double cornerSpeed = buffer.getFloat(entry + 4);
+
+                double difference = buffer.getFloat(entry) - reference;
+                difference -= Math.rint(difference);
+
+                speed += weight * cornerSpeed;
+                angleSum += weight * cornerSpeed * difference;
+                speedWeightSum += weight * cornerSpeed;
+            }
+
+            double angle = speedWeightSum > 0 ? reference + angleSum / speedWeightSum : reference;
+            angles[m] = angle - Math.rint(angle);
+            speeds[m] = speed;
+        }
+    }
+
+    // The grid position of an input, clamped to the table
+    private double grid(double value) {
+        double position = (value + 1) * scale;
+        if (position < 0) return 0;
+        if (position > resolution - 1) return resolution - 1;
+        return position;
+    }
+
+    // Corner c of the cell: bit 2 is the fwd step, bit 1 the str step, bit 0 the rcw step
+    private int corner(int position, int c) {
+        return position + ((c >> 2) & 1) * fwdStride + ((c >> 1) & 1) * strStride + (c & 1) * rcwStride;
+    }
+
+    private static double weight(int c, double tf, double ts, double tr) {
+        return ((c & 4) != 0 ? tf : 1 - tf) * ((c & 2) != 0 ? ts : 1 - ts) * ((c & 1) != 0 ? tr : 1 - tr);
+    }
+}
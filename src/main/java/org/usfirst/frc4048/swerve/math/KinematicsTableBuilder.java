@@ -0,0 +1,102 @@
+package org.usfirst.frc4048.swerve.math;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Builds a KinematicsTable file for a robot geometry, computing the grid with the analytic kinematics in parallel
+ * over the cores. Can be run from the command line for the rectangular layout:
+ * KinematicsTableBuilder width length resolution table.bin
+ */
+public class KinematicsTableBuilder {
+
+    public static final int DEFAULT_RESOLUTION = 65;
+
+    private KinematicsTableBuilder() {
+    }
+
+    /**
+     * Build a table
+     * @param kinematics the robot geometry
+     * @param resolution the number of grid points along each axis (odd values put a grid point at 0)
+     * @param path the file to write (overwritten)
+     */
+    public static void build(final SwerveKinematics kinematics, final int resolution, File path) throws IOException {
+        assert (resolution >= 2) : "Resolution has to be at least 2";
+
+        final int moduleCount = kinematics.getModuleCount();
+        long size = KinematicsTable.fileSize(moduleCount, resolution);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Table of " + size + " bytes is too large");
+        }
+
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            file.setLength(0);
+            file.setLength(size);
+            final MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            buffer.putInt(0, KinematicsTable.MAGIC);
+            buffer.putInt(4, KinematicsTable.VERSION);
+            buffer.putInt(8, moduleCount);
+            buffer.putInt(12, resolution);
+            int position = 16;
+            buffer.putDouble(position, kinematics.getRadius());
+            position += 8;
+            for (int i = 0; i < moduleCount; i++) {
+                buffer.putDouble(position, kinematics.getModuleX(i));
+                buffer.putDouble(position + 8, kinematics.getModuleY(i));
+                position += 16;
+            }
+
+            final int dataOffset = KinematicsTable.headerSize(moduleCount);
+            final int fwdStride = resolution * resolution * moduleCount * KinematicsTable.ENTRY_SIZE;
+
+            // Every fwd slab is a separate part of the file: compute them in parallel
+            IntStream.range(0, resolution).parallel().forEach(new IntConsumer() {
+                @Override
+                public void accept(int f) {
+                    double[] angles = new double[moduleCount];
+                    double[] speeds = new double[moduleCount];
+                    int entry = dataOffset + f * fwdStride;
+
+                    for (int s = 0; s < resolution; s++) {
+                        for (int r = 0; r < resolution; r++) {
+                            kinematics.move(gridValue(f, resolution), gridValue(s, resolution),
+                                    gridValue(r, resolution), angles, speeds);
+                            for (int m = 0; m < moduleCount; m++) {
+                                buffer.putFloat(entry, (float) angles[m]);
+                                buffer.putFloat(entry + 4, (float) speeds[m]);
+                                entry += KinematicsTable.ENTRY_SIZE;
+                            }
+                        }
+                    }
+                }
+            });
+
+            buffer.force();
+        } finally {
+            file.close();
+        }
+    }
+
+    // The input value of a grid point
+    private static double gridValue(int index, int resolution) {
+        return index * 2.0 / (resolution - 1) - 1;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: KinematicsTableBuilder width length resolution table.bin");
+            System.exit(1);
+        }
+
+        build(SwerveKinematics.rectangle(Double.parseDouble(args[0]), Double.parseDouble(args[1])),
+                Integer.parseInt(args[2]), new File(args[3]));
+    }
+}
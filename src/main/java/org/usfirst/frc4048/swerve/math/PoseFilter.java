@@ -0,0 +1,263 @@
+package org.usfirst.frc4048.swerve.math;
+
+/**
+ * A small extended Kalman filter of the robot pose on the field: the state is x, y and heading, with a 3x3
+ * covariance. The prediction integrates the robot movement measured by the wheels and the corrections fuse absolute
+ * measurements (the gyro heading, or a full pose e.g. from vision). All the matrices are preallocated primitive
+ * arrays (row major) and no method allocates.
+ *
+ * Uses the same coordinates as SwerveOdometry: x is to the right, y is down the field and the heading is in degrees,
+ * clockwise and continuous. Measured headings are unwrapped to the turn closest to the current heading.
+ */
+public class PoseFilter {
+
+    // Index of the state components
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int HEADING = 2;
+
+    private final double[] state = new double[3];
+    private final double[] covariance = new double[9];
+
+    // Work matrices
+    private final double[] jacobian = new double[9];
+    private final double[] product = new double[9];
+    private final double[] innovationCovariance = new double[9];
+    private final double[] inverse = new double[9];
+    private final double[] gain = new double[9];
+    private final double[] innovation = new double[3];
+
+    // Process noise, as standard deviations proportional to the movement, plus a heading drift per prediction
+    private double translationNoise = DEFAULT_TRANSLATION_NOISE;
+    private double headingNoise = DEFAULT_HEADING_NOISE;
+    private double headingDrift = DEFAULT_HEADING_DRIFT;
+
+    public static final double DEFAULT_TRANSLATION_NOISE = 0.05;
+    public static final double DEFAULT_HEADING_NOISE = 0.05;
+    public static final double DEFAULT_HEADING_DRIFT = 0.1;
+
+    /**
+     * Set the uncertainty of the wheel movement
+     * @param translationNoise the standard deviation of the translation, as a fraction of the distance travelled
+     * @param headingNoise the standard deviation of the heading change, as a fraction of the rotation
+     * @param headingDrift the standard deviation of the heading change the wheels do not see (e.g. the robot is
+     *                     pushed), in degrees per prediction. Keeps the heading open to corrections while standing
+     */
+    public void setProcessNoise(double translationNoise, double headingNoise, double headingDrift) {
+        assert (translationNoise >= 0 && headingNoise >= 0 && headingDrift >= 0) : "Noise cannot be negative";
+
+        this.translationNoise = translationNoise;
+        this.headingNoise = headingNoise;
+        this.headingDrift = headingDrift;
+    }
+
+    /**
+     * Set the state, with the given standard deviations and no correlation
+     */
+    public void reset(double x, double y, double heading, double positionStdDev, double headingStdDev) {
+        state[X] = x;
+        state[Y] = y;
+        state[HEADING] = heading;
+
+        for (int i = 0; i < 9; i++) {
+            covariance[i] = 0.0;
+        }
+        covariance[0] = positionStdDev * positionStdDev;
+        covariance[4] = positionStdDev * positionStdDev;
+        covariance[8] = headingStdDev * headingStdDev;
+    }
+
+    /**
+     * Copy the state and covariance out (e.g. to a history)
+     * @param state output, 3 elements from the offset
+     * @param covariance output, 9 elements from the offset
+     */
+    public void save(double[] state, int stateOffset, double[] covariance, int covarianceOffset) {
+        System.arraycopy(this.state, 0, state, stateOffset, 3);
+        System.arraycopy(this.covariance, 0, covariance, covarianceOffset, 9);
+    }
+
+    /**
+     * Restore a state and covariance saved with save()
+     */
+    public void restore(double[] state, int stateOffset, double[] covariance, int covarianceOffset) {
+        System.arraycopy(state, stateOffset, this.state, 0, 3);
+        System.arraycopy(covariance, covarianceOffset, this.covariance, 0, 9);
+    }
+
+    /**
+     * Predict: move the robot by the movement measured by the wheels
+     * @param forward the distance forward, in robot coordinates
+     * @param strafe the distance to the right, in robot coordinates
+     * @param rotation the clockwise rotation, in degrees
+     */
+    public void predict(double forward, double strafe, double rotation) {
+        // Use the heading half-way through the movement
+        double midHeading = Math.toRadians(state[HEADING] + rotation / 2);
+        double sin = Math.sin(midHeading);
+        double cos = Math.cos(midHeading);
+        double dx = forward * sin + strafe * cos;
+        double dy = forward * cos - strafe * sin;
+
+        state[X] += dx;
+        state[Y] += dy;
+        state[HEADING] += rotation;
+
+        // P = F P F^T + Q, where F is the identity plus the heading derivatives of the movement
+        identity(jacobian);
+        jacobian[2] = Math.toRadians(dy);
+        jacobian[5] = -Math.toRadians(dx);
+        multiply(jacobian, covariance, product);
+        multiplyTransposed(product, jacobian, covariance);
+
+        double translationStdDev = translationNoise * Math.sqrt(forward * forward + strafe * strafe);
+        double headingStdDev = headingNoise * Math.abs(rotation) + headingDrift;
+        covariance[0] += translationStdDev * translationStdDev;
+        covariance[4] += translationStdDev * translationStdDev;
+        covariance[8] += headingStdDev * headingStdDev;
+    }
+
+    /**
+     * Correct with a measurement of the heading alone (e.g. the gyro)
+     * @param heading the measured heading, in degrees
+     * @param stdDev the standard deviation of the measurement, in degrees
+     */
+    public void correctHeading(double heading, double stdDev) {
+        double residual = unwrap(heading) - state[HEADING];
+        double variance = covariance[8] + stdDev * stdDev;
+
+        // Scalar update: K is the heading column of P divided by the innovation variance
+        double k0 = covariance[2] / variance;
+        double k1 = covariance[5] / variance;
+        double k2 = covariance[8] / variance;
+
+        state[X] += k0 * residual;
+        state[Y] += k1 * residual;
+        state[HEADING] += k2 * residual;
+
+        // P = P - K * (heading row of P)
+        double p20 = covariance[6];
+        double p21 = covariance[7];
+        double p22 = covariance[8];
+        covariance[0] -= k0 * p20;
+        covariance[1] -= k0 * p21;
+        covariance[2] -= k0 * p22;
+        covariance[3] -= k1 * p20;
+        covariance[4] -= k1 * p21;
+        covariance[5] -= k1 * p22;
+        covariance[6] -= k2 * p20;
+        covariance[7] -= k2 * p21;
+        covariance[8] -= k2 * p22;
+    }
+
+    /**
+     * Correct with a measurement of the full pose (e.g. vision)
+     * @param positionStdDev the standard deviation of the measured x and y
+     * @param headingStdDev the standard deviation of the measured heading, in degrees
+     */
+    public void correct(double x, double y, double heading, double positionStdDev, double headingStdDev) {
+        innovation[X] = x - state[X];
+        innovation[Y] = y - state[Y];
+        innovation[HEADING] = unwrap(heading) - state[HEADING];
+
+        // S = P + R
+        System.arraycopy(covariance, 0, innovationCovariance, 0, 9);
+        innovationCovariance[0] += positionStdDev * positionStdDev;
+        innovationCovariance[4] += positionStdDev * positionStdDev;
+        innovationCovariance[8] += headingStdDev * headingStdDev;
+
+        // K = P S^-1
+        invert(innovationCovariance, inverse);
+        multiply(covariance, inverse, gain);
+
+        for (int i = 0; i < 3; i++) {
+            state[i] += gain[3 * i] * innovation[0] + gain[3 * i + 1] * innovation[1] + gain[3 * i + 2] * innovation[2];
+        }
+
+        // P = (I - K) P, symmetrized against rounding
+        for (int i = 0; i < 9; i++) {
+            gain[i] = -gain[i];
+        }
+        gain[0] += 1.0;
+        gain[4] += 1.0;
+        gain[8] += 1.0;
+        multiply(gain, covariance, product);
+        for (int i = 0; i < 3; i++) {
+            covariance[4 * i] = product[4 * i];
+            for (int j = i + 1; j < 3; j++) {
+                double value = (product[3 * i + j] + product[3 * j + i]) / 2;
+                covariance[3 * i + j] = value;
+                covariance[3 * j + i] = value;
+            }
+        }
+    }
+
+    public double getX() {
+        return state[X];
+    }
+
+    public double getY() {
+        return state[Y];
+    }
+
+    public double getHeading() {
+        return state[HEADING];
+    }
+
+    /**
+     * @return the element of the covariance at the given row and column (see X, Y, HEADING)
+     */
+    public double getCovariance(int row, int column) {
+        return covariance[3 * row + column];
+    }
+
+    // Bring a measured heading to within half a turn of the current heading
+    private double unwrap(double heading) {
+        return heading - 360 * Math.rint((heading - state[HEADING]) / 360);
+    }
+
+    private static void identity(double[] matrix) {
+        for (int i = 0; i < 9; i++) {
+            matrix[i] = 0.0;
+        }
+        matrix[0] = 1.0;
+        matrix[4] = 1.0;
+        matrix[8] = 1.0;
+    }
+
+    // out = a b
+    private static void multiply(double[] a, double[] b, double[] out) {
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                out[3 * i + j] = a[3 * i] * b[j] + a[3 * i + 1] * b[3 + j] + a[3 * i + 2] * b[6 + j];
+            }
+        }
+    }
+
+    // out = a b^T
+    private static void multiplyTransposed(double[] a, double[] b, double[] out) {
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                out[3 * i + j] = a[3 * i] * b[3 * j] + a[3 * i + 1] * b[3 * j + 1] + a[3 * i + 2] * b[3 * j + 2];
+            }
+        }
+    }
+
+    // out = m^-1 (by the adjugate). m is a covariance plus noise, so it is not singular
+    private static void invert(double[] m, double[] out) {
+        double c00 = m[4] * m[8] - m[5] * m[7];
+        double c01 = m[5] * m[6] - m[3] * m[8];
+        double c02 = m[3] * m[7] - m[4] * m[6];
+        double determinant = m[0] * c00 + m[1] * c01 + m[2] * c02;
+
+        out[0] = c00 / determinant;
+        out[1] = (m[2] * m[7] - m[1] * m[8]) / determinant;
+        out[2] = (m[1] * m[5] - m[2] * m[4]) / determinant;
+        out[3] = c01 / determinant;
+        out[4] = (m[0] * m[8] - m[2] * m[6]) / determinant;
+        out[5] = (m[2] * m[3] - m[0] * m[5]) / determinant;
+        out[6] = c02 / determinant;
+        out[7] = (m[1] * m[6] - m[0] * m[7]) / determinant;
+        out[8] = (m[0] * m[4] - m[1] * m[3]) / determinant;
+    }
+}
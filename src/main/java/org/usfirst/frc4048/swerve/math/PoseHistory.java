@@ -0,0 +1,109 @@
+package org.usfirst.frc4048.swerve.math;
+
+/**
+ * A fixed-size ring buffer of timestamped robot poses (x, y, heading), kept in primitive arrays.
+ * Once full, adding a pose overwrites the oldest one. Adding and looking up poses never allocates.
+ * Poses must be added in increasing timestamp order.
+ */
+public class PoseHistory {
+
+    private final long[] timestamps;
+    private final double[] x;
+    private final double[] y;
+    private final double[] heading;
+
+    // Index of the next write
+    private int head;
+    private int size;
+
+    /**
+     * Constructor
+     * @param capacity the number of poses to keep
+     */
+    public PoseHistory(int capacity) {
+        assert (capacity > 1) : "Capacity has to be larger than 1";
+
+        timestamps = new long[capacity];
+        x = new double[capacity];
+        y = new double[capacity];
+        heading = new double[capacity];
+    }
+
+    public void add(long timestamp, double x, double y, double heading) {
+        timestamps[head] = timestamp;
+        this.x[head] = x;
+        this.y[head] = y;
+        this.heading[head] = heading;
+
+        head = (head + 1) % timestamps.length;
+        if (size < timestamps.length) size++;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return timestamps.length;
+    }
+
+    /**
+     * @return the timestamp of the oldest pose. Only valid if the history is not empty
+     */
+    public long getOldestTimestamp() {
+        return timestamps[physicalIndex(0)];
+    }
+
+    /**
+     * @return the timestamp of the newest pose. Only valid if the history is not empty
+     */
+    public long getNewestTimestamp() {
+        return timestamps[physicalIndex(size - 1)];
+    }
+
+    /**
+     * Find the pose at the given time, interpolating linearly between the two poses around it
+     * @param timestamp the time to look up
+     * @param pose output: [0] x, [1] y, [2] heading
+     * @return false if the time is outside of the history (the pose is not set in that case)
+     */
+    public boolean getPoseAt(long timestamp, double[] pose) {
+        if (size == 0 || timestamp < getOldestTimestamp() || timestamp > getNewestTimestamp()) {
+            return false;
+        }
+
+        // Binary search for the first pose at or after the timestamp
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[physicalIndex(middle)] < timestamp) low = middle + 1;
+            else high = middle;
+        }
+
+        int after = physicalIndex(low);
+        if (timestamps[after] == timestamp || low == 0) {
+            pose[0] = x[after];
+            pose[1] = y[after];
+            pose[2] = heading[after];
+            return true;
+        }
+
+        int before = physicalIndex(low - 1);
+        double fraction = (double) (timestamp - timestamps[before]) / (timestamps[after] - timestamps[before]);
+        pose[0] = x[before] + (x[after] - x[before]) * fraction;
+        pose[1] = y[before] + (y[after] - y[before]) * fraction;
+        pose[2] = heading[before] + (heading[after] - heading[before]) * fraction;
+        return true;
+    }
+
+    // Convert an index counted from the oldest pose to the array index
+    private int physicalIndex(int index) {
+        return (head - size + index + timestamps.length) % timestamps.length;
+    }
+}
@@ -0,0 +1,95 @@
+package org.usfirst.frc4048.swerve.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates the SwerveMath move calculation over many samples at once (e.g. for path planning and tuning tools).
+ * The inputs and outputs are primitive arrays (structure of arrays): one input array per value, and one output array
+ * per wheel for the angles and the speeds. The results are the same as calling the primitive SwerveMath.move for
+ * every sample, using the centric mode and trig precision of the given SwerveMath.
+ *
+ * Batches of at least the parallel threshold samples are split across the cores (on the common fork-join pool).
+ * A sequential batch with the analytic kinematics does not allocate.
+ */
+public class SwerveBatch {
+
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 65536;
+
+    // The number of samples per parallel task
+    private static final int SPLIT_SIZE = 8192;
+
+    private final SwerveMath swerveMath;
+    private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    public SwerveBatch(SwerveMath swerveMath) {
+        this.swerveMath = swerveMath;
+    }
+
+    /**
+     * Set the batch size from which the samples are split across the cores (Integer.MAX_VALUE to never split)
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        assert (parallelThreshold > 0) : "Parallel threshold has to be larger than 0";
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Calculate the wheel angles and speeds for the first count samples
+     * @param fwd the forward values, per sample
+     * @param str the strafe values, per sample
+     * @param rcw the rotation values, per sample
+     * @param gyro the gyro values, per sample. Can be null in robot centric mode
+     * @param count the number of samples
+     * @param angles output: the wheel angles, per wheel (first index) and sample (second index)
+     * @param speeds output: the wheel speeds, per wheel (first index) and sample (second index)
+     */
+    public void move(double[] fwd, double[] str, double[] rcw, double[] gyro, int count,
+                     double[][] angles, double[][] speeds) {
+        assert (angles.length == swerveMath.getModuleCount() && speeds.length == swerveMath.getModuleCount())
+                : "One output array per wheel is required";
+
+        if (count < parallelThreshold) {
+            swerveMath.move(fwd, str, rcw, gyro, 0, count, angles, speeds);
+        } else {
+            ForkJoinPool.commonPool().invoke(new BatchTask(fwd, str, rcw, gyro, 0, count, angles, speeds));
+        }
+    }
+
+    private class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] fwd;
+        private final double[] str;
+        private final double[] rcw;
+        private final double[] gyro;
+        private final int from;
+        private final int to;
+        private final double[][] angles;
+        private final double[][] speeds;
+
+        BatchTask(double[] fwd, double[] str, double[] rcw, double[] gyro, int from, int to,
+                  double[][] angles, double[][] speeds) {
+            this.fwd = fwd;
+            this.str = str;
+            this.rcw = rcw;
+            this.gyro = gyro;
+            this.from = from;
+            this.to = to;
+            this.angles = angles;
+            this.speeds = speeds;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_SIZE) {
+                swerveMath.move(fwd, str, rcw, gyro, from, to, angles, speeds);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(fwd, str, rcw, gyro, from, middle, angles, speeds),
+                    new BatchTask(fwd, str, rcw, gyro, middle, to, angles, speeds));
+        }
+    }
+}
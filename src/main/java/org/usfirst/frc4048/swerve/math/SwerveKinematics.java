@@ -0,0 +1,285 @@
+package org.usfirst.frc4048.swerve.math;
+
+/**
+ * Kinematics for a swerve robot with any number of modules in any position.
+ * The module positions are given relative to the robot center: x is to the right and y is to the front of the robot
+ * (units do not matter). The rotation can optionally be done around a point other than the robot center.
+ *
+ * The 2N x 3 inverse kinematics matrix is computed once at construction. Each pair of rows gives the strafe and
+ * forward components of one module's movement vector from the (fwd, str, rcw) input, so evaluating a move is a single
+ * loop over primitive arrays.
+ * Rotation is scaled so that rcw = 1.0 moves the module furthest from the center of rotation at full speed.
+ *
+ * The forward kinematics (measured module movement to robot movement) use a least-squares inverse of the same
+ * matrix, also computed once at construction.
+ */
+public class SwerveKinematics implements InverseKinematics {
+
+    // Number of columns in the inverse kinematics matrix: fwd, str, rcw
+    private static final int COLUMNS = 3;
+
+    private final int moduleCount;
+
+    // The module positions, relative to the center of rotation
+    private final double[] moduleX;
+    private final double[] moduleY;
+
+    // The distance of the furthest module from the center of rotation
+    private final double radius;
+
+    // Row-major 2N x 3 matrix. Row 2i is the strafe component of module i, row 2i+1 is its forward component
+    private final double[] matrix;
+
+    // Row-major 3 x 2N least-squares (pseudo) inverse of the physical kinematics matrix, relative to the robot center.
+    // Rows are forward, strafe and clockwise rotation (radians), columns match the rows of the inverse matrix
+    private final double[] forwardMatrix;
+
+    /**
+     * Constructor, rotating around the robot center
+     * @param moduleX the x (right) position of each module relative to the robot center
+     * @param moduleY the y (forward) position of each module relative to the robot center
+     */
+    public SwerveKinematics(double[] moduleX, double[] moduleY) {
+        this(moduleX, moduleY, 0.0, 0.0);
+    }
+
+    /**
+     * Constructor
+     * @param moduleX the x (right) position of each module relative to the robot center
+     * @param moduleY the y (forward) position of each module relative to the robot center
+     * @param centerX the x position of the center of rotation relative to the robot center
+     * @param centerY the y position of the center of rotation relative to the robot center
+     */
+    public SwerveKinematics(double[] moduleX, double[] moduleY, double centerX, double centerY) {
+        this(moduleX, moduleY, centerX, centerY, maxRadius(moduleX, moduleY, centerX, centerY));
+    }
+
+    private SwerveKinematics(double[] moduleX, double[] moduleY, double centerX, double centerY, double radius) {
+        assert (moduleX.length == moduleY.length) : "Module x and y positions must have the same length";
+        assert (moduleX.length > 1) : "At least 2 modules are required";
+        assert (radius > 0) : "Modules cannot all be at the center of rotation";
+
+        this.moduleCount = moduleX.length;
+        this.moduleX = new double[moduleCount];
+        this.moduleY = new double[moduleCount];
+        this.radius = radius;
+        this.matrix = new double[2 * moduleCount * COLUMNS];
+
+        for (int i = 0; i < moduleCount; i++) {
+            this.moduleX[i] = moduleX[i] - centerX;
+            this.moduleY[i] = moduleY[i] - centerY;
+
+            // Clockwise rotation moves a module at (x, y) in the direction of (y, -x)
+            int strafeRow = 2 * i * COLUMNS;
+            matrix[strafeRow] = 0.0;
+            matrix[strafeRow + 1] = 1.0;
+            matrix[strafeRow + 2] = this.moduleY[i] / radius;
+
+            int forwardRow = strafeRow + COLUMNS;
+            matrix[forwardRow] = 1.0;
+            matrix[forwardRow + 1] = 0.0;
+            matrix[forwardRow + 2] = -this.moduleX[i] / radius;
+        }
+
+        forwardMatrix = pseudoInverse(moduleX, moduleY);
+    }
+
+    /**
+     * Preset for the 4 wheel rectangular robot, with the wheels numbered as in {@link SwerveMath}:
+     * 1 - front right, 2 - front left, 3 - back left, 4 - back right.
+     * @param width the robot width (units do not matter)
+     * @param length the robot length (units do not matter)
+     */
+    public static SwerveKinematics rectangle(double width, double length) {
+        assert (width > 0) : "Width has to be larger than 0";
+        assert (length > 0) : "Length has to be larger than 0";
+
+        double halfWidth = width / 2;
+        double halfLength = length / 2;
+        double diagonal = Math.sqrt(length * length + width * width);
+
+        return new SwerveKinematics(
+                new double[] {halfWidth, -halfWidth, -halfWidth, halfWidth},
+                new double[] {halfLength, halfLength, -halfLength, -halfLength},
+                0.0, 0.0, diagonal / 2);
+    }
+
+    @Override
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    /**
+     * @return the x position of the module, relative to the center of rotation
+     */
+    double getModuleX(int module) {
+        return moduleX[module];
+    }
+
+    /**
+     * @return the y position of the module, relative to the center of rotation
+     */
+    double getModuleY(int module) {
+        return moduleY[module];
+    }
+
+    /**
+     * @return the distance of the furthest module from the center of rotation
+     */
+    double getRadius() {
+        return radius;
+    }
+
+    /**
+     * Calculate the (robot centric) module directives, writing the results into caller-owned arrays.
+     * @param fwd the forward power value range -1.0(back) - 1.0(fwd)
+     * @param str the strafe power value range -1.0(left) - 1.0(right)
+     * @param rcw the rotation power value range -1.0(ccw) - 1.0(cw)
+     * @param angles output: the module angles (-0.5 - +0.5), in module order
+     * @param speeds output: the module speeds (0 - 1), in module order
+     */
+    @Override
+    public void move(double fwd, double str, double rcw, double[] angles, double[] speeds) {
+        move(fwd, str, rcw, angles, speeds, TrigPrecision.EXACT);
+    }
+
+    /**
+     * Same as above, with the given trigonometry precision for the module angles
+     */
+    public void move(double fwd, double str, double rcw, double[] angles, double[] speeds, TrigPrecision precision) {
+        boolean fast = precision == TrigPrecision.FAST;
+        double max = 0.0;
+
+        for (int i = 0; i < moduleCount; i++) {
+            double speed = moveModule(i, fwd, str, rcw, fast, angles, i);
+            if (speed > max) max = speed;
+            speeds[i] = speed;
+        }
+
+        //Normalize the speed (if the largest speed is greater than 1, change accordingly).
+        if (max > 1) {
+            for (int i = 0; i < moduleCount; i++) {
+                speeds[i] /= max;
+            }
+        }
+    }
+
+    /**
+     * Same as move, for one sample of a batch: the results are written at the sample index of the per-module
+     * output arrays (see SwerveBatch)
+     */
+    void moveSample(double fwd, double str, double rcw, boolean fast, double[][] angles, double[][] speeds, int sample) {
+        double max = 0.0;
+
+        for (int i = 0; i < moduleCount; i++) {
+            double speed = moveModule(i, fwd, str, rcw, fast, angles[i], sample);
+            if (speed > max) max = speed;
+            speeds[i][sample] = speed;
+        }
+
+        if (max > 1) {
+            for (int i = 0; i < moduleCount; i++) {
+                speeds[i][sample] /= max;
+            }
+        }
+    }
+
+    /**
+     * The directive of one module, shared by move and moveSample
+     * @param angles output: the module angle is written at the given index
+     * @return the (not normalized) module speed
+     */
+    private double moveModule(int module, double fwd, double str, double rcw, boolean fast, double[] angles, int index) {
+        int row = 2 * COLUMNS * module;
+        double strafe = matrix[row] * fwd + matrix[row + 1] * str + matrix[row + 2] * rcw;
+        double forward = matrix[row + 3] * fwd + matrix[row + 4] * str + matrix[row + 5] * rcw;
+
+        angles[index] = fast ? FastTrig.atan2Turns(strafe, forward) : Math.atan2(strafe, forward) * 180 / Math.PI / 360;
+        return Math.sqrt(strafe * strafe + forward * forward);
+    }
+
+    /**
+     * Forward kinematics: calculate the robot movement from the measured module angles and speeds (or distances).
+     * With more than 2 modules the system is over-determined and the least-squares solution is returned.
+     * The movement is relative to the robot center (regardless of the center of rotation), in robot coordinates.
+     * @param angles the measured module angles, in turns (0 being forward, positive clockwise), in module order
+     * @param speeds the measured module speeds or distances travelled, in module order
+     * @param motion output: [0] forward and [1] strafe movement, in the units of the speeds, and [2] the clockwise
+     *               rotation, in radians (per the time unit of the speeds)
+     */
+    public void toChassisMotion(double[] angles, double[] speeds, double[] motion) {
+        double forward = 0.0;
+        double strafe = 0.0;
+        double rotation = 0.0;
+        int columns = 2 * moduleCount;
+
+        for (int i = 0; i < moduleCount; i++) {
+            double angle = angles[i] * 2 * Math.PI;
+            double strafeComponent = speeds[i] * Math.sin(angle);
+            double forwardComponent = speeds[i] * Math.cos(angle);
+
+            int column = 2 * i;
+            forward += forwardMatrix[column] * strafeComponent + forwardMatrix[column + 1] * forwardComponent;
+            strafe += forwardMatrix[columns + column] * strafeComponent + forwardMatrix[columns + column + 1] * forwardComponent;
+            rotation += forwardMatrix[2 * columns + column] * strafeComponent + forwardMatrix[2 * columns + column + 1] * forwardComponent;
+        }
+
+        motion[0] = forward;
+        motion[1] = strafe;
+        motion[2] = rotation;
+    }
+
+    // (A^T A)^-1 A^T for the physical matrix A, whose rows are [fwd, str, rotation] coefficients:
+    // strafe row of module i: [0, 1, y], forward row: [1, 0, -x]
+    private static double[] pseudoInverse(double[] moduleX, double[] moduleY) {
+        int moduleCount = moduleX.length;
+        double sumX = 0.0;
+        double sumY = 0.0;
+        double sumSquares = 0.0;
+        for (int i = 0; i < moduleCount; i++) {
+            sumX += moduleX[i];
+            sumY += moduleY[i];
+            sumSquares += moduleX[i] * moduleX[i] + moduleY[i] * moduleY[i];
+        }
+
+        // A^T A (symmetric)
+        double a00 = moduleCount, a01 = 0.0, a02 = -sumX;
+        double a11 = moduleCount, a12 = sumY;
+        double a22 = sumSquares;
+
+        // Its inverse, by cofactors
+        double c00 = a11 * a22 - a12 * a12;
+        double c01 = a02 * a12 - a01 * a22;
+        double c02 = a01 * a12 - a02 * a11;
+        double c11 = a00 * a22 - a02 * a02;
+        double c12 = a01 * a02 - a00 * a12;
+        double c22 = a00 * a11 - a01 * a01;
+        double determinant = a00 * c00 + a01 * c01 + a02 * c02;
+
+        double[] inverse = {
+                c00 / determinant, c01 / determinant, c02 / determinant,
+                c01 / determinant, c11 / determinant, c12 / determinant,
+                c02 / determinant, c12 / determinant, c22 / determinant};
+
+        int columns = 2 * moduleCount;
+        double[] result = new double[3 * columns];
+        for (int row = 0; row < 3; row++) {
+            for (int i = 0; i < moduleCount; i++) {
+                // A^T column for the strafe row of module i is [0, 1, y], for the forward row [1, 0, -x]
+                result[row * columns + 2 * i] = inverse[row * 3 + 1] + inverse[row * 3 + 2] * moduleY[i];
+                result[row * columns + 2 * i + 1] = inverse[row * 3] - inverse[row * 3 + 2] * moduleX[i];
+            }
+        }
+        return result;
+    }
+
+    private static double maxRadius(double[] moduleX, double[] moduleY, double centerX, double centerY) {
+        double max = 0.0;
+        for (int i = 0; i < moduleX.length; i++) {
+            double dx = moduleX[i] - centerX;
+            double dy = moduleY[i] - centerY;
+            max = Math.max(max, Math.sqrt(dx * dx + dy * dy));
+        }
+        return max;
+    }
+}
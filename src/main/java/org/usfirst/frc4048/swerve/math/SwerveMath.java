@@ -1,6 +1,6 @@
 package org.usfirst.frc4048.swerve.math;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -22,25 +22,42 @@ import java.util.List;
  * 		Wheel 3 -------------- Wheel 4
  * 					Back
  *
+ * This is the default layout. Robots with a different number of modules or module positions can use the
+ * SwerveKinematics constructor, in which case the wheel indices follow the order of the kinematics module positions.
+ *
  * The library supports two modes: Robot centric and Field centric. In Robot centric mode the robot turns relative to its
  * current position: 45 degrees to the right will turn the robot 45 degrees to the right (for example, if it is pointing
  * north before the turn, it will point north-east after the turn. In Field centric mode the robot turns to face the given
  * number of degrees relative to the firld's orientation: 0 means straight ahead down the field, 90 means to the right, etc.
+ *
+ * The settings (centric mode, precision etc.) are plain fields: change them from the thread that calls move. To
+ * reconfigure a running drive from other threads use SwerveDrive.setConfig.
  */
 public class SwerveMath {
-    // Robot dimensions. Units are of no importance. Required
-    private final double length;
-    private final double width;
-
-    // The diagonal of the robot dimensions. Internal
-    private final double diagonal;
+    // The kinematics engine for the module layout. Required
+    private final SwerveKinematics kinematics;
 
     // The scale factor to control robot maximum speed. Optional.
-    private final double SCALE_SPEED = 1.00;
+    private double speedScale = 1.00;
+
+    /**
+     * Gyro value to pass to the primitive move method when no gyro reading is available.
+     * Only valid in robot-centric mode.
+     */
+    public static final double NO_GYRO = Double.NaN;
+
+    // The number of wheels in the default (rectangular) layout
+    public static final int WHEEL_COUNT = 4;
 
     // The "Centric" mode for the robot
     	private CentricMode centricMode = CentricMode.ROBOT;
 
+    // The precision of the trigonometry
+    private TrigPrecision trigPrecision = TrigPrecision.EXACT;
+
+    // Replaces the analytic kinematics when set (e.g. a KinematicsTable)
+    private InverseKinematics inverseKinematics;
+
     public void setModeField() {
 		centricMode= CentricMode.FIELD;
 	}
@@ -50,13 +67,26 @@ public class SwerveMath {
      * @param length the robot length (units do not matter)
      */
     public SwerveMath(double width, double length) {
-        assert (width > 0) : "Width has to be larger than 0";
-        assert (length > 0) : "Length has to be larger than 0";
+        this(SwerveKinematics.rectangle(width, length));
+    }
 
-        this.width = width;
-        this.length = length;
+    /**
+     * Constructor for any module layout
+     * @param kinematics the kinematics engine for the robot's module layout
+     */
+    public SwerveMath(SwerveKinematics kinematics) {
+        this.kinematics = kinematics;
+    }
 
-        diagonal = Math.sqrt(Math.pow(this.length, 2) + Math.pow(this.width, 2));
+    public SwerveKinematics getKinematics() {
+        return kinematics;
+    }
+
+    /**
+     * @return the number of wheels (and directives) handled by this instance
+     */
+    public int getModuleCount() {
+        return kinematics.getModuleCount();
     }
 
 
@@ -69,12 +99,51 @@ public class SwerveMath {
         this.centricMode = centricMode;
     }
 
+    public TrigPrecision getTrigPrecision() {
+        return trigPrecision;
+    }
+
+    /**
+     * Use a different implementation of the inverse kinematics (e.g. a KinematicsTable) instead of the analytic
+     * kinematics. It has to be for the same module layout. Null goes back to the analytic kinematics (the default).
+     */
+    public void setInverseKinematics(InverseKinematics inverseKinematics) {
+        assert (inverseKinematics == null || inverseKinematics.getModuleCount() == kinematics.getModuleCount())
+                : "Number of modules must match";
+        this.inverseKinematics = inverseKinematics;
+    }
+
+    public InverseKinematics getInverseKinematics() {
+        return inverseKinematics;
+    }
+
+    public double getSpeedScale() {
+        return speedScale;
+    }
+
+    /**
+     * Scale all the wheel speeds (e.g. to limit the maximum speed while testing)
+     * @param speedScale the factor, between 0 and 1 (default is 1)
+     */
+    public void setSpeedScale(double speedScale) {
+        assert (speedScale >= 0 && speedScale <= 1) : "Speed scale has to be between 0 and 1";
+        this.speedScale = speedScale;
+    }
+
+    /**
+     * Select exact (the default) or fast approximate trigonometry, see {@link FastTrig} for the error bounds
+     */
+    public void setTrigPrecision(TrigPrecision trigPrecision) {
+        this.trigPrecision = trigPrecision;
+    }
+
 
     /**
      * move
      * Moves the robot based on 3 inputs - fwd (forward), str(strafe), and rcw(rotation clockwise)
      * Inputs are between -1 and 1, with 1 being full power, -1 being full reverse, and 0 being neutral.
      * The method uses gyro for field centric driving, if it is enabled.
+     * This method allocates the result list on every call, use the primitive version in the control loop.
      * @param fwd the forward power value range -1.0(back) - 1.0(fwd)
      * @param str the strafe power value range -1.0(left) - 1.0(right)
      * @param rcw the rotation power value range -1.0(ccw) - 1.0(cw)
@@ -82,69 +151,154 @@ public class SwerveMath {
      * @return List of wheel movement directives. The list indices correspond to the wheel numbering scheme as above, zero-based.
      */
     public List<SwerveDirective> move(double fwd, double str, double rcw, Double gyroValue) {
+        int moduleCount = getModuleCount();
+        double[] angles = new double[moduleCount];
+        double[] speeds = new double[moduleCount];
+
+        move(fwd, str, rcw, gyroValue == null ? NO_GYRO : gyroValue.doubleValue(), angles, speeds);
+
+        List<SwerveDirective> directives = new ArrayList<SwerveDirective>(moduleCount);
+        for (int i = 0; i < moduleCount; i++) {
+            directives.add(new SwerveDirective(angles[i], speeds[i]));
+        }
 
-        if ((gyroValue == null) && centricMode.equals(CentricMode.FIELD)) {
+        return directives;
+    }
+
+    /**
+     * move
+     * Allocation-free version of the move calculation: the results are written into caller-owned arrays, so the
+     * same arrays can be reused on every cycle of the control loop.
+     * @param fwd the forward power value range -1.0(back) - 1.0(fwd)
+     * @param str the strafe power value range -1.0(left) - 1.0(right)
+     * @param rcw the rotation power value range -1.0(ccw) - 1.0(cw)
+     * @param gyroValue the value of the gyro input (0-360). Only used when the robot is in field-centric mode.
+     *                  Use {@link #NO_GYRO} when there is no gyro reading.
+     * @param angles output: the wheel angles (-0.5 - +0.5), indices correspond to the wheel numbering scheme as above, zero-based.
+     * @param speeds output: the wheel speeds (0 - 1), indices correspond to the wheel numbering scheme as above, zero-based.
+     */
+    public void move(double fwd, double str, double rcw, double gyroValue, double[] angles, double[] speeds) {
+
+        if (Double.isNaN(gyroValue) && isFieldCentric()) {
             throw new IllegalStateException("Cannot use field centric mode without a Gyro value");
         }
-        
+
+        calculate(fwd, str, rcw, gyroValue, isFieldCentric(), angles, speeds);
+    }
+
+    /**
+     * move
+     * Same as above, for a gyro that also reports its angular rate: in field-centric mode the heading is extrapolated
+     * to the time the wheels will act on the directives (see extrapolateHeading). When there is no gyro reading (e.g.
+     * the last one is too old) the calculation falls back to robot-centric instead of failing.
+     * @param gyroValue the value of the gyro input, or {@link #NO_GYRO}
+     * @param gyroRate the angular rate of the gyro, in degrees per second (clockwise)
+     * @param lookaheadSeconds the time from the gyro reading to the actuation, in seconds
+     */
+    public void move(double fwd, double str, double rcw, double gyroValue, double gyroRate, double lookaheadSeconds,
+                     double[] angles, double[] speeds) {
+        boolean fieldCentric = isFieldCentric() && !Double.isNaN(gyroValue);
+        double heading = fieldCentric ? extrapolateHeading(gyroValue, gyroRate, lookaheadSeconds) : gyroValue;
+        calculate(fwd, str, rcw, heading, fieldCentric, angles, speeds);
+    }
+
+    /**
+     * @param gyroValue the gyro value at the time of the reading, in degrees
+     * @param gyroRate the angular rate, in degrees per second
+     * @param seconds the time after the reading
+     * @return the heading the given time after the reading, assuming a constant rate
+     */
+    public static double extrapolateHeading(double gyroValue, double gyroRate, double seconds) {
+        return gyroValue + gyroRate * seconds;
+    }
+
+    private void calculate(double fwd, double str, double rcw, double gyroValue, boolean fieldCentric,
+                           double[] angles, double[] speeds) {
         //Adjust for Gyro (if wanted)
-        if (isFieldCentric()){
-            //Convert the gyro angle (in degrees) to radians.
-            double gyro = (gyroValue * Math.PI) / 180;
+        if (fieldCentric){
+            double cos = gyroCos(gyroValue);
+            double sin = gyroSin(gyroValue);
 
-            double temp = fwd * Math.cos(gyro) + str * Math.sin(gyro);
-            str = -fwd * Math.sin(gyro) + str * Math.cos(gyro);
+            double temp = fwd * cos + str * sin;
+            str = -fwd * sin + str * cos;
             fwd = temp;
         }
 
-        //These 4 variables are used in the swerve drive calculations.
-        double a = str - rcw*(length / diagonal);
-        double b = str + rcw*(length / diagonal);
-        double c = fwd - rcw*(width / diagonal);
-        double d = fwd + rcw*(width / diagonal);
-
-        //These are the equations for the wheel speed, for motors 1-4.
-        double ws1 =  Math.sqrt(Math.pow(b,2)+Math.pow(c,2));
-        double ws2 =  Math.sqrt(Math.pow(b,2)+Math.pow(d,2));
-        double ws3 =  Math.sqrt(Math.pow(a,2)+Math.pow(d,2));
-        double ws4 =  Math.sqrt(Math.pow(a,2)+Math.pow(c,2));
-
-        //These are the equations for the wheel angle, for motors 1-4
-        double wa1 =  Math.atan2(b,c)*180/Math.PI;
-        double wa2 =  Math.atan2(b,d)*180/Math.PI;
-        double wa3 =  Math.atan2(a,d)*180/Math.PI;
-        double wa4 =  Math.atan2(a,c)*180/Math.PI;
-
-        //This is to normalize the speed (if the largest speed is greater than 1, change accordingly).
-        double max = ws1;
-        if(ws2>max) max = ws2;
-        if(ws3>max) max = ws3;
-        if(ws4>max) max = ws4;
-        if(max>1){
-            ws1/=max;
-            ws2/=max;
-            ws3/=max;
-            ws4/=max;
+        if (inverseKinematics != null) {
+            inverseKinematics.move(fwd, str, rcw, angles, speeds);
+        } else {
+            kinematics.move(fwd, str, rcw, angles, speeds, trigPrecision);
         }
 
-        //Wheel angle was in the range of -180 to 180. Now its -.5 to .5
-        wa1/=360;
-        wa2/=360;
-        wa3/=360;
-        wa4/=360;
-
         //Used to scale the movement speeds for testing (so you don't crash into walls)
-        ws1*=SCALE_SPEED;
-        ws2*=SCALE_SPEED;
-        ws3*=SCALE_SPEED;
-        ws4*=SCALE_SPEED;
+        for (int i = 0; i < kinematics.getModuleCount(); i++) {
+            speeds[i] *= speedScale;
+        }
+    }
+
+    /**
+     * Batch version of move, for a range of samples (see SwerveBatch)
+     * @param gyroValues the gyro values, or null for none
+     * @param angles output: the wheel angles, per wheel (first index) and sample (second index)
+     * @param speeds output: the wheel speeds, per wheel (first index) and sample (second index)
+     */
+    void move(double[] fwd, double[] str, double[] rcw, double[] gyroValues, int from, int to,
+              double[][] angles, double[][] speeds) {
+        boolean fieldCentric = isFieldCentric();
+        boolean fast = trigPrecision == TrigPrecision.FAST;
+        int moduleCount = kinematics.getModuleCount();
+
+        // Other implementations only fill arrays per sample
+        InverseKinematics inverseKinematics = this.inverseKinematics;
+        double[] sampleAngles = inverseKinematics != null ? new double[moduleCount] : null;
+        double[] sampleSpeeds = inverseKinematics != null ? new double[moduleCount] : null;
+
+        for (int i = from; i < to; i++) {
+            double f = fwd[i];
+            double s = str[i];
 
-        SwerveDirective d1 = new SwerveDirective(wa1, ws1);
-        SwerveDirective d2 = new SwerveDirective(wa2, ws2);
-        SwerveDirective d3 = new SwerveDirective(wa3, ws3);
-        SwerveDirective d4 = new SwerveDirective(wa4, ws4);
+            if (fieldCentric) {
+                double gyroValue = gyroValues == null ? NO_GYRO : gyroValues[i];
+                if (Double.isNaN(gyroValue)) {
+                    throw new IllegalStateException("Cannot use field centric mode without a Gyro value");
+                }
+                double cos = gyroCos(gyroValue);
+                double sin = gyroSin(gyroValue);
 
-        return Arrays.asList(d1, d2, d3, d4);
+                double temp = f * cos + s * sin;
+                s = -f * sin + s * cos;
+                f = temp;
+            }
+
+            if (inverseKinematics != null) {
+                inverseKinematics.move(f, s, rcw[i], sampleAngles, sampleSpeeds);
+                for (int m = 0; m < moduleCount; m++) {
+                    angles[m][i] = sampleAngles[m];
+                    speeds[m][i] = sampleSpeeds[m];
+                }
+            } else {
+                kinematics.moveSample(f, s, rcw[i], fast, angles, speeds, i);
+            }
+
+            for (int m = 0; m < moduleCount; m++) {
+                speeds[m][i] *= speedScale;
+            }
+        }
+    }
+
+    private double gyroCos(double gyroValue) {
+        if (trigPrecision == TrigPrecision.FAST) {
+            return FastTrig.cosDegrees(gyroValue);
+        }
+        //Convert the gyro angle (in degrees) to radians.
+        return Math.cos((gyroValue * Math.PI) / 180);
+    }
+
+    private double gyroSin(double gyroValue) {
+        if (trigPrecision == TrigPrecision.FAST) {
+            return FastTrig.sinDegrees(gyroValue);
+        }
+        return Math.sin((gyroValue * Math.PI) / 180);
     }
 
     private boolean isFieldCentric() {
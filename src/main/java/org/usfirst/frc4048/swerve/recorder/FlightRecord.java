@@ -0,0 +1,131 @@
+package org.usfirst.frc4048.swerve.recorder;
+
+/**
+ * One control cycle of the flight recorder: the drive inputs, what the math told every module to do (the directive)
+ * and the setpoints the module targeted after the reversal and continuous-angle conversion. The targets are not
+ * necessarily written to the hardware that cycle (see SetpointFilter, and the angle is held while the speed is 0).
+ * The record is mutable and reused: the drive fills the same instance every cycle and the reader reads into it.
+ */
+public class FlightRecord {
+
+    // Reversal flag in the module flags
+    public static final int FLAG_REVERSED = 1;
+
+    private long timestamp;
+    private long cycle;
+    private double fwd;
+    private double str;
+    private double rcw;
+    private double gyroValue;
+
+    // Per module
+    private final double[] directiveAngles;
+    private final double[] directiveSpeeds;
+    private final int[] encPositions;
+    private final double[] targetSpeeds;
+    private final double[] targetAngles;
+    private final int[] flags;
+
+    public FlightRecord(int moduleCount) {
+        directiveAngles = new double[moduleCount];
+        directiveSpeeds = new double[moduleCount];
+        encPositions = new int[moduleCount];
+        targetSpeeds = new double[moduleCount];
+        targetAngles = new double[moduleCount];
+        flags = new int[moduleCount];
+    }
+
+    public void setInputs(long timestamp, long cycle, double fwd, double str, double rcw, double gyroValue) {
+        this.timestamp = timestamp;
+        this.cycle = cycle;
+        this.fwd = fwd;
+        this.str = str;
+        this.rcw = rcw;
+        this.gyroValue = gyroValue;
+    }
+
+    /**
+     * Set the values of one module
+     * @param directiveAngle the angle calculated by the math (turns)
+     * @param directiveSpeed the speed calculated by the math
+     * @param encPosition the raw steer encoder position the enclosure used
+     * @param targetSpeed the target speed of the module (after reversal)
+     * @param targetAngle the continuous target angle of the module (after reversal)
+     * @param reversed true if the enclosure reversed the wheel direction
+     */
+    public void setModule(int module, double directiveAngle, double directiveSpeed, int encPosition,
+                          double targetSpeed, double targetAngle, boolean reversed) {
+        directiveAngles[module] = directiveAngle;
+        directiveSpeeds[module] = directiveSpeed;
+        encPositions[module] = encPosition;
+        targetSpeeds[module] = targetSpeed;
+        targetAngles[module] = targetAngle;
+        flags[module] = reversed ? FLAG_REVERSED : 0;
+    }
+
+    public int getModuleCount() {
+        return flags.length;
+    }
+
+    /**
+     * @return the time of the cycle, in nanoseconds (the clock of the drive)
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getCycle() {
+        return cycle;
+    }
+
+    public double getFwd() {
+        return fwd;
+    }
+
+    public double getStr() {
+        return str;
+    }
+
+    public double getRcw() {
+        return rcw;
+    }
+
+    /**
+     * @return the gyro value, NaN if there was none
+     */
+    public double getGyroValue() {
+        return gyroValue;
+    }
+
+    public double getDirectiveAngle(int module) {
+        return directiveAngles[module];
+    }
+
+    public double getDirectiveSpeed(int module) {
+        return directiveSpeeds[module];
+    }
+
+    public int getEncPosition(int module) {
+        return encPositions[module];
+    }
+
+    public double getTargetSpeed(int module) {
+        return targetSpeeds[module];
+    }
+
+    public double getTargetAngle(int module) {
+        return targetAngles[module];
+    }
+
+    public boolean isReversed(int module) {
+        return (flags[module] & FLAG_REVERSED) != 0;
+    }
+
+    int getFlags(int module) {
+        return flags[module];
+    }
+
+    void setFlags(int module, int flags) {
+        this.flags[module] = flags;
+    }
+}
@@ -0,0 +1,69 @@
+package org.usfirst.frc4048.swerve.recorder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Exports a flight recording as CSV: one line per cycle, with the module columns prefixed by the module number
+ * (m1_, m2_...). Can be run from the command line: FlightRecordCsv recording.bin [output.csv]
+ */
+public class FlightRecordCsv {
+
+    /**
+     * Write all the records of the reader (from the oldest) to the output
+     */
+    public static void export(FlightRecordReader reader, Writer out) throws IOException {
+        int moduleCount = reader.getModuleCount();
+
+        StringBuilder line = new StringBuilder("timestamp,cycle,fwd,str,rcw,gyro");
+        for (int i = 1; i <= moduleCount; i++) {
+            line.append(",m").append(i).append("_angle")
+                    .append(",m").append(i).append("_speed")
+                    .append(",m").append(i).append("_enc")
+                    .append(",m").append(i).append("_target_speed")
+                    .append(",m").append(i).append("_target_angle")
+                    .append(",m").append(i).append("_reversed");
+        }
+        out.write(line.append('\n').toString());
+
+        FlightRecord record = reader.newRecord();
+        while (reader.next(record)) {
+            line.setLength(0);
+            line.append(record.getTimestamp())
+                    .append(',').append(record.getCycle())
+                    .append(',').append(record.getFwd())
+                    .append(',').append(record.getStr())
+                    .append(',').append(record.getRcw())
+                    .append(',').append(record.getGyroValue());
+            for (int i = 0; i < moduleCount; i++) {
+                line.append(',').append(record.getDirectiveAngle(i))
+                        .append(',').append(record.getDirectiveSpeed(i))
+                        .append(',').append(record.getEncPosition(i))
+                        .append(',').append(record.getTargetSpeed(i))
+                        .append(',').append(record.getTargetAngle(i))
+                        .append(',').append(record.isReversed(i) ? 1 : 0);
+            }
+            out.write(line.append('\n').toString());
+        }
+        out.flush();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: FlightRecordCsv recording.bin [output.csv]");
+            System.exit(1);
+        }
+
+        FlightRecordReader reader = new FlightRecordReader(new File(args[0]));
+        File output = new File(args.length > 1 ? args[1] : args[0] + ".csv");
+        Writer out = new BufferedWriter(new FileWriter(output));
+        try {
+            export(reader, out);
+        } finally {
+            out.close();
+        }
+    }
+}
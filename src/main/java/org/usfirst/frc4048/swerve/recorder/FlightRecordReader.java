@@ -0,0 +1,125 @@
+package org.usfirst.frc4048.swerve.recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a flight recorder file back, from the oldest record to the newest.
+ * The records are read into a reusable FlightRecord (see next), so reading a long recording does not allocate.
+ */
+public class FlightRecordReader {
+
+    private final MappedByteBuffer buffer;
+    private final int moduleCount;
+    private final int recordSize;
+    private final int capacity;
+    private final long writeCount;
+
+    // Index (in write order) of the next record to read
+    private long next;
+
+    public FlightRecordReader(File path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        try {
+            if (file.length() < FlightRecorder.HEADER_SIZE) {
+                throw new IOException("Not a flight recording: " + path);
+            }
+            // The mapping stays valid after the file is closed
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        } finally {
+            file.close();
+        }
+
+        if (buffer.getInt(FlightRecorder.MAGIC_OFFSET) != FlightRecorder.MAGIC) {
+            throw new IOException("Not a flight recording: " + path);
+        }
+        int version = buffer.getInt(FlightRecorder.VERSION_OFFSET);
+        if (version != FlightRecorder.VERSION) {
+            throw new IOException("Unsupported flight recording version " + version + ": " + path);
+        }
+
+        moduleCount = buffer.getInt(FlightRecorder.MODULE_COUNT_OFFSET);
+        recordSize = buffer.getInt(FlightRecorder.RECORD_SIZE_OFFSET);
+        capacity = buffer.getInt(FlightRecorder.CAPACITY_OFFSET);
+        writeCount = buffer.getLong(FlightRecorder.WRITE_COUNT_OFFSET);
+
+        if (recordSize != FlightRecorder.recordSize(moduleCount)
+                || FlightRecorder.HEADER_SIZE + (long) recordSize * capacity > buffer.capacity()) {
+            throw new IOException("Corrupt flight recording: " + path);
+        }
+
+        next = Math.max(0, writeCount - capacity);
+    }
+
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    /**
+     * @return the number of records in the file
+     */
+    public int getRecordCount() {
+        return (int) Math.min(writeCount, capacity);
+    }
+
+    /**
+     * @return the number of records written, including the ones that were overwritten
+     */
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * @return a record to read into
+     */
+    public FlightRecord newRecord() {
+        return new FlightRecord(moduleCount);
+    }
+
+    /**
+     * Read the next record
+     * @param record output (see newRecord)
+     * @return false if there are no more records
+     */
+    public boolean next(FlightRecord record) {
+        assert (record.getModuleCount() == moduleCount) : "Number of modules must match the recording";
+
+        if (next >= writeCount) {
+            return false;
+        }
+
+        int position = FlightRecorder.HEADER_SIZE + (int) (next % capacity) * recordSize;
+        next++;
+
+        record.setInputs(buffer.getLong(position),
+                buffer.getLong(position + 8),
+                buffer.getDouble(position + 16),
+                buffer.getDouble(position + 24),
+                buffer.getDouble(position + 32),
+                buffer.getDouble(position + 40));
+        position += FlightRecorder.CYCLE_SIZE;
+
+        for (int i = 0; i < moduleCount; i++) {
+            record.setModule(i,
+                    buffer.getDouble(position),
+                    buffer.getDouble(position + 8),
+                    buffer.getInt(position + 16),
+                    buffer.getDouble(position + 24),
+                    buffer.getDouble(position + 32),
+                    false);
+            record.setFlags(i, buffer.getInt(position + 20));
+            position += FlightRecorder.MODULE_SIZE;
+        }
+        return true;
+    }
+
+    /**
+     * Go back to the oldest record
+     */
+    public void rewind() {
+        next = Math.max(0, writeCount - capacity);
+    }
+}
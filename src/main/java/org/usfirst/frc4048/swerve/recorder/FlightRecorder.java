@@ -0,0 +1,156 @@
+package org.usfirst.frc4048.swerve.recorder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Records every control cycle into a preallocated memory-mapped file as fixed-width binary records, so the last
+ * cycles before a failure can be examined after the match (see FlightRecordReader and FlightRecordCsv).
+ * The file is a ring: once full, the oldest records are overwritten.
+ *
+ * Recording is meant for a single producer (the control thread). It does not allocate and does not make system
+ * calls: the file is mapped and every page is touched when it is opened, and the records are written to the mapping
+ * (the operating system writes them back to the file). Call flush() from another thread, or close() at the end,
+ * to force them to the disk.
+ *
+ * File layout (big-endian):
+ * header (64 bytes): magic, version, module count, record size, capacity (ints), number of records written (long)
+ * record: timestamp, cycle (longs), fwd, str, rcw, gyro (doubles), then per module:
+ * directive angle, directive speed (doubles), encoder position, flags (ints), target speed, target angle (doubles)
+ */
+public class FlightRecorder {
+
+    static final int MAGIC = 0x53575246;
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 64;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int MODULE_COUNT_OFFSET = 8;
+    static final int RECORD_SIZE_OFFSET = 12;
+    static final int CAPACITY_OFFSET = 16;
+    static final int WRITE_COUNT_OFFSET = 24;
+
+    static final int CYCLE_SIZE = 2 * 8 + 4 * 8;
+    static final int MODULE_SIZE = 2 * 8 + 2 * 4 + 2 * 8;
+
+    private static final int PAGE_SIZE = 4096;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int moduleCount;
+    private final int recordSize;
+    private final int capacity;
+
+    private long writeCount;
+
+    /**
+     * Create (or overwrite) a recording file
+     * @param path the file
+     * @param moduleCount the number of modules of the drive
+     * @param capacity the number of records to keep (e.g. 3000 is one minute at 50 cycles per second)
+     */
+    public FlightRecorder(File path, int moduleCount, int capacity) throws IOException {
+        assert (moduleCount > 0) : "Module count has to be larger than 0";
+        assert (capacity > 0) : "Capacity has to be larger than 0";
+
+        this.moduleCount = moduleCount;
+        this.recordSize = recordSize(moduleCount);
+        this.capacity = capacity;
+
+        long size = HEADER_SIZE + (long) recordSize * capacity;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Recording of " + size + " bytes is too large");
+        }
+
+        file = new RandomAccessFile(path, "rw");
+        try {
+            file.setLength(0);
+            file.setLength(size);
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+
+        // Touch every page so the control thread does not take the page faults
+        for (int position = 0; position < size; position += PAGE_SIZE) {
+            buffer.put(position, (byte) 0);
+        }
+
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(MODULE_COUNT_OFFSET, moduleCount);
+        buffer.putInt(RECORD_SIZE_OFFSET, recordSize);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putLong(WRITE_COUNT_OFFSET, 0L);
+    }
+
+    static int recordSize(int moduleCount) {
+        return CYCLE_SIZE + MODULE_SIZE * moduleCount;
+    }
+
+    /**
+     * Append a record (overwriting the oldest one if the file is full)
+     */
+    public void write(FlightRecord record) {
+        assert (record.getModuleCount() == moduleCount) : "Number of modules must match the recording";
+
+        int position = HEADER_SIZE + (int) (writeCount % capacity) * recordSize;
+
+        buffer.putLong(position, record.getTimestamp());
+        buffer.putLong(position + 8, record.getCycle());
+        buffer.putDouble(position + 16, record.getFwd());
+        buffer.putDouble(position + 24, record.getStr());
+        buffer.putDouble(position + 32, record.getRcw());
+        buffer.putDouble(position + 40, record.getGyroValue());
+        position += CYCLE_SIZE;
+
+        for (int i = 0; i < moduleCount; i++) {
+            buffer.putDouble(position, record.getDirectiveAngle(i));
+            buffer.putDouble(position + 8, record.getDirectiveSpeed(i));
+            buffer.putInt(position + 16, record.getEncPosition(i));
+            buffer.putInt(position + 20, record.getFlags(i));
+            buffer.putDouble(position + 24, record.getTargetSpeed(i));
+            buffer.putDouble(position + 32, record.getTargetAngle(i));
+            position += MODULE_SIZE;
+        }
+
+        // The count is written last: a record only counts once it is complete
+        writeCount++;
+        buffer.putLong(WRITE_COUNT_OFFSET, writeCount);
+    }
+
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of records written since the file was created (including the overwritten ones)
+     */
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * Force the records to the disk. This blocks: do not call from the control thread.
+     */
+    public void flush() {
+        buffer.force();
+    }
+
+    /**
+     * Flush and close the file. The recorder cannot be used afterwards.
+     */
+    public void close() throws IOException {
+        flush();
+        file.close();
+    }
+}
@@ -0,0 +1,169 @@
+package org.usfirst.frc4048.swerve.replay;
+
+import org.usfirst.frc4048.swerve.recorder.FlightRecord;
+
+/**
+ * Compares the replayed wheel commands with the recorded ones, one cycle at a time, keeping only aggregates:
+ * the first divergence (beyond the tolerance) and the maximum and RMS error of the speed and the angle.
+ */
+public class ReplayComparator {
+
+    private final double tolerance;
+
+    private long cycles;
+    private long divergences;
+
+    private long firstDivergenceCycle = -1;
+    private int firstDivergenceModule;
+    private String firstDivergenceField;
+    private double firstDivergenceExpected;
+    private double firstDivergenceActual;
+
+    private double maxSpeedError;
+    private double maxAngleError;
+    private double sumSquaredSpeedError;
+    private double sumSquaredAngleError;
+    private long moduleSamples;
+
+    /**
+     * @param tolerance the largest speed or angle difference that is not a divergence (0 for an exact match)
+     */
+    public ReplayComparator(double tolerance) {
+        assert (tolerance >= 0) : "Tolerance cannot be negative";
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Compare one replayed cycle
+     * @param record the recorded cycle
+     * @param enclosures the enclosures after replaying the cycle
+     * @return false if the cycle diverged
+     */
+    public boolean compare(FlightRecord record, ReplayEnclosure[] enclosures) {
+        assert (record.getModuleCount() == enclosures.length) : "Number of enclosures and recorded modules must match";
+
+        cycles++;
+        boolean match = true;
+
+        for (int i = 0; i < enclosures.length; i++) {
+            double speedError = Math.abs(enclosures[i].getTargetSpeed() - record.getTargetSpeed(i));
+            double angleError = Math.abs(enclosures[i].getTargetAngle() - record.getTargetAngle(i));
+
+            maxSpeedError = Math.max(maxSpeedError, speedError);
+            maxAngleError = Math.max(maxAngleError, angleError);
+            sumSquaredSpeedError += speedError * speedError;
+            sumSquaredAngleError += angleError * angleError;
+            moduleSamples++;
+
+            if (!(speedError <= tolerance)) {
+                match = divergence(record, i, "speed", record.getTargetSpeed(i), enclosures[i].getTargetSpeed());
+            } else if (!(angleError <= tolerance)) {
+                match = divergence(record, i, "angle", record.getTargetAngle(i), enclosures[i].getTargetAngle());
+            } else if (enclosures[i].isReversed() != record.isReversed(i)) {
+                match = divergence(record, i, "reversed", record.isReversed(i) ? 1 : 0,
+                        enclosures[i].isReversed() ? 1 : 0);
+            }
+        }
+
+        if (!match) {
+            divergences++;
+        }
+        return match;
+    }
+
+    private boolean divergence(FlightRecord record, int module, String field, double expected, double actual) {
+        if (firstDivergenceCycle < 0) {
+            firstDivergenceCycle = record.getCycle();
+            firstDivergenceModule = module;
+            firstDivergenceField = field;
+            firstDivergenceExpected = expected;
+            firstDivergenceActual = actual;
+        }
+        return false;
+    }
+
+    public long getCycles() {
+        return cycles;
+    }
+
+    /**
+     * @return the number of cycles in which at least one module diverged
+     */
+    public long getDivergences() {
+        return divergences;
+    }
+
+    public boolean hasDiverged() {
+        return firstDivergenceCycle >= 0;
+    }
+
+    /**
+     * @return the recorded cycle number of the first divergence, -1 if there was none
+     */
+    public long getFirstDivergenceCycle() {
+        return firstDivergenceCycle;
+    }
+
+    public int getFirstDivergenceModule() {
+        return firstDivergenceModule;
+    }
+
+    /**
+     * @return the value that diverged first: "speed", "angle" or "reversed"
+     */
+    public String getFirstDivergenceField() {
+        return firstDivergenceField;
+    }
+
+    public double getFirstDivergenceExpected() {
+        return firstDivergenceExpected;
+    }
+
+    public double getFirstDivergenceActual() {
+        return firstDivergenceActual;
+    }
+
+    public double getMaxSpeedError() {
+        return maxSpeedError;
+    }
+
+    public double getMaxAngleError() {
+        return maxAngleError;
+    }
+
+    public double getRmsSpeedError() {
+        return moduleSamples > 0 ? Math.sqrt(sumSquaredSpeedError / moduleSamples) : 0.0;
+    }
+
+    public double getRmsAngleError() {
+        return moduleSamples > 0 ? Math.sqrt(sumSquaredAngleError / moduleSamples) : 0.0;
+    }
+
+    public void reset() {
+        cycles = 0;
+        divergences = 0;
+        firstDivergenceCycle = -1;
+        firstDivergenceField = null;
+        maxSpeedError = 0;
+        maxAngleError = 0;
+        sumSquaredSpeedError = 0;
+        sumSquaredAngleError = 0;
+        moduleSamples = 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append(cycles).append(" cycles, ").append(divergences).append(" diverged");
+        if (hasDiverged()) {
+            result.append(", first at cycle ").append(firstDivergenceCycle)
+                    .append(" module ").append(firstDivergenceModule + 1)
+                    .append(' ').append(firstDivergenceField)
+                    .append(" expected ").append(firstDivergenceExpected)
+                    .append(" got ").append(firstDivergenceActual);
+        }
+        result.append(", speed error max ").append(maxSpeedError).append(" rms ").append(getRmsSpeedError())
+                .append(", angle error max ").append(maxAngleError).append(" rms ").append(getRmsAngleError());
+        return result.toString();
+    }
+}
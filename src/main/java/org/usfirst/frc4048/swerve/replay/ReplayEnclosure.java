@@ -0,0 +1,78 @@
+package org.usfirst.frc4048.swerve.replay;
+
+import org.usfirst.frc4048.swerve.drive.BaseEnclosure;
+
+/**
+ * An enclosure without hardware for replaying recordings: serves the recorded steer encoder position (see feed) and
+ * captures the speed and angle the enclosure logic sends.
+ */
+public class ReplayEnclosure extends BaseEnclosure {
+
+    private int encPosition;
+    private double speed;
+    private double angle;
+    private long speedWrites;
+    private long angleWrites;
+
+    public ReplayEnclosure(String name, double gearRatio) {
+        super(name, gearRatio);
+    }
+
+    /**
+     * Set the encoder position the next cycle reads
+     */
+    public void feed(int encPosition) {
+        this.encPosition = encPosition;
+    }
+
+    @Override
+    protected int getEncPosition() {
+        return encPosition;
+    }
+
+    @Override
+    protected void setEncPosition(int encPosition) {
+        this.encPosition = encPosition;
+        invalidateSnapshot();
+    }
+
+    @Override
+    protected void setSpeed(double speed) {
+        this.speed = speed;
+        speedWrites++;
+    }
+
+    @Override
+    protected void setAngle(double angle) {
+        this.angle = angle;
+        angleWrites++;
+    }
+
+    @Override
+    public void stop() {
+        speed = 0;
+        invalidateSetpoints();
+    }
+
+    /**
+     * @return the last speed sent
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * @return the last angle sent
+     */
+    public double getAngle() {
+        return angle;
+    }
+
+    public long getSpeedWrites() {
+        return speedWrites;
+    }
+
+    public long getAngleWrites() {
+        return angleWrites;
+    }
+}
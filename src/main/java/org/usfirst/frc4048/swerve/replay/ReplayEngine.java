@@ -0,0 +1,92 @@
+package org.usfirst.frc4048.swerve.replay;
+
+import org.usfirst.frc4048.swerve.drive.SwerveDrive;
+import org.usfirst.frc4048.swerve.drive.VirtualClock;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+import org.usfirst.frc4048.swerve.recorder.FlightRecord;
+import org.usfirst.frc4048.swerve.recorder.FlightRecordReader;
+
+/**
+ * Feeds recorded drive sessions back through SwerveDrive, SwerveMath and BaseEnclosure, as fast as possible, and
+ * compares the resulting wheel commands with the recorded ones (see ReplayComparator).
+ * Every cycle sets the virtual clock to the recorded time, feeds the recorded encoder positions to the
+ * ReplayEnclosures and moves the drive with the recorded inputs. The replay is deterministic and does not allocate.
+ *
+ * The recording does not include the robot configuration: the engine has to be built with the same geometry and gear
+ * ratio, and the drive set to the same centric mode (see getSwerveDrive), as the recorded robot.
+ */
+public class ReplayEngine {
+
+    private final ReplayEnclosure[] enclosures;
+    private final VirtualClock clock = new VirtualClock();
+    private final SwerveDrive swerveDrive;
+
+    /**
+     * Constructor
+     * @param kinematics the kinematics of the recorded robot
+     * @param gearRatio the steer gear ratio of the recorded robot
+     */
+    public ReplayEngine(SwerveKinematics kinematics, double gearRatio) {
+        enclosures = new ReplayEnclosure[kinematics.getModuleCount()];
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i] = new ReplayEnclosure("replay " + (i + 1), gearRatio);
+        }
+
+        swerveDrive = new SwerveDrive(enclosures, kinematics);
+        swerveDrive.setClock(clock);
+    }
+
+    /**
+     * @return the drive being replayed (e.g. to set the centric mode)
+     */
+    public SwerveDrive getSwerveDrive() {
+        return swerveDrive;
+    }
+
+    public ReplayEnclosure getEnclosure(int module) {
+        return enclosures[module];
+    }
+
+    public VirtualClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Replay one recorded cycle
+     */
+    public void replay(FlightRecord record) {
+        assert (record.getModuleCount() == enclosures.length) : "Number of enclosures and recorded modules must match";
+
+        clock.set(record.getTimestamp());
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i].feed(record.getEncPosition(i));
+        }
+        // The recorded heading is already extrapolated; a missing one (stale gyro) was driven robot-centric
+        swerveDrive.move(record.getFwd(), record.getStr(), record.getRcw(), record.getGyroValue(), 0.0, 0.0);
+    }
+
+    /**
+     * Replay one recorded cycle and compare the result
+     * @return false if the cycle diverged
+     */
+    public boolean replay(FlightRecord record, ReplayComparator comparator) {
+        replay(record);
+        return comparator.compare(record, enclosures);
+    }
+
+    /**
+     * Replay all the (remaining) records of a recording
+     * @param reader the recording
+     * @param comparator receives the comparison of every cycle
+     * @return the number of replayed cycles
+     */
+    public long run(FlightRecordReader reader, ReplayComparator comparator) {
+        FlightRecord record = reader.newRecord();
+        long count = 0;
+        while (reader.next(record)) {
+            replay(record, comparator);
+            count++;
+        }
+        return count;
+    }
+}
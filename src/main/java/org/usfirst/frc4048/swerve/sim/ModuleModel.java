@@ -0,0 +1,66 @@
+package org.usfirst.frc4048.swerve.sim;
+
+/**
+ * The physical parameters of a simulated swerve module (see SimulatedEnclosure). Both motors are modelled as first
+ * order systems: the drive speed and the steer angle approach their setpoints exponentially, with the given time
+ * constants. The setpoints reach the motors after a fixed number of physics steps (the control latency).
+ */
+public class ModuleModel {
+
+    private final double gearRatio;
+    private final double maxSpeed;
+    private final double driveTimeConstant;
+    private final double steerTimeConstant;
+    private final int latencySteps;
+    private final int encoderResolution;
+
+    /**
+     * Constructor
+     * @param gearRatio the number of steer encoder ticks in a turn of the wheel
+     * @param maxSpeed the wheel speed at full power (speed 1.0), in distance units per second
+     * @param driveTimeConstant the time constant of the drive motor, in seconds (0 for an immediate response)
+     * @param steerTimeConstant the time constant of the steer motor, in seconds (0 for an immediate response)
+     * @param latencySteps the number of physics steps (sub-steps of the control cycle) before a setpoint reaches
+     *                     the motor
+     * @param encoderResolution the steer encoder resolution, in ticks (1 for every tick)
+     */
+    public ModuleModel(double gearRatio, double maxSpeed, double driveTimeConstant, double steerTimeConstant,
+                       int latencySteps, int encoderResolution) {
+        assert (gearRatio > 0) : "Gear ratio has to be larger than 0";
+        assert (maxSpeed > 0) : "Max speed has to be larger than 0";
+        assert (driveTimeConstant >= 0 && steerTimeConstant >= 0) : "Time constants cannot be negative";
+        assert (latencySteps >= 0) : "Latency cannot be negative";
+        assert (encoderResolution > 0) : "Encoder resolution has to be larger than 0";
+
+        this.gearRatio = gearRatio;
+        this.maxSpeed = maxSpeed;
+        this.driveTimeConstant = driveTimeConstant;
+        this.steerTimeConstant = steerTimeConstant;
+        this.latencySteps = latencySteps;
+        this.encoderResolution = encoderResolution;
+    }
+
+    public double getGearRatio() {
+        return gearRatio;
+    }
+
+    public double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    public double getDriveTimeConstant() {
+        return driveTimeConstant;
+    }
+
+    public double getSteerTimeConstant() {
+        return steerTimeConstant;
+    }
+
+    public int getLatencySteps() {
+        return latencySteps;
+    }
+
+    public int getEncoderResolution() {
+        return encoderResolution;
+    }
+}
@@ -0,0 +1,97 @@
+package org.usfirst.frc4048.swerve.sim;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Steps many independent simulated robots in parallel on a fork-join pool. The robots are split into ranges once,
+ * at construction, and the same task tree is reused (reinitialized) for every call, so stepping does not allocate.
+ * Every robot is only ever stepped by one thread at a time, so the results do not depend on the number of threads.
+ */
+public class ParallelSimulator {
+
+    private final SimulatedRobot[] robots;
+    private final ForkJoinPool pool;
+    private final StepTask root;
+
+    // The number of steps of the current call (published to the workers by the pool)
+    private int steps;
+
+    /**
+     * Constructor, using the common pool
+     * @param robots the robots to simulate
+     */
+    public ParallelSimulator(SimulatedRobot[] robots) {
+        this(robots, ForkJoinPool.commonPool(), 16);
+    }
+
+    /**
+     * Constructor
+     * @param robots the robots to simulate
+     * @param pool the pool to run on
+     * @param robotsPerTask the number of robots stepped by a single task
+     */
+    public ParallelSimulator(SimulatedRobot[] robots, ForkJoinPool pool, int robotsPerTask) {
+        assert (robots.length > 0) : "At least one robot is required";
+        assert (robotsPerTask > 0) : "Robots per task has to be larger than 0";
+
+        this.robots = robots.clone();
+        this.pool = pool;
+        this.root = build(0, robots.length, robotsPerTask);
+    }
+
+    private StepTask build(int from, int to, int robotsPerTask) {
+        if (to - from <= robotsPerTask) {
+            return new StepTask(from, to, null, null);
+        }
+        int middle = (from + to) >>> 1;
+        return new StepTask(from, to, build(from, middle, robotsPerTask), build(middle, to, robotsPerTask));
+    }
+
+    /**
+     * Run a number of control cycles on every robot, in parallel
+     */
+    public void step(int steps) {
+        this.steps = steps;
+        root.reinitialize();
+        pool.invoke(root);
+    }
+
+    public SimulatedRobot getRobot(int index) {
+        return robots[index];
+    }
+
+    public int getRobotCount() {
+        return robots.length;
+    }
+
+    private class StepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final StepTask left;
+        private final StepTask right;
+
+        StepTask(int from, int to, StepTask left, StepTask right) {
+            this.from = from;
+            this.to = to;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        protected void compute() {
+            if (left == null) {
+                for (int i = from; i < to; i++) {
+                    robots[i].step(steps);
+                }
+                return;
+            }
+
+            left.reinitialize();
+            right.reinitialize();
+            invokeAll(left, right);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package org.usfirst.frc4048.swerve.sim;
+
+import org.usfirst.frc4048.swerve.drive.NanoClock;
+import org.usfirst.frc4048.swerve.drive.VirtualClock;
+
+import java.util.Arrays;
+
+/**
+ * A simulated CAN bus: accounts for the transmit time of every frame at the bus bit rate (1 Mbit/s by default),
+ * the queueing of frames behind each other, and the response latency of the devices.
+ *
+ * Frames are transmitted one at a time in the order they become ready (the arbitration by frame id is not modelled).
+ * The periodic frames of the devices (see addPeriodicFrame) are generated as time passes and compete with the
+ * frames sent on demand. A request (e.g. a configuration call) waits until the response frame is received: on a
+ * VirtualClock the clock is advanced, on any other clock the caller spins until the time has passed.
+ *
+ * The bus keeps the utilization, the queueing delays and the frame count of every device since the last
+ * resetStatistics. Sending frames does not allocate. The bus is not thread safe.
+ */
+public class SimulatedCanBus {
+
+    public static final long DEFAULT_BIT_RATE = 1000000L;
+    public static final long DEFAULT_DEVICE_LATENCY_NANOS = 500000L;
+
+    // CAN device ids are 0 - 62
+    public static final int MAX_DEVICES = 63;
+
+    private final NanoClock clock;
+    private final long bitRate;
+    private long deviceLatencyNanos = DEFAULT_DEVICE_LATENCY_NANOS;
+
+    // The time the frame being transmitted (or the last queued one) is done
+    private long busyUntil;
+
+    // The periodic frames
+    private int periodicCount;
+    private int[] periodicDevices = new int[0];
+    private int[] periodicBytes = new int[0];
+    private long[] periods = new long[0];
+    private long[] nextTimes = new long[0];
+
+    // Statistics
+    private long statisticsStart;
+    private long busyNanos;
+    private long frameCount;
+    private long totalQueueDelayNanos;
+    private long maxQueueDelayNanos;
+    private final long[] deviceFrames = new long[MAX_DEVICES];
+
+    public SimulatedCanBus(NanoClock clock) {
+        this(clock, DEFAULT_BIT_RATE);
+    }
+
+    /**
+     * Constructor
+     * @param clock the clock of the simulation
+     * @param bitRate the bus bit rate, in bits per second
+     */
+    public SimulatedCanBus(NanoClock clock, long bitRate) {
+        assert (bitRate > 0) : "Bit rate has to be larger than 0";
+
+        this.clock = clock;
+        this.bitRate = bitRate;
+        this.busyUntil = clock.nanoTime();
+        this.statisticsStart = busyUntil;
+    }
+
+    public long getBitRate() {
+        return bitRate;
+    }
+
+    /**
+     * Set the time a device takes to respond to a request, in nanoseconds
+     */
+    public void setDeviceLatency(long deviceLatencyNanos) {
+        assert (deviceLatencyNanos >= 0) : "Latency cannot be negative";
+        this.deviceLatencyNanos = deviceLatencyNanos;
+    }
+
+    /**
+     * @return the transmit time of a frame, in nanoseconds: an extended (29 bit id) data frame with the worst case
+     * bit stuffing
+     * @param dataBytes the number of data bytes (0 - 8)
+     */
+    public long getFrameNanos(int dataBytes) {
+        assert (dataBytes >= 0 && dataBytes <= 8) : "A CAN frame has 0 - 8 data bytes";
+
+        long bits = 67 + 8 * dataBytes + (54 + 8 * dataBytes - 1) / 4;
+        return bits * 1000000000L / bitRate;
+    }
+
+    /**
+     * Add a frame the device sends by itself at a fixed period (e.g. a status frame)
+     * @param phaseNanos the time from now to the first frame (devices are not in phase with each other)
+     * @return the handle of the frame (see setPeriod)
+     */
+    public int addPeriodicFrame(int deviceId, long periodNanos, long phaseNanos, int dataBytes) {
+        assert (deviceId >= 0 && deviceId < MAX_DEVICES) : "Device id has to be 0 - 62";
+        assert (periodNanos > 0) : "Period has to be larger than 0";
+        assert (phaseNanos >= 0) : "Phase cannot be negative";
+
+        catchUp(clock.nanoTime());
+        if (periodicCount == periods.length) {
+            int capacity = Math.max(4, 2 * periodicCount);
+            periodicDevices = Arrays.copyOf(periodicDevices, capacity);
+            periodicBytes = Arrays.copyOf(periodicBytes, capacity);
+            periods = Arrays.copyOf(periods, capacity);
+            nextTimes = Arrays.copyOf(nextTimes, capacity);
+        }
+        periodicDevices[periodicCount] = deviceId;
+        periodicBytes[periodicCount] = dataBytes;
+        periods[periodicCount] = periodNanos;
+        nextTimes[periodicCount] = clock.nanoTime() + phaseNanos;
+        return periodicCount++;
+    }
+
+    /**
+     * Change the period of a periodic frame. The next frame is sent at most one new period from now.
+     * @param handle the handle returned by addPeriodicFrame
+     */
+    public void setPeriod(int handle, long periodNanos) {
+        assert (handle >= 0 && handle < periodicCount) : "Unknown periodic frame";
+        assert (periodNanos > 0) : "Period has to be larger than 0";
+
+        long now = clock.nanoTime();
+        catchUp(now);
+        periods[handle] = periodNanos;
+        if (nextTimes[handle] - (now + periodNanos) > 0) {
+            nextTimes[handle] = now + periodNanos;
+        }
+    }
+
+    /**
+     * @return the period of a periodic frame, in nanoseconds
+     */
+    public long getPeriod(int handle) {
+        return periods[handle];
+    }
+
+    /**
+     * Queue a frame without waiting for it
+     * @return the time the frame is received, in nanoseconds
+     */
+    public long send(int deviceId, int dataBytes) {
+        long now = clock.nanoTime();
+        catchUp(now);
+        return transmit(deviceId, dataBytes, now);
+    }
+
+    /**
+     * Send a request frame to a device and wait for its response frame (or the timeout)
+     * @param timeoutNanos how long to wait for the response
+     * @return true if the response was received in time
+     */
+    public boolean request(int deviceId, int requestBytes, int responseBytes, long timeoutNanos) {
+        long now = clock.nanoTime();
+        catchUp(now);
+        long received = transmit(deviceId, requestBytes, now);
+
+        long responseReady = received + deviceLatencyNanos;
+        catchUp(responseReady);
+        long responded = transmit(deviceId, responseBytes, responseReady);
+
+        boolean inTime = responded - now <= timeoutNanos;
+        waitUntil(inTime ? responded : now + timeoutNanos);
+        return inTime;
+    }
+
+    /**
+     * @return the time the bus is done with all the frames queued so far
+     */
+    public long getBusyUntil() {
+        return busyUntil;
+    }
+
+    /**
+     * @return the fraction of the time since the statistics were reset that the bus was transmitting
+     */
+    public double getUtilization() {
+        long elapsed = update();
+        return elapsed > 0 ? (double) busyNanos / elapsed : 0.0;
+    }
+
+    /**
+     * @return the frames per second of a device since the statistics were reset
+     */
+    public double getFramesPerSecond(int deviceId) {
+        long elapsed = update();
+        return elapsed > 0 ? deviceFrames[deviceId] * 1e9 / elapsed : 0.0;
+    }
+
+    /**
+     * @return the frames per second of all the devices since the statistics were reset
+     */
+    public double getTotalFramesPerSecond() {
+        long elapsed = update();
+        return elapsed > 0 ? frameCount * 1e9 / elapsed : 0.0;
+    }
+
+    /**
+     * @return the number of frames of a device since the statistics were reset
+     */
+    public long getFrameCount(int deviceId) {
+        update();
+        return deviceFrames[deviceId];
+    }
+
+    /**
+     * @return the average time frames waited for the bus, in nanoseconds
+     */
+    public double getMeanQueueDelayNanos() {
+        update();
+        return frameCount > 0 ? (double) totalQueueDelayNanos / frameCount : 0.0;
+    }
+
+    /**
+     * @return the longest time a frame waited for the bus, in nanoseconds
+     */
+    public long getMaxQueueDelayNanos() {
+        update();
+        return maxQueueDelayNanos;
+    }
+
+    public void resetStatistics() {
+        update();
+        statisticsStart = clock.nanoTime();
+        busyNanos = 0;
+        frameCount = 0;
+        totalQueueDelayNanos = 0;
+        maxQueueDelayNanos = 0;
+        for (int i = 0; i < deviceFrames.length; i++) {
+            deviceFrames[i] = 0;
+        }
+    }
+
+    // Transmit the periodic frames up to now. Returns the time since the statistics were reset
+    private long update() {
+        long now = clock.nanoTime();
+        catchUp(now);
+        return now - statisticsStart;
+    }
+
+    // Transmit the periodic frames that are ready by the given time, in the order they become ready
+    private void catchUp(long time) {
+        while (true) {
+            int next = -1;
+            for (int i = 0; i < periodicCount; i++) {
+                if (nextTimes[i] <= time && (next < 0 || nextTimes[i] < nextTimes[next])) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                return;
+            }
+
+            transmit(periodicDevices[next], periodicBytes[next], nextTimes[next]);
+            nextTimes[next] += periods[next];
+        }
+    }
+
+    private long transmit(int deviceId, int dataBytes, long ready) {
+        long start = Math.max(ready, busyUntil);
+        long frameNanos = getFrameNanos(dataBytes);
+        busyUntil = start + frameNanos;
+
+        long queueDelay = start - ready;
+        totalQueueDelayNanos += queueDelay;
+        if (queueDelay > maxQueueDelayNanos) {
+            maxQueueDelayNanos = queueDelay;
+        }
+        busyNanos += frameNanos;
+        frameCount++;
+        deviceFrames[deviceId]++;
+        return busyUntil;
+    }
+
+    private void waitUntil(long time) {
+        if (clock instanceof VirtualClock) {
+            VirtualClock virtualClock = (VirtualClock) clock;
+            if (time > virtualClock.nanoTime()) {
+                virtualClock.set(time);
+            }
+            return;
+        }
+
+        while (clock.nanoTime() < time) {
+            // Spin: the waits are far shorter than the scheduler resolution
+        }
+    }
+}
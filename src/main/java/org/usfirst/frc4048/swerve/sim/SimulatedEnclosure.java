@@ -0,0 +1,150 @@
+package org.usfirst.frc4048.swerve.sim;
+
+import org.usfirst.frc4048.swerve.drive.BaseEnclosure;
+
+import java.util.Arrays;
+
+/**
+ * A simulated enclosure: the speed and angle setpoints drive a first order model of the drive and steer motors
+ * (see ModuleModel), advanced by a fixed time step on every call to step(). The steer encoder and the drive distance
+ * follow the simulated wheel, so SwerveDrive and the odometry see realistic dynamics.
+ * Stepping does not allocate.
+ */
+public class SimulatedEnclosure extends BaseEnclosure {
+
+    private final ModuleModel model;
+    private final double dt;
+
+    // Fraction of the remaining error covered in one step
+    private final double driveAlpha;
+    private final double steerAlpha;
+
+    // Setpoints on their way to the motors (ring of latencySteps entries)
+    private final double[] speedDelay;
+    private final double[] angleDelay;
+    private int delayIndex;
+
+    // The latest setpoints sent by the enclosure logic
+    private double speedSetpoint;
+    private double angleSetpoint;
+
+    // The state of the wheel: speed in distance units per second, continuous steer angle in turns
+    private double wheelSpeed;
+    private double steerAngle;
+    private double driveDistance;
+
+    /**
+     * Constructor
+     * @param name the enclosure name
+     * @param model the physical parameters
+     * @param dt the simulation time step, in seconds
+     */
+    public SimulatedEnclosure(String name, ModuleModel model, double dt) {
+        super(name, model.getGearRatio());
+        assert (dt > 0) : "Time step has to be larger than 0";
+
+        this.model = model;
+        this.dt = dt;
+        this.driveAlpha = alpha(model.getDriveTimeConstant(), dt);
+        this.steerAlpha = alpha(model.getSteerTimeConstant(), dt);
+        this.speedDelay = new double[model.getLatencySteps()];
+        this.angleDelay = new double[model.getLatencySteps()];
+    }
+
+    private static double alpha(double timeConstant, double dt) {
+        return timeConstant > 0 ? 1 - Math.exp(-dt / timeConstant) : 1.0;
+    }
+
+    /**
+     * Advance the motors by one time step
+     */
+    public void step() {
+        double speed = speedSetpoint;
+        double angle = angleSetpoint;
+
+        if (speedDelay.length > 0) {
+            double delayedSpeed = speedDelay[delayIndex];
+            double delayedAngle = angleDelay[delayIndex];
+            speedDelay[delayIndex] = speed;
+            angleDelay[delayIndex] = angle;
+            delayIndex = (delayIndex + 1) % speedDelay.length;
+            speed = delayedSpeed;
+            angle = delayedAngle;
+        }
+
+        double previousSpeed = wheelSpeed;
+        wheelSpeed += (speed * model.getMaxSpeed() - wheelSpeed) * driveAlpha;
+        steerAngle += (angle - steerAngle) * steerAlpha;
+        driveDistance += (previousSpeed + wheelSpeed) / 2 * dt;
+    }
+
+    /**
+     * Put the wheel in the given state (e.g. to start a simulation with the wheels turned)
+     * @param steerAngle the continuous steer angle, in turns
+     */
+    public void reset(double steerAngle) {
+        this.steerAngle = steerAngle;
+        this.angleSetpoint = steerAngle;
+        this.speedSetpoint = 0.0;
+        this.wheelSpeed = 0.0;
+        Arrays.fill(speedDelay, 0.0);
+        Arrays.fill(angleDelay, steerAngle);
+        invalidateSetpoints();
+    }
+
+    /**
+     * @return the wheel speed, in distance units per second (negative when driving backwards)
+     */
+    public double getWheelSpeed() {
+        return wheelSpeed;
+    }
+
+    /**
+     * @return the continuous steer angle of the wheel, in turns
+     */
+    public double getSteerAngle() {
+        return steerAngle;
+    }
+
+    public ModuleModel getModel() {
+        return model;
+    }
+
+    @Override
+    protected int getEncPosition() {
+        int resolution = model.getEncoderResolution();
+        return (int) Math.floor(steerAngle * model.getGearRatio() / resolution) * resolution;
+    }
+
+    @Override
+    protected void setEncPosition(int encPosition) {
+        steerAngle = encPosition / model.getGearRatio();
+        invalidateSnapshot();
+    }
+
+    @Override
+    public boolean hasDriveEncoder() {
+        return true;
+    }
+
+    @Override
+    protected double getDriveDistance() {
+        return driveDistance;
+    }
+
+    @Override
+    protected void setSpeed(double speed) {
+        speedSetpoint = speed;
+    }
+
+    @Override
+    protected void setAngle(double angle) {
+        angleSetpoint = angle;
+    }
+
+    @Override
+    public void stop() {
+        speedSetpoint = 0.0;
+        invalidateSetpoints();
+    }
+}
@@ -0,0 +1,175 @@
+package org.usfirst.frc4048.swerve.sim;
+
+import org.usfirst.frc4048.swerve.drive.SwerveDrive;
+import org.usfirst.frc4048.swerve.drive.VirtualClock;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+
+/**
+ * A simulated swerve robot: a SwerveDrive over SimulatedEnclosures, and a chassis integrator that moves the robot on
+ * the field from the simulated wheel movement (through the forward kinematics, without wheel slip).
+ * Every step() runs one control cycle (SwerveDrive.move with the current command) followed by a number of physics
+ * sub-steps. The drive runs on a virtual clock and the simulated heading is used as the gyro value, so the robot
+ * can drive field centric. Stepping is deterministic and does not allocate.
+ *
+ * The pose uses the field coordinates of SwerveOdometry: x is to the right, y is down the field and the heading is
+ * in degrees, clockwise.
+ */
+public class SimulatedRobot {
+
+    private final SimulatedEnclosure[] enclosures;
+    private final SwerveKinematics kinematics;
+    private final SwerveDrive swerveDrive;
+    private final VirtualClock clock = new VirtualClock();
+
+    private final int substeps;
+    private final double dt;
+    private final long controlPeriodNanos;
+
+    // Per-module buffers for the chassis integration
+    private final double[] angles;
+    private final double[] distances;
+    private final double[] motion = new double[3];
+
+    // The command for the next control cycles
+    private double fwd;
+    private double str;
+    private double rcw;
+
+    private double x;
+    private double y;
+    private double heading;
+    private long steps;
+
+    /**
+     * Constructor
+     * @param kinematics the module layout (the positions are in the distance units of the model)
+     * @param model the physical parameters of the modules
+     * @param controlPeriod the time between control cycles, in seconds
+     * @param substeps the number of physics steps per control cycle
+     */
+    public SimulatedRobot(SwerveKinematics kinematics, ModuleModel model, double controlPeriod, int substeps) {
+        assert (controlPeriod > 0) : "Control period has to be larger than 0";
+        assert (substeps > 0) : "Substeps has to be larger than 0";
+
+        this.kinematics = kinematics;
+        this.substeps = substeps;
+        this.dt = controlPeriod / substeps;
+        this.controlPeriodNanos = Math.round(controlPeriod * 1e9);
+
+        int moduleCount = kinematics.getModuleCount();
+        enclosures = new SimulatedEnclosure[moduleCount];
+        for (int i = 0; i < moduleCount; i++) {
+            enclosures[i] = new SimulatedEnclosure("sim " + (i + 1), model, dt);
+        }
+        angles = new double[moduleCount];
+        distances = new double[moduleCount];
+
+        swerveDrive = new SwerveDrive(enclosures, kinematics);
+        swerveDrive.setClock(clock);
+    }
+
+    /**
+     * Set the command for the next control cycles (the same inputs as SwerveDrive.move)
+     */
+    public void setCommand(double fwd, double str, double rcw) {
+        this.fwd = fwd;
+        this.str = str;
+        this.rcw = rcw;
+    }
+
+    /**
+     * Run one control cycle and its physics sub-steps
+     */
+    public void step() {
+        swerveDrive.move(fwd, str, rcw, heading);
+
+        for (int s = 0; s < substeps; s++) {
+            for (int i = 0; i < enclosures.length; i++) {
+                SimulatedEnclosure enclosure = enclosures[i];
+                double steerAngle = enclosure.getSteerAngle();
+                double wheelSpeed = enclosure.getWheelSpeed();
+                enclosure.step();
+
+                // Average over the step
+                angles[i] = (steerAngle + enclosure.getSteerAngle()) / 2;
+                distances[i] = (wheelSpeed + enclosure.getWheelSpeed()) / 2 * dt;
+            }
+            integrate();
+        }
+
+        clock.advance(controlPeriodNanos);
+        steps++;
+    }
+
+    /**
+     * Run a number of control cycles
+     */
+    public void step(int count) {
+        for (int i = 0; i < count; i++) {
+            step();
+        }
+    }
+
+    private void integrate() {
+        kinematics.toChassisMotion(angles, distances, motion);
+
+        double newHeading = heading + Math.toDegrees(motion[2]);
+        double midHeading = Math.toRadians((heading + newHeading) / 2);
+        double sin = Math.sin(midHeading);
+        double cos = Math.cos(midHeading);
+
+        x += motion[0] * sin + motion[1] * cos;
+        y += motion[0] * cos - motion[1] * sin;
+        heading = newHeading;
+    }
+
+    /**
+     * Place the robot on the field (the wheels keep their state)
+     */
+    public void reset(double x, double y, double heading) {
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * @return the heading, in degrees clockwise (continuous, not wrapped)
+     */
+    public double getHeading() {
+        return heading;
+    }
+
+    /**
+     * @return the number of control cycles run
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    public SwerveDrive getSwerveDrive() {
+        return swerveDrive;
+    }
+
+    public SimulatedEnclosure getEnclosure(int module) {
+        return enclosures[module];
+    }
+
+    public int getModuleCount() {
+        return enclosures.length;
+    }
+
+    /**
+     * @return the simulation clock (also used by the drive)
+     */
+    public VirtualClock getClock() {
+        return clock;
+    }
+}
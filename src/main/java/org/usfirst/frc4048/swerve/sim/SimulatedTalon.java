@@ -0,0 +1,150 @@
+package org.usfirst.frc4048.swerve.sim;
+
+import org.usfirst.frc4048.swerve.drive.TalonController;
+import org.usfirst.frc4048.swerve.drive.TalonStatusFrame;
+
+/**
+ * A Talon motor controller on a SimulatedCanBus. Like the real controller it sends its control frame and status
+ * frames periodically (at the TalonStatusFrame default periods until they are configured), and every new setpoint is
+ * also sent right away. Reading the sensor uses the value of the last
+ * status frame (no bus traffic), and setting the sensor position is a request that waits for the device's response.
+ *
+ * The controller only accounts for the bus traffic: the sensor position is set by the simulation (see
+ * setSensorPosition), e.g. from a ModuleModel.
+ */
+public class SimulatedTalon implements TalonController {
+
+    // The default control frame period of a Talon SRX (the status frame defaults are in TalonStatusFrame)
+    public static final long CONTROL_FRAME_PERIOD_NANOS = 10000000L;
+
+    public static final int FRAME_BYTES = 8;
+
+    private final SimulatedCanBus bus;
+    private final int deviceId;
+
+    private boolean positionMode;
+    private double setpoint;
+    private int sensorPosition;
+
+    // Handles of the periodic frames on the bus
+    private final int controlFrame;
+    private final int[] statusFrames = new int[TalonStatusFrame.values().length];
+
+    // Spread of the frame phases between devices (1.237ms does not divide the periods, so they do not line up)
+    private static final long PHASE_STEP_NANOS = 1237000L;
+
+    // Offsets of the status frames from the control frame, indexed by TalonStatusFrame
+    private static final long[] STATUS_PHASE_OFFSETS_NANOS = {
+            5000000L, 3 * PHASE_STEP_NANOS, 5 * PHASE_STEP_NANOS, 7 * PHASE_STEP_NANOS,
+            9 * PHASE_STEP_NANOS, 11 * PHASE_STEP_NANOS, 13 * PHASE_STEP_NANOS};
+
+    /**
+     * Constructor. Registers the periodic frames of the controller on the bus, with phases that depend on the id.
+     * @param deviceId the CAN id of the controller (0 - 62)
+     */
+    public SimulatedTalon(SimulatedCanBus bus, int deviceId) {
+        this.bus = bus;
+        this.deviceId = deviceId;
+
+        long phase = deviceId * PHASE_STEP_NANOS;
+        controlFrame = bus.addPeriodicFrame(deviceId, CONTROL_FRAME_PERIOD_NANOS, phase % CONTROL_FRAME_PERIOD_NANOS,
+                FRAME_BYTES);
+        for (TalonStatusFrame frame : TalonStatusFrame.values()) {
+            long period = frame.getDefaultPeriodMs() * 1000000L;
+            long framePhase = phase + STATUS_PHASE_OFFSETS_NANOS[frame.ordinal()];
+            statusFrames[frame.ordinal()] = bus.addPeriodicFrame(deviceId, period, framePhase % period, FRAME_BYTES);
+        }
+    }
+
+    public int getDeviceId() {
+        return deviceId;
+    }
+
+    @Override
+    public void setPercentOutput(double output) {
+        positionMode = false;
+        setpoint = output;
+        bus.send(deviceId, FRAME_BYTES);
+    }
+
+    @Override
+    public void setPosition(double position) {
+        positionMode = true;
+        setpoint = position;
+        bus.send(deviceId, FRAME_BYTES);
+    }
+
+    @Override
+    public void stopMotor() {
+        positionMode = false;
+        setpoint = 0.0;
+        bus.send(deviceId, FRAME_BYTES);
+    }
+
+    @Override
+    public int getSelectedSensorPosition() {
+        return sensorPosition;
+    }
+
+    @Override
+    public void setSelectedSensorPosition(int position, int timeoutMs) {
+        if (bus.request(deviceId, FRAME_BYTES, FRAME_BYTES, timeoutMs * 1000000L)) {
+            sensorPosition = position;
+        }
+    }
+
+    /**
+     * Change the period of a status frame. With a timeout the configuration is a request that is only applied if
+     * the controller responds in time, without a timeout it is sent and applied right away.
+     */
+    @Override
+    public void setStatusFramePeriod(TalonStatusFrame frame, int periodMs, int timeoutMs) {
+        if (timeoutMs == 0) {
+            bus.send(deviceId, FRAME_BYTES);
+        } else if (!bus.request(deviceId, FRAME_BYTES, FRAME_BYTES, timeoutMs * 1000000L)) {
+            return;
+        }
+        bus.setPeriod(statusFrames[frame.ordinal()], periodMs * 1000000L);
+    }
+
+    @Override
+    public void setControlFramePeriod(int periodMs) {
+        // Local to the roboRIO: no bus traffic
+        bus.setPeriod(controlFrame, periodMs * 1000000L);
+    }
+
+    /**
+     * @return the current period of a status frame, in milliseconds
+     */
+    public int getStatusFramePeriod(TalonStatusFrame frame) {
+        return (int) (bus.getPeriod(statusFrames[frame.ordinal()]) / 1000000L);
+    }
+
+    /**
+     * @return the current period of the control frame, in milliseconds
+     */
+    public int getControlFramePeriod() {
+        return (int) (bus.getPeriod(controlFrame) / 1000000L);
+    }
+
+    /**
+     * @return true if the last setpoint was a position (closed loop), false for a percent output
+     */
+    public boolean isPositionMode() {
+        return positionMode;
+    }
+
+    /**
+     * @return the last setpoint: the percent output or the position
+     */
+    public double getSetpoint() {
+        return setpoint;
+    }
+
+    /**
+     * Set the sensor position the controller reports (the simulated hardware moved)
+     */
+    public void setSensorPosition(int sensorPosition) {
+        this.sensorPosition = sensorPosition;
+    }
+}
@@ -0,0 +1,76 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.mockhardware.SlowEnclosure;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Testing the latency histograms and the drive cycle profiling
+ */
+public class DriveProfilerTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    private static final double GEAR_RATIO = 1988/1.2;
+
+    @Test
+    public void testBucketsRoundTrip() throws Exception {
+        for (long value = 0; value < 100000; value += 7) {
+            long bucketValue = LatencyHistogram.bucketValue(LatencyHistogram.bucketIndex(value));
+            Assert.assertTrue(bucketValue <= value);
+            Assert.assertTrue(value - bucketValue <= value / 32);
+        }
+        Assert.assertEquals(LatencyHistogram.bucketIndex(Long.MAX_VALUE),
+                LatencyHistogram.bucketIndex(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void testPercentiles() throws Exception {
+        LatencyHistogram classUnderTest = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            classUnderTest.record(i * 1000);
+        }
+
+        Assert.assertEquals(1000, classUnderTest.getCount());
+        Assert.assertEquals(1000000, classUnderTest.getMax());
+        Assert.assertEquals(500000, classUnderTest.getValueAtPercentile(50), 500000 / 32);
+        Assert.assertEquals(990000, classUnderTest.getValueAtPercentile(99), 990000 / 32);
+        Assert.assertEquals(999000, classUnderTest.getValueAtPercentile(99.9), 999000 / 32);
+
+        classUnderTest.reset();
+        Assert.assertEquals(0, classUnderTest.getCount());
+        Assert.assertEquals(0, classUnderTest.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testDriveStages() throws Exception {
+        SlowEnclosure swerveEnclosure1 = new SlowEnclosure("Enclosure 1", GEAR_RATIO, 2);
+        SwerveDrive swerveDrive = new SwerveDrive(swerveEnclosure1, new TestEnclosure("Enclosure 2", GEAR_RATIO),
+                new TestEnclosure("Enclosure 3", GEAR_RATIO), new TestEnclosure("Enclosure 4", GEAR_RATIO), W, L);
+
+        DriveProfiler profiler = swerveDrive.enableProfiling();
+        for (int i = 0; i < 10; i++) {
+            swerveDrive.move(1.0, 0.0, 0.0, null);
+        }
+
+        List<LatencySnapshot> snapshots = profiler.snapshot();
+        Assert.assertEquals(2 + 4 * 3, snapshots.size());
+        Assert.assertEquals("cycle", snapshots.get(0).getName());
+        Assert.assertEquals(10, snapshots.get(0).getCount());
+        Assert.assertEquals("Enclosure 1/setSpeed", snapshots.get(3).getName());
+        Assert.assertTrue(snapshots.get(3).getP50() >= TimeUnit.MILLISECONDS.toNanos(2) * 31 / 32);
+        Assert.assertTrue(snapshots.get(0).getMax() >= snapshots.get(3).getMax());
+
+        profiler.reset();
+        Assert.assertEquals(0, profiler.getCycle().getCount());
+
+        swerveDrive.disableProfiling();
+        swerveDrive.move(1.0, 0.0, 0.0, null);
+        Assert.assertEquals(0, profiler.getCycle().getCount());
+    }
+}
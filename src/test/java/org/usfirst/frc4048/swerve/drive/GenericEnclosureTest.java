@@ -0,0 +1,197 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.mockhardware.SlowTalonController;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Testing the generic enclosure and the non-blocking controllers with mock controllers that take time to respond
+ */
+public class GenericEnclosureTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    private static final double GEAR_RATIO = 1988/1.2;
+
+    private static final long LATENCY = 50;
+
+    private final List<AsyncMotorController> controllers = new ArrayList<AsyncMotorController>();
+
+    @After
+    public void cleanup() throws Exception {
+        for (AsyncMotorController controller : controllers) {
+            controller.shutdown();
+        }
+    }
+
+    @Test
+    public void testSlowControllersDoNotBlockTheCycle() throws Exception {
+        SlowTalonController[] drives = new SlowTalonController[4];
+        GenericEnclosure[] enclosures = new GenericEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            drives[i] = new SlowTalonController(LATENCY);
+            enclosures[i] = new GenericEnclosure("Enclosure " + (i + 1), async("drive" + i, drives[i], 500),
+                    async("steer" + i, new SlowTalonController(LATENCY), 500), GEAR_RATIO);
+        }
+        SwerveDrive swerveDrive = new SwerveDrive(enclosures, SwerveKinematics.rectangle(W, L));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            swerveDrive.move(0.1 * (i + 1), 0.0, 0.0, 0.0);
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // One slow call per controller would have taken longer than all the cycles
+        Assert.assertTrue("10 cycles took " + elapsed + "ms", elapsed < LATENCY);
+        Assert.assertTrue(enclosures[0].getBusyCount() > 0);
+
+        // The latest command goes out once the controllers are idle
+        awaitIdle();
+        swerveDrive.move(1.0, 0.0, 0.0, 0.0);
+        awaitIdle();
+        for (int i = 0; i < enclosures.length; i++) {
+            List<Double> setpoints = drives[i].getSetpoints();
+            Assert.assertEquals(1.0, setpoints.get(setpoints.size() - 1), 0.001);
+            Assert.assertEquals(MotorController.OK, enclosures[i].getDriveError());
+        }
+    }
+
+    @Test
+    public void testStagedWritesKeepTheLatest() throws Exception {
+        SlowTalonController talon = new SlowTalonController(LATENCY);
+        AsyncMotorController classUnderTest = async("drive", talon, 100);
+
+        classUnderTest.stagePercentOutput(0.1);
+        Assert.assertEquals(MotorController.OK, classUnderTest.flush());
+        classUnderTest.stagePercentOutput(0.2);
+        Assert.assertEquals(MotorController.ERROR_BUSY, classUnderTest.flush());
+        classUnderTest.stagePercentOutput(0.3);
+        Assert.assertEquals(MotorController.ERROR_BUSY, classUnderTest.flush());
+        Assert.assertEquals(2, classUnderTest.getBusyCount());
+
+        awaitIdle();
+        Assert.assertEquals(MotorController.OK, classUnderTest.flush());
+        awaitIdle();
+        Assert.assertEquals(Arrays.asList(0.1, 0.3), talon.getSetpoints());
+    }
+
+    @Test
+    public void testStopWhileBusyIsApplied() throws Exception {
+        SlowTalonController drive = new SlowTalonController(LATENCY);
+        GenericEnclosure classUnderTest = new GenericEnclosure("Enclosure 1", async("drive", drive, 500),
+                async("steer", new SlowTalonController(0), 500), GEAR_RATIO);
+
+        classUnderTest.move(0.5, 0.0);
+        // The drive controller is still busy with the move, and no flush follows the stop
+        classUnderTest.stop();
+        Assert.assertTrue(classUnderTest.getBusyCount() > 0);
+
+        awaitIdle();
+        List<Double> setpoints = drive.getSetpoints();
+        Assert.assertEquals(0.0, setpoints.get(setpoints.size() - 1), 0.0);
+        Assert.assertEquals(MotorController.OK, classUnderTest.getDriveError());
+    }
+
+    @Test
+    public void testCachedReading() throws Exception {
+        SlowTalonController talon = new SlowTalonController(0);
+        talon.setSensorPosition(1234);
+        AsyncMotorController classUnderTest = async("steer", talon, 100);
+        MotorReading reading = new MotorReading();
+
+        Assert.assertEquals(MotorController.ERROR_NO_DATA, classUnderTest.readPosition(reading));
+
+        long before = System.nanoTime();
+        classUnderTest.flush();
+        awaitIdle();
+        Assert.assertEquals(MotorController.OK, classUnderTest.readPosition(reading));
+        Assert.assertEquals(1234.0, reading.getPosition(), 0.0);
+        Assert.assertTrue(reading.getTimestamp() >= before);
+        Assert.assertTrue(reading.getTimestamp() <= System.nanoTime());
+
+        // The sensor position is set with the next flush
+        classUnderTest.stageSensorPosition(42);
+        classUnderTest.flush();
+        awaitIdle();
+        classUnderTest.readPosition(reading);
+        Assert.assertEquals(42.0, reading.getPosition(), 0.0);
+    }
+
+    @Test
+    public void testEnclosureReadsTheCache() throws Exception {
+        SlowTalonController steer = new SlowTalonController(LATENCY);
+        GenericEnclosure classUnderTest = new GenericEnclosure("Enclosure 1",
+                async("drive", new SlowTalonController(0), 100), async("steer", steer, 100), GEAR_RATIO);
+
+        // No reading yet: the encoder is at 0 and the sensors are stale
+        classUnderTest.move(0.5, 0.0);
+        Assert.assertEquals(0, classUnderTest.getEncPosition());
+        Assert.assertTrue(classUnderTest.isSensorStale(System.nanoTime(), TimeUnit.SECONDS.toNanos(1)));
+
+        steer.setSensorPosition(1000);
+        awaitIdle();
+        classUnderTest.move(0.5, 0.0);
+        awaitIdle();
+        Assert.assertEquals(1000, classUnderTest.getEncPosition());
+        Assert.assertFalse(classUnderTest.isSensorStale(System.nanoTime(), TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    @Test
+    public void testFailingController() throws Exception {
+        SlowTalonController drive = new SlowTalonController(0);
+        drive.setFailing(true);
+        AsyncMotorController driveController = async("drive", drive, 100);
+        GenericEnclosure classUnderTest = new GenericEnclosure("Enclosure 1", driveController,
+                async("steer", new SlowTalonController(0), 100), GEAR_RATIO);
+
+        // The failure does not reach the drive cycle
+        classUnderTest.move(0.5, 0.0);
+        awaitIdle();
+        Assert.assertEquals(MotorController.ERROR_HARDWARE, classUnderTest.getDriveError());
+        Assert.assertEquals(MotorController.OK, classUnderTest.getSteerError());
+        Assert.assertEquals(1, driveController.getErrorCount());
+
+        drive.setFailing(false);
+        classUnderTest.move(0.5, 0.0);
+        awaitIdle();
+        Assert.assertEquals(MotorController.OK, classUnderTest.getDriveError());
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        AsyncMotorController classUnderTest = async("drive", new SlowTalonController(LATENCY), 10);
+
+        classUnderTest.stagePercentOutput(0.5);
+        classUnderTest.flush();
+        Thread.sleep(20);
+        Assert.assertEquals(MotorController.ERROR_BUSY, classUnderTest.flush());
+        Assert.assertEquals(MotorController.ERROR_TIMEOUT, classUnderTest.getLastError());
+
+        awaitIdle();
+        Assert.assertEquals(MotorController.ERROR_TIMEOUT, classUnderTest.getLastError());
+    }
+
+    private AsyncMotorController async(String name, SlowTalonController talon, int timeoutMs) {
+        AsyncMotorController controller = new AsyncMotorController(name, talon, NanoClock.SYSTEM, timeoutMs);
+        controllers.add(controller);
+        return controller;
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (AsyncMotorController controller : controllers) {
+            while (controller.isBusy()) {
+                Assert.assertTrue("Controller did not finish", System.nanoTime() < deadline);
+                Thread.sleep(1);
+            }
+        }
+    }
+}
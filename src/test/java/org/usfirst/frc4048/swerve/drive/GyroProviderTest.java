@@ -0,0 +1,182 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.mockhardware.MockGyro;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+import org.usfirst.frc4048.swerve.math.CentricMode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Testing the gyro sampling, the sequence lock publishing and the drive with a gyro provider
+ */
+public class GyroProviderTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    private static final double GEAR_RATIO = 1988/1.2;
+
+    private static final long PERIOD = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long MAX_AGE = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long DELAY = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private VirtualClock clock;
+    private MockGyro gyro;
+    private GyroProvider classUnderTest;
+    private TestEnclosure enclosure1;
+
+    @Before
+    public void init() throws Exception {
+        clock = new VirtualClock(1000000000L);
+        gyro = new MockGyro(clock);
+        classUnderTest = new GyroProvider(gyro, clock, PERIOD);
+    }
+
+    @Test
+    public void testSample() throws Exception {
+        GyroSample sample = new GyroSample();
+        Assert.assertFalse(classUnderTest.read(sample));
+
+        gyro.setRotation(45.0, 90.0);
+        clock.advance(TimeUnit.MILLISECONDS.toNanos(100));
+        classUnderTest.sample();
+
+        Assert.assertTrue(classUnderTest.read(sample));
+        Assert.assertEquals(54.0, sample.getAngle(), 1e-9);
+        Assert.assertEquals(90.0, sample.getRate(), 0.0);
+        Assert.assertEquals(clock.nanoTime(), sample.getTimestamp());
+    }
+
+    @Test
+    public void testFailingGyroKeepsLastSample() throws Exception {
+        gyro.setRotation(10.0, 0.0);
+        classUnderTest.sample();
+        long sampled = clock.nanoTime();
+
+        gyro.setFailing(true);
+        clock.advance(PERIOD);
+        classUnderTest.sample();
+
+        GyroSample sample = new GyroSample();
+        Assert.assertTrue(classUnderTest.read(sample));
+        Assert.assertEquals(10.0, sample.getAngle(), 0.0);
+        Assert.assertEquals(sampled, sample.getTimestamp());
+        Assert.assertEquals(1, classUnderTest.getErrorCount());
+    }
+
+    @Test
+    public void testConsistentConcurrentReads() throws Exception {
+        // Every sample has the same angle and rate, and a timestamp 1000 times larger
+        final long[] counter = new long[1];
+        final NanoClock countingClock = new NanoClock() {
+            @Override
+            public long nanoTime() {
+                return counter[0] * 1000;
+            }
+        };
+        GyroSource source = new GyroSource() {
+            @Override
+            public double getAngle() {
+                return ++counter[0];
+            }
+
+            @Override
+            public double getRate() {
+                return counter[0];
+            }
+        };
+        final GyroProvider provider = new GyroProvider(source, countingClock, 1);
+
+        Thread sampler = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 2000000; i++) {
+                    provider.sample();
+                }
+            }
+        });
+        sampler.start();
+
+        GyroSample sample = new GyroSample();
+        long last = 0;
+        while (sampler.isAlive()) {
+            if (provider.read(sample)) {
+                Assert.assertEquals(sample.getAngle(), sample.getRate(), 0.0);
+                Assert.assertEquals((long) sample.getAngle() * 1000, sample.getTimestamp());
+                Assert.assertTrue(sample.getTimestamp() >= last);
+                last = sample.getTimestamp();
+            }
+        }
+        sampler.join();
+    }
+
+    @Test
+    public void testSamplingThread() throws Exception {
+        GyroProvider provider = new GyroProvider(new MockGyro(NanoClock.SYSTEM), NanoClock.SYSTEM,
+                TimeUnit.MILLISECONDS.toNanos(1));
+        provider.start();
+        Thread.sleep(50);
+        provider.stop();
+
+        GyroSample sample = new GyroSample();
+        Assert.assertTrue(provider.read(sample));
+        Assert.assertTrue(sample.getTimestamp() <= System.nanoTime());
+    }
+
+    @Test
+    public void testDriveExtrapolatesHeading() throws Exception {
+        SwerveDrive swerveDrive = createDrive();
+        TestEnclosure reference = new TestEnclosure("Reference", GEAR_RATIO);
+        SwerveDrive referenceDrive = new SwerveDrive(reference, new TestEnclosure("2", GEAR_RATIO),
+                new TestEnclosure("3", GEAR_RATIO), new TestEnclosure("4", GEAR_RATIO), W, L);
+        referenceDrive.setCentricMode(CentricMode.FIELD);
+
+        // Sampled 10ms before the cycle, and the wheels act 20ms after it: 30ms at 100 degrees per second
+        gyro.setRotation(30.0, 100.0);
+        classUnderTest.sample();
+        clock.advance(TimeUnit.MILLISECONDS.toNanos(10));
+        swerveDrive.move(0.0, 1.0, 0.0);
+        referenceDrive.move(0.0, 1.0, 0.0, 33.0);
+
+        Assert.assertEquals(reference.getAngle(), enclosure1.getAngle(), 1e-9);
+        Assert.assertEquals(reference.getSpeed(), enclosure1.getSpeed(), 1e-9);
+        Assert.assertEquals(0, swerveDrive.getStaleGyroCount());
+    }
+
+    @Test
+    public void testStaleGyroDrivesRobotCentric() throws Exception {
+        SwerveDrive swerveDrive = createDrive();
+
+        // No sample yet
+        swerveDrive.move(0.0, 1.0, 0.0);
+        Assert.assertEquals(1, swerveDrive.getStaleGyroCount());
+
+        gyro.setRotation(90.0, 0.0);
+        classUnderTest.sample();
+        clock.advance(MAX_AGE + 1);
+        swerveDrive.move(1.0, 0.0, 0.0);
+
+        // Forward relative to the robot, not to the field
+        Assert.assertEquals(2, swerveDrive.getStaleGyroCount());
+        Assert.assertEquals(0.0, enclosure1.getAngle(), 1e-9);
+        Assert.assertEquals(CentricMode.FIELD, swerveDrive.getConfig().getCentricMode());
+
+        // Fresh again
+        classUnderTest.sample();
+        swerveDrive.move(1.0, 0.0, 0.0);
+        Assert.assertEquals(2, swerveDrive.getStaleGyroCount());
+    }
+
+    private SwerveDrive createDrive() {
+        enclosure1 = new TestEnclosure("Enclosure 1", GEAR_RATIO);
+        SwerveDrive swerveDrive = new SwerveDrive(enclosure1, new TestEnclosure("Enclosure 2", GEAR_RATIO),
+                new TestEnclosure("Enclosure 3", GEAR_RATIO), new TestEnclosure("Enclosure 4", GEAR_RATIO), W, L);
+        swerveDrive.setClock(clock);
+        swerveDrive.setCentricMode(CentricMode.FIELD);
+        swerveDrive.setGyroProvider(classUnderTest, MAX_AGE, DELAY);
+        return swerveDrive;
+    }
+}
@@ -0,0 +1,137 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.mockhardware.LaggingEnclosure;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+
+/**
+ * Testing the module health checks with lagging mock enclosures
+ */
+public class ModuleHealthMonitorTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    private static final double GEAR_RATIO = 1988/1.2;
+
+    private static final int WINDOW = 10;
+
+    private LaggingEnclosure[] enclosures;
+    private SwerveDrive swerveDrive;
+    private long now;
+
+    private ModuleHealthMonitor classUnderTest;
+
+    @Before
+    public void init() throws Exception {
+        // Fast enough to reach any steer target in one cycle
+        enclosures = new LaggingEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i] = new LaggingEnclosure("Enclosure " + (i + 1), GEAR_RATIO, (int) GEAR_RATIO);
+        }
+
+        swerveDrive = new SwerveDrive(enclosures, SwerveKinematics.rectangle(W, L));
+        swerveDrive.setClock(new NanoClock() {
+            @Override
+            public long nanoTime() {
+                return now;
+            }
+        });
+        classUnderTest = new ModuleHealthMonitor(enclosures, WINDOW);
+    }
+
+    @Test
+    public void testHealthy() throws Exception {
+        drive(WINDOW, 0.0, 1.0);
+        Assert.assertEquals(ModuleHealth.UNKNOWN, classUnderTest.getHealth(0));
+
+        drive(5 * WINDOW, 1.0, 1.0);
+        for (int i = 0; i < enclosures.length; i++) {
+            Assert.assertEquals(ModuleHealth.OK, classUnderTest.getHealth(i));
+            Assert.assertEquals(0.0, classUnderTest.getMeanError(i), 0.001);
+            Assert.assertEquals(0, classUnderTest.getSteerErrorCycles(i));
+        }
+    }
+
+    @Test
+    public void testIdleNotJudged() throws Exception {
+        enclosures[0].setMaxTicksPerCycle(0);
+
+        // Not asked to move: the steering is not checked
+        drive(5 * WINDOW, 0.0, 0.0);
+        Assert.assertEquals(ModuleHealth.UNKNOWN, classUnderTest.getHealth(0));
+    }
+
+    @Test
+    public void testSteerError() throws Exception {
+        // A slipping belt: the module follows, but settles 0.05 turns away from the target
+        enclosures[1].setBiasTicks((int) (0.05 * GEAR_RATIO));
+
+        for (int i = 0; i < 3 * WINDOW; i++) {
+            double angle = Math.toRadians(i * 5);
+            drive(1, Math.cos(angle), Math.sin(angle));
+        }
+        Assert.assertEquals(ModuleHealth.STEER_ERROR, classUnderTest.getHealth(1));
+        Assert.assertEquals(0.05, classUnderTest.getMeanError(1), 0.001);
+        Assert.assertTrue(classUnderTest.getSteerErrorCycles(1) > 0);
+
+        Assert.assertEquals(ModuleHealth.OK, classUnderTest.getHealth(0));
+    }
+
+    @Test
+    public void testLag() throws Exception {
+        // A slow steer motor (0.01 turns per cycle) that cannot follow a spinning command
+        enclosures[2].setMaxTicksPerCycle((int) (0.01 * GEAR_RATIO));
+
+        for (int i = 0; i < 3 * WINDOW; i++) {
+            double angle = Math.toRadians(i * 18);
+            drive(1, Math.cos(angle), Math.sin(angle));
+        }
+        Assert.assertEquals(ModuleHealth.STEER_ERROR, classUnderTest.getHealth(2));
+        Assert.assertTrue(classUnderTest.getTravel(2) > 0.05);
+    }
+
+    @Test
+    public void testStall() throws Exception {
+        enclosures[3].setMaxTicksPerCycle(0);
+
+        // Strafe: a quarter turn the stalled module never makes
+        drive(2 * WINDOW, 0.0, 1.0);
+        Assert.assertEquals(ModuleHealth.STALLED, classUnderTest.getHealth(3));
+        Assert.assertEquals(0.25, classUnderTest.getMeanError(3), 0.001);
+        Assert.assertTrue(classUnderTest.getStalledCycles(3) > 0);
+
+        // Unstalled: back to healthy once the window has passed
+        enclosures[3].setMaxTicksPerCycle((int) GEAR_RATIO);
+        drive(WINDOW + 1, 0.0, 1.0);
+        Assert.assertEquals(ModuleHealth.OK, classUnderTest.getHealth(3));
+    }
+
+    @Test
+    public void testEncoderJump() throws Exception {
+        drive(2 * WINDOW, 1.0, 0.0);
+        Assert.assertEquals(ModuleHealth.OK, classUnderTest.getHealth(0));
+
+        enclosures[0].setEncPosition(enclosures[0].getEncPosition() + (int) (0.4 * GEAR_RATIO));
+        drive(1, 1.0, 0.0);
+        Assert.assertEquals(ModuleHealth.ENCODER_JUMP, classUnderTest.getHealth(0));
+        Assert.assertEquals(1, classUnderTest.getJumpCount(0));
+
+        // Reported for a window, then healthy again
+        drive(WINDOW - 1, 1.0, 0.0);
+        Assert.assertEquals(ModuleHealth.ENCODER_JUMP, classUnderTest.getHealth(0));
+        drive(1, 1.0, 0.0);
+        Assert.assertEquals(ModuleHealth.OK, classUnderTest.getHealth(0));
+        Assert.assertEquals(1, classUnderTest.getJumpCount(0));
+    }
+
+    private void drive(int cycles, double fwd, double str) {
+        for (int i = 0; i < cycles; i++) {
+            now += 20000000L;
+            swerveDrive.move(fwd, str, 0.0, 0.0);
+            classUnderTest.update();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+import org.usfirst.frc4048.swerve.math.CentricMode;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Testing the skipping of unchanged drive cycles
+ */
+public class MoveCacheTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    private static final double GEAR_RATIO = 1988/1.2;
+
+    private static final long CYCLE = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long REFRESH = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private TestEnclosure[] enclosures;
+    private VirtualClock clock;
+    private SwerveDrive classUnderTest;
+    private MoveCache cache;
+
+    @Before
+    public void init() throws Exception {
+        enclosures = new TestEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i] = new TestEnclosure("Enclosure " + (i + 1), GEAR_RATIO);
+        }
+        clock = new VirtualClock();
+        classUnderTest = new SwerveDrive(enclosures[0], enclosures[1], enclosures[2], enclosures[3], W, L);
+        classUnderTest.setClock(clock);
+        cache = classUnderTest.enableMoveCache(0.001, 0.5, 5, REFRESH);
+    }
+
+    @Test
+    public void testIdleCyclesAreSkipped() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            classUnderTest.move(0.0, 0.0, 0.0, 0.0);
+            clock.advance(CYCLE);
+        }
+
+        Assert.assertEquals(1, cache.getMathMisses());
+        Assert.assertEquals(99, cache.getMathHits());
+
+        // Every module still moves once per refresh interval
+        Assert.assertEquals(4 * 20, cache.getModuleMisses());
+        Assert.assertEquals(4 * 80, cache.getModuleHits());
+        Assert.assertEquals(20, enclosures[0].getSpeedFilter().getSentCount());
+    }
+
+    @Test
+    public void testChangedInputsAreCalculated() throws Exception {
+        classUnderTest.move(0.5, 0.0, 0.0, 0.0);
+        classUnderTest.move(0.5005, 0.0, 0.0, 0.0);
+        Assert.assertEquals(1, cache.getMathHits());
+        Assert.assertEquals(0.5, enclosures[0].getSpeed(), 0.001);
+
+        classUnderTest.move(0.0, 0.0, 0.5, 0.0);
+        Assert.assertEquals(2, cache.getMathMisses());
+        Assert.assertEquals(4, cache.getModuleHits());
+        Assert.assertEquals(8, cache.getModuleMisses());
+
+        // Same results as without the cache
+        TestEnclosure[] reference = new TestEnclosure[4];
+        for (int i = 0; i < reference.length; i++) {
+            reference[i] = new TestEnclosure("Reference " + (i + 1), GEAR_RATIO);
+        }
+        new SwerveDrive(reference[0], reference[1], reference[2], reference[3], W, L).move(0.0, 0.0, 0.5, 0.0);
+        for (int i = 0; i < reference.length; i++) {
+            Assert.assertEquals(reference[i].getSpeed(), enclosures[i].getSpeed(), 1e-9);
+            Assert.assertEquals(reference[i].getAngle(), enclosures[i].getAngle(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testEncoderMovementMovesTheModule() throws Exception {
+        classUnderTest.move(0.5, 0.0, 0.0, 0.0);
+
+        // Within the threshold
+        enclosures[1].setEncPosition(5);
+        classUnderTest.move(0.5, 0.0, 0.0, 0.0);
+        Assert.assertEquals(4, cache.getModuleHits());
+
+        // Past the threshold: only that module moves, the calculation is still skipped
+        enclosures[1].setEncPosition(100);
+        classUnderTest.move(0.5, 0.0, 0.0, 0.0);
+        Assert.assertEquals(2, cache.getMathHits());
+        Assert.assertEquals(7, cache.getModuleHits());
+        Assert.assertEquals(5, cache.getModuleMisses());
+        Assert.assertEquals(2, enclosures[1].getSpeedFilter().getSentCount());
+        Assert.assertEquals(1, enclosures[0].getSpeedFilter().getSentCount());
+    }
+
+    @Test
+    public void testGyroOnlyMattersFieldCentric() throws Exception {
+        classUnderTest.move(0.5, 0.0, 0.0, 0.0);
+        classUnderTest.move(0.5, 0.0, 0.0, 10.0);
+        Assert.assertEquals(1, cache.getMathHits());
+
+        classUnderTest.setCentricMode(CentricMode.FIELD);
+        classUnderTest.move(0.5, 0.0, 0.0, 10.0);
+        classUnderTest.move(0.5, 0.0, 0.0, 10.4);
+        Assert.assertEquals(2, cache.getMathHits());
+
+        classUnderTest.move(0.5, 0.0, 0.0, 11.0);
+        Assert.assertEquals(3, cache.getMathMisses());
+        Assert.assertEquals(2, cache.getMathHits());
+    }
+
+    @Test
+    public void testStopAndConfigurationInvalidate() throws Exception {
+        classUnderTest.move(0.5, 0.0, 0.0, 0.0);
+        classUnderTest.stop();
+        classUnderTest.move(0.5, 0.0, 0.0, 0.0);
+        Assert.assertEquals(2, cache.getMathMisses());
+        Assert.assertEquals(0.5, enclosures[0].getSpeed(), 0.001);
+
+        classUnderTest.setSpeedScale(0.5);
+        classUnderTest.move(0.5, 0.0, 0.0, 0.0);
+        Assert.assertEquals(3, cache.getMathMisses());
+        Assert.assertEquals(0.25, enclosures[0].getSpeed(), 0.001);
+        Assert.assertEquals(0, cache.getModuleHits());
+
+        cache.resetCounters();
+        Assert.assertEquals(0, cache.getMathMisses());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        classUnderTest.disableMoveCache();
+        Assert.assertNull(classUnderTest.getMoveCache());
+
+        classUnderTest.move(0.5, 0.0, 0.0, 0.0);
+        classUnderTest.move(0.5, 0.0, 0.0, 0.0);
+        Assert.assertEquals(2, enclosures[0].getSpeedFilter().getSentCount());
+        Assert.assertEquals(0, cache.getMathHits());
+    }
+}
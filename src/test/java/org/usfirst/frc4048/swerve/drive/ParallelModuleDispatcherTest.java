@@ -0,0 +1,171 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.mockhardware.BlockingEnclosure;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Testing the concurrent dispatch with mock enclosures that block until the test lets them go
+ */
+public class ParallelModuleDispatcherTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    private static final double GEAR_RATIO = 1988/1.2;
+
+    private BlockingEnclosure swerveEnclosure1;
+    private BlockingEnclosure swerveEnclosure2;
+    private BlockingEnclosure swerveEnclosure3;
+    private BlockingEnclosure swerveEnclosure4;
+
+    private SwerveDrive classUnderTest;
+
+    @Before
+    public void init() throws Exception {
+        swerveEnclosure1 = new BlockingEnclosure("Enclosure 1", GEAR_RATIO);
+        swerveEnclosure2 = new BlockingEnclosure("Enclosure 2", GEAR_RATIO);
+        swerveEnclosure3 = new BlockingEnclosure("Enclosure 3", GEAR_RATIO);
+        swerveEnclosure4 = new BlockingEnclosure("Enclosure 4", GEAR_RATIO);
+
+        classUnderTest = new SwerveDrive(swerveEnclosure1, swerveEnclosure2, swerveEnclosure3, swerveEnclosure4, W, L);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        classUnderTest.disableParallelDispatch();
+    }
+
+    @Test
+    public void testModulesRunConcurrently() throws Exception {
+        // The gate only opens once all four modules are in their speed call at the same time
+        CountDownLatch gate = new CountDownLatch(4);
+        BlockingEnclosure[] enclosures = {swerveEnclosure1, swerveEnclosure2, swerveEnclosure3, swerveEnclosure4};
+        for (BlockingEnclosure enclosure : enclosures) {
+            enclosure.setGate(gate);
+        }
+        classUnderTest.enableParallelDispatch(TimeUnit.SECONDS.toNanos(30));
+
+        classUnderTest.move(1.0, 0.0, 0.0, null);
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertFalse(enclosures[i].isTimedOut());
+            Assert.assertFalse(classUnderTest.getDispatcher().isMissed(i));
+            Assert.assertEquals(1.0, enclosures[i].getSpeed(), 0.001);
+        }
+    }
+
+    @Test
+    public void testMissedDeadline() throws Exception {
+        CountDownLatch gate = new CountDownLatch(2);
+        swerveEnclosure3.setGate(gate);
+        classUnderTest.enableParallelDispatch(TimeUnit.MILLISECONDS.toNanos(100));
+        ParallelModuleDispatcher dispatcher = classUnderTest.getDispatcher();
+
+        classUnderTest.move(1.0, 0.0, 0.0, null);
+
+        Assert.assertFalse(dispatcher.isMissed(0));
+        Assert.assertFalse(dispatcher.isMissed(1));
+        Assert.assertTrue(dispatcher.isMissed(2));
+        Assert.assertFalse(dispatcher.isMissed(3));
+
+        // The blocked module is skipped while still busy
+        classUnderTest.move(0.0, 1.0, 0.0, null);
+        Assert.assertTrue(dispatcher.isSkipped(2));
+        Assert.assertTrue(dispatcher.isMissed(2));
+        Assert.assertEquals(2, dispatcher.getMissCount(2));
+        Assert.assertEquals(0.25, swerveEnclosure1.getAngle(), 0.001);
+
+        // Once it catches up it gets the commands again
+        swerveEnclosure3.setGate(null);
+        gate.countDown();
+        while (dispatcher.isBusy(2)) {
+            Thread.yield();
+        }
+        classUnderTest.move(0.0, 1.0, 0.0, null);
+        Assert.assertFalse(dispatcher.isSkipped(2));
+        Assert.assertFalse(dispatcher.isMissed(2));
+        Assert.assertEquals(0.25, swerveEnclosure3.getAngle(), 0.001);
+        Assert.assertFalse(swerveEnclosure3.isTimedOut());
+    }
+
+    @Test
+    public void testStopWhileBusyIsDelivered() throws Exception {
+        CountDownLatch gate = new CountDownLatch(2);
+        swerveEnclosure3.setGate(gate);
+        classUnderTest.enableParallelDispatch(TimeUnit.MILLISECONDS.toNanos(100));
+        ParallelModuleDispatcher dispatcher = classUnderTest.getDispatcher();
+
+        classUnderTest.move(1.0, 0.0, 0.0, null);
+        Assert.assertTrue(dispatcher.isMissed(2));
+
+        // The stop cannot be run yet, but it is not lost
+        classUnderTest.stop();
+        Assert.assertTrue(dispatcher.isMissed(2));
+        Assert.assertEquals(0.0, swerveEnclosure1.getSpeed(), 0.0);
+
+        swerveEnclosure3.setGate(null);
+        gate.countDown();
+        while (dispatcher.isBusy(2)) {
+            Thread.yield();
+        }
+        Assert.assertEquals(0.0, swerveEnclosure3.getSpeed(), 0.0);
+        Assert.assertFalse(swerveEnclosure3.isTimedOut());
+    }
+
+    @Test
+    public void testWorkerSurvivesError() throws Exception {
+        TestEnclosure failing = new TestEnclosure("Failing", GEAR_RATIO) {
+            @Override
+            public void setSpeed(double speed) {
+                throw new AssertionError("Hardware fault");
+            }
+        };
+        SwerveDrive swerveDrive = new SwerveDrive(failing, swerveEnclosure2, swerveEnclosure3, swerveEnclosure4, W, L);
+        swerveDrive.enableParallelDispatch(TimeUnit.SECONDS.toNanos(30));
+        try {
+            ParallelModuleDispatcher dispatcher = swerveDrive.getDispatcher();
+            swerveDrive.move(1.0, 0.0, 0.0, null);
+            swerveDrive.move(1.0, 0.0, 0.0, null);
+
+            Assert.assertEquals(2, dispatcher.getErrorCount(0));
+            Assert.assertFalse(dispatcher.isMissed(0));
+            Assert.assertFalse(dispatcher.isBusy(0));
+        } finally {
+            swerveDrive.disableParallelDispatch();
+        }
+    }
+
+    @Test
+    public void testBusyDecisionHoldsForTheCycle() throws Exception {
+        CountDownLatch gate = new CountDownLatch(2);
+        swerveEnclosure3.setGate(gate);
+        classUnderTest.enableParallelDispatch(TimeUnit.MILLISECONDS.toNanos(100));
+        ParallelModuleDispatcher dispatcher = classUnderTest.getDispatcher();
+        classUnderTest.move(1.0, 0.0, 0.0, null);
+
+        // Busy when the cycle begins, done by the time of the dispatch: still skipped in this cycle
+        dispatcher.beginCycle();
+        swerveEnclosure3.setGate(null);
+        gate.countDown();
+        while (dispatcher.isBusy(2)) {
+            Thread.yield();
+        }
+        Assert.assertTrue(dispatcher.isSkipped(2));
+        dispatcher.move(new double[] {0.5, 0.5, 0.5, 0.5}, new double[] {0.0, 0.0, 0.0, 0.0});
+        Assert.assertTrue(dispatcher.isMissed(2));
+        Assert.assertEquals(1.0, swerveEnclosure3.getSpeed(), 0.001);
+        Assert.assertEquals(0.5, swerveEnclosure1.getSpeed(), 0.001);
+
+        // The next cycle decides again
+        dispatcher.move(new double[] {0.5, 0.5, 0.5, 0.5}, new double[] {0.0, 0.0, 0.0, 0.0});
+        Assert.assertFalse(dispatcher.isMissed(2));
+        Assert.assertEquals(0.5, swerveEnclosure3.getSpeed(), 0.001);
+    }
+}
@@ -0,0 +1,117 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Testing the setpoint write coalescing
+ */
+public class SetpointFilterTest {
+
+    private static final long REFRESH = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    public void testDisabledSendsEverything() throws Exception {
+        SetpointFilter classUnderTest = new SetpointFilter();
+
+        Assert.assertTrue(classUnderTest.shouldSend(0.5, 0));
+        Assert.assertTrue(classUnderTest.shouldSend(0.5, 0));
+        Assert.assertEquals(2, classUnderTest.getSentCount());
+        Assert.assertEquals(0, classUnderTest.getSuppressedCount());
+    }
+
+    @Test
+    public void testSuppressWithinEpsilon() throws Exception {
+        SetpointFilter classUnderTest = new SetpointFilter();
+        classUnderTest.enable(0.01, REFRESH);
+
+        Assert.assertTrue(classUnderTest.shouldSend(0.5, 0));
+        Assert.assertFalse(classUnderTest.shouldSend(0.5, 1000));
+        Assert.assertFalse(classUnderTest.shouldSend(0.505, 2000));
+        Assert.assertTrue(classUnderTest.shouldSend(0.52, 3000));
+        Assert.assertEquals(2, classUnderTest.getSentCount());
+        Assert.assertEquals(2, classUnderTest.getSuppressedCount());
+    }
+
+    @Test
+    public void testRefreshInterval() throws Exception {
+        SetpointFilter classUnderTest = new SetpointFilter();
+        classUnderTest.enable(0.01, REFRESH);
+
+        Assert.assertTrue(classUnderTest.shouldSend(0.5, 0));
+        Assert.assertFalse(classUnderTest.shouldSend(0.5, REFRESH - 1));
+        Assert.assertTrue(classUnderTest.shouldSend(0.5, REFRESH));
+        Assert.assertFalse(classUnderTest.shouldSend(0.5, REFRESH + 1));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        SetpointFilter classUnderTest = new SetpointFilter();
+        classUnderTest.enable(0.01, REFRESH);
+
+        Assert.assertTrue(classUnderTest.shouldSend(0.5, 0));
+        classUnderTest.invalidate();
+        Assert.assertTrue(classUnderTest.shouldSend(0.5, 1));
+    }
+
+    @Test
+    public void testEnableForgetsLastValue() throws Exception {
+        SetpointFilter classUnderTest = new SetpointFilter();
+
+        // Recorded while disabled, with a time from a different clock
+        Assert.assertTrue(classUnderTest.shouldSend(0.5, Long.MAX_VALUE - REFRESH));
+        classUnderTest.enable(0.01, REFRESH);
+
+        Assert.assertTrue(classUnderTest.shouldSend(0.5, 1000));
+        Assert.assertFalse(classUnderTest.shouldSend(0.5, 2000));
+        Assert.assertTrue(classUnderTest.shouldSend(0.5, 1000 + REFRESH));
+    }
+
+    @Test
+    public void testEnclosureCoalescing() throws Exception {
+        TestEnclosure enclosure = new TestEnclosure("Enclosure 1", 1988/1.2);
+        enclosure.setWriteCoalescing(0.001, 0.001, TimeUnit.SECONDS.toNanos(10));
+
+        for (int i = 0; i < 10; i++) {
+            enclosure.move(1.0, 0.125);
+        }
+
+        Assert.assertEquals(1, enclosure.getSpeedFilter().getSentCount());
+        Assert.assertEquals(9, enclosure.getSpeedFilter().getSuppressedCount());
+        Assert.assertEquals(1, enclosure.getAngleFilter().getSentCount());
+
+        // Stopping the enclosure changes the motor mode, so the next move is sent
+        enclosure.stop();
+        enclosure.move(1.0, 0.125);
+        Assert.assertEquals(1.0, enclosure.getSpeed(), 0.001);
+        Assert.assertEquals(0.125, enclosure.getAngle(), 0.001);
+        Assert.assertEquals(2, enclosure.getSpeedFilter().getSentCount());
+    }
+
+    @Test
+    public void testEnclosureCoalescingUsesTheClock() throws Exception {
+        final long[] now = {0};
+        TestEnclosure enclosure = new TestEnclosure("Enclosure 1", 1988/1.2);
+        enclosure.setClock(new NanoClock() {
+            @Override
+            public long nanoTime() {
+                return now[0];
+            }
+        });
+        enclosure.setWriteCoalescing(0.001, 0.001, REFRESH);
+
+        enclosure.move(1.0, 0.125);
+        now[0] += REFRESH - 1;
+        enclosure.move(1.0, 0.125);
+        Assert.assertEquals(1, enclosure.getSpeedFilter().getSentCount());
+
+        // The refresh is due on the clock, however little real time passed
+        now[0] += 1;
+        enclosure.move(1.0, 0.125);
+        Assert.assertEquals(2, enclosure.getSpeedFilter().getSentCount());
+        Assert.assertEquals(1, enclosure.getSpeedFilter().getSuppressedCount());
+    }
+}
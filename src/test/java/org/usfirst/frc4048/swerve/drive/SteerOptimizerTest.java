@@ -0,0 +1,156 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+import org.usfirst.frc4048.swerve.math.FastTrig;
+import org.usfirst.frc4048.swerve.math.TrigPrecision;
+
+import java.util.Random;
+
+/**
+ * Testing the minimal travel steering against the original convertAngle/shouldReverse calculation
+ */
+public class SteerOptimizerTest {
+
+    private static final double GEAR_RATIO = 1988/1.2;
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void testSameHeadingAsLegacy() throws Exception {
+        SteerOptimizer classUnderTest = new SteerOptimizer(GEAR_RATIO);
+        Random random = new Random(4048);
+
+        for (int i = 0; i < 1000000; i++) {
+            int encPosition = random.nextInt(40000) - 20000;
+            double angle = random.nextDouble() - 0.5;
+            double current = encPosition / GEAR_RATIO;
+
+            classUnderTest.optimize(1.0, angle, encPosition);
+            double target = classUnderTest.getTargetAngle();
+            double heading = heading(target, classUnderTest.isReversed());
+
+            // The wheel points in the desired direction, the same as with the original calculation
+            Assert.assertEquals(0.0, turnDistance(heading, angle), EPSILON);
+            legacyMove(angle, encPosition);
+            Assert.assertEquals(0.0, turnDistance(heading, heading(legacyAngle, legacyReversed)), EPSILON);
+
+            // Never more than a quarter turn, and never more than the original
+            double travel = Math.abs(target - current);
+            Assert.assertTrue(travel <= 0.25 + EPSILON);
+            Assert.assertTrue(travel <= Math.abs(legacyAngle - current) + EPSILON);
+
+            Assert.assertEquals(classUnderTest.isReversed() ? -1.0 : 1.0, classUnderTest.getSpeed(), 0.0);
+        }
+    }
+
+    @Test
+    public void testShortestPathAroundTheWrap() throws Exception {
+        SteerOptimizer classUnderTest = new SteerOptimizer(1000);
+
+        // Wheel almost at half a turn: forward is a tiny turn and reverse, not a full turn back
+        classUnderTest.optimize(1.0, 0.0, 499);
+        Assert.assertEquals(0.5, classUnderTest.getTargetAngle(), EPSILON);
+        Assert.assertEquals(-1.0, classUnderTest.getSpeed(), 0.0);
+        Assert.assertTrue(classUnderTest.isReversed());
+
+        // Continuous encoder, several turns in
+        classUnderTest.optimize(0.5, -0.45, 3520);
+        Assert.assertEquals(3.55, classUnderTest.getTargetAngle(), EPSILON);
+        Assert.assertEquals(0.5, classUnderTest.getSpeed(), 0.0);
+        Assert.assertFalse(classUnderTest.isReversed());
+
+        classUnderTest.optimize(0.5, 0.45, -3520);
+        Assert.assertEquals(-3.55, classUnderTest.getTargetAngle(), EPSILON);
+        Assert.assertFalse(classUnderTest.isReversed());
+    }
+
+    @Test
+    public void testCosineScaling() throws Exception {
+        SteerOptimizer classUnderTest = new SteerOptimizer(1000);
+        classUnderTest.setCosineScaling(true);
+
+        classUnderTest.optimize(1.0, 0.0, 0);
+        Assert.assertEquals(1.0, classUnderTest.getSpeed(), 1e-6);
+
+        classUnderTest.optimize(1.0, 0.125, 0);
+        Assert.assertEquals(Math.cos(Math.PI / 4), classUnderTest.getSpeed(), 1e-6);
+
+        classUnderTest.optimize(1.0, 0.375, 0);
+        Assert.assertTrue(classUnderTest.isReversed());
+        Assert.assertEquals(-Math.cos(Math.PI / 4), classUnderTest.getSpeed(), 1e-6);
+
+        classUnderTest.optimize(1.0, 0.25, 0);
+        Assert.assertEquals(0.0, classUnderTest.getSpeed(), 1e-6);
+    }
+
+    @Test
+    public void testCosineScalingPrecision() throws Exception {
+        SteerOptimizer classUnderTest = new SteerOptimizer(1000);
+        classUnderTest.setCosineScaling(true);
+        Assert.assertEquals(TrigPrecision.EXACT, classUnderTest.getTrigPrecision());
+
+        classUnderTest.optimize(1.0, 0.1, 0);
+        Assert.assertEquals(Math.cos(0.2 * Math.PI), classUnderTest.getSpeed(), 1e-15);
+
+        classUnderTest.setTrigPrecision(TrigPrecision.FAST);
+        classUnderTest.optimize(1.0, 0.1, 0);
+        Assert.assertEquals(FastTrig.cosDegrees(36), classUnderTest.getSpeed(), 0.0);
+    }
+
+    @Test
+    public void testEnclosureSteersWhileScaledToZero() throws Exception {
+        TestEnclosure enclosure = new TestEnclosure("Enclosure 1", 1000);
+        enclosure.setCosineSpeedScaling(true);
+        enclosure.setEncPosition(250);
+
+        // A quarter turn away: no drive, but the wheel has to turn
+        enclosure.move(1.0, 0.5);
+        Assert.assertEquals(0.0, enclosure.getSpeed(), 1e-6);
+        Assert.assertEquals(0.5, enclosure.getAngle(), EPSILON);
+    }
+
+    private static double heading(double angle, boolean reversed) {
+        return reversed ? angle + 0.5 : angle;
+    }
+
+    private static double turnDistance(double a, double b) {
+        double difference = Math.abs(a - b) % 1;
+        return Math.min(difference, 1 - difference);
+    }
+
+    // The original BaseEnclosure calculation
+    private double legacyAngle;
+    private boolean legacyReversed;
+
+    private void legacyMove(double angle, int encPosition) {
+        angle = legacyConvertAngle(angle, encPosition);
+        legacyReversed = legacyShouldReverse(angle, encPosition);
+        if (legacyReversed) {
+            if (angle < 0)
+                angle += 0.5;
+            else
+                angle -= 0.5;
+        }
+        legacyAngle = angle;
+    }
+
+    private boolean legacyShouldReverse(double wa, double encoderValue) {
+        double ea = SwerveUtils.convertEncoderValue(encoderValue, GEAR_RATIO);
+        if (wa < 0) wa += 1;
+        double longDifference = Math.abs(wa - ea);
+        double difference = Math.min(longDifference, 1.0 - longDifference);
+        return difference > 0.25;
+    }
+
+    private double legacyConvertAngle(double angle, double encoderValue) {
+        double encPos = encoderValue / GEAR_RATIO;
+        double temp = angle;
+        temp += (int) encPos;
+        encPos = encPos % 1;
+        if ((angle - encPos) > 0.5) temp -= 1;
+        if ((angle - encPos) < -0.5) temp += 1;
+        return temp;
+    }
+}
@@ -0,0 +1,257 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+import org.usfirst.frc4048.swerve.math.CentricMode;
+import org.usfirst.frc4048.swerve.math.FastTrig;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+import org.usfirst.frc4048.swerve.math.TrigPrecision;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Testing the drive configuration, including concurrent reconfiguration of a running drive
+ */
+public class SwerveDriveConfigTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    private static final double GEAR_RATIO = 1988/1.2;
+
+    private static final long STRESS_MILLIS = 500;
+
+    @Test
+    public void testCopies() throws Exception {
+        SwerveDriveConfig original = new SwerveDriveConfig(SwerveKinematics.rectangle(W, L));
+        SwerveDriveConfig copy = original
+                .withCentricMode(CentricMode.FIELD)
+                .withSpeedScale(0.5)
+                .withDriveInverted(2, true)
+                .withGearRatio(1, 100.0);
+
+        Assert.assertEquals(CentricMode.ROBOT, original.getCentricMode());
+        Assert.assertEquals(1.0, original.getSpeedScale(), 0.0);
+        Assert.assertFalse(original.isDriveInverted(2));
+        Assert.assertTrue(Double.isNaN(original.getGearRatio(1)));
+
+        Assert.assertEquals(CentricMode.FIELD, copy.getCentricMode());
+        Assert.assertEquals(0.5, copy.getSpeedScale(), 0.0);
+        Assert.assertTrue(copy.isDriveInverted(2));
+        Assert.assertEquals(100.0, copy.getGearRatio(1), 0.0);
+    }
+
+    @Test
+    public void testApplied() throws Exception {
+        TestEnclosure[] enclosures = new TestEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i] = new TestEnclosure("Enclosure " + (i + 1), GEAR_RATIO);
+        }
+        SwerveDrive classUnderTest = new SwerveDrive(enclosures, SwerveKinematics.rectangle(W, L));
+
+        classUnderTest.setConfig(classUnderTest.getConfig()
+                .withSpeedScale(0.5)
+                .withDriveInverted(3, true)
+                .withGearRatio(0, 1000.0));
+        classUnderTest.move(1.0, 0.0, 0.0, 0.0);
+
+        Assert.assertEquals(0.5, enclosures[0].getSpeed(), 1e-9);
+        Assert.assertEquals(-0.5, enclosures[3].getSpeed(), 1e-9);
+        Assert.assertEquals(1000.0, enclosures[0].gearRatio, 0.0);
+        Assert.assertEquals(GEAR_RATIO, enclosures[1].gearRatio, 0.0);
+
+        // Field centric with the robot turned right: forward on the field is to the left of the robot
+        classUnderTest.setModeField();
+        classUnderTest.move(1.0, 0.0, 0.0, 90.0);
+        Assert.assertEquals(-0.25, enclosures[1].getTargetAngle(), 1e-9);
+
+        // Back to the enclosure's own gear ratio
+        classUnderTest.setConfig(classUnderTest.getConfig().withGearRatio(0, Double.NaN));
+        classUnderTest.move(1.0, 0.0, 0.0, 0.0);
+        Assert.assertEquals(GEAR_RATIO, enclosures[0].gearRatio, 0.0);
+        Assert.assertEquals(GEAR_RATIO, enclosures[1].gearRatio, 0.0);
+    }
+
+    @Test
+    public void testTrigPrecisionAppliedToCosineScaling() throws Exception {
+        TestEnclosure[] enclosures = new TestEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i] = new TestEnclosure("Enclosure " + (i + 1), 1000);
+            enclosures[i].setCosineSpeedScaling(true);
+            enclosures[i].setEncPosition(100);
+        }
+        SwerveDrive classUnderTest = new SwerveDrive(enclosures, SwerveKinematics.rectangle(W, L));
+
+        // Every wheel is a tenth of a turn away from straight ahead
+        classUnderTest.move(1.0, 0.0, 0.0, 0.0);
+        Assert.assertEquals(Math.cos(0.2 * Math.PI), enclosures[0].getSpeed(), 1e-15);
+
+        classUnderTest.setTrigPrecision(TrigPrecision.FAST);
+        classUnderTest.move(1.0, 0.0, 0.0, 0.0);
+        Assert.assertEquals(FastTrig.cosDegrees(-36), enclosures[0].getSpeed(), 0.0);
+    }
+
+    @Test
+    public void testNoTornConfigurations() throws Exception {
+        final SwerveDriveConfig configA = new SwerveDriveConfig(SwerveKinematics.rectangle(W, L))
+                .withCentricMode(CentricMode.FIELD)
+                .withSpeedScale(0.5)
+                .withDriveInverted(0, true).withDriveInverted(1, true)
+                .withDriveInverted(2, true).withDriveInverted(3, true);
+        final SwerveDriveConfig configB = new SwerveDriveConfig(SwerveKinematics.rectangle(W, L));
+
+        final CapturingEnclosure[] enclosures = new CapturingEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i] = new CapturingEnclosure();
+        }
+        final SwerveDrive classUnderTest = new SwerveDrive(enclosures, SwerveKinematics.rectangle(W, L));
+
+        // The outputs of each configuration
+        final double[][] expectedA = outputs(classUnderTest, enclosures, configA);
+        final double[][] expectedB = outputs(classUnderTest, enclosures, configB);
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final AtomicLong cycles = new AtomicLong();
+        final AtomicLong swaps = new AtomicLong();
+
+        Thread[] threads = new Thread[4];
+        // Writers: swap the configurations as fast as possible
+        for (int t = 0; t < 2; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (running.get()) {
+                        classUnderTest.setConfig(configA);
+                        classUnderTest.setConfig(configB);
+                        swaps.incrementAndGet();
+                    }
+                }
+            });
+        }
+        // Reader: every configuration seen is one of the two
+        threads[2] = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running.get()) {
+                    SwerveDriveConfig config = classUnderTest.getConfig();
+                    if (config != configA && config != configB) {
+                        failure.compareAndSet(null, "Unknown configuration " + config);
+                    }
+                }
+            }
+        });
+        // Control thread: every cycle uses one configuration throughout
+        threads[3] = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running.get()) {
+                    classUnderTest.move(1.0, 0.0, 0.5, 90.0);
+                    if (!matches(enclosures, expectedA) && !matches(enclosures, expectedB)) {
+                        failure.compareAndSet(null, "Torn cycle at " + cycles.get());
+                    }
+                    cycles.incrementAndGet();
+                }
+            }
+        });
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(STRESS_MILLIS);
+        running.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertNull(failure.get(), failure.get());
+        Assert.assertTrue(cycles.get() > 0);
+        Assert.assertTrue(swaps.get() > 0);
+    }
+
+    @Test
+    public void testConcurrentUpdatesNotLost() throws Exception {
+        final SwerveDrive classUnderTest = new SwerveDrive(new TestEnclosure("1", GEAR_RATIO),
+                new TestEnclosure("2", GEAR_RATIO), new TestEnclosure("3", GEAR_RATIO),
+                new TestEnclosure("4", GEAR_RATIO), W, L);
+        final int updates = 20000;
+
+        // Each thread changes its own setting; without the atomic update one would overwrite the other's
+        Thread scaler = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 1; i <= updates; i++) {
+                    classUnderTest.setSpeedScale((double) i / updates);
+                }
+            }
+        });
+        Thread inverter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 1; i <= updates; i++) {
+                    final boolean inverted = i % 2 == 0;
+                    classUnderTest.updateConfig(new UnaryOperator<SwerveDriveConfig>() {
+                        @Override
+                        public SwerveDriveConfig apply(SwerveDriveConfig config) {
+                            return config.withDriveInverted(0, inverted);
+                        }
+                    });
+                }
+            }
+        });
+
+        scaler.start();
+        inverter.start();
+        scaler.join();
+        inverter.join();
+
+        Assert.assertEquals(1.0, classUnderTest.getConfig().getSpeedScale(), 0.0);
+        Assert.assertTrue(classUnderTest.getConfig().isDriveInverted(0));
+    }
+
+    private static double[][] outputs(SwerveDrive swerveDrive, CapturingEnclosure[] enclosures,
+                                      SwerveDriveConfig config) {
+        swerveDrive.setConfig(config);
+        swerveDrive.move(1.0, 0.0, 0.5, 90.0);
+
+        double[][] outputs = new double[enclosures.length][];
+        for (int i = 0; i < enclosures.length; i++) {
+            outputs[i] = new double[] {enclosures[i].speed, enclosures[i].angle};
+        }
+        return outputs;
+    }
+
+    private static boolean matches(CapturingEnclosure[] enclosures, double[][] expected) {
+        for (int i = 0; i < enclosures.length; i++) {
+            if (enclosures[i].speed != expected[i][0] || enclosures[i].angle != expected[i][1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class CapturingEnclosure implements SwerveEnclosure {
+        private double speed;
+        private double angle;
+
+        @Override
+        public String getName() {
+            return "capturing";
+        }
+
+        @Override
+        public void move(double speed, double angle) {
+            this.speed = speed;
+            this.angle = angle;
+        }
+
+        @Override
+        public void stop() {
+            speed = 0.0;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+import org.usfirst.frc4048.swerve.math.SwerveMath;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Testing the drive loop and the command mailbox, with a fake clock
+ */
+public class SwerveDriveLoopTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    private static final double GEAR_RATIO = 1988/1.2;
+
+    private static final long PERIOD = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long WATCHDOG = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private TestEnclosure swerveEnclosure1;
+    private SwerveDrive swerveDrive;
+
+    private long now;
+
+    private SwerveDriveLoop classUnderTest;
+
+    @Before
+    public void init() throws Exception {
+        swerveEnclosure1 = new TestEnclosure("Enclosure 1", GEAR_RATIO);
+        TestEnclosure swerveEnclosure2 = new TestEnclosure("Enclosure 2", GEAR_RATIO);
+        TestEnclosure swerveEnclosure3 = new TestEnclosure("Enclosure 3", GEAR_RATIO);
+        TestEnclosure swerveEnclosure4 = new TestEnclosure("Enclosure 4", GEAR_RATIO);
+
+        NanoClock clock = new NanoClock() {
+            @Override
+            public long nanoTime() {
+                return now;
+            }
+        };
+        swerveDrive = new SwerveDrive(swerveEnclosure1, swerveEnclosure2, swerveEnclosure3, swerveEnclosure4, W, L);
+        swerveDrive.setClock(clock);
+
+        classUnderTest = new SwerveDriveLoop(swerveDrive, PERIOD, WATCHDOG, clock);
+    }
+
+    @Test
+    public void testNoCommandNoMove() throws Exception {
+        classUnderTest.tick(now);
+
+        Assert.assertEquals(0.0, swerveEnclosure1.getSpeed(), 0.001);
+        Assert.assertEquals(0, classUnderTest.getWatchdogStopCount());
+    }
+
+    @Test
+    public void testLatestCommandWins() throws Exception {
+        classUnderTest.getMailbox().post(1.0, 0.0, 0.0, SwerveMath.NO_GYRO);
+        classUnderTest.getMailbox().post(0.0, 1.0, 0.0, SwerveMath.NO_GYRO);
+        classUnderTest.tick(now);
+
+        Assert.assertEquals(1.0, swerveEnclosure1.getSpeed(), 0.001);
+        Assert.assertEquals(0.25, swerveEnclosure1.getAngle(), 0.001);
+    }
+
+    @Test
+    public void testWatchdogStops() throws Exception {
+        classUnderTest.getMailbox().post(1.0, 0.0, 0.0, SwerveMath.NO_GYRO);
+        for (int i = 0; i < 20; i++) {
+            now += PERIOD;
+            classUnderTest.tick(now);
+        }
+        Assert.assertEquals(1.0, swerveEnclosure1.getSpeed(), 0.001);
+
+        // No new command for more than the watchdog window
+        now += WATCHDOG;
+        classUnderTest.tick(now);
+        now += PERIOD;
+        classUnderTest.tick(now);
+        Assert.assertEquals(0.0, swerveEnclosure1.getSpeed(), 0.001);
+        Assert.assertEquals(1, classUnderTest.getWatchdogStopCount());
+
+        // A fresh command drives again
+        classUnderTest.getMailbox().post(1.0, 0.0, 0.0, SwerveMath.NO_GYRO);
+        now += PERIOD;
+        classUnderTest.tick(now);
+        Assert.assertEquals(1.0, swerveEnclosure1.getSpeed(), 0.001);
+    }
+
+    @Test
+    public void testFailingCommandStops() throws Exception {
+        classUnderTest.getMailbox().post(1.0, 0.0, 0.0, SwerveMath.NO_GYRO);
+        classUnderTest.tick(now);
+        Assert.assertEquals(1.0, swerveEnclosure1.getSpeed(), 0.001);
+
+        // Field centric without a gyro value fails: the robot stops and the loop goes on
+        swerveDrive.setModeField();
+        now += PERIOD;
+        classUnderTest.tick(now);
+        Assert.assertEquals(0.0, swerveEnclosure1.getSpeed(), 0.001);
+        Assert.assertEquals(1, classUnderTest.getErrorCount());
+
+        classUnderTest.getMailbox().post(1.0, 0.0, 0.0, 0.0);
+        now += PERIOD;
+        classUnderTest.tick(now);
+        Assert.assertEquals(1.0, swerveEnclosure1.getSpeed(), 0.001);
+        Assert.assertEquals(1, classUnderTest.getErrorCount());
+    }
+
+    @Test
+    public void testJitterStatistics() throws Exception {
+        classUnderTest.tick(now);
+        now += PERIOD;
+        classUnderTest.tick(now);
+        now += PERIOD + 1000;
+        classUnderTest.tick(now);
+        now += PERIOD - 3000;
+        classUnderTest.tick(now);
+
+        Assert.assertEquals(4, classUnderTest.getCycleCount());
+        Assert.assertEquals(PERIOD - 3000, classUnderTest.getLastPeriodNanos());
+        Assert.assertEquals(3000, classUnderTest.getMaxJitterNanos());
+        Assert.assertEquals(4000 / 3.0, classUnderTest.getMeanJitterNanos(), 0.001);
+    }
+
+    @Test
+    public void testLoopThread() throws Exception {
+        SwerveDrive swerveDrive = new SwerveDrive(swerveEnclosure1, new TestEnclosure("2", GEAR_RATIO),
+                new TestEnclosure("3", GEAR_RATIO), new TestEnclosure("4", GEAR_RATIO), W, L);
+        SwerveDriveLoop loop = new SwerveDriveLoop(swerveDrive, PERIOD, WATCHDOG, NanoClock.SYSTEM);
+
+        loop.start();
+        // Keep the command fresh, as a joystick would
+        for (int i = 0; i < 20; i++) {
+            loop.getMailbox().post(0.0, 1.0, 0.0, SwerveMath.NO_GYRO);
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(0.25, swerveEnclosure1.getAngle(), 0.001);
+        loop.stop();
+
+        // Stopping the loop stops the robot
+        Assert.assertTrue(loop.getCycleCount() > 5);
+        Assert.assertEquals(0.0, swerveEnclosure1.getSpeed(), 0.001);
+    }
+
+    @Test
+    public void testLoopThreadSurvivesFailingCommand() throws Exception {
+        SwerveDrive swerveDrive = new SwerveDrive(swerveEnclosure1, new TestEnclosure("2", GEAR_RATIO),
+                new TestEnclosure("3", GEAR_RATIO), new TestEnclosure("4", GEAR_RATIO), W, L);
+        swerveDrive.setModeField();
+        SwerveDriveLoop loop = new SwerveDriveLoop(swerveDrive, PERIOD, WATCHDOG, NanoClock.SYSTEM);
+
+        loop.start();
+        loop.getMailbox().post(0.0, 1.0, 0.0, SwerveMath.NO_GYRO);
+        while (loop.getErrorCount() == 0) {
+            Thread.yield();
+        }
+        // Still running: a valid command drives
+        loop.getMailbox().post(0.0, 1.0, 0.0, 0.0);
+        long cycles = loop.getCycleCount();
+        while (loop.getCycleCount() < cycles + 3) {
+            Thread.yield();
+        }
+        loop.stop();
+        Assert.assertEquals(1, loop.getErrorCount());
+        Assert.assertEquals(0.25, swerveEnclosure1.getTargetAngle(), 0.001);
+        Assert.assertEquals(0.0, swerveEnclosure1.getSpeed(), 0.001);
+    }
+
+    @Test
+    public void testConcurrentPostsAreNeverTorn() throws Exception {
+        final DriveCommandMailbox mailbox = new DriveCommandMailbox(NanoClock.SYSTEM);
+        final long endTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+        Thread[] producers = new Thread[4];
+        for (int i = 0; i < producers.length; i++) {
+            final double base = i * 1000000;
+            producers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (double value = base; System.nanoTime() < endTime; value++) {
+                        mailbox.post(value, value, value, value);
+                    }
+                }
+            });
+            producers[i].start();
+        }
+
+        DriveCommand command = new DriveCommand();
+        long reads = 0;
+        while (System.nanoTime() < endTime) {
+            if (mailbox.read(command)) {
+                reads++;
+                Assert.assertEquals(command.getFwd(), command.getStr(), 0.0);
+                Assert.assertEquals(command.getFwd(), command.getRcw(), 0.0);
+                Assert.assertEquals(command.getFwd(), command.getGyroValue(), 0.0);
+            }
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        Assert.assertTrue(reads > 0);
+    }
+
+    @Test
+    public void testConcurrentPostsKeepTheLatest() throws Exception {
+        final DriveCommandMailbox mailbox = new DriveCommandMailbox(NanoClock.SYSTEM);
+        final int postsPerProducer = 100000;
+        Thread[] producers = new Thread[4];
+        for (int i = 0; i < producers.length; i++) {
+            producers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int post = 0; post < postsPerProducer; post++) {
+                        mailbox.post(1.0, 0.0, 0.0, SwerveMath.NO_GYRO);
+                    }
+                }
+            });
+            producers[i].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        // The last post is the one in the mailbox, and a post only gives way to a newer one
+        DriveCommand command = new DriveCommand();
+        Assert.assertTrue(mailbox.read(command));
+        Assert.assertEquals(producers.length * postsPerProducer, command.getSequence());
+
+        // A stop posted after that always gets through
+        Assert.assertTrue(mailbox.post(0.0, 0.0, 0.0, SwerveMath.NO_GYRO));
+        mailbox.read(command);
+        Assert.assertEquals(0.0, command.getFwd(), 0.0);
+    }
+}
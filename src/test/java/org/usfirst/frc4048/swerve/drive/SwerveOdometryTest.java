@@ -0,0 +1,195 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+import org.usfirst.frc4048.swerve.math.SwerveMath;
+import org.usfirst.frc4048.swerve.replay.ReplayEnclosure;
+
+/**
+ * Testing the odometry with mock enclosures
+ */
+public class SwerveOdometryTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    private static final double GEAR_RATIO = 1988/1.2;
+
+    private TestEnclosure[] enclosures;
+
+    private SwerveOdometry classUnderTest;
+
+    @Before
+    public void init() throws Exception {
+        enclosures = new TestEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i] = new TestEnclosure("Enclosure " + (i + 1), GEAR_RATIO);
+        }
+
+        classUnderTest = new SwerveOdometry(enclosures, SwerveKinematics.rectangle(W, L), 16);
+        classUnderTest.reset(0.0, 0.0, 0.0, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEnclosureWithoutDriveEncoder() throws Exception {
+        BaseEnclosure[] mixed = { enclosures[0], enclosures[1], new ReplayEnclosure("Replay", GEAR_RATIO), enclosures[3] };
+        new SwerveOdometry(mixed, SwerveKinematics.rectangle(W, L), 16);
+    }
+
+    @Test
+    public void testDriveForward() throws Exception {
+        moveWheels(0.0, 0.0, 0.0, 0.0, 10.0, 10.0, 10.0, 10.0);
+        classUnderTest.update(1);
+
+        assertPose(0.0, 10.0, 0.0);
+    }
+
+    @Test
+    public void testStrafeRight() throws Exception {
+        moveWheels(0.25, 0.25, 0.25, 0.25, 5.0, 5.0, 5.0, 5.0);
+        classUnderTest.update(1);
+
+        assertPose(5.0, 0.0, 0.0);
+    }
+
+    @Test
+    public void testReversedWheelsDriveForward() throws Exception {
+        // Wheels turned around, driving backwards
+        moveWheels(0.5, 0.5, 0.5, 0.5, -10.0, -10.0, -10.0, -10.0);
+        classUnderTest.update(1);
+
+        assertPose(0.0, 10.0, 0.0);
+    }
+
+    @Test
+    public void testRotateInPlace() throws Exception {
+        // Quarter turn clockwise: each wheel drives a quarter of the circle around the center
+        double distance = Math.sqrt(L * L + W * W) / 2 * Math.PI / 2;
+
+        double[] angles = new double[4];
+        double[] speeds = new double[4];
+        SwerveKinematics.rectangle(W, L).move(0.0, 0.0, 1.0, angles, speeds);
+        moveWheels(angles[0], angles[1], angles[2], angles[3], distance, distance, distance, distance);
+        classUnderTest.update(1);
+
+        assertPose(0.0, 0.0, 90.0);
+    }
+
+    @Test
+    public void testGyroHeading() throws Exception {
+        classUnderTest.reset(0.0, 0.0, 90.0, 0);
+
+        // Robot turned to the right: driving forward moves right on the field
+        moveWheels(0.0, 0.0, 0.0, 0.0, 10.0, 10.0, 10.0, 10.0);
+        classUnderTest.update(1, 90.0);
+
+        assertPose(10.0, 0.0, 90.0);
+    }
+
+    @Test
+    public void testLookback() throws Exception {
+        moveWheels(0.0, 0.0, 0.0, 0.0, 10.0, 10.0, 10.0, 10.0);
+        classUnderTest.update(100);
+        moveWheels(0.0, 0.0, 0.0, 0.0, 30.0, 30.0, 30.0, 30.0);
+        classUnderTest.update(200);
+
+        double[] pose = new double[3];
+        Assert.assertTrue(classUnderTest.getPoseAt(150, pose));
+        Assert.assertEquals(20.0, pose[1], 0.01);
+        Assert.assertTrue(classUnderTest.getPoseAt(50, pose));
+        Assert.assertEquals(5.0, pose[1], 0.01);
+        Assert.assertFalse(classUnderTest.getPoseAt(250, pose));
+    }
+
+    @Test
+    public void testOneHardwareReadPerCycle() throws Exception {
+        final long[] now = {0};
+        SwerveDrive swerveDrive = new SwerveDrive(enclosures, SwerveKinematics.rectangle(W, L));
+        swerveDrive.setClock(new NanoClock() {
+            @Override
+            public long nanoTime() {
+                return now[0];
+            }
+        });
+        for (TestEnclosure enclosure : enclosures) {
+            enclosure.resetHardwareReads();
+        }
+
+        for (int i = 1; i <= 10; i++) {
+            now[0] = i * 5000000L;
+            swerveDrive.move(1.0, 0.0, 0.0, SwerveMath.NO_GYRO);
+            classUnderTest.update(now[0]);
+        }
+
+        // One steer encoder and one drive distance read per cycle
+        for (TestEnclosure enclosure : enclosures) {
+            Assert.assertEquals(20, enclosure.getHardwareReads());
+            Assert.assertEquals(10, enclosure.getSnapshot().getCycle());
+        }
+    }
+
+    @Test
+    public void testMoveIgnoresSnapshotOfEarlierCycle() throws Exception {
+        TestEnclosure enclosure = enclosures[0];
+        enclosure.sample(1, 0);
+        enclosure.resetHardwareReads();
+
+        // The first move of the cycle uses the snapshot
+        enclosure.move(1.0, 0.0);
+        Assert.assertEquals(0, enclosure.getHardwareReads());
+
+        // A move without a new sample is in a later cycle: the wheel turned since (here to 0.25 turns)
+        enclosure.turnEncoder((int) Math.round(0.25 * GEAR_RATIO));
+        enclosure.move(1.0, 0.25);
+        Assert.assertEquals(1, enclosure.getHardwareReads());
+        Assert.assertEquals(0.25, enclosure.getTargetAngle(), 0.001);
+    }
+
+    @Test
+    public void testSetEncPositionInvalidatesSnapshot() throws Exception {
+        TestEnclosure enclosure = enclosures[0];
+        enclosure.sample(1, 0);
+        enclosure.setEncPosition(500);
+        enclosure.resetHardwareReads();
+
+        Assert.assertEquals(500, ((BaseEnclosure) enclosure).readEncPosition());
+        Assert.assertEquals(1, enclosure.getHardwareReads());
+    }
+
+    @Test
+    public void testStaleSnapshotNotUsed() throws Exception {
+        SwerveDrive swerveDrive = new SwerveDrive(enclosures, SwerveKinematics.rectangle(W, L));
+        swerveDrive.setClock(new NanoClock() {
+            @Override
+            public long nanoTime() {
+                return 0;
+            }
+        });
+        swerveDrive.move(1.0, 0.0, 0.0, SwerveMath.NO_GYRO);
+
+        // The wheels moved after the snapshot was taken, and the snapshot is too old to be used
+        moveWheels(0.0, 0.0, 0.0, 0.0, 10.0, 10.0, 10.0, 10.0);
+        classUnderTest.update(SwerveOdometry.DEFAULT_MAX_SNAPSHOT_AGE_NANOS + 1);
+
+        assertPose(0.0, 10.0, 0.0);
+    }
+
+    private void moveWheels(double angle1, double angle2, double angle3, double angle4,
+                            double distance1, double distance2, double distance3, double distance4) {
+        double[] angles = {angle1, angle2, angle3, angle4};
+        double[] distances = {distance1, distance2, distance3, distance4};
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i].setEncPosition((int) Math.round(angles[i] * GEAR_RATIO));
+            enclosures[i].setDriveDistance(distances[i]);
+        }
+    }
+
+    private void assertPose(double x, double y, double heading) {
+        Assert.assertEquals(x, classUnderTest.getX(), 0.05);
+        Assert.assertEquals(y, classUnderTest.getY(), 0.05);
+        Assert.assertEquals(heading, classUnderTest.getHeading(), 0.1);
+    }
+}
@@ -0,0 +1,120 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+import org.usfirst.frc4048.swerve.math.PoseFilter;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+
+/**
+ * Testing the pose estimator with mock enclosures
+ */
+public class SwervePoseEstimatorTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    private static final double GEAR_RATIO = 1988/1.2;
+
+    private TestEnclosure[] enclosures;
+
+    private SwervePoseEstimator classUnderTest;
+
+    @Before
+    public void init() throws Exception {
+        enclosures = new TestEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i] = new TestEnclosure("Enclosure " + (i + 1), GEAR_RATIO);
+        }
+
+        classUnderTest = new SwervePoseEstimator(enclosures, SwerveKinematics.rectangle(W, L), 50);
+        classUnderTest.reset(0.0, 0.0, 0.0, 0);
+    }
+
+    @Test
+    public void testOdometryOnly() throws Exception {
+        driveForward(10, 10.0);
+
+        Assert.assertEquals(0.0, classUnderTest.getX(), 1e-9);
+        Assert.assertEquals(100.0, classUnderTest.getY(), 1e-9);
+        Assert.assertEquals(0.0, classUnderTest.getHeading(), 1e-9);
+
+        // The position becomes less certain as the robot drives
+        Assert.assertTrue(classUnderTest.getCovariance(PoseFilter.X, PoseFilter.X) > 0.0);
+    }
+
+    @Test
+    public void testGyroCorrectsHeading() throws Exception {
+        // The robot was pushed around: the wheels did not see the rotation, the gyro did
+        for (int i = 1; i <= 100; i++) {
+            classUnderTest.update(i * 100, 30.0);
+        }
+
+        Assert.assertEquals(30.0, classUnderTest.getHeading(), 0.5);
+    }
+
+    @Test
+    public void testGyroWrapped() throws Exception {
+        classUnderTest.reset(0.0, 0.0, 359.0, 0);
+        for (int i = 1; i <= 100; i++) {
+            classUnderTest.update(i * 100, 1.0);
+        }
+
+        // The heading stays continuous
+        Assert.assertEquals(361.0, classUnderTest.getHeading(), 0.1);
+    }
+
+    @Test
+    public void testDelayedVision() throws Exception {
+        driveForward(10, 10.0);
+
+        // The robot slid 5 to the right half-way through the 6th update, seen by a camera
+        Assert.assertTrue(classUnderTest.addVisionMeasurement(5.0, 55.0, 0.0, 550, 0.01, 0.01));
+
+        Assert.assertEquals(5.0, classUnderTest.getX(), 0.01);
+        Assert.assertEquals(100.0, classUnderTest.getY(), 0.01);
+
+        // The replayed history includes the correction
+        double[] pose = new double[3];
+        Assert.assertTrue(classUnderTest.getPoseAt(800, pose));
+        Assert.assertEquals(5.0, pose[0], 0.01);
+        Assert.assertEquals(80.0, pose[1], 0.01);
+        Assert.assertTrue(classUnderTest.getPoseAt(200, pose));
+        Assert.assertEquals(0.0, pose[0], 1e-9);
+    }
+
+    @Test
+    public void testVisionAtNewestUpdate() throws Exception {
+        driveForward(5, 10.0);
+
+        Assert.assertTrue(classUnderTest.addVisionMeasurement(2.0, 50.0, 0.0, 500, 0.01, 0.01));
+        Assert.assertEquals(2.0, classUnderTest.getX(), 0.01);
+        Assert.assertEquals(50.0, classUnderTest.getY(), 0.01);
+    }
+
+    @Test
+    public void testOldVisionRejected() throws Exception {
+        classUnderTest = new SwervePoseEstimator(enclosures, SwerveKinematics.rectangle(W, L), 4);
+        classUnderTest.reset(0.0, 0.0, 0.0, 0);
+        driveForward(10, 10.0);
+
+        // Older than the history
+        Assert.assertFalse(classUnderTest.addVisionMeasurement(5.0, 30.0, 0.0, 300, 0.01, 0.01));
+
+        // Older than the previous measurement
+        Assert.assertTrue(classUnderTest.addVisionMeasurement(5.0, 90.0, 0.0, 900, 0.01, 0.01));
+        Assert.assertFalse(classUnderTest.addVisionMeasurement(5.0, 85.0, 0.0, 850, 0.01, 0.01));
+        Assert.assertEquals(5.0, classUnderTest.getX(), 0.01);
+    }
+
+    // Drive forward by the distance on every update, one update every 100ns
+    private void driveForward(int updates, double distance) {
+        for (int i = 1; i <= updates; i++) {
+            for (TestEnclosure enclosure : enclosures) {
+                enclosure.setDriveDistance(i * distance);
+            }
+            classUnderTest.update(i * 100);
+        }
+    }
+}
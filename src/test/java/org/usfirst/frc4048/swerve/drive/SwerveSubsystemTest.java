@@ -196,10 +196,10 @@ public class SwerveSubsystemTest {
         resetEncoders(ZERO1 + 2000, ZERO2 + 2000, ZERO3 + 2000, ZERO4 + 2000);
         classUnderTest.move(1.0, 0.0, 0.0, null);
 
-        assertEnclosure(828, -1.0, -0.5, swerveEnclosure1);
-        assertEnclosure(828, -1.0, -0.5, swerveEnclosure2);
-        assertEnclosure(828, -1.0, -0.5, swerveEnclosure3);
-        assertEnclosure(828, -1.0, -0.5, swerveEnclosure4);
+        assertEnclosure(828, -1.0, 0.5, swerveEnclosure1);
+        assertEnclosure(828, -1.0, 0.5, swerveEnclosure2);
+        assertEnclosure(828, -1.0, 0.5, swerveEnclosure3);
+        assertEnclosure(828, -1.0, 0.5, swerveEnclosure4);
     }
 
     @Test
@@ -218,10 +218,10 @@ public class SwerveSubsystemTest {
         resetEncoders(ZERO1 + 2000, ZERO2 + 2000, ZERO3 + 2000, ZERO4 + 2000);
         classUnderTest.move(1.0, 1.0, 0.0, null);
 
-        assertEnclosure(828, -1.0, -0.375, swerveEnclosure1);
-        assertEnclosure(828, -1.0, -0.375, swerveEnclosure2);
-        assertEnclosure(828, -1.0, -0.375, swerveEnclosure3);
-        assertEnclosure(828, -1.0, -0.375, swerveEnclosure4);
+        assertEnclosure(828, -1.0, 0.625, swerveEnclosure1);
+        assertEnclosure(828, -1.0, 0.625, swerveEnclosure2);
+        assertEnclosure(828, -1.0, 0.625, swerveEnclosure3);
+        assertEnclosure(828, -1.0, 0.625, swerveEnclosure4);
     }
 
     private void resetEncoders(int value1, int value2, int value3, int value4) {
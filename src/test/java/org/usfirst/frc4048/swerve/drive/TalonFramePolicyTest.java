@@ -0,0 +1,133 @@
+package org.usfirst.frc4048.swerve.drive;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.mockhardware.RecordingTalonController;
+import org.usfirst.frc4048.swerve.sim.SimulatedCanBus;
+import org.usfirst.frc4048.swerve.sim.SimulatedTalon;
+
+import java.util.Arrays;
+
+/**
+ * Testing the Talon frame rate management
+ */
+public class TalonFramePolicyTest {
+
+    private static final long SECOND = 1000000000L;
+
+    @Test
+    public void testDefaultPolicy() throws Exception {
+        TalonFramePolicy classUnderTest = TalonFramePolicy.defaultPolicy();
+
+        Assert.assertEquals(10, classUnderTest.getStatusFramePeriod(TalonFramePolicy.Role.STEER,
+                TalonFramePolicy.RobotState.ENABLED, TalonStatusFrame.FEEDBACK));
+        Assert.assertEquals(20, classUnderTest.getStatusFramePeriod(TalonFramePolicy.Role.DRIVE,
+                TalonFramePolicy.RobotState.ENABLED, TalonStatusFrame.FEEDBACK));
+        Assert.assertEquals(255, classUnderTest.getStatusFramePeriod(TalonFramePolicy.Role.DRIVE,
+                TalonFramePolicy.RobotState.ENABLED, TalonStatusFrame.ANALOG_TEMP_VBAT));
+        Assert.assertEquals(100, classUnderTest.getStatusFramePeriod(TalonFramePolicy.Role.DRIVE,
+                TalonFramePolicy.RobotState.TELEMETRY, TalonStatusFrame.ANALOG_TEMP_VBAT));
+        Assert.assertEquals(100, classUnderTest.getControlFramePeriod(TalonFramePolicy.Role.STEER,
+                TalonFramePolicy.RobotState.DISABLED));
+
+        // Less traffic than the Talon defaults in every state, and the least when disabled
+        TalonFramePolicy defaults = new TalonFramePolicy();
+        double defaultLoad = defaults.getExpectedBusLoad(TalonFramePolicy.RobotState.ENABLED, 4,
+                TalonFramePolicy.DEFAULT_BIT_RATE);
+        double disabledLoad = classUnderTest.getExpectedBusLoad(TalonFramePolicy.RobotState.DISABLED, 4,
+                TalonFramePolicy.DEFAULT_BIT_RATE);
+        double enabledLoad = classUnderTest.getExpectedBusLoad(TalonFramePolicy.RobotState.ENABLED, 4,
+                TalonFramePolicy.DEFAULT_BIT_RATE);
+        double telemetryLoad = classUnderTest.getExpectedBusLoad(TalonFramePolicy.RobotState.TELEMETRY, 4,
+                TalonFramePolicy.DEFAULT_BIT_RATE);
+
+        Assert.assertEquals(8 * 281.25 * 160 / 1e6, defaultLoad, 1e-9);
+        Assert.assertTrue(disabledLoad < enabledLoad);
+        Assert.assertTrue(enabledLoad < telemetryLoad);
+        Assert.assertTrue(telemetryLoad < defaultLoad);
+    }
+
+    @Test
+    public void testStateSwitchWritesChangesOnly() throws Exception {
+        RecordingTalonController drive = new RecordingTalonController();
+        RecordingTalonController steer = new RecordingTalonController();
+        CanTalonSwerveEnclosure enclosure = new CanTalonSwerveEnclosure("Enclosure 1", drive, steer, 4096);
+
+        // Nothing is written until there is a state
+        enclosure.setFramePolicy(TalonFramePolicy.defaultPolicy());
+        Assert.assertTrue(steer.getConfigCalls().isEmpty());
+
+        enclosure.setRobotState(TalonFramePolicy.RobotState.ENABLED);
+        Assert.assertEquals(8, steer.getConfigCalls().size());
+        Assert.assertEquals(10, steer.getStatusFramePeriod(TalonStatusFrame.FEEDBACK));
+        Assert.assertEquals(20, drive.getStatusFramePeriod(TalonStatusFrame.FEEDBACK));
+        Assert.assertEquals(255, drive.getStatusFramePeriod(TalonStatusFrame.PULSE_WIDTH));
+        Assert.assertEquals(20, drive.getControlFramePeriod());
+        Assert.assertEquals(0, drive.getLastTimeoutMs());
+
+        // Same state again: nothing to write
+        drive.clearConfigCalls();
+        steer.clearConfigCalls();
+        enclosure.setRobotState(TalonFramePolicy.RobotState.ENABLED);
+        Assert.assertTrue(drive.getConfigCalls().isEmpty());
+        Assert.assertTrue(steer.getConfigCalls().isEmpty());
+
+        // Telemetry only adds the dashboard frames
+        enclosure.setFrameConfigTimeout(10);
+        enclosure.setRobotState(TalonFramePolicy.RobotState.TELEMETRY);
+        Assert.assertEquals(Arrays.asList("ANALOG_TEMP_VBAT=100", "PIDF0=50"), drive.getConfigCalls());
+        Assert.assertEquals(10, drive.getLastTimeoutMs());
+
+        // Back to disabled
+        drive.clearConfigCalls();
+        enclosure.setRobotState(TalonFramePolicy.RobotState.DISABLED);
+        Assert.assertEquals(Arrays.asList("GENERAL=100", "FEEDBACK=100", "ANALOG_TEMP_VBAT=255", "PIDF0=255",
+                "CONTROL=100"), drive.getConfigCalls());
+    }
+
+    @Test
+    public void testPolicyChangeAtRuntime() throws Exception {
+        RecordingTalonController drive = new RecordingTalonController();
+        RecordingTalonController steer = new RecordingTalonController();
+        CanTalonSwerveEnclosure enclosure = new CanTalonSwerveEnclosure("Enclosure 1", drive, steer, 4096);
+        enclosure.setRobotState(TalonFramePolicy.RobotState.ENABLED);
+        Assert.assertTrue(steer.getConfigCalls().isEmpty());
+
+        TalonFramePolicy policy = TalonFramePolicy.defaultPolicy();
+        enclosure.setFramePolicy(policy);
+        steer.clearConfigCalls();
+
+        TalonFramePolicy faster = TalonFramePolicy.defaultPolicy();
+        faster.setStatusFramePeriod(TalonFramePolicy.Role.STEER, TalonFramePolicy.RobotState.ENABLED,
+                TalonStatusFrame.FEEDBACK, 5);
+        enclosure.setFramePolicy(faster);
+        Assert.assertEquals(Arrays.asList("FEEDBACK=5"), steer.getConfigCalls());
+        Assert.assertSame(faster, enclosure.getFramePolicy());
+    }
+
+    @Test
+    public void testExpectedLoadMatchesBus() throws Exception {
+        VirtualClock clock = new VirtualClock();
+        SimulatedCanBus bus = new SimulatedCanBus(clock);
+        TalonFramePolicy policy = TalonFramePolicy.defaultPolicy();
+
+        CanTalonSwerveEnclosure[] enclosures = new CanTalonSwerveEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i] = new CanTalonSwerveEnclosure("Enclosure " + (i + 1), new SimulatedTalon(bus, 2 * i + 1),
+                    new SimulatedTalon(bus, 2 * i + 2), 4096);
+            enclosures[i].setFramePolicy(policy);
+        }
+
+        for (TalonFramePolicy.RobotState state : TalonFramePolicy.RobotState.values()) {
+            for (int i = 0; i < enclosures.length; i++) {
+                enclosures[i].setRobotState(state);
+            }
+            clock.advance(SECOND);
+            bus.resetStatistics();
+            clock.advance(10 * SECOND);
+
+            double expected = policy.getExpectedBusLoad(state, enclosures.length, bus.getBitRate());
+            Assert.assertEquals(state.toString(), expected, bus.getUtilization(), 0.005);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.usfirst.frc4048.swerve.drive.mockhardware;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mock enclosure whose speed call blocks on a latch, simulating a slow hardware call without depending on timing.
+ * The call counts the latch down and waits until it reaches 0: a latch shared by several enclosures only opens once
+ * all of them are in the call at the same time, a latch of 2 stays closed until the test counts it down.
+ */
+public class BlockingEnclosure extends TestEnclosure {
+
+    private static final long MAX_WAIT_SECONDS = 10;
+
+    private volatile CountDownLatch gate;
+    private volatile boolean timedOut = false;
+
+    public BlockingEnclosure(String name, double gearRatio) {
+        super(name, gearRatio);
+    }
+
+    /**
+     * @param gate the latch the next speed calls block on, null to not block
+     */
+    public void setGate(CountDownLatch gate) {
+        this.gate = gate;
+    }
+
+    /**
+     * @return true if a call gave up waiting for the latch
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    @Override
+    public void setSpeed(double speed) {
+        CountDownLatch gate = this.gate;
+        if (gate != null) {
+            gate.countDown();
+            try {
+                if (!gate.await(MAX_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                    timedOut = true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        super.setSpeed(speed);
+    }
+}
@@ -0,0 +1,39 @@
+package org.usfirst.frc4048.swerve.drive.mockhardware;
+
+/**
+ * Mock enclosure whose steer encoder follows the commanded angle at a limited rate (a slow or stalled steer motor).
+ * The encoder can also settle away from the commanded angle by a bias (a slipping belt). Jumps of the encoder can be
+ * simulated with setEncPosition.
+ */
+public class LaggingEnclosure extends TestEnclosure {
+
+    private int maxTicksPerCycle;
+    private int biasTicks;
+
+    /**
+     * Constructor
+     * @param maxTicksPerCycle the largest steer encoder change per setAngle call, 0 for a stalled motor
+     */
+    public LaggingEnclosure(String name, double gearRatio, int maxTicksPerCycle) {
+        super(name, gearRatio);
+        this.maxTicksPerCycle = maxTicksPerCycle;
+    }
+
+    public void setMaxTicksPerCycle(int maxTicksPerCycle) {
+        this.maxTicksPerCycle = maxTicksPerCycle;
+    }
+
+    public void setBiasTicks(int biasTicks) {
+        this.biasTicks = biasTicks;
+    }
+
+    @Override
+    public void setAngle(double angle) {
+        super.setAngle(angle);
+
+        int encPosition = getEncPosition();
+        int step = (int) Math.round(angle * gearRatio) + biasTicks - encPosition;
+        step = Math.max(-maxTicksPerCycle, Math.min(maxTicksPerCycle, step));
+        turnEncoder(encPosition + step);
+    }
+}
@@ -0,0 +1,58 @@
+package org.usfirst.frc4048.swerve.drive.mockhardware;
+
+import org.usfirst.frc4048.swerve.drive.GyroSource;
+import org.usfirst.frc4048.swerve.drive.NanoClock;
+
+/**
+ * Mock gyro that turns at a constant rate on the given clock, and can be made to fail
+ */
+public class MockGyro implements GyroSource {
+
+    private final NanoClock clock;
+
+    private volatile double startAngle;
+    private volatile double rate;
+    private volatile long startTime;
+    private volatile boolean failing = false;
+
+    public MockGyro(NanoClock clock) {
+        this.clock = clock;
+        this.startTime = clock.nanoTime();
+    }
+
+    /**
+     * Set the heading now, and the rate it changes at from now on
+     * @param angle the heading, in degrees
+     * @param rate the angular rate, in degrees per second
+     */
+    public void setRotation(double angle, double rate) {
+        this.startTime = clock.nanoTime();
+        this.startAngle = angle;
+        this.rate = rate;
+    }
+
+    /**
+     * Make every read throw an exception (e.g. a disconnected IMU)
+     */
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    @Override
+    public double getAngle() {
+        check();
+        return startAngle + rate * (clock.nanoTime() - startTime) / 1e9;
+    }
+
+    @Override
+    public double getRate() {
+        check();
+        return rate;
+    }
+
+    private void check() {
+        if (failing) {
+            throw new IllegalStateException("Gyro is not responding");
+        }
+    }
+}
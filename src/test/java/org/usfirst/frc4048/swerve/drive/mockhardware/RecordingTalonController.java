@@ -0,0 +1,93 @@
+package org.usfirst.frc4048.swerve.drive.mockhardware;
+
+import org.usfirst.frc4048.swerve.drive.TalonController;
+import org.usfirst.frc4048.swerve.drive.TalonStatusFrame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mock Talon controller that records the frame period configuration calls. The periods start at the Talon defaults.
+ */
+public class RecordingTalonController implements TalonController {
+
+    private final int[] statusPeriods = new int[TalonStatusFrame.values().length];
+    private int controlPeriod = 10;
+
+    private final List<String> configCalls = new ArrayList<String>();
+    private int lastTimeoutMs = -1;
+
+    private double setpoint;
+    private int sensorPosition;
+
+    public RecordingTalonController() {
+        for (TalonStatusFrame frame : TalonStatusFrame.values()) {
+            statusPeriods[frame.ordinal()] = frame.getDefaultPeriodMs();
+        }
+    }
+
+    @Override
+    public void setPercentOutput(double output) {
+        setpoint = output;
+    }
+
+    @Override
+    public void setPosition(double position) {
+        setpoint = position;
+    }
+
+    @Override
+    public void stopMotor() {
+        setpoint = 0.0;
+    }
+
+    @Override
+    public int getSelectedSensorPosition() {
+        return sensorPosition;
+    }
+
+    @Override
+    public void setSelectedSensorPosition(int position, int timeoutMs) {
+        sensorPosition = position;
+    }
+
+    @Override
+    public void setStatusFramePeriod(TalonStatusFrame frame, int periodMs, int timeoutMs) {
+        statusPeriods[frame.ordinal()] = periodMs;
+        lastTimeoutMs = timeoutMs;
+        configCalls.add(frame + "=" + periodMs);
+    }
+
+    @Override
+    public void setControlFramePeriod(int periodMs) {
+        controlPeriod = periodMs;
+        configCalls.add("CONTROL=" + periodMs);
+    }
+
+    public int getStatusFramePeriod(TalonStatusFrame frame) {
+        return statusPeriods[frame.ordinal()];
+    }
+
+    public int getControlFramePeriod() {
+        return controlPeriod;
+    }
+
+    /**
+     * @return the configuration calls so far, as "FRAME=period" (the control frame is "CONTROL")
+     */
+    public List<String> getConfigCalls() {
+        return configCalls;
+    }
+
+    public int getLastTimeoutMs() {
+        return lastTimeoutMs;
+    }
+
+    public double getSetpoint() {
+        return setpoint;
+    }
+
+    public void clearConfigCalls() {
+        configCalls.clear();
+    }
+}
@@ -0,0 +1,28 @@
+package org.usfirst.frc4048.swerve.drive.mockhardware;
+
+/**
+ * Mock enclosure that takes a given time to set the speed, simulating a slow hardware call
+ */
+public class SlowEnclosure extends TestEnclosure {
+
+    private volatile long latencyMillis;
+
+    public SlowEnclosure(String name, double gearRatio, long latencyMillis) {
+        super(name, gearRatio);
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public void setSpeed(double speed) {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        super.setSpeed(speed);
+    }
+}
@@ -0,0 +1,101 @@
+package org.usfirst.frc4048.swerve.drive.mockhardware;
+
+import org.usfirst.frc4048.swerve.drive.TalonController;
+import org.usfirst.frc4048.swerve.drive.TalonStatusFrame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Mock Talon controller whose setpoint and sensor calls take a given time (a slow or congested CAN bus), and that can
+ * be made to fail. The setpoints it received are recorded.
+ */
+public class SlowTalonController implements TalonController {
+
+    private volatile long latencyMillis;
+    private volatile boolean failing = false;
+    private volatile int sensorPosition;
+
+    private final List<Double> setpoints = Collections.synchronizedList(new ArrayList<Double>());
+
+    public SlowTalonController(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Make every call throw an exception (e.g. a disconnected controller)
+     */
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    @Override
+    public void setPercentOutput(double output) {
+        call();
+        setpoints.add(output);
+    }
+
+    @Override
+    public void setPosition(double position) {
+        call();
+        setpoints.add(position);
+    }
+
+    @Override
+    public void stopMotor() {
+        call();
+        setpoints.add(0.0);
+    }
+
+    @Override
+    public int getSelectedSensorPosition() {
+        call();
+        return sensorPosition;
+    }
+
+    @Override
+    public void setSelectedSensorPosition(int position, int timeoutMs) {
+        call();
+        sensorPosition = position;
+    }
+
+    @Override
+    public void setStatusFramePeriod(TalonStatusFrame frame, int periodMs, int timeoutMs) {
+    }
+
+    @Override
+    public void setControlFramePeriod(int periodMs) {
+    }
+
+    /**
+     * Set the sensor position the controller reports (the hardware moved)
+     */
+    public void setSensorPosition(int sensorPosition) {
+        this.sensorPosition = sensorPosition;
+    }
+
+    /**
+     * @return the setpoints received so far (percent outputs, positions, and 0 for a stop)
+     */
+    public List<Double> getSetpoints() {
+        synchronized (setpoints) {
+            return new ArrayList<Double>(setpoints);
+        }
+    }
+
+    private void call() {
+        if (failing) {
+            throw new IllegalStateException("Controller is not responding");
+        }
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -12,6 +12,7 @@ public class TestEnclosure extends BaseEnclosure {
     private int encPosition;
     private double speed;
     private double angle;
+    private double driveDistance;
 
     public TestEnclosure(String name, double gearRatio) {
         super(name, gearRatio);
@@ -25,6 +26,28 @@ public class TestEnclosure extends BaseEnclosure {
     @Override
     public void setEncPosition(int encPosition) {
         this.encPosition = encPosition;
+        invalidateSnapshot();
+    }
+
+    /**
+     * Move the steer encoder, as the motor turning would (unlike setEncPosition, the snapshot of the cycle stays)
+     */
+    public void turnEncoder(int encPosition) {
+        this.encPosition = encPosition;
+    }
+
+    @Override
+    public boolean hasDriveEncoder() {
+        return true;
+    }
+
+    @Override
+    public double getDriveDistance() {
+        return driveDistance;
+    }
+
+    public void setDriveDistance(double driveDistance) {
+        this.driveDistance = driveDistance;
     }
 
     @Override
@@ -41,6 +64,7 @@ public class TestEnclosure extends BaseEnclosure {
     public void stop() {
         this.speed = 0;
         this.angle = 0;
+        invalidateSetpoints();
     }
 
     public double getSpeed() {
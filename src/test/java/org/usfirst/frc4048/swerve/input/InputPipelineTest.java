@@ -0,0 +1,153 @@
+package org.usfirst.frc4048.swerve.input;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.NanoClock;
+import org.usfirst.frc4048.swerve.drive.SwerveDrive;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+
+/**
+ * Testing the input stages and the pipeline in front of SwerveDrive
+ */
+public class InputPipelineTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private static final long CYCLE_NANOS = 20000000L;
+
+    private final DriveInput input = new DriveInput();
+
+    @Test
+    public void testDeadband() throws Exception {
+        Deadband classUnderTest = new Deadband(0.1, 0.2);
+
+        assertShaped(classUnderTest, 0.05, -0.05, 0.15, 0.0, 0.0, 0.0);
+
+        // Radial: the direction is kept and the full range is still reached
+        assertShaped(classUnderTest, 0.6, 0.8, 1.0, 0.6, 0.8, 1.0);
+        assertShaped(classUnderTest, 0.0, -0.55, -0.6, 0.0, -0.5, -0.5);
+    }
+
+    @Test
+    public void testExpo() throws Exception {
+        Expo classUnderTest = new Expo(1.0, 0.5);
+
+        assertShaped(classUnderTest, 0.5, -1.0, 0.5, 0.125, -1.0, 0.3125);
+        assertShaped(classUnderTest, 0.0, 1.0, -1.0, 0.0, 1.0, -1.0);
+    }
+
+    @Test
+    public void testMagnitudeClamp() throws Exception {
+        MagnitudeClamp classUnderTest = new MagnitudeClamp(1.0);
+
+        double half = Math.sqrt(0.5);
+        assertShaped(classUnderTest, 1.0, 1.0, 1.0, half, half, 1.0);
+        assertShaped(classUnderTest, 0.3, -0.4, 1.0, 0.3, -0.4, 1.0);
+    }
+
+    @Test
+    public void testSpeedScale() throws Exception {
+        SpeedScale classUnderTest = new SpeedScale();
+        assertShaped(classUnderTest, 1.0, -0.5, 0.5, 1.0, -0.5, 0.5);
+
+        classUnderTest.setScale(0.5, 0.25);
+        assertShaped(classUnderTest, 1.0, -0.5, 0.5, 0.5, -0.25, 0.125);
+    }
+
+    @Test
+    public void testSlewRateLimiter() throws Exception {
+        // 2.5 per second is 0.05 per 20ms cycle
+        SlewRateLimiter classUnderTest = new SlewRateLimiter(2.5, 5.0);
+
+        // The first cycle starts at rest
+        assertShaped(classUnderTest, 0, 1.0, -1.0, 1.0, 0.0, 0.0, 0.0);
+        assertShaped(classUnderTest, CYCLE_NANOS, 1.0, -1.0, 1.0, 0.05, -0.05, 0.1);
+        assertShaped(classUnderTest, 2 * CYCLE_NANOS, 1.0, -1.0, 1.0, 0.1, -0.1, 0.2);
+
+        // Small changes pass as they are
+        assertShaped(classUnderTest, 3 * CYCLE_NANOS, 0.12, -0.1, 0.2, 0.12, -0.1, 0.2);
+
+        classUnderTest.reset();
+        assertShaped(classUnderTest, 4 * CYCLE_NANOS, 1.0, 1.0, 1.0, 0.0, 0.0, 0.0);
+    }
+
+    @Test
+    public void testPipelineOrder() throws Exception {
+        InputPipeline classUnderTest = new InputPipeline()
+                .add(new Deadband(0.1, 0.1))
+                .add(new Expo(1.0, 0.0))
+                .add(new SpeedScale(0.5, 1.0));
+        Assert.assertEquals(3, classUnderTest.getStageCount());
+
+        input.set(0.55, 0.0, 0.05);
+        classUnderTest.apply(input, 0);
+
+        // Deadband: 0.5, expo: 0.125, scale: 0.0625
+        Assert.assertEquals(0.0625, input.getFwd(), EPSILON);
+        Assert.assertEquals(0.0, input.getStr(), EPSILON);
+        Assert.assertEquals(0.0, input.getRcw(), EPSILON);
+    }
+
+    @Test
+    public void testSwerveDrive() throws Exception {
+        TestEnclosure[] enclosures = new TestEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i] = new TestEnclosure("Enclosure " + (i + 1), 1.0);
+        }
+        SwerveDrive classUnderTest = new SwerveDrive(enclosures[0], enclosures[1], enclosures[2], enclosures[3],
+                27.5, 19);
+        final long[] time = new long[1];
+        classUnderTest.setClock(new NanoClock() {
+            @Override
+            public long nanoTime() {
+                return time[0];
+            }
+        });
+        classUnderTest.setInputPipeline(new InputPipeline()
+                .add(new Deadband(0.1, 0.1))
+                .add(new SlewRateLimiter(5.0, 5.0)));
+
+        // Inside the deadband: the robot does not move
+        classUnderTest.move(0.05, 0.0, 0.0, 0.0);
+        assertSpeeds(enclosures, 0.0);
+
+        // Full forward ramps at 0.1 per cycle
+        time[0] += CYCLE_NANOS;
+        classUnderTest.move(1.0, 0.0, 0.0, 0.0);
+        assertSpeeds(enclosures, 0.1);
+
+        time[0] += CYCLE_NANOS;
+        classUnderTest.move(1.0, 0.0, 0.0, 0.0);
+        assertSpeeds(enclosures, 0.2);
+
+        // A stop resets the ramp
+        classUnderTest.stop();
+        time[0] += CYCLE_NANOS;
+        classUnderTest.move(1.0, 0.0, 0.0, 0.0);
+        assertSpeeds(enclosures, 0.0);
+
+        classUnderTest.setInputPipeline(null);
+        classUnderTest.move(1.0, 0.0, 0.0, 0.0);
+        assertSpeeds(enclosures, 1.0);
+    }
+
+    private void assertShaped(InputStage stage, double fwd, double str, double rcw,
+                              double expectedFwd, double expectedStr, double expectedRcw) {
+        assertShaped(stage, 0, fwd, str, rcw, expectedFwd, expectedStr, expectedRcw);
+    }
+
+    private void assertShaped(InputStage stage, long now, double fwd, double str, double rcw,
+                              double expectedFwd, double expectedStr, double expectedRcw) {
+        input.set(fwd, str, rcw);
+        stage.apply(input, now);
+        Assert.assertEquals("fwd", expectedFwd, input.getFwd(), EPSILON);
+        Assert.assertEquals("str", expectedStr, input.getStr(), EPSILON);
+        Assert.assertEquals("rcw", expectedRcw, input.getRcw(), EPSILON);
+    }
+
+    private static void assertSpeeds(TestEnclosure[] enclosures, double expected) {
+        for (int i = 0; i < enclosures.length; i++) {
+            Assert.assertEquals(enclosures[i].getName(), expected, Math.abs(enclosures[i].getSpeed()), 1e-6);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.usfirst.frc4048.swerve.math;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Testing the error bounds of the fast trigonometry over dense input grids
+ */
+public class FastTrigTest {
+
+    private static final double ATAN2_MAX_ERROR = 1.7e-6;
+    private static final double SIN_COS_MAX_ERROR = 3e-7;
+
+    // One steer encoder tick, in turns
+    private static final double GEAR_RATIO = 1988/1.2;
+    private static final double ENCODER_TICK = 1 / GEAR_RATIO;
+
+    @Test
+    public void testAtan2ErrorBound() throws Exception {
+        double maxError = 0.0;
+        for (int i = -1000; i <= 1000; i++) {
+            for (int j = -1000; j <= 1000; j++) {
+                maxError = Math.max(maxError, atan2Error(i / 1000.0, j / 1000.0));
+            }
+        }
+        // Small and large magnitudes, and the area around the octant boundaries
+        for (int i = 0; i < 100000; i++) {
+            double angle = i * 2 * Math.PI / 100000;
+            maxError = Math.max(maxError, atan2Error(1e-9 * Math.sin(angle), 1e-9 * Math.cos(angle)));
+            maxError = Math.max(maxError, atan2Error(1e9 * Math.sin(angle), 1e9 * Math.cos(angle)));
+        }
+
+        Assert.assertTrue("Max atan2 error " + maxError, maxError <= ATAN2_MAX_ERROR);
+        Assert.assertEquals(0.0, FastTrig.atan2(0.0, 0.0), 0.0);
+        Assert.assertEquals(Math.PI, FastTrig.atan2(0.0, -1.0), 0.0);
+        Assert.assertEquals(-0.25, FastTrig.atan2Turns(-1.0, 0.0), 0.0);
+        Assert.assertTrue(Double.isNaN(FastTrig.atan2(Double.NaN, 1.0)));
+    }
+
+    @Test
+    public void testSinCosErrorBound() throws Exception {
+        double maxError = 0.0;
+        for (int i = -2160000; i <= 2160000; i++) {
+            double degrees = i / 2000.0;
+            double radians = Math.toRadians(degrees);
+            maxError = Math.max(maxError, Math.abs(FastTrig.sinDegrees(degrees) - Math.sin(radians)));
+            maxError = Math.max(maxError, Math.abs(FastTrig.cosDegrees(degrees) - Math.cos(radians)));
+        }
+
+        Assert.assertTrue("Max sin/cos error " + maxError, maxError <= SIN_COS_MAX_ERROR);
+    }
+
+    @Test
+    public void testFastMoveRobotCentric() throws Exception {
+        double maxAngleError = maxMoveAngleError(CentricMode.ROBOT, 1e-9);
+
+        Assert.assertTrue("Max angle error " + maxAngleError, maxAngleError <= 3e-7);
+    }
+
+    @Test
+    public void testFastMoveFieldCentric() throws Exception {
+        // The error of the field rotation grows for slow wheels: check above 1% speed
+        double maxAngleError = maxMoveAngleError(CentricMode.FIELD, 0.01);
+
+        Assert.assertTrue("Max angle error " + maxAngleError, maxAngleError <= 1e-5);
+        Assert.assertTrue(maxAngleError < ENCODER_TICK / 50);
+    }
+
+    private double maxMoveAngleError(CentricMode centricMode, double minSpeed) {
+        SwerveMath exact = new SwerveMath(27.5, 19);
+        SwerveMath fast = new SwerveMath(27.5, 19);
+        exact.setCentricMode(centricMode);
+        fast.setCentricMode(centricMode);
+        fast.setTrigPrecision(TrigPrecision.FAST);
+
+        double[] exactAngles = new double[4];
+        double[] exactSpeeds = new double[4];
+        double[] fastAngles = new double[4];
+        double[] fastSpeeds = new double[4];
+
+        double maxAngleError = 0.0;
+        for (int gyro = 0; gyro < 360; gyro += 15) {
+            for (int f = -10; f <= 10; f++) {
+                for (int s = -10; s <= 10; s++) {
+                    for (int r = -10; r <= 10; r++) {
+                        exact.move(f / 10.0, s / 10.0, r / 10.0, gyro, exactAngles, exactSpeeds);
+                        fast.move(f / 10.0, s / 10.0, r / 10.0, gyro, fastAngles, fastSpeeds);
+
+                        for (int i = 0; i < 4; i++) {
+                            Assert.assertEquals(exactSpeeds[i], fastSpeeds[i], 1e-6);
+                            if (exactSpeeds[i] > minSpeed) {
+                                double error = Math.abs(exactAngles[i] - fastAngles[i]);
+                                maxAngleError = Math.max(maxAngleError, Math.min(error, 1 - error));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return maxAngleError;
+    }
+
+    private double atan2Error(double y, double x) {
+        double error = Math.abs(FastTrig.atan2(y, x) - Math.atan2(y, x));
+        return Math.min(error, 2 * Math.PI - error);
+    }
+}
@@ -0,0 +1,132 @@
+package org.usfirst.frc4048.swerve.math;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Testing the kinematics lookup table against the analytic kinematics
+ */
+public class KinematicsTableTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    private static final int RESOLUTION = 65;
+
+    private File file;
+    private SwerveKinematics kinematics;
+
+    @Before
+    public void init() throws Exception {
+        file = File.createTempFile("kinematics", ".bin");
+        kinematics = SwerveKinematics.rectangle(W, L);
+        KinematicsTableBuilder.build(kinematics, RESOLUTION, file);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void testGridPointsMatch() throws Exception {
+        KinematicsTable classUnderTest = KinematicsTable.open(file, kinematics);
+        Assert.assertEquals(RESOLUTION, classUnderTest.getResolution());
+
+        double[] angles = new double[4];
+        double[] speeds = new double[4];
+        double[] expectedAngles = new double[4];
+        double[] expectedSpeeds = new double[4];
+        double[] values = {-1.0, -0.5, 0.0, 0.25, 1.0};
+        for (double fwd : values) {
+            for (double str : values) {
+                for (double rcw : values) {
+                    classUnderTest.move(fwd, str, rcw, angles, speeds);
+                    kinematics.move(fwd, str, rcw, expectedAngles, expectedSpeeds);
+                    for (int i = 0; i < 4; i++) {
+                        Assert.assertEquals(expectedSpeeds[i], speeds[i], 1e-6);
+                        if (expectedSpeeds[i] > 0) {
+                            Assert.assertEquals(0.0, turnDistance(expectedAngles[i], angles[i]), 1e-6);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInterpolationError() throws Exception {
+        KinematicsTable classUnderTest = KinematicsTable.open(file, kinematics);
+
+        double[] angles = new double[4];
+        double[] speeds = new double[4];
+        double[] expectedAngles = new double[4];
+        double[] expectedSpeeds = new double[4];
+        double maxSpeedError = 0.0;
+        double maxAngleError = 0.0;
+
+        Random random = new Random(4048);
+        for (int i = 0; i < 200000; i++) {
+            double fwd = random.nextDouble() * 2 - 1;
+            double str = random.nextDouble() * 2 - 1;
+            double rcw = random.nextDouble() * 2 - 1;
+            classUnderTest.move(fwd, str, rcw, angles, speeds);
+            kinematics.move(fwd, str, rcw, expectedAngles, expectedSpeeds);
+
+            for (int m = 0; m < 4; m++) {
+                maxSpeedError = Math.max(maxSpeedError, Math.abs(expectedSpeeds[m] - speeds[m]));
+                // The direction of slow modules changes quickly between grid points
+                if (expectedSpeeds[m] > 0.2) {
+                    maxAngleError = Math.max(maxAngleError, turnDistance(expectedAngles[m], angles[m]));
+                }
+            }
+        }
+
+        Assert.assertTrue("Max speed error " + maxSpeedError, maxSpeedError <= 0.025);
+        Assert.assertTrue("Max angle error " + maxAngleError, maxAngleError <= 2e-4);
+    }
+
+    @Test
+    public void testSwerveMathWithTable() throws Exception {
+        SwerveMath swerveMath = new SwerveMath(kinematics);
+        swerveMath.setCentricMode(CentricMode.FIELD);
+        swerveMath.setInverseKinematics(KinematicsTable.open(file, kinematics));
+
+        double[] angles = new double[4];
+        double[] speeds = new double[4];
+        swerveMath.move(1.0, 0.0, 0.0, 90.0, angles, speeds);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(-0.25, angles[i], 1e-6);
+            Assert.assertEquals(1.0, speeds[i], 1e-6);
+        }
+
+        swerveMath.setInverseKinematics(null);
+        Assert.assertNull(swerveMath.getInverseKinematics());
+    }
+
+    @Test(expected = IOException.class)
+    public void testStaleGeometryRejected() throws Exception {
+        KinematicsTable.open(file, SwerveKinematics.rectangle(W, L + 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotATable() throws Exception {
+        File other = File.createTempFile("other", ".bin");
+        try {
+            KinematicsTable.open(other, kinematics);
+        } finally {
+            other.delete();
+        }
+    }
+
+    private static double turnDistance(double a, double b) {
+        double difference = Math.abs(a - b) % 1;
+        return Math.min(difference, 1 - difference);
+    }
+}
@@ -0,0 +1,81 @@
+package org.usfirst.frc4048.swerve.math;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Testing the batch calculation against the single sample calculation
+ */
+public class SwerveBatchTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    @Test
+    public void testRobotCentricMatchesScalar() throws Exception {
+        assertMatchesScalar(CentricMode.ROBOT, TrigPrecision.EXACT, 1000, false);
+    }
+
+    @Test
+    public void testFieldCentricMatchesScalar() throws Exception {
+        assertMatchesScalar(CentricMode.FIELD, TrigPrecision.EXACT, 1000, true);
+    }
+
+    @Test
+    public void testFastTrigMatchesScalar() throws Exception {
+        assertMatchesScalar(CentricMode.FIELD, TrigPrecision.FAST, 1000, true);
+    }
+
+    @Test
+    public void testParallelMatchesScalar() throws Exception {
+        assertMatchesScalar(CentricMode.FIELD, TrigPrecision.EXACT, 100000, true);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNoGyroFieldFail() throws Exception {
+        SwerveMath swerveMath = new SwerveMath(W, L);
+        swerveMath.setCentricMode(CentricMode.FIELD);
+        double[] values = new double[4];
+        new SwerveBatch(swerveMath).move(values, values, values, null, 4, new double[4][4], new double[4][4]);
+    }
+
+    private void assertMatchesScalar(CentricMode centricMode, TrigPrecision precision, int count, boolean gyro) {
+        SwerveMath swerveMath = new SwerveMath(W, L);
+        swerveMath.setCentricMode(centricMode);
+        swerveMath.setTrigPrecision(precision);
+        SwerveBatch classUnderTest = new SwerveBatch(swerveMath);
+        classUnderTest.setParallelThreshold(10000);
+
+        Random random = new Random(4048);
+        double[] fwd = new double[count];
+        double[] str = new double[count];
+        double[] rcw = new double[count];
+        double[] gyroValues = gyro ? new double[count] : null;
+        for (int i = 0; i < count; i++) {
+            // Include some idle samples
+            fwd[i] = i % 10 == 0 ? 0.0 : random.nextDouble() * 2 - 1;
+            str[i] = i % 10 == 0 ? 0.0 : random.nextDouble() * 2 - 1;
+            rcw[i] = i % 10 == 0 ? 0.0 : random.nextDouble() * 2 - 1;
+            if (gyro) {
+                gyroValues[i] = random.nextDouble() * 360;
+            }
+        }
+
+        double[][] angles = new double[4][count];
+        double[][] speeds = new double[4][count];
+        classUnderTest.move(fwd, str, rcw, gyroValues, count, angles, speeds);
+
+        double[] expectedAngles = new double[4];
+        double[] expectedSpeeds = new double[4];
+        for (int i = 0; i < count; i++) {
+            swerveMath.move(fwd[i], str[i], rcw[i], gyro ? gyroValues[i] : SwerveMath.NO_GYRO,
+                    expectedAngles, expectedSpeeds);
+            for (int m = 0; m < 4; m++) {
+                Assert.assertEquals(expectedAngles[m], angles[m][i], 0.0);
+                Assert.assertEquals(expectedSpeeds[m], speeds[m][i], 0.0);
+            }
+        }
+    }
+}
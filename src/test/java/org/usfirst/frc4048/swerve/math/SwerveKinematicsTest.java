@@ -0,0 +1,169 @@
+package org.usfirst.frc4048.swerve.math;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Test code for the generalized kinematics
+ */
+public class SwerveKinematicsTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    @Test
+    public void testRectangleMatchesOriginalMath() throws Exception {
+        SwerveKinematics classUnderTest = SwerveKinematics.rectangle(W, L);
+        double[] angles = new double[4];
+        double[] speeds = new double[4];
+        double[] expectedAngles = new double[4];
+        double[] expectedSpeeds = new double[4];
+        Random random = new Random(4048);
+
+        for (int i = 0; i < 10000; i++) {
+            double fwd = random.nextDouble() * 2 - 1;
+            double str = random.nextDouble() * 2 - 1;
+            double rcw = random.nextDouble() * 2 - 1;
+
+            classUnderTest.move(fwd, str, rcw, angles, speeds);
+            originalMove(fwd, str, rcw, expectedAngles, expectedSpeeds);
+
+            for (int j = 0; j < 4; j++) {
+                Assert.assertEquals(expectedAngles[j], angles[j], 0.0);
+                Assert.assertEquals(expectedSpeeds[j], speeds[j], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testPositionsMatchRectangle() throws Exception {
+        SwerveKinematics rectangle = SwerveKinematics.rectangle(W, L);
+        SwerveKinematics classUnderTest = new SwerveKinematics(
+                new double[] {W / 2, -W / 2, -W / 2, W / 2},
+                new double[] {L / 2, L / 2, -L / 2, -L / 2});
+
+        double[] angles = new double[4];
+        double[] speeds = new double[4];
+        double[] expectedAngles = new double[4];
+        double[] expectedSpeeds = new double[4];
+
+        rectangle.move(0.3, -0.6, 0.8, expectedAngles, expectedSpeeds);
+        classUnderTest.move(0.3, -0.6, 0.8, angles, speeds);
+
+        Assert.assertArrayEquals(expectedAngles, angles, 1e-12);
+        Assert.assertArrayEquals(expectedSpeeds, speeds, 1e-12);
+    }
+
+    @Test
+    public void testThreeModulesTurnClockwise() throws Exception {
+        // Modules on a circle, at the front, back-left and back-right
+        double r = 10;
+        double s = Math.sin(Math.PI / 3) * r;
+        SwerveKinematics classUnderTest = new SwerveKinematics(
+                new double[] {0, -s, s},
+                new double[] {r, -r / 2, -r / 2});
+
+        double[] angles = new double[3];
+        double[] speeds = new double[3];
+        classUnderTest.move(0.0, 0.0, 1.0, angles, speeds);
+
+        // Result: every module at full speed, tangent to the circle
+        assertModule(0.25, 1.0, angles[0], speeds[0]);
+        assertModule(-0.0833, 1.0, angles[1], speeds[1]);
+        assertModule(-0.4167, 1.0, angles[2], speeds[2]);
+    }
+
+    @Test
+    public void testCenterOfRotationAtModule() throws Exception {
+        // Rotate around wheel 1 (front right)
+        SwerveKinematics classUnderTest = new SwerveKinematics(
+                new double[] {1, -1, -1, 1},
+                new double[] {1, 1, -1, -1},
+                1, 1);
+
+        double[] angles = new double[4];
+        double[] speeds = new double[4];
+        classUnderTest.move(0.0, 0.0, 1.0, angles, speeds);
+
+        // Result: wheel 1 stays in place, wheel 3 (furthest) moves at full speed
+        Assert.assertEquals(0.0, speeds[0], 0.001);
+        assertModule(0.0, 0.707, angles[1], speeds[1]);
+        assertModule(-0.125, 1.0, angles[2], speeds[2]);
+        assertModule(-0.25, 0.707, angles[3], speeds[3]);
+    }
+
+    @Test
+    public void testSixModulesNormalized() throws Exception {
+        SwerveKinematics classUnderTest = new SwerveKinematics(
+                new double[] {1, -1, -1, 1, 1, -1},
+                new double[] {1, 1, -1, -1, 0, 0});
+
+        double[] angles = new double[6];
+        double[] speeds = new double[6];
+        classUnderTest.move(1.0, 0.0, 1.0, angles, speeds);
+
+        double max = 0;
+        for (double speed : speeds) {
+            max = Math.max(max, speed);
+        }
+        Assert.assertEquals(1.0, max, 0.001);
+    }
+
+    @Test
+    public void testForwardKinematicsRoundTrip() throws Exception {
+        double r = 10;
+        double s = Math.sin(Math.PI / 3) * r;
+        SwerveKinematics classUnderTest = new SwerveKinematics(
+                new double[] {0, -s, s},
+                new double[] {r, -r / 2, -r / 2});
+
+        double[] angles = new double[3];
+        double[] speeds = new double[3];
+        double[] motion = new double[3];
+        classUnderTest.move(0.2, -0.5, 0.3, angles, speeds);
+        classUnderTest.toChassisMotion(angles, speeds, motion);
+
+        // rcw is scaled by the radius of the furthest module
+        Assert.assertEquals(0.2, motion[0], 1e-9);
+        Assert.assertEquals(-0.5, motion[1], 1e-9);
+        Assert.assertEquals(0.3 / r, motion[2], 1e-9);
+    }
+
+    private void assertModule(double expectedAngle, double expectedSpeed, double angle, double speed) {
+        Assert.assertEquals(expectedAngle, angle, 0.001);
+        Assert.assertEquals(expectedSpeed, speed, 0.001);
+    }
+
+    // The rectangular calculation as it was before the kinematics were generalized
+    private static void originalMove(double fwd, double str, double rcw, double[] angles, double[] speeds) {
+        double diagonal = Math.sqrt(L * L + W * W);
+        double a = str - rcw * (L / diagonal);
+        double b = str + rcw * (L / diagonal);
+        double c = fwd - rcw * (W / diagonal);
+        double d = fwd + rcw * (W / diagonal);
+
+        double ws1 = Math.sqrt(b * b + c * c);
+        double ws2 = Math.sqrt(b * b + d * d);
+        double ws3 = Math.sqrt(a * a + d * d);
+        double ws4 = Math.sqrt(a * a + c * c);
+
+        double max = Math.max(Math.max(ws1, ws2), Math.max(ws3, ws4));
+        if (max > 1) {
+            ws1 /= max;
+            ws2 /= max;
+            ws3 /= max;
+            ws4 /= max;
+        }
+
+        speeds[0] = ws1;
+        speeds[1] = ws2;
+        speeds[2] = ws3;
+        speeds[3] = ws4;
+        angles[0] = Math.atan2(b, c) * 180 / Math.PI / 360;
+        angles[1] = Math.atan2(b, d) * 180 / Math.PI / 360;
+        angles[2] = Math.atan2(a, d) * 180 / Math.PI / 360;
+        angles[3] = Math.atan2(a, c) * 180 / Math.PI / 360;
+    }
+}
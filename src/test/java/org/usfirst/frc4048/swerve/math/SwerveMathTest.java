@@ -173,6 +173,64 @@ public class SwerveMathTest {
         assertDirective(-0.4375, 1.0, result.get(3));
     }
 
+    @Test(expected = IllegalStateException.class)
+    public void testNoGyroFieldFail() throws Exception {
+        SwerveMath classUnderTest = new SwerveMath(1, 1);
+        classUnderTest.setCentricMode(CentricMode.FIELD);
+        classUnderTest.move(0.0, 0.0, 0.0, SwerveMath.NO_GYRO, new double[4], new double[4]);
+    }
+
+    @Test
+    public void testPrimitiveMatchesList() throws Exception {
+        SwerveMath classUnderTest = new SwerveMath(27.5, 19);
+        classUnderTest.setCentricMode(CentricMode.FIELD);
+        double[] angles = new double[4];
+        double[] speeds = new double[4];
+        classUnderTest.move(0.3, -0.7, 0.4, 37.0, angles, speeds);
+        List<SwerveDirective> result = classUnderTest.move(0.3, -0.7, 0.4, 37.0);
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(result.get(i).getAngle(), angles[i], 0.0);
+            Assert.assertEquals(result.get(i).getSpeed(), speeds[i], 0.0);
+        }
+    }
+
+
+    @Test
+    public void testExtrapolatedGyro() throws Exception {
+        SwerveMath classUnderTest = new SwerveMath(27.5, 19);
+        classUnderTest.setCentricMode(CentricMode.FIELD);
+        double[] angles = new double[4];
+        double[] speeds = new double[4];
+        double[] expectedAngles = new double[4];
+        double[] expectedSpeeds = new double[4];
+
+        // 90 degrees per second for 0.1 seconds
+        classUnderTest.move(0.3, -0.7, 0.4, 37.0, 90.0, 0.1, angles, speeds);
+        classUnderTest.move(0.3, -0.7, 0.4, 46.0, expectedAngles, expectedSpeeds);
+
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(expectedAngles[i], angles[i], 1e-12);
+            Assert.assertEquals(expectedSpeeds[i], speeds[i], 1e-12);
+        }
+        Assert.assertEquals(46.0, SwerveMath.extrapolateHeading(37.0, 90.0, 0.1), 1e-12);
+    }
+
+    @Test
+    public void testExtrapolatedNoGyroFallsBackToRobotCentric() throws Exception {
+        SwerveMath classUnderTest = new SwerveMath(1, 1);
+        classUnderTest.setCentricMode(CentricMode.FIELD);
+        double[] angles = new double[4];
+        double[] speeds = new double[4];
+        classUnderTest.move(0.0, 1.0, 0.0, SwerveMath.NO_GYRO, 0.0, 0.0, angles, speeds);
+
+        // Result: Move right, relative to the robot
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(0.25, angles[i], 0.01);
+            Assert.assertEquals(1.0, speeds[i], 0.01);
+        }
+        Assert.assertEquals(CentricMode.FIELD, classUnderTest.getCentricMode());
+    }
 
     // Test with robot and field centric
     // Test with different width and length
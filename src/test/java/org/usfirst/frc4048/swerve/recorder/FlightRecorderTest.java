@@ -0,0 +1,156 @@
+package org.usfirst.frc4048.swerve.recorder;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.SwerveDrive;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+
+import java.io.File;
+import java.io.StringWriter;
+
+/**
+ * Testing the flight recorder, reader and CSV export
+ */
+public class FlightRecorderTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    private static final double GEAR_RATIO = 1988/1.2;
+
+    private File file;
+
+    @Before
+    public void init() throws Exception {
+        file = File.createTempFile("flight", ".bin");
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        FlightRecorder classUnderTest = new FlightRecorder(file, 2, 10);
+        FlightRecord record = new FlightRecord(2);
+        for (int i = 0; i < 5; i++) {
+            writeRecord(classUnderTest, record, i);
+        }
+        classUnderTest.close();
+
+        FlightRecordReader reader = new FlightRecordReader(file);
+        Assert.assertEquals(2, reader.getModuleCount());
+        Assert.assertEquals(5, reader.getRecordCount());
+
+        FlightRecord read = reader.newRecord();
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(reader.next(read));
+            assertRecord(read, i);
+        }
+        Assert.assertFalse(reader.next(read));
+    }
+
+    @Test
+    public void testRingOverwritesOldest() throws Exception {
+        FlightRecorder classUnderTest = new FlightRecorder(file, 2, 4);
+        FlightRecord record = new FlightRecord(2);
+        for (int i = 0; i < 11; i++) {
+            writeRecord(classUnderTest, record, i);
+        }
+        classUnderTest.close();
+
+        FlightRecordReader reader = new FlightRecordReader(file);
+        Assert.assertEquals(11, reader.getWriteCount());
+        Assert.assertEquals(4, reader.getRecordCount());
+
+        FlightRecord read = reader.newRecord();
+        for (int i = 7; i < 11; i++) {
+            Assert.assertTrue(reader.next(read));
+            assertRecord(read, i);
+        }
+        Assert.assertFalse(reader.next(read));
+
+        reader.rewind();
+        Assert.assertTrue(reader.next(read));
+        assertRecord(read, 7);
+    }
+
+    @Test
+    public void testCsvExport() throws Exception {
+        FlightRecorder classUnderTest = new FlightRecorder(file, 2, 4);
+        FlightRecord record = new FlightRecord(2);
+        writeRecord(classUnderTest, record, 1);
+        writeRecord(classUnderTest, record, 2);
+        classUnderTest.close();
+
+        StringWriter out = new StringWriter();
+        FlightRecordCsv.export(new FlightRecordReader(file), out);
+
+        String[] lines = out.toString().split("\n");
+        Assert.assertEquals(3, lines.length);
+        Assert.assertTrue(lines[0].startsWith("timestamp,cycle,fwd,str,rcw,gyro,m1_angle,m1_speed,m1_enc"));
+        Assert.assertTrue(lines[0].endsWith(",m2_reversed"));
+        Assert.assertEquals(6 + 2 * 6, lines[1].split(",").length);
+        Assert.assertTrue(lines[2].startsWith("2000,2,"));
+    }
+
+    @Test
+    public void testDriveRecording() throws Exception {
+        TestEnclosure swerveEnclosure1 = new TestEnclosure("Enclosure 1", GEAR_RATIO);
+        SwerveDrive swerveDrive = new SwerveDrive(swerveEnclosure1, new TestEnclosure("Enclosure 2", GEAR_RATIO),
+                new TestEnclosure("Enclosure 3", GEAR_RATIO), new TestEnclosure("Enclosure 4", GEAR_RATIO), W, L);
+        FlightRecorder recorder = new FlightRecorder(file, 4, 16);
+        swerveDrive.setFlightRecorder(recorder);
+
+        // Wheel at half turn: driving forward reverses it
+        swerveEnclosure1.setEncPosition(828);
+        swerveDrive.move(1.0, 0.0, 0.0, null);
+        swerveDrive.setFlightRecorder(null);
+        swerveDrive.move(0.0, 1.0, 0.0, null);
+        recorder.close();
+
+        FlightRecordReader reader = new FlightRecordReader(file);
+        Assert.assertEquals(1, reader.getRecordCount());
+
+        FlightRecord read = reader.newRecord();
+        Assert.assertTrue(reader.next(read));
+        Assert.assertEquals(1, read.getCycle());
+        Assert.assertEquals(1.0, read.getFwd(), 0.0);
+        Assert.assertTrue(Double.isNaN(read.getGyroValue()));
+        Assert.assertEquals(0.0, read.getDirectiveAngle(0), 0.0);
+        Assert.assertEquals(1.0, read.getDirectiveSpeed(0), 0.0);
+        Assert.assertEquals(828, read.getEncPosition(0));
+        Assert.assertTrue(read.isReversed(0));
+        Assert.assertEquals(-1.0, read.getTargetSpeed(0), 0.0);
+        Assert.assertFalse(read.isReversed(1));
+        Assert.assertEquals(1.0, read.getTargetSpeed(1), 0.0);
+    }
+
+    private void writeRecord(FlightRecorder recorder, FlightRecord record, int i) {
+        record.setInputs(i * 1000L, i, 0.1 * i, 0.2 * i, 0.3 * i, i);
+        for (int m = 0; m < record.getModuleCount(); m++) {
+            record.setModule(m, 0.01 * i + m, 0.5, i * 10 + m, -0.5, -0.01 * i - m, (i + m) % 2 == 0);
+        }
+        recorder.write(record);
+    }
+
+    private void assertRecord(FlightRecord record, int i) {
+        Assert.assertEquals(i * 1000L, record.getTimestamp());
+        Assert.assertEquals(i, record.getCycle());
+        Assert.assertEquals(0.1 * i, record.getFwd(), 0.0);
+        Assert.assertEquals(0.2 * i, record.getStr(), 0.0);
+        Assert.assertEquals(0.3 * i, record.getRcw(), 0.0);
+        Assert.assertEquals(i, record.getGyroValue(), 0.0);
+        for (int m = 0; m < record.getModuleCount(); m++) {
+            Assert.assertEquals(0.01 * i + m, record.getDirectiveAngle(m), 0.0);
+            Assert.assertEquals(0.5, record.getDirectiveSpeed(m), 0.0);
+            Assert.assertEquals(i * 10 + m, record.getEncPosition(m));
+            Assert.assertEquals(-0.5, record.getTargetSpeed(m), 0.0);
+            Assert.assertEquals(-0.01 * i - m, record.getTargetAngle(m), 0.0);
+            Assert.assertEquals((i + m) % 2 == 0, record.isReversed(m));
+        }
+    }
+}
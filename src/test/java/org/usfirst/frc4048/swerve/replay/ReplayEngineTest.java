@@ -0,0 +1,159 @@
+package org.usfirst.frc4048.swerve.replay;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.GyroProvider;
+import org.usfirst.frc4048.swerve.drive.SwerveDrive;
+import org.usfirst.frc4048.swerve.drive.VirtualClock;
+import org.usfirst.frc4048.swerve.drive.mockhardware.MockGyro;
+import org.usfirst.frc4048.swerve.drive.mockhardware.TestEnclosure;
+import org.usfirst.frc4048.swerve.math.CentricMode;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+import org.usfirst.frc4048.swerve.recorder.FlightRecordReader;
+import org.usfirst.frc4048.swerve.recorder.FlightRecorder;
+
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Testing the replay of recorded drive sessions
+ */
+public class ReplayEngineTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    private static final double GEAR_RATIO = 1988/1.2;
+
+    private static final int CYCLES = 500;
+
+    private File file;
+
+    @Before
+    public void init() throws Exception {
+        file = File.createTempFile("replay", ".bin");
+        recordSession();
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void testReplayMatchesRecording() throws Exception {
+        ReplayEngine classUnderTest = new ReplayEngine(SwerveKinematics.rectangle(W, L), GEAR_RATIO);
+        classUnderTest.getSwerveDrive().setCentricMode(CentricMode.FIELD);
+
+        ReplayComparator comparator = new ReplayComparator(0.0);
+        long cycles = classUnderTest.run(new FlightRecordReader(file), comparator);
+
+        Assert.assertEquals(CYCLES, cycles);
+        Assert.assertEquals(CYCLES, comparator.getCycles());
+        Assert.assertFalse(comparator.toString(), comparator.hasDiverged());
+        Assert.assertEquals(0.0, comparator.getMaxSpeedError(), 0.0);
+        Assert.assertEquals(0.0, comparator.getMaxAngleError(), 0.0);
+        Assert.assertEquals(CYCLES, classUnderTest.getClock().nanoTime() / 20000000L + 1);
+    }
+
+    @Test
+    public void testReplayReportsFirstDivergence() throws Exception {
+        // A different geometry changes the rotation angles
+        ReplayEngine classUnderTest = new ReplayEngine(SwerveKinematics.rectangle(W, 2 * L), GEAR_RATIO);
+        classUnderTest.getSwerveDrive().setCentricMode(CentricMode.FIELD);
+
+        ReplayComparator comparator = new ReplayComparator(1e-9);
+        classUnderTest.run(new FlightRecordReader(file), comparator);
+
+        Assert.assertTrue(comparator.hasDiverged());
+        Assert.assertTrue(comparator.getDivergences() > 0);
+        Assert.assertTrue(comparator.getDivergences() <= CYCLES);
+        Assert.assertEquals(1, comparator.getFirstDivergenceCycle());
+        Assert.assertTrue(comparator.getMaxAngleError() > 0.0);
+        Assert.assertTrue(comparator.getRmsAngleError() <= comparator.getMaxAngleError());
+        Assert.assertTrue(comparator.toString().contains("first at cycle 1"));
+    }
+
+    @Test
+    public void testReplayEnclosureCapturesWrites() throws Exception {
+        ReplayEngine classUnderTest = new ReplayEngine(SwerveKinematics.rectangle(W, L), GEAR_RATIO);
+
+        ReplayEnclosure enclosure = classUnderTest.getEnclosure(0);
+        enclosure.feed(828);
+        classUnderTest.getSwerveDrive().move(1.0, 0.0, 0.0, null);
+
+        Assert.assertTrue(enclosure.isReversed());
+        Assert.assertEquals(-1.0, enclosure.getSpeed(), 0.0);
+        Assert.assertEquals(1, enclosure.getSpeedWrites());
+        Assert.assertEquals(1, enclosure.getAngleWrites());
+    }
+
+    @Test
+    public void testReplayStaleGyroCycles() throws Exception {
+        File gyroFile = File.createTempFile("replay-gyro", ".bin");
+        try {
+            TestEnclosure[] enclosures = new TestEnclosure[4];
+            for (int i = 0; i < enclosures.length; i++) {
+                enclosures[i] = new TestEnclosure("Enclosure " + (i + 1), GEAR_RATIO);
+            }
+            SwerveDrive swerveDrive = new SwerveDrive(enclosures[0], enclosures[1], enclosures[2], enclosures[3], W, L);
+            swerveDrive.setCentricMode(CentricMode.FIELD);
+            VirtualClock clock = new VirtualClock(1000000000L);
+            swerveDrive.setClock(clock);
+            MockGyro gyro = new MockGyro(clock);
+            gyro.setRotation(30.0, 45.0);
+            GyroProvider provider = new GyroProvider(gyro, clock, 5000000L);
+            swerveDrive.setGyroProvider(provider, 50000000L, 20000000L);
+
+            FlightRecorder recorder = new FlightRecorder(gyroFile, 4, 100);
+            swerveDrive.setFlightRecorder(recorder);
+
+            // The gyro stops sampling for a while in the middle of the session
+            for (int cycle = 0; cycle < 100; cycle++) {
+                if (cycle < 40 || cycle >= 60) {
+                    provider.sample();
+                }
+                swerveDrive.move(0.5, 0.3, 0.2);
+                clock.advance(20000000L);
+            }
+            recorder.close();
+            Assert.assertTrue(swerveDrive.getStaleGyroCount() > 0);
+
+            ReplayEngine classUnderTest = new ReplayEngine(SwerveKinematics.rectangle(W, L), GEAR_RATIO);
+            classUnderTest.getSwerveDrive().setCentricMode(CentricMode.FIELD);
+
+            ReplayComparator comparator = new ReplayComparator(0.0);
+            Assert.assertEquals(100, classUnderTest.run(new FlightRecordReader(gyroFile), comparator));
+            Assert.assertFalse(comparator.toString(), comparator.hasDiverged());
+        } finally {
+            gyroFile.delete();
+        }
+    }
+
+    private void recordSession() throws Exception {
+        TestEnclosure[] enclosures = new TestEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            enclosures[i] = new TestEnclosure("Enclosure " + (i + 1), GEAR_RATIO);
+        }
+        SwerveDrive swerveDrive = new SwerveDrive(enclosures[0], enclosures[1], enclosures[2], enclosures[3], W, L);
+        swerveDrive.setCentricMode(CentricMode.FIELD);
+        VirtualClock clock = new VirtualClock();
+        swerveDrive.setClock(clock);
+
+        FlightRecorder recorder = new FlightRecorder(file, 4, CYCLES);
+        swerveDrive.setFlightRecorder(recorder);
+
+        Random random = new Random(4048);
+        for (int cycle = 0; cycle < CYCLES; cycle++) {
+            for (TestEnclosure enclosure : enclosures) {
+                enclosure.setEncPosition(random.nextInt(20000) - 10000);
+            }
+            double fwd = cycle % 50 == 0 ? 0.0 : random.nextDouble() * 2 - 1;
+            swerveDrive.move(fwd, random.nextDouble() * 2 - 1, random.nextDouble() * 2 - 1, random.nextDouble() * 360);
+            clock.advance(20000000L);
+        }
+        recorder.close();
+    }
+}
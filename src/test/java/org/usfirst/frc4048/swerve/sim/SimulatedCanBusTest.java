@@ -0,0 +1,164 @@
+package org.usfirst.frc4048.swerve.sim;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.drive.CanTalonSwerveEnclosure;
+import org.usfirst.frc4048.swerve.drive.SwerveDrive;
+import org.usfirst.frc4048.swerve.drive.TalonStatusFrame;
+import org.usfirst.frc4048.swerve.drive.VirtualClock;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+
+/**
+ * Testing the timing and accounting of the simulated CAN bus
+ */
+public class SimulatedCanBusTest {
+
+    private static final long SECOND = 1000000000L;
+
+    // An 8 byte extended frame with worst case stuffing is 160 bits: 160us at 1 Mbit/s
+    private static final long FRAME_NANOS = 160000L;
+
+    private VirtualClock clock;
+    private SimulatedCanBus classUnderTest;
+
+    @Before
+    public void init() throws Exception {
+        clock = new VirtualClock();
+        classUnderTest = new SimulatedCanBus(clock);
+    }
+
+    @Test
+    public void testFrameTime() throws Exception {
+        Assert.assertEquals(FRAME_NANOS, classUnderTest.getFrameNanos(8));
+        Assert.assertEquals(80000L, new SimulatedCanBus(clock, 2000000L).getFrameNanos(8));
+        Assert.assertTrue(classUnderTest.getFrameNanos(0) < FRAME_NANOS);
+    }
+
+    @Test
+    public void testQueueing() throws Exception {
+        long first = classUnderTest.send(1, 8);
+        long second = classUnderTest.send(2, 8);
+
+        Assert.assertEquals(FRAME_NANOS, first);
+        Assert.assertEquals(2 * FRAME_NANOS, second);
+        Assert.assertEquals(FRAME_NANOS, classUnderTest.getMaxQueueDelayNanos());
+        Assert.assertEquals(FRAME_NANOS / 2.0, classUnderTest.getMeanQueueDelayNanos(), 1e-9);
+
+        // The bus is free again
+        clock.advance(SECOND);
+        Assert.assertEquals(SECOND + FRAME_NANOS, classUnderTest.send(1, 8));
+    }
+
+    @Test
+    public void testPeriodicLoad() throws Exception {
+        new SimulatedTalon(classUnderTest, 1);
+        new SimulatedTalon(classUnderTest, 2);
+        clock.advance(SECOND);
+        classUnderTest.resetStatistics();
+        clock.advance(SECOND);
+
+        // Each Talon sends 100 control, 100 general, 50 feedback and 5 x 6.25 other status frames per second
+        Assert.assertEquals(281.25, classUnderTest.getFramesPerSecond(1), 4.0);
+        Assert.assertEquals(281.25, classUnderTest.getFramesPerSecond(2), 4.0);
+        Assert.assertEquals(562.5, classUnderTest.getTotalFramesPerSecond(), 8.0);
+        Assert.assertEquals(562.5 * FRAME_NANOS / (double) SECOND, classUnderTest.getUtilization(), 0.002);
+
+        // Some frames of the two Talons become ready while the bus is busy and queue behind each other
+        Assert.assertTrue(classUnderTest.getMaxQueueDelayNanos() > 0);
+        Assert.assertTrue(classUnderTest.getMaxQueueDelayNanos() < FRAME_NANOS);
+    }
+
+    @Test
+    public void testFramePeriodChange() throws Exception {
+        SimulatedTalon talon = new SimulatedTalon(classUnderTest, 1);
+        talon.setControlFramePeriod(20);
+        for (TalonStatusFrame frame : TalonStatusFrame.values()) {
+            talon.setStatusFramePeriod(frame, TalonStatusFrame.MAX_PERIOD_MS, 0);
+        }
+        talon.setStatusFramePeriod(TalonStatusFrame.FEEDBACK, 10, 10);
+
+        Assert.assertEquals(20, talon.getControlFramePeriod());
+        Assert.assertEquals(10, talon.getStatusFramePeriod(TalonStatusFrame.FEEDBACK));
+        Assert.assertEquals(255, talon.getStatusFramePeriod(TalonStatusFrame.GENERAL));
+
+        clock.advance(SECOND);
+        classUnderTest.resetStatistics();
+        clock.advance(SECOND);
+
+        // 50 control, 100 feedback and 6 x 3.92 other status frames per second
+        Assert.assertEquals(173.5, classUnderTest.getFramesPerSecond(1), 4.0);
+    }
+
+    @Test
+    public void testFramePeriodTimeout() throws Exception {
+        classUnderTest.setDeviceLatency(20000000L);
+        SimulatedTalon talon = new SimulatedTalon(classUnderTest, 1);
+
+        // Not confirmed: the period is unchanged
+        talon.setStatusFramePeriod(TalonStatusFrame.FEEDBACK, 100, 10);
+        Assert.assertEquals(20, talon.getStatusFramePeriod(TalonStatusFrame.FEEDBACK));
+
+        // Sent without waiting
+        talon.setStatusFramePeriod(TalonStatusFrame.FEEDBACK, 100, 0);
+        Assert.assertEquals(100, talon.getStatusFramePeriod(TalonStatusFrame.FEEDBACK));
+    }
+
+    @Test
+    public void testRequestLatency() throws Exception {
+        classUnderTest.setDeviceLatency(500000L);
+        SimulatedTalon talon = new SimulatedTalon(classUnderTest, 3);
+
+        // Request, device latency, response
+        long start = clock.nanoTime();
+        talon.setSelectedSensorPosition(1234, 10);
+        Assert.assertEquals(1234, talon.getSelectedSensorPosition());
+        Assert.assertEquals(FRAME_NANOS + 500000L + FRAME_NANOS, clock.nanoTime() - start);
+
+        // A frame already on the bus delays the request
+        clock.advance(SECOND);
+        classUnderTest.send(4, 8);
+        start = clock.nanoTime();
+        talon.setSelectedSensorPosition(4321, 10);
+        Assert.assertEquals(4321, talon.getSelectedSensorPosition());
+        Assert.assertEquals(2 * FRAME_NANOS + 500000L + FRAME_NANOS, clock.nanoTime() - start);
+    }
+
+    @Test
+    public void testRequestTimeout() throws Exception {
+        classUnderTest.setDeviceLatency(20000000L);
+        SimulatedTalon talon = new SimulatedTalon(classUnderTest, 3);
+
+        long start = clock.nanoTime();
+        talon.setSelectedSensorPosition(1234, 10);
+        Assert.assertEquals(0, talon.getSelectedSensorPosition());
+        Assert.assertEquals(10000000L, clock.nanoTime() - start);
+    }
+
+    @Test
+    public void testEnclosureTraffic() throws Exception {
+        SimulatedTalon[] talons = new SimulatedTalon[8];
+        CanTalonSwerveEnclosure[] enclosures = new CanTalonSwerveEnclosure[4];
+        for (int i = 0; i < enclosures.length; i++) {
+            talons[2 * i] = new SimulatedTalon(classUnderTest, 2 * i + 1);
+            talons[2 * i + 1] = new SimulatedTalon(classUnderTest, 2 * i + 2);
+            enclosures[i] = new CanTalonSwerveEnclosure("Enclosure " + (i + 1), talons[2 * i], talons[2 * i + 1], 4096);
+        }
+        SwerveDrive swerveDrive = new SwerveDrive(enclosures, SwerveKinematics.rectangle(27.5, 19));
+        swerveDrive.setClock(clock);
+
+        classUnderTest.resetStatistics();
+        for (int i = 0; i < 50; i++) {
+            swerveDrive.move(1.0, 0.0, 0.0, 0.0);
+            clock.advance(SECOND / 50);
+        }
+
+        // Periodic frames plus one setpoint frame per cycle, for the drive and the steer controllers
+        for (int device = 1; device <= 8; device++) {
+            Assert.assertEquals(331.25, classUnderTest.getFramesPerSecond(device), 4.0);
+        }
+        Assert.assertFalse(talons[0].isPositionMode());
+        Assert.assertEquals(1.0, talons[0].getSetpoint(), 1e-9);
+        Assert.assertTrue(talons[1].isPositionMode());
+    }
+}
@@ -0,0 +1,138 @@
+package org.usfirst.frc4048.swerve.sim;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.usfirst.frc4048.swerve.math.CentricMode;
+import org.usfirst.frc4048.swerve.math.SwerveKinematics;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Testing the simulated robot dynamics and the parallel stepping
+ */
+public class SimulatedRobotTest {
+
+    private static final double L = 19;
+    private static final double W = 27.5;
+
+    private static final double GEAR_RATIO = 1988/1.2;
+
+    // 150 inches per second at full speed
+    private static final double MAX_SPEED = 150;
+    private static final double PERIOD = 0.02;
+
+    @Test
+    public void testDriveForward() throws Exception {
+        SimulatedRobot classUnderTest = newRobot(0.05, 0.05, 0);
+
+        classUnderTest.setCommand(1.0, 0.0, 0.0);
+        classUnderTest.step(50);
+
+        // One second at full speed, minus the time constant to get up to speed
+        Assert.assertEquals(MAX_SPEED * (1 - 0.05), classUnderTest.getY(), 1.0);
+        Assert.assertEquals(0.0, classUnderTest.getX(), 1e-9);
+        Assert.assertEquals(0.0, classUnderTest.getHeading(), 1e-9);
+        Assert.assertEquals(MAX_SPEED, classUnderTest.getEnclosure(0).getWheelSpeed(), 0.01);
+        Assert.assertEquals(50, classUnderTest.getSteps());
+        Assert.assertEquals(1000000000L, classUnderTest.getClock().nanoTime());
+    }
+
+    @Test
+    public void testSteerBeforeStrafing() throws Exception {
+        SimulatedRobot classUnderTest = newRobot(0.05, 0.1, 0);
+
+        classUnderTest.setCommand(0.0, 1.0, 0.0);
+        classUnderTest.step(1);
+        // The wheels are still mostly forward: the robot moves forward more than it strafes
+        Assert.assertTrue(classUnderTest.getY() > 0.0);
+
+        classUnderTest.step(99);
+        SimulatedEnclosure enclosure = classUnderTest.getEnclosure(0);
+        Assert.assertEquals(0.25, enclosure.getSteerAngle(), 1e-4);
+        Assert.assertEquals(0.25 * GEAR_RATIO, enclosure.getSnapshot().getEncPosition(), 1.0);
+        Assert.assertTrue(classUnderTest.getX() > MAX_SPEED);
+    }
+
+    @Test
+    public void testRotateInPlace() throws Exception {
+        SimulatedRobot classUnderTest = newRobot(0.0, 0.0, 0);
+
+        classUnderTest.setCommand(0.0, 0.0, 1.0);
+        classUnderTest.step(50);
+
+        // The wheels are on a circle of half the diagonal, driving at full speed (after the first sub-step):
+        // clockwise, no translation
+        double radius = Math.sqrt(W * W + L * L) / 2;
+        Assert.assertEquals(Math.toDegrees(MAX_SPEED / radius), classUnderTest.getHeading(), 2.0);
+        Assert.assertEquals(0.0, classUnderTest.getX(), 1e-6);
+        Assert.assertEquals(0.0, classUnderTest.getY(), 1e-6);
+    }
+
+    @Test
+    public void testFieldCentricUsesSimulatedHeading() throws Exception {
+        SimulatedRobot classUnderTest = newRobot(0.0, 0.0, 0);
+        classUnderTest.getSwerveDrive().setCentricMode(CentricMode.FIELD);
+        classUnderTest.reset(0.0, 0.0, 90.0);
+        for (int i = 0; i < classUnderTest.getModuleCount(); i++) {
+            classUnderTest.getEnclosure(i).reset(-0.25);
+        }
+
+        // Facing right, driving down the field
+        classUnderTest.setCommand(1.0, 0.0, 0.0);
+        classUnderTest.step(10);
+
+        Assert.assertEquals(0.0, classUnderTest.getX(), 1e-6);
+        // Minus half a sub-step to get up to speed
+        Assert.assertEquals(MAX_SPEED * (10 * PERIOD - PERIOD / 4 / 2), classUnderTest.getY(), 1e-6);
+        Assert.assertEquals(90.0, classUnderTest.getHeading(), 1e-9);
+    }
+
+    @Test
+    public void testLatency() throws Exception {
+        // Three control cycles of 4 sub-steps
+        SimulatedRobot classUnderTest = newRobot(0.0, 0.0, 12);
+
+        classUnderTest.setCommand(1.0, 0.0, 0.0);
+        classUnderTest.step(3);
+        Assert.assertEquals(0.0, classUnderTest.getEnclosure(0).getWheelSpeed(), 0.0);
+        classUnderTest.step(1);
+        Assert.assertEquals(MAX_SPEED, classUnderTest.getEnclosure(0).getWheelSpeed(), 0.0);
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws Exception {
+        int count = 500;
+        SimulatedRobot[] parallel = new SimulatedRobot[count];
+        SimulatedRobot[] sequential = new SimulatedRobot[count];
+        for (int i = 0; i < count; i++) {
+            parallel[i] = newRobot(0.05, 0.05, 1);
+            sequential[i] = newRobot(0.05, 0.05, 1);
+            double fwd = Math.sin(i);
+            double str = Math.cos(i * 3);
+            double rcw = Math.sin(i * 7) / 2;
+            parallel[i].setCommand(fwd, str, rcw);
+            sequential[i].setCommand(fwd, str, rcw);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelSimulator classUnderTest = new ParallelSimulator(parallel, pool, 8);
+        for (int i = 0; i < 10; i++) {
+            classUnderTest.step(5);
+        }
+        pool.shutdown();
+
+        for (int i = 0; i < count; i++) {
+            sequential[i].step(50);
+            Assert.assertEquals(50, parallel[i].getSteps());
+            Assert.assertEquals(sequential[i].getX(), parallel[i].getX(), 0.0);
+            Assert.assertEquals(sequential[i].getY(), parallel[i].getY(), 0.0);
+            Assert.assertEquals(sequential[i].getHeading(), parallel[i].getHeading(), 0.0);
+        }
+    }
+
+    private SimulatedRobot newRobot(double driveTimeConstant, double steerTimeConstant, int latencySteps) {
+        ModuleModel model = new ModuleModel(GEAR_RATIO, MAX_SPEED, driveTimeConstant, steerTimeConstant,
+                latencySteps, 1);
+        return new SimulatedRobot(SwerveKinematics.rectangle(W, L), model, PERIOD, 4);
+    }
+}